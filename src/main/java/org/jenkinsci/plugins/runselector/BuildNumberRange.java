@@ -0,0 +1,147 @@
+package org.jenkinsci.plugins.runselector;
+
+import org.jenkinsci.plugins.runselector.index.BuildIndex;
+import org.jenkinsci.plugins.runselector.index.IndexCondition;
+
+import javax.annotation.Nonnull;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A range of build numbers specified for selectors and filters.
+ * <p>
+ * Accepts:
+ * <ul>
+ *     <li>A build number (e.g. {@code 100}).</li>
+ *     <li>Build numbers from and to, inclusive (e.g. {@code 100-200}, {@code 100..200}, {@code 100..}, {@code ..200}).</li>
+ *     <li>A comparison (e.g. {@code <= 200}, {@code > 100}).</li>
+ * </ul>
+ * {@code last} and {@code last-N} can be used in place of build numbers (e.g. {@code last-50..last}).
+ */
+public final class BuildNumberRange {
+    private static final String BOUND = "(\\d+|last(?:\\s*-\\s*\\d+)?)";
+    private static final Pattern SINGLE = Pattern.compile(BOUND);
+    private static final Pattern HYPHEN = Pattern.compile("(\\d+)\\s*-\\s*(\\d+)");
+    private static final Pattern DOTS = Pattern.compile(BOUND + "?\\s*\\.\\.\\s*" + BOUND + "?");
+    private static final Pattern COMPARISON = Pattern.compile("(<=|<|>=|>)\\s*" + BOUND);
+    private static final Pattern LAST = Pattern.compile("last(?:\\s*-\\s*(\\d+))?");
+
+    private final int from;
+    private final int to;
+
+    private BuildNumberRange(int from, int to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * @param expression the expression, variables expanded
+     * @param lastNumber the number of the last build of the job, used for {@code last}
+     * @return the range
+     * @throws IllegalArgumentException if the expression is malformed
+     */
+    @Nonnull
+    public static BuildNumberRange parse(@Nonnull String expression, int lastNumber) {
+        String value = expression.trim();
+        Matcher m = SINGLE.matcher(value);
+        if (m.matches()) {
+            int number = parseBound(m.group(1), lastNumber, expression);
+            return new BuildNumberRange(number, number);
+        }
+        m = HYPHEN.matcher(value);
+        if (m.matches()) {
+            return new BuildNumberRange(
+                    parseBound(m.group(1), lastNumber, expression),
+                    parseBound(m.group(2), lastNumber, expression)
+            );
+        }
+        m = DOTS.matcher(value);
+        if (m.matches()) {
+            return new BuildNumberRange(
+                    (m.group(1) != null) ? parseBound(m.group(1), lastNumber, expression) : 1,
+                    (m.group(2) != null) ? parseBound(m.group(2), lastNumber, expression) : Integer.MAX_VALUE
+            );
+        }
+        m = COMPARISON.matcher(value);
+        if (m.matches()) {
+            int number = parseBound(m.group(2), lastNumber, expression);
+            switch (m.group(1)) {
+                case "<=":
+                    return new BuildNumberRange(1, number);
+                case "<":
+                    return new BuildNumberRange(1, number - 1);
+                case ">=":
+                    return new BuildNumberRange(number, Integer.MAX_VALUE);
+                default:
+                    // >
+                    return new BuildNumberRange((number < Integer.MAX_VALUE) ? number + 1 : number, Integer.MAX_VALUE);
+            }
+        }
+        throw new IllegalArgumentException(Messages.BuildNumberRange_Invalid(expression));
+    }
+
+    private static int parseBound(@Nonnull String bound, int lastNumber, @Nonnull String expression) {
+        try {
+            Matcher last = LAST.matcher(bound);
+            if (last.matches()) {
+                return (last.group(1) != null) ? lastNumber - Integer.parseInt(last.group(1)) : lastNumber;
+            }
+            return Integer.parseInt(bound);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(Messages.BuildNumberRange_Invalid(expression), e);
+        }
+    }
+
+    /**
+     * @param expression the expression, may contain variables
+     * @return whether the expression depends on the last build or variables
+     */
+    public static boolean isRelative(@Nonnull String expression) {
+        return expression.contains("$") || expression.contains("last");
+    }
+
+    /**
+     * @return the lowest build number, inclusive
+     */
+    public int getFrom() {
+        return from;
+    }
+
+    /**
+     * @return the highest build number, inclusive
+     */
+    public int getTo() {
+        return to;
+    }
+
+    /**
+     * @param number a build number
+     * @return whether the range contains the number
+     */
+    public boolean contains(int number) {
+        return from <= number && number <= to;
+    }
+
+    /**
+     * @return the condition seeking builds in the range
+     */
+    @Nonnull
+    public IndexCondition toIndexCondition() {
+        return new IndexCondition() {
+            @Override
+            public int seek(@Nonnull BuildIndex index, int before) {
+                int position = index.positionBefore((int) Math.min(before, (long) to + 1));
+                if (position < 0) {
+                    return -1;
+                }
+                int number = index.numberAt(position);
+                return (number >= from) ? number : -1;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return from + ".." + to;
+    }
+}
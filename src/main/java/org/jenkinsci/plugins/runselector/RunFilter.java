@@ -32,7 +32,12 @@ import hudson.model.Run;
 import jenkins.model.Jenkins;
 import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
 import org.jenkinsci.plugins.runselector.filters.NoRunFilter;
+import org.jenkinsci.plugins.runselector.index.IndexCondition;
+import org.jenkinsci.plugins.runselector.metrics.SelectionEvents;
+import org.jenkinsci.plugins.runselector.metrics.SelectionMetrics;
+import org.jenkinsci.plugins.runselector.metrics.SelectionProfiler;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
 import java.util.List;
@@ -52,7 +57,76 @@ public abstract class RunFilter extends AbstractDescribableImpl<RunFilter> imple
     public boolean isSelectable(@Nonnull Run<?, ?> candidate, @Nonnull RunSelectorContext context) {
         return true;
     }
+
+    /**
+     * Evaluates {@link #isSelectable(Run, RunSelectorContext)} and records its statistics
+     * to {@link SelectionMetrics}, {@link SelectionEvents} and {@link SelectionProfiler}.
+     * Callers, including filters composed of other filters, should use this
+     * instead of calling {@link #isSelectable(Run, RunSelectorContext)} directly.
+     *
+     * @param candidate the build to check
+     * @param context the context of current runselector execution.
+     * @return whether this build can be selected.
+     */
+    public final boolean evaluate(@Nonnull Run<?, ?> candidate, @Nonnull RunSelectorContext context) {
+        Object event = SelectionEvents.beginFilter();
+        SelectionProfiler profiler = SelectionProfiler.enterFilter(this, context);
+        long start = System.nanoTime();
+        boolean selectable = false;
+        try {
+            selectable = isSelectable(candidate, context);
+        } finally {
+            long nanos = System.nanoTime() - start;
+            SelectionMetrics.get().recordFilter(this, nanos, selectable);
+            SelectionEvents.commitFilter(event, this, candidate, selectable);
+            if (profiler != null) {
+                profiler.exitFilter(nanos, selectable);
+            }
+        }
+        return selectable;
+    }
     
+    /**
+     * Whether the result of this filter can be reused by later selections
+     * with {@link org.jenkinsci.plugins.runselector.watermark.SelectionWatermarks}.
+     * Return {@code true} only if {@link #isSelectable(Run, RunSelectorContext)} depends only on
+     * the state of the candidate saved with the build, not on the context.
+     *
+     * @return whether this filter can be used for incremental selections.
+     */
+    public boolean isIncremental() {
+        return false;
+    }
+
+    /**
+     * Whether this filter declines the candidate and all builds older than it,
+     * so that selections enumerating builds from newer to older stop early
+     * instead of examining builds down to the first one.
+     * See {@link RunSelector#isDescending()}.
+     *
+     * @param candidate the build enumerated
+     * @param context the context of current runselector execution.
+     * @return whether neither the candidate nor older builds can be selected.
+     */
+    public boolean isExhausted(@Nonnull Run<?, ?> candidate, @Nonnull RunSelectorContext context) {
+        return false;
+    }
+
+    /**
+     * Describes builds this filter may accept as a condition on {@link org.jenkinsci.plugins.runselector.index.BuildIndex},
+     * to skip builds without loading them.
+     * The condition may accept builds this filter declines,
+     * as {@link #isSelectable(Run, RunSelectorContext)} is still evaluated,
+     * but must not decline builds this filter accepts.
+     *
+     * @param context the context of current runselector execution.
+     * @return the condition, {@code null} if builds can't be skipped with indexes.
+     */
+    @CheckForNull
+    public IndexCondition getIndexCondition(@Nonnull RunSelectorContext context) {
+        return null;
+    }
+
     /**
      * {@inheritDoc}
      */
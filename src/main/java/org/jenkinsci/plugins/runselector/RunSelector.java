@@ -24,14 +24,28 @@
 package org.jenkinsci.plugins.runselector;
 
 import hudson.ExtensionPoint;
+import hudson.Util;
 import hudson.model.AbstractDescribableImpl;
 import hudson.model.Job;
 import hudson.model.Run;
 import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.index.IndexCondition;
+import org.jenkinsci.plugins.runselector.index.IndexedEnumeration;
+import org.jenkinsci.plugins.runselector.metrics.SelectionEvents;
+import org.jenkinsci.plugins.runselector.metrics.SelectionMetrics;
+import org.jenkinsci.plugins.runselector.metrics.SelectionProfiler;
+import org.jenkinsci.plugins.runselector.watermark.SelectionWatermarks;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Extension point for enumerating builds to copy artifacts from.
@@ -41,6 +55,19 @@ import java.io.IOException;
  * @author Alan Harder
  */
 public abstract class RunSelector extends AbstractDescribableImpl<RunSelector> implements ExtensionPoint {
+    /**
+     * Whether a subclass overrides {@link #select(Job, RunSelectorContext)}
+     * without overriding {@link #selectNext(Job, RunSelectorContext)}.
+     * Such selectors don't support enumerating multiple builds.
+     */
+    private static final ClassValue<Boolean> SELECT_ONLY = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return Util.isOverridden(RunSelector.class, type, "select", Job.class, RunSelectorContext.class)
+                    && !Util.isOverridden(RunSelector.class, type, "selectNext", Job.class, RunSelectorContext.class);
+        }
+    };
+
     /**
      * @param job       the job to pick a build from.
      * @param context   context for the current execution of runselector.
@@ -53,25 +80,142 @@ public abstract class RunSelector extends AbstractDescribableImpl<RunSelector> i
             throws IOException, InterruptedException
     {
         context.setLastMatchBuild(null);
-        while (true) {
-            Run<?, ?> candidate = getNextBuild(job, context);
-            context.setLastMatchBuild(candidate);
-            if (candidate == null) {
-                context.logDebug("{0}: No more matching builds.", getDisplayName());
+        if (SELECT_ONLY.get(getClass())) {
+            // called via super.select() from a subclass.
+            return selectMatching(job, context);
+        }
+        return selectNext(job, context);
+    }
+
+    /**
+     * Continues the selection from {@link RunSelectorContext#getLastMatchBuild()}.
+     * Starts from the beginning if there's no last match.
+     * Selectors overriding {@link #select(Job, RunSelectorContext)}
+     * should override this method instead to support {@link #stream(Job, RunSelectorContext)}.
+     *
+     * @param job       the job to pick a build from.
+     * @param context   context for the current execution of runselector.
+     * @return  the next build matches this selectors and conditions stored in the context.
+     *      {@code null} if no more builds match.
+     * @throws IOException if an error occurs while performing the operation.
+     * @throws InterruptedException if any thread interrupts the current thread.
+     */
+    @CheckForNull
+    public Run<?, ?> selectNext(@Nonnull Job<?,?> job, @Nonnull RunSelectorContext context)
+            throws IOException, InterruptedException
+    {
+        if (SELECT_ONLY.get(getClass())) {
+            // legacy selectors can select only one build.
+            if (context.getLastMatchBuild() != null) {
+                context.setLastMatchBuild(null);
                 return null;
             }
-            context.logDebug("{0}: {1} found", getDisplayName(), candidate.getDisplayName());
-            RunFilter filter = context.getRunFilter();
-            if (!filter.isSelectable(candidate, context)) {
-                context.logDebug(
-                        "{0}: declined by the filter {1}",
-                        candidate.getFullDisplayName(),
-                        filter.getDisplayName()
-                );
-                continue;
+            Run<?, ?> selected = select(job, context);
+            context.setLastMatchBuild(selected);
+            return selected;
+        }
+        return selectMatching(job, context);
+    }
+
+    /**
+     * Enumerates builds matching this selector and conditions stored in the context lazily,
+     * the same build as {@link #select(Job, RunSelectorContext)} first.
+     * The state of the selector is kept in the context between builds,
+     * so the context must not be used for other selections until the stream is consumed.
+     * <p>
+     * {@link IOException} is thrown as {@link UncheckedIOException},
+     * and {@link InterruptedException} as {@link CancellationException}
+     * with the interrupted flag of the thread set.
+     *
+     * @param job       the job to pick builds from.
+     * @param context   context for the current execution of runselector.
+     * @return  the stream of matching builds.
+     */
+    @Nonnull
+    public Stream<Run<?, ?>> stream(@Nonnull Job<?, ?> job, @Nonnull RunSelectorContext context) {
+        return StreamSupport.stream(new MatchSpliterator(this, job, context), false);
+    }
+
+    @CheckForNull
+    private Run<?, ?> selectMatching(@Nonnull Job<?,?> job, @Nonnull RunSelectorContext context)
+            throws IOException, InterruptedException
+    {
+        SelectionMetrics metrics = SelectionMetrics.get();
+        Object event = SelectionEvents.beginSelection();
+        SelectionProfiler profiler = SelectionProfiler.enterSelector(job, this, context);
+        SelectionWatermarks.Scan scan = (context.getLastMatchBuild() == null)
+                ? SelectionWatermarks.begin(job, this, context)
+                : null;
+        IndexedEnumeration indexed = IndexedEnumeration.begin(job, this, context);
+        boolean descending = (indexed != null) || isDescending();
+        long start = System.nanoTime();
+        int candidates = 0;
+        Run<?, ?> selected = null;
+        try {
+            while (true) {
+                long nextBuildStart = System.nanoTime();
+                Run<?, ?> candidate = (indexed != null) ? indexed.next(context) : getNextBuild(job, context);
+                long nextBuildNanos = System.nanoTime() - nextBuildStart;
+                metrics.recordNextBuild(this, nextBuildNanos);
+                if (profiler != null) {
+                    profiler.recordNextBuild(nextBuildNanos, candidate);
+                }
+                if (scan != null && candidate != null && scan.covers(candidate)) {
+                    // older builds are already examined by a previous selection.
+                    candidate = scan.getMatch();
+                    SelectionProfiler.recordCacheHit(context);
+                    context.logDebug("{0}: reused the result of the previous selection.", getDisplayName());
+                    context.setLastMatchBuild(candidate);
+                    scan.finish(candidate);
+                    selected = candidate;
+                    return candidate;
+                }
+                context.setLastMatchBuild(candidate);
+                if (candidate == null) {
+                    context.logDebug("{0}: No more matching builds.", getDisplayName());
+                    if (scan != null) {
+                        scan.finish(null);
+                    }
+                    return null;
+                }
+                ++candidates;
+                context.logDebug("{0}: {1} found", getDisplayName(), candidate.getDisplayName());
+                RunFilter filter = context.getRunFilter();
+                if (descending && filter.isExhausted(candidate, context)) {
+                    context.logDebug(
+                            "{0}: the filter {1} declines {2} and older builds.",
+                            getDisplayName(),
+                            filter.getDisplayName(),
+                            candidate.getFullDisplayName()
+                    );
+                    context.setLastMatchBuild(null);
+                    if (scan != null) {
+                        scan.finish(null);
+                    }
+                    return null;
+                }
+                if (!filter.evaluate(candidate, context)) {
+                    context.logDebug(
+                            "{0}: declined by the filter {1}",
+                            candidate.getFullDisplayName(),
+                            filter.getDisplayName()
+                    );
+                    continue;
+                }
+                context.logDebug("{0}: satisfied conditions.", candidate.getFullDisplayName());
+                if (scan != null) {
+                    scan.finish(candidate);
+                }
+                selected = candidate;
+                return candidate;
+            }
+        } finally {
+            long nanos = System.nanoTime() - start;
+            metrics.recordSelection(this, nanos, candidates, selected != null);
+            SelectionEvents.commitSelection(event, job, this, selected, candidates);
+            if (profiler != null) {
+                profiler.exitSelector(context, nanos, selected);
             }
-            context.logDebug("{0}: satisfied conditions.", candidate.getFullDisplayName());
-            return candidate;
         }
     }
 
@@ -97,6 +241,44 @@ public abstract class RunSelector extends AbstractDescribableImpl<RunSelector> i
         return null;
     }
 
+    /**
+     * Whether a selection can reuse the result of a previous selection for old builds
+     * with {@link SelectionWatermarks}.
+     * Return {@code true} only if {@link #getNextBuild(Job, RunSelectorContext)} enumerates builds
+     * from newer to older, depending only on {@link RunSelectorContext#getLastMatchBuild()}
+     * and the state of builds, not on other values of the context.
+     *
+     * @return whether this selector can be used for incremental selections.
+     */
+    public boolean isIncremental() {
+        return false;
+    }
+
+    /**
+     * Whether {@link #getNextBuild(Job, RunSelectorContext)} enumerates builds from newer to older,
+     * so that the selection stops when {@link RunFilter#isExhausted(Run, RunSelectorContext)}.
+     * Defaults to {@link #isIncremental()}, which requires the same order.
+     *
+     * @return whether this selector enumerates builds from newer to older.
+     */
+    public boolean isDescending() {
+        return isIncremental();
+    }
+
+    /**
+     * Describes builds this selector enumerates as a condition on {@link org.jenkinsci.plugins.runselector.index.BuildIndex},
+     * to find them without loading builds in between.
+     * Return a condition only if {@link #getNextBuild(Job, RunSelectorContext)} enumerates
+     * all builds satisfying the condition from newer to older and no other builds.
+     *
+     * @param context   context for the current execution of runselector.
+     * @return the condition, {@code null} if builds can't be enumerated with indexes.
+     */
+    @CheckForNull
+    public IndexCondition getIndexCondition(@Nonnull RunSelectorContext context) {
+        return null;
+    }
+
     /**
      * Returns the display name for this selector.
      * You can override this to output configurations of this selector
@@ -114,4 +296,50 @@ public abstract class RunSelector extends AbstractDescribableImpl<RunSelector> i
             return getClass().getName();
         }
     }
+
+    /**
+     * Enumerates builds with {@link RunSelector#selectNext(Job, RunSelectorContext)}.
+     */
+    private static class MatchSpliterator extends Spliterators.AbstractSpliterator<Run<?, ?>> {
+        private final RunSelector selector;
+        private final Job<?, ?> job;
+        private final RunSelectorContext context;
+        private boolean started;
+        private boolean finished;
+
+        MatchSpliterator(@Nonnull RunSelector selector, @Nonnull Job<?, ?> job, @Nonnull RunSelectorContext context) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.selector = selector;
+            this.job = job;
+            this.context = context;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Run<?, ?>> action) {
+            if (finished) {
+                return false;
+            }
+            Run<?, ?> next;
+            try {
+                if (!started) {
+                    context.setLastMatchBuild(null);
+                    started = true;
+                }
+                next = selector.selectNext(job, context);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                CancellationException x = new CancellationException(e.getMessage());
+                x.initCause(e);
+                throw x;
+            }
+            if (next == null) {
+                finished = true;
+                return false;
+            }
+            action.accept(next);
+            return true;
+        }
+    }
 }
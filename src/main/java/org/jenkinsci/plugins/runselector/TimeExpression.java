@@ -0,0 +1,105 @@
+package org.jenkinsci.plugins.runselector;
+
+import javax.annotation.Nonnull;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Points of time specified for selectors and filters comparing start times of builds.
+ * <p>
+ * Accepts:
+ * <ul>
+ *     <li>Milliseconds from the epoch (e.g. {@code 1500000000000}).</li>
+ *     <li>A date and time in ISO-8601, in the time zone of Jenkins if no offset is specified
+ *     (e.g. {@code 2017-07-14T14:00}, {@code 2017-07-14 14:00:00}, {@code 2017-07-14T14:00+09:00}, {@code 2017-07-14}).</li>
+ *     <li>A duration before now, in {@code ms}, {@code s}, {@code m}, {@code h}, {@code d} or {@code w}
+ *     (e.g. {@code 24h} for 24 hours ago).</li>
+ * </ul>
+ */
+public final class TimeExpression {
+    private static final Pattern EPOCH = Pattern.compile("\\d{10,}");
+    private static final Pattern DURATION = Pattern.compile("(\\d+)\\s*(ms|s|m|h|d|w)");
+
+    private TimeExpression() {
+    }
+
+    /**
+     * @param expression the expression, variables expanded
+     * @param now        the current time, in milliseconds
+     * @return the time, in milliseconds
+     * @throws IllegalArgumentException if the expression is malformed
+     */
+    public static long parse(@Nonnull String expression, long now) {
+        String value = expression.trim();
+        if (EPOCH.matcher(value).matches()) {
+            return Long.parseLong(value);
+        }
+        Matcher duration = DURATION.matcher(value);
+        if (duration.matches()) {
+            return now - toMillis(Long.parseLong(duration.group(1)), duration.group(2));
+        }
+        String dateTime = value.replace(' ', 'T');
+        try {
+            return OffsetDateTime.parse(dateTime).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            // without offsets.
+        }
+        try {
+            return LocalDateTime.parse(dateTime).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            // without time.
+        }
+        try {
+            return LocalDate.parse(dateTime).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(Messages.TimeExpression_Invalid(expression), e);
+        }
+    }
+
+    /**
+     * Parses a duration in {@code ms}, {@code s}, {@code m}, {@code h}, {@code d} or {@code w} (e.g. {@code 10m}).
+     *
+     * @param expression the expression, variables expanded
+     * @return the duration, in milliseconds
+     * @throws IllegalArgumentException if the expression is malformed
+     */
+    public static long parseDuration(@Nonnull String expression) {
+        Matcher duration = DURATION.matcher(expression.trim());
+        if (!duration.matches()) {
+            throw new IllegalArgumentException(Messages.TimeExpression_InvalidDuration(expression));
+        }
+        return toMillis(Long.parseLong(duration.group(1)), duration.group(2));
+    }
+
+    /**
+     * @param expression the expression, may contain variables
+     * @return whether the expression always points the same time
+     */
+    public static boolean isAbsolute(@Nonnull String expression) {
+        return !expression.contains("$") && !DURATION.matcher(expression.trim()).matches();
+    }
+
+    private static long toMillis(long amount, @Nonnull String unit) {
+        switch (unit) {
+            case "ms":
+                return amount;
+            case "s":
+                return TimeUnit.SECONDS.toMillis(amount);
+            case "m":
+                return TimeUnit.MINUTES.toMillis(amount);
+            case "h":
+                return TimeUnit.HOURS.toMillis(amount);
+            case "d":
+                return TimeUnit.DAYS.toMillis(amount);
+            default:
+                // w
+                return TimeUnit.DAYS.toMillis(amount * 7);
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package org.jenkinsci.plugins.runselector.filters;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Run;
+import hudson.util.FormValidation;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunFilterDescriptor;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.index.BuildIndex;
+import org.jenkinsci.plugins.runselector.index.BuildIndexes;
+import org.jenkinsci.plugins.runselector.index.BuildTags;
+import org.jenkinsci.plugins.runselector.index.IndexCondition;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Accepts builds having artifacts matching each of comma-separated Ant-style patterns (e.g. {@code dist/*.zip}).
+ * <p>
+ * Artifacts are matched against the list recorded in {@link BuildIndex} when builds complete,
+ * so that archive directories aren't listed during selections.
+ * Patterns are compiled once for each expression resolved.
+ */
+public class ArtifactRunFilter extends RunFilter {
+    @Nonnull
+    private final String artifacts;
+
+    /**
+     * Patterns compiled last time.
+     */
+    @CheckForNull
+    private transient volatile Compiled compiled;
+
+    /**
+     * @param artifacts comma-separated patterns of artifacts
+     */
+    @DataBoundConstructor
+    public ArtifactRunFilter(@CheckForNull String artifacts) {
+        this.artifacts = Util.fixNull(artifacts).trim();
+    }
+
+    /**
+     * @return comma-separated patterns of artifacts. May include variable expression.
+     */
+    @Nonnull
+    public String getArtifacts() {
+        return artifacts;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isSelectable(@Nonnull Run<?, ?> candidate, @Nonnull RunSelectorContext context) {
+        List<Pattern> patterns = resolve(context);
+        if (patterns == null) {
+            return false;
+        }
+        List<String> paths = recordedArtifactsOf(candidate);
+        boolean recorded = (paths != null);
+        if (!recorded) {
+            paths = new ArrayList<String>();
+            for (Run<?, ?>.Artifact artifact : candidate.getArtifacts()) {
+                paths.add(artifact.relativePath);
+            }
+        }
+        for (Pattern pattern : patterns) {
+            String path = findMatching(pattern, paths);
+            if (path == null) {
+                return false;
+            }
+            if (recorded && !exists(candidate, path, context)) {
+                // artifacts were deleted after recorded.
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return relative paths of artifacts recorded in the index, {@code null} if not available.
+     */
+    @CheckForNull
+    private static List<String> recordedArtifactsOf(@Nonnull Run<?, ?> candidate) {
+        BuildIndexes indexes = BuildIndexes.get();
+        BuildIndex index = (indexes != null) ? indexes.getIndex(candidate.getParent()) : null;
+        if (index == null) {
+            return null;
+        }
+        index.readLock().lock();
+        try {
+            int position = index.positionOf(candidate.getNumber());
+            if (position < 0 || index.isBuildingAt(position) || index.hasTagAt(position, BuildTags.ARTIFACTS_OMITTED)) {
+                return null;
+            }
+            return index.tagsAt(position, BuildTags.ARTIFACT);
+        } finally {
+            index.readLock().unlock();
+        }
+    }
+
+    private boolean exists(@Nonnull Run<?, ?> candidate, @Nonnull String path, @Nonnull RunSelectorContext context) {
+        try {
+            return candidate.getArtifactManager().root().child(path).isFile();
+        } catch (IOException e) {
+            context.logException(String.format("%s: Failed to check %s of %s", getDisplayName(), path, candidate.getFullDisplayName()), e);
+            return false;
+        }
+    }
+
+    @CheckForNull
+    private static String findMatching(@Nonnull Pattern pattern, @Nonnull List<String> paths) {
+        for (String path : paths) {
+            if (pattern.matcher(path).matches()) {
+                return path;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Seeks builds with artifacts matching all patterns,
+     * looking up artifacts recorded in the index once for each pattern.
+     */
+    @Override
+    public IndexCondition getIndexCondition(@Nonnull RunSelectorContext context) {
+        List<Pattern> patterns = resolve(context);
+        if (patterns == null) {
+            return null;
+        }
+        List<IndexCondition> conditions = new ArrayList<IndexCondition>();
+        for (Pattern pattern : patterns) {
+            conditions.add(new MatchingArtifactCondition(pattern));
+        }
+        return IndexCondition.and(conditions);
+    }
+
+    /**
+     * Builds with artifacts matching a pattern, builds with too many artifacts to record and running builds.
+     */
+    private static final class MatchingArtifactCondition extends IndexCondition {
+        @Nonnull
+        private final Pattern pattern;
+        @Nonnull
+        private final IndexCondition unrecorded = IndexCondition.or(Arrays.asList(
+                IndexCondition.tag(BuildTags.ARTIFACTS_OMITTED),
+                IndexCondition.building()
+        ));
+
+        /**
+         * Matching artifacts looked up last time, and the index and the size of the dictionary looked up.
+         */
+        @CheckForNull
+        private BuildIndex lookedUp;
+        private int dictionarySize;
+        @Nonnull
+        private List<IndexCondition> matching = Collections.emptyList();
+
+        MatchingArtifactCondition(@Nonnull Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        @Override
+        public synchronized int seek(@Nonnull BuildIndex index, int before) {
+            if (index != lookedUp || index.getDictionarySize() != dictionarySize) {
+                matching = new ArrayList<IndexCondition>();
+                for (String path : index.findTags(BuildTags.ARTIFACT)) {
+                    if (pattern.matcher(path).matches()) {
+                        matching.add(IndexCondition.tag(BuildTags.artifact(path)));
+                    }
+                }
+                lookedUp = index;
+                dictionarySize = index.getDictionarySize();
+            }
+            int newest = unrecorded.seek(index, before);
+            for (IndexCondition condition : matching) {
+                newest = Math.max(newest, condition.seek(index, before));
+            }
+            return newest;
+        }
+    }
+
+    /**
+     * @return compiled patterns, {@code null} if not available.
+     */
+    @CheckForNull
+    private List<Pattern> resolve(@Nonnull RunSelectorContext context) {
+        String resolvedArtifacts = context.getEnvVars().expand(artifacts);
+        if (resolvedArtifacts.contains("$")) {
+            context.logDebug("Unresolved variable {0}", resolvedArtifacts);
+            return null;
+        }
+        Compiled compiled = this.compiled;
+        if (compiled == null || !compiled.expression.equals(resolvedArtifacts)) {
+            compiled = new Compiled(resolvedArtifacts);
+            this.compiled = compiled;
+        }
+        if (compiled.patterns.isEmpty()) {
+            context.logInfo("{0}: No patterns are specified", getDisplayName());
+            return null;
+        }
+        return compiled.patterns;
+    }
+
+    /**
+     * Patterns compiled from an expression.
+     */
+    private static final class Compiled {
+        @Nonnull
+        private final String expression;
+        @Nonnull
+        private final List<Pattern> patterns;
+
+        Compiled(@Nonnull String expression) {
+            this.expression = expression;
+            List<Pattern> patterns = new ArrayList<Pattern>();
+            for (String glob : expression.split(",")) {
+                glob = glob.trim();
+                if (!glob.isEmpty()) {
+                    patterns.add(compile(glob));
+                }
+            }
+            this.patterns = patterns;
+        }
+    }
+
+    /**
+     * Compiles an Ant-style pattern:
+     * {@code **} matches any directories, {@code *} and {@code ?} match characters in a file name,
+     * and a trailing {@code /} matches all files under the directory.
+     *
+     * @param glob the pattern
+     * @return the compiled pattern
+     */
+    @Nonnull
+    static Pattern compile(@Nonnull String glob) {
+        glob = glob.replace('\\', '/');
+        if (glob.endsWith("/")) {
+            glob += "**";
+        }
+        StringBuilder regex = new StringBuilder();
+        int literal = 0;
+        for (int i = 0; i < glob.length(); ++i) {
+            char c = glob.charAt(i);
+            if (c != '*' && c != '?') {
+                continue;
+            }
+            if (literal < i) {
+                regex.append(Pattern.quote(glob.substring(literal, i)));
+            }
+            if (c == '?') {
+                regex.append("[^/]");
+            } else if (glob.startsWith("**/", i)) {
+                regex.append("(?:.*/)?");
+                i += 2;
+            } else if (glob.startsWith("**", i)) {
+                regex.append(".*");
+                i += 1;
+            } else {
+                regex.append("[^/]*");
+            }
+            literal = i + 1;
+        }
+        if (literal < glob.length()) {
+            regex.append(Pattern.quote(glob.substring(literal)));
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    /**
+     * the descriptor for {@link ArtifactRunFilter}
+     */
+    @Symbol("artifacts")
+    @Extension
+    public static class DescriptorImpl extends RunFilterDescriptor {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getDisplayName() {
+            return Messages.ArtifactRunFilter_DisplayName();
+        }
+
+        /**
+         * @param artifacts comma-separated patterns of artifacts
+         * @return the form validation result.
+         */
+        public FormValidation doCheckArtifacts(@QueryParameter String artifacts) {
+            if (StringUtils.isBlank(artifacts)) {
+                return FormValidation.error(Messages.ArtifactRunFilter_ArtifactsRequired());
+            }
+            return FormValidation.ok();
+        }
+    }
+}
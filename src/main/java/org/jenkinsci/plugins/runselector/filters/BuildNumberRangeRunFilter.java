@@ -0,0 +1,141 @@
+package org.jenkinsci.plugins.runselector.filters;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Run;
+import hudson.util.FormValidation;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.runselector.BuildNumberRange;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunFilterDescriptor;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.index.IndexCondition;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Filters builds by a range of build numbers.
+ * Selections stop as soon as builds get lower than the range.
+ *
+ * @see BuildNumberRange
+ */
+public class BuildNumberRangeRunFilter extends RunFilter {
+    @Nonnull
+    private final String range;
+
+    /**
+     * @param range the range of build numbers
+     */
+    @DataBoundConstructor
+    public BuildNumberRangeRunFilter(@CheckForNull String range) {
+        this.range = Util.fixNull(range).trim();
+    }
+
+    /**
+     * @return the range of build numbers. May include variable expression.
+     */
+    @Nonnull
+    public String getRange() {
+        return range;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isSelectable(@Nonnull Run<?, ?> candidate, @Nonnull RunSelectorContext context) {
+        BuildNumberRange numbers = resolve(candidate, context);
+        return numbers != null && numbers.contains(candidate.getNumber());
+    }
+
+    /**
+     * @return whether the candidate is lower than the range.
+     */
+    @Override
+    public boolean isExhausted(@Nonnull Run<?, ?> candidate, @Nonnull RunSelectorContext context) {
+        BuildNumberRange numbers = resolve(candidate, context);
+        return numbers != null && candidate.getNumber() < numbers.getFrom();
+    }
+
+    /**
+     * Builds in the range, if the range doesn't depend on the last build.
+     */
+    @Override
+    public IndexCondition getIndexCondition(@Nonnull RunSelectorContext context) {
+        String resolvedRange = context.getEnvVars().expand(range);
+        if (resolvedRange.contains("last") || resolvedRange.contains("$")) {
+            return null;
+        }
+        try {
+            return BuildNumberRange.parse(resolvedRange, 0).toIndexCondition();
+        } catch (IllegalArgumentException e) {
+            // reported when evaluated.
+            return null;
+        }
+    }
+
+    @CheckForNull
+    private BuildNumberRange resolve(@Nonnull Run<?, ?> candidate, @Nonnull RunSelectorContext context) {
+        String resolvedRange = context.getEnvVars().expand(range);
+        if (resolvedRange.contains("$")) {
+            context.logDebug("Unresolved variable {0}", resolvedRange);
+            return null;
+        }
+        Run<?, ?> lastBuild = candidate.getParent().getLastBuild();
+        try {
+            return BuildNumberRange.parse(
+                    resolvedRange,
+                    (lastBuild != null) ? lastBuild.getNumber() : candidate.getNumber()
+            );
+        } catch (IllegalArgumentException e) {
+            context.logInfo("{0}: {1}", getDisplayName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return {@code true} if the range depends neither on the last build nor on variables.
+     */
+    @Override
+    public boolean isIncremental() {
+        return !BuildNumberRange.isRelative(range);
+    }
+
+    /**
+     * the descriptor for {@link BuildNumberRangeRunFilter}
+     */
+    @Symbol("buildNumberRange")
+    @Extension
+    public static class DescriptorImpl extends RunFilterDescriptor {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getDisplayName() {
+            return Messages.BuildNumberRangeRunFilter_DisplayName();
+        }
+
+        /**
+         * @param range the range of build numbers
+         * @return the form validation result.
+         */
+        public FormValidation doCheckRange(@QueryParameter String range) {
+            if (StringUtils.isBlank(range)) {
+                return FormValidation.error(Messages.BuildNumberRangeRunFilter_RangeRequired());
+            }
+            if (range.contains("$")) {
+                return FormValidation.ok();
+            }
+            try {
+                BuildNumberRange.parse(range, 0);
+            } catch (IllegalArgumentException e) {
+                return FormValidation.error(e.getMessage());
+            }
+            return FormValidation.ok();
+        }
+    }
+}
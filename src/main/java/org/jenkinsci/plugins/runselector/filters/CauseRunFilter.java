@@ -0,0 +1,248 @@
+package org.jenkinsci.plugins.runselector.filters;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Cause;
+import hudson.model.Run;
+import hudson.triggers.SCMTrigger;
+import hudson.triggers.TimerTrigger;
+import hudson.util.ComboBoxModel;
+import hudson.util.FormValidation;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunFilterDescriptor;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.index.BuildTags;
+import org.jenkinsci.plugins.runselector.index.IndexCondition;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Accepts builds triggered by a type of causes, e.g. timers or a specific user.
+ * <p>
+ * Causes are recorded in {@link org.jenkinsci.plugins.runselector.index.BuildIndex} when builds start,
+ * so that builds are found without loading them.
+ */
+public class CauseRunFilter extends RunFilter {
+    /**
+     * Well-known types of causes.
+     */
+    public enum Type {
+        /**
+         * Triggered periodically.
+         */
+        TIMER(TimerTrigger.TimerTriggerCause.class),
+        /**
+         * Started by a user. The value is the id of the user.
+         */
+        USER(Cause.UserIdCause.class),
+        /**
+         * Triggered by SCM changes.
+         */
+        SCM(SCMTrigger.SCMTriggerCause.class),
+        /**
+         * Triggered by an upstream build. The value is the full name of the upstream job.
+         */
+        UPSTREAM(Cause.UpstreamCause.class),
+        /**
+         * Triggered remotely.
+         */
+        REMOTE(Cause.RemoteCause.class);
+
+        @Nonnull
+        private final Class<? extends Cause> causeClass;
+
+        Type(@Nonnull Class<? extends Cause> causeClass) {
+            this.causeClass = causeClass;
+        }
+
+        /**
+         * @return the class of causes, including subclasses
+         */
+        @Nonnull
+        public Class<? extends Cause> getCauseClass() {
+            return causeClass;
+        }
+    }
+
+    @Nonnull
+    private final String type;
+
+    @Nonnull
+    private String value = "";
+
+    /**
+     * @param type the name of {@link Type}, or the class name of causes
+     */
+    @DataBoundConstructor
+    public CauseRunFilter(@CheckForNull String type) {
+        this.type = Util.fixNull(type).trim();
+    }
+
+    /**
+     * @return the name of {@link Type}, or the class name of causes
+     */
+    @Nonnull
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * @return the user id or the upstream job, blank for any. May include variable expression.
+     */
+    @Nonnull
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * @param value the user id for {@link Type#USER}, or the upstream job for {@link Type#UPSTREAM}. Blank for any.
+     */
+    @DataBoundSetter
+    public void setValue(@CheckForNull String value) {
+        this.value = Util.fixNull(value).trim();
+    }
+
+    /**
+     * @return the class name of causes to accept
+     */
+    @Nonnull
+    private String getCauseClassName() {
+        try {
+            return Type.valueOf(type.toUpperCase(Locale.ENGLISH)).getCauseClass().getName();
+        } catch (IllegalArgumentException e) {
+            return type;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isSelectable(@Nonnull Run<?, ?> candidate, @Nonnull RunSelectorContext context) {
+        String resolvedValue = context.getEnvVars().expand(value);
+        if (resolvedValue.startsWith("$")) {
+            context.logDebug("Unresolved variable {0}", resolvedValue);
+            return false;
+        }
+        String className = getCauseClassName();
+        for (Cause cause : candidate.getCauses()) {
+            if (isInstance(cause, className) && (resolvedValue.isEmpty() || resolvedValue.equals(valueOf(cause)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Classes aren't loaded, as they may be provided by plugins.
+     */
+    private static boolean isInstance(@Nonnull Cause cause, @Nonnull String className) {
+        for (Class<?> c = cause.getClass(); c != null; c = c.getSuperclass()) {
+            if (c.getName().equals(className)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @CheckForNull
+    private static String valueOf(@Nonnull Cause cause) {
+        if (cause instanceof Cause.UserIdCause) {
+            return ((Cause.UserIdCause) cause).getUserId();
+        }
+        if (cause instanceof Cause.UpstreamCause) {
+            return ((Cause.UpstreamCause) cause).getUpstreamProject();
+        }
+        return null;
+    }
+
+    /**
+     * Seeks builds with causes of the type, and of the user or the upstream job.
+     * Not available for {@link Cause} itself, which any build has.
+     */
+    @Override
+    public IndexCondition getIndexCondition(@Nonnull RunSelectorContext context) {
+        String resolvedValue = context.getEnvVars().expand(value);
+        if (resolvedValue.startsWith("$")) {
+            // reported when evaluated.
+            return null;
+        }
+        String className = getCauseClassName();
+        if (className.equals(Cause.class.getName()) || className.equals(Object.class.getName())) {
+            // base classes of all causes are not tagged.
+            return null;
+        }
+        IndexCondition condition = IndexCondition.tag(BuildTags.CAUSE + className);
+        if (resolvedValue.isEmpty()) {
+            return condition;
+        }
+        if (className.equals(Type.USER.getCauseClass().getName())) {
+            return IndexCondition.and(Arrays.asList(condition, IndexCondition.tag(BuildTags.CAUSE_USER + resolvedValue)));
+        }
+        if (className.equals(Type.UPSTREAM.getCauseClass().getName())) {
+            return IndexCondition.and(Arrays.asList(condition, IndexCondition.tag(BuildTags.CAUSE_UPSTREAM + resolvedValue)));
+        }
+        return condition;
+    }
+
+    /**
+     * @return {@code true} if the value contains no variables.
+     */
+    @Override
+    public boolean isIncremental() {
+        return !value.contains("$");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDisplayName() {
+        return String.format("%s (%s)", super.getDisplayName(), getType());
+    }
+
+    /**
+     * the descriptor for {@link CauseRunFilter}
+     */
+    @Symbol("triggeredBy")
+    @Extension
+    public static class DescriptorImpl extends RunFilterDescriptor {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getDisplayName() {
+            return Messages.CauseRunFilter_DisplayName();
+        }
+
+        /**
+         * @return names of well-known types of causes
+         */
+        public ComboBoxModel doFillTypeItems() {
+            ComboBoxModel items = new ComboBoxModel();
+            for (Type type : Type.values()) {
+                items.add(type.name());
+            }
+            return items;
+        }
+
+        /**
+         * @param type the name of the type, or the class name of causes
+         * @return the form validation result.
+         */
+        public FormValidation doCheckType(@QueryParameter String type) {
+            if (StringUtils.isBlank(type)) {
+                return FormValidation.error(Messages.CauseRunFilter_TypeRequired());
+            }
+            return FormValidation.ok();
+        }
+    }
+}
@@ -7,6 +7,8 @@ import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.runselector.RunFilter;
 import org.jenkinsci.plugins.runselector.RunFilterDescriptor;
 import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.index.BuildIndex;
+import org.jenkinsci.plugins.runselector.index.IndexCondition;
 import org.kohsuke.stapler.DataBoundConstructor;
 
 import javax.annotation.Nonnull;
@@ -42,6 +44,32 @@ public class DisplayNameRunFilter extends RunFilter {
         return resolvedDisplayName.equals(candidate.getDisplayName());
     }
 
+    /**
+     * Seeks builds with the display name.
+     */
+    @Override
+    public IndexCondition getIndexCondition(@Nonnull RunSelectorContext context) {
+        final String resolvedDisplayName = context.getEnvVars().expand(runDisplayName);
+        if (resolvedDisplayName.startsWith("$")) {
+            // reported when evaluated.
+            return null;
+        }
+        return new IndexCondition() {
+            @Override
+            public int seek(@Nonnull BuildIndex index, int before) {
+                return index.seekDisplayName(resolvedDisplayName, before);
+            }
+        };
+    }
+
+    /**
+     * @return {@code true} if the display name contains no variables.
+     */
+    @Override
+    public boolean isIncremental() {
+        return !runDisplayName.contains("$");
+    }
+
     @Symbol("displayName")
     @Extension
     public static class DescriptorImpl extends RunFilterDescriptor {
@@ -38,6 +38,8 @@ import org.apache.commons.lang.StringUtils;
 import org.jenkinsci.plugins.runselector.RunFilter;
 import org.jenkinsci.plugins.runselector.RunFilterDescriptor;
 import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.index.BuildIndex;
+import org.jenkinsci.plugins.runselector.index.BuildIndexes;
 import org.kohsuke.stapler.AncestorInPath;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.QueryParameter;
@@ -310,7 +312,31 @@ public class DownstreamRunFilter extends RunFilter {
                 }
             }
             
-            {
+            BuildIndexes indexes = BuildIndexes.get();
+            BuildIndex index = (indexes != null) ? indexes.getIndex(upstreamProject) : null;
+            if (index != null) {
+                int before = Integer.MAX_VALUE;
+                while (true) {
+                    index.readLock().lock();
+                    try {
+                        before = index.seekDisplayName(upstreamBuildNumber, before);
+                    } finally {
+                        index.readLock().unlock();
+                    }
+                    if (before < 0) {
+                        break;
+                    }
+                    AbstractBuild<?,?> upstreamBuild = upstreamProject.getBuildByNumber(before);
+                    if (
+                            upstreamBuild != null
+                            && !upstreamBuild.isBuilding()
+                            && upstreamBuild.getDisplayName().equals(upstreamBuildNumber)
+                    ) {
+                        // display name matches.
+                        return FormValidation.ok();
+                    }
+                }
+            } else {
                 for(
                         AbstractBuild<?,?> upstreamBuild = upstreamProject.getLastCompletedBuild();
                         upstreamBuild != null;
@@ -0,0 +1,178 @@
+package org.jenkinsci.plugins.runselector.filters;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Run;
+import hudson.util.FormValidation;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunFilterDescriptor;
+import org.jenkinsci.plugins.runselector.TimeExpression;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.index.BlockSummary;
+import org.jenkinsci.plugins.runselector.index.BuildIndex;
+import org.jenkinsci.plugins.runselector.index.IndexCondition;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Filters completed builds by how long they took.
+ * Accepts builds taking {@link #getMin()} or longer and shorter than {@link #getMax()}.
+ *
+ * @see TimeExpression#parseDuration(String)
+ */
+public class DurationRunFilter extends RunFilter {
+    @Nonnull
+    private final String min;
+    @Nonnull
+    private final String max;
+
+    /**
+     * @param min the minimum duration, inclusive. Blank not to limit.
+     * @param max the maximum duration, exclusive. Blank not to limit.
+     */
+    @DataBoundConstructor
+    public DurationRunFilter(@CheckForNull String min, @CheckForNull String max) {
+        this.min = Util.fixNull(min).trim();
+        this.max = Util.fixNull(max).trim();
+    }
+
+    /**
+     * @return the minimum duration, inclusive. May include variable expression.
+     */
+    @Nonnull
+    public String getMin() {
+        return min;
+    }
+
+    /**
+     * @return the maximum duration, exclusive. May include variable expression.
+     */
+    @Nonnull
+    public String getMax() {
+        return max;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isSelectable(@Nonnull Run<?, ?> candidate, @Nonnull RunSelectorContext context) {
+        long[] range = resolve(context);
+        if (range == null || candidate.isBuilding()) {
+            return false;
+        }
+        long duration = candidate.getDuration();
+        return range[0] <= duration && duration < range[1];
+    }
+
+    /**
+     * Scans the column of durations, skipping blocks of builds all out of the range.
+     * Builds indexed as running may have completed since, and are left to {@link #isSelectable(Run, RunSelectorContext)}.
+     */
+    @Override
+    public IndexCondition getIndexCondition(@Nonnull RunSelectorContext context) {
+        final long[] range = resolve(context);
+        if (range == null) {
+            // reported when evaluated.
+            return null;
+        }
+        return IndexCondition.of(
+                new IndexCondition.RecordPredicate() {
+                    @Override
+                    public boolean test(@Nonnull BuildIndex index, int position) {
+                        if (index.isBuildingAt(position)) {
+                            return true;
+                        }
+                        long duration = index.durationAt(position);
+                        return range[0] <= duration && duration < range[1];
+                    }
+                },
+                new IndexCondition.BlockPredicate() {
+                    @Override
+                    public boolean mayMatch(@Nonnull BlockSummary block) {
+                        return block.getBuildingCount() > 0
+                                || (range[0] <= block.getMaxDuration() && block.getMinDuration() < range[1]);
+                    }
+                }
+        );
+    }
+
+    /**
+     * @return {@code [min, max)} in milliseconds, {@code null} if not resolved.
+     */
+    @CheckForNull
+    private long[] resolve(@Nonnull RunSelectorContext context) {
+        long[] range = {Long.MIN_VALUE, Long.MAX_VALUE};
+        String[] expressions = {min, max};
+        for (int i = 0; i < expressions.length; ++i) {
+            if (expressions[i].isEmpty()) {
+                continue;
+            }
+            String resolved = context.getEnvVars().expand(expressions[i]);
+            try {
+                range[i] = TimeExpression.parseDuration(resolved);
+            } catch (IllegalArgumentException e) {
+                context.logInfo("{0}: {1}", getDisplayName(), e.getMessage());
+                return null;
+            }
+        }
+        return range;
+    }
+
+    /**
+     * @return {@code true} if the durations contain no variables.
+     */
+    @Override
+    public boolean isIncremental() {
+        return !min.contains("$") && !max.contains("$");
+    }
+
+    /**
+     * the descriptor for {@link DurationRunFilter}
+     */
+    @Symbol("duration")
+    @Extension
+    public static class DescriptorImpl extends RunFilterDescriptor {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getDisplayName() {
+            return Messages.DurationRunFilter_DisplayName();
+        }
+
+        /**
+         * @param min the minimum duration
+         * @return the form validation result.
+         */
+        public FormValidation doCheckMin(@QueryParameter String min) {
+            return checkDuration(min);
+        }
+
+        /**
+         * @param max the maximum duration
+         * @return the form validation result.
+         */
+        public FormValidation doCheckMax(@QueryParameter String max) {
+            return checkDuration(max);
+        }
+
+        @Nonnull
+        private static FormValidation checkDuration(@CheckForNull String duration) {
+            if (StringUtils.isBlank(duration) || duration.contains("$")) {
+                return FormValidation.ok();
+            }
+            try {
+                TimeExpression.parseDuration(duration);
+            } catch (IllegalArgumentException e) {
+                return FormValidation.error(e.getMessage());
+            }
+            return FormValidation.ok();
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package org.jenkinsci.plugins.runselector.filters;
+
+import antlr.ANTLRException;
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.AbstractBuild;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.Run;
+import hudson.model.labels.LabelAtom;
+import hudson.util.FormValidation;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunFilterDescriptor;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.index.BuildIndex;
+import org.jenkinsci.plugins.runselector.index.BuildIndexes;
+import org.jenkinsci.plugins.runselector.index.BuildTags;
+import org.jenkinsci.plugins.runselector.index.IndexCondition;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Accepts builds ran on nodes matching a label expression (e.g. {@code linux && large}).
+ * <p>
+ * Labels of nodes are recorded in {@link BuildIndex} when builds run,
+ * as nodes may be removed or relabelled later.
+ * Only applicable to builds of {@link AbstractBuild}.
+ */
+public class LabelRunFilter extends RunFilter {
+    @Nonnull
+    private final String label;
+
+    /**
+     * @param label the label expression
+     */
+    @DataBoundConstructor
+    public LabelRunFilter(@CheckForNull String label) {
+        this.label = Util.fixNull(label).trim();
+    }
+
+    /**
+     * @return the label expression. May include variable expression.
+     */
+    @Nonnull
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isSelectable(@Nonnull Run<?, ?> candidate, @Nonnull RunSelectorContext context) {
+        Label expression = resolve(context);
+        if (expression == null) {
+            return false;
+        }
+        Collection<LabelAtom> labels = recordedLabelsOf(candidate);
+        if (labels == null) {
+            Node node = (candidate instanceof AbstractBuild) ? ((AbstractBuild<?, ?>) candidate).getBuiltOn() : null;
+            if (node == null) {
+                context.logDebug("{0}: The node of {1} is not available.", getDisplayName(), candidate.getFullDisplayName());
+                return false;
+            }
+            labels = node.getAssignedLabels();
+        }
+        return expression.matches(labels);
+    }
+
+    /**
+     * @return labels recorded in the index, {@code null} if not available.
+     */
+    @CheckForNull
+    private static Collection<LabelAtom> recordedLabelsOf(@Nonnull Run<?, ?> candidate) {
+        BuildIndexes indexes = BuildIndexes.get();
+        BuildIndex index = (indexes != null) ? indexes.getIndex(candidate.getParent()) : null;
+        if (index == null) {
+            return null;
+        }
+        List<String> names;
+        index.readLock().lock();
+        try {
+            int position = index.positionOf(candidate.getNumber());
+            if (position < 0) {
+                return null;
+            }
+            names = index.tagsAt(position, BuildTags.LABEL);
+        } finally {
+            index.readLock().unlock();
+        }
+        return names.isEmpty() ? null : toLabels(names);
+    }
+
+    @Nonnull
+    private static Set<LabelAtom> toLabels(@Nonnull Collection<String> names) {
+        Set<LabelAtom> labels = new HashSet<LabelAtom>();
+        for (String name : names) {
+            labels.add(new LabelAtom(name));
+        }
+        return labels;
+    }
+
+    /**
+     * Tests labels recorded in the index, once for each set of labels.
+     * Builds without recorded labels are accepted.
+     */
+    @Override
+    public IndexCondition getIndexCondition(@Nonnull RunSelectorContext context) {
+        final Label expression = resolve(context);
+        if (expression == null) {
+            // reported when evaluated.
+            return null;
+        }
+        final Map<List<String>, Boolean> tested = new HashMap<List<String>, Boolean>();
+        return IndexCondition.of(new IndexCondition.RecordPredicate() {
+            @Override
+            public boolean test(@Nonnull BuildIndex index, int position) {
+                List<String> names = index.tagsAt(position, BuildTags.LABEL);
+                if (names.isEmpty()) {
+                    return true;
+                }
+                synchronized (tested) {
+                    Boolean matches = tested.get(names);
+                    if (matches == null) {
+                        matches = expression.matches(toLabels(names));
+                        tested.put(names, matches);
+                    }
+                    return matches;
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the parsed label expression, {@code null} if not resolved.
+     */
+    @CheckForNull
+    private Label resolve(@Nonnull RunSelectorContext context) {
+        String resolvedLabel = context.getEnvVars().expand(label);
+        if (resolvedLabel.startsWith("$")) {
+            context.logDebug("Unresolved variable {0}", resolvedLabel);
+            return null;
+        }
+        try {
+            return Label.parseExpression(resolvedLabel);
+        } catch (ANTLRException e) {
+            context.logInfo("{0}: Invalid label expression {1}: {2}", getDisplayName(), resolvedLabel, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return {@code true} if the label expression contains no variables.
+     */
+    @Override
+    public boolean isIncremental() {
+        return !label.contains("$");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDisplayName() {
+        return String.format("%s (%s)", super.getDisplayName(), getLabel());
+    }
+
+    /**
+     * the descriptor for {@link LabelRunFilter}
+     */
+    @Symbol("builtOnLabel")
+    @Extension
+    public static class DescriptorImpl extends RunFilterDescriptor {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getDisplayName() {
+            return Messages.LabelRunFilter_DisplayName();
+        }
+
+        /**
+         * @param label the label expression
+         * @return the form validation result.
+         */
+        public FormValidation doCheckLabel(@QueryParameter String label) {
+            if (StringUtils.isBlank(label)) {
+                return FormValidation.error(Messages.LabelRunFilter_LabelRequired());
+            }
+            if (label.contains("$")) {
+                return FormValidation.ok();
+            }
+            try {
+                Label.parseExpression(label);
+            } catch (ANTLRException e) {
+                return FormValidation.error(e.getMessage());
+            }
+            return FormValidation.ok();
+        }
+    }
+}
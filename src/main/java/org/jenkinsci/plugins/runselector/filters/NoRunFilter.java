@@ -40,6 +40,14 @@ public class NoRunFilter extends RunFilter {
     public NoRunFilter() {
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isIncremental() {
+        return true;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,143 @@
+package org.jenkinsci.plugins.runselector.filters;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.AbstractBuild;
+import hudson.model.Run;
+import hudson.util.FormValidation;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunFilterDescriptor;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.index.BuildIndex;
+import org.jenkinsci.plugins.runselector.index.IndexCondition;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Accepts builds ran on the specified node.
+ * Only applicable to builds of {@link AbstractBuild}, as Pipeline builds may run on multiple nodes.
+ */
+public class NodeRunFilter extends RunFilter {
+    /**
+     * The name to specify the master, whose node name is empty.
+     */
+    private static final String MASTER = "master";
+
+    @Nonnull
+    private final String node;
+
+    /**
+     * @param node the name of the node, {@code master} for the master
+     */
+    @DataBoundConstructor
+    public NodeRunFilter(@CheckForNull String node) {
+        this.node = Util.fixNull(node).trim();
+    }
+
+    /**
+     * @return the name of the node. May include variable expression.
+     */
+    @Nonnull
+    public String getNode() {
+        return node;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isSelectable(@Nonnull Run<?, ?> candidate, @Nonnull RunSelectorContext context) {
+        String nodeName = resolve(context);
+        if (nodeName == null) {
+            return false;
+        }
+        if (!(candidate instanceof AbstractBuild)) {
+            context.logDebug(
+                    "{0}: Only applicable to AbstractBuild: but {1} is {2}.",
+                    getDisplayName(),
+                    candidate.getFullDisplayName(),
+                    candidate.getClass().getName()
+            );
+            return false;
+        }
+        return nodeName.equals(((AbstractBuild<?, ?>) candidate).getBuiltOnStr());
+    }
+
+    /**
+     * Scans the column of nodes.
+     */
+    @Override
+    public IndexCondition getIndexCondition(@Nonnull RunSelectorContext context) {
+        final String nodeName = resolve(context);
+        if (nodeName == null) {
+            // reported when evaluated.
+            return null;
+        }
+        return new IndexCondition() {
+            @Override
+            public int seek(@Nonnull BuildIndex index, int before) {
+                return index.seekNode(nodeName, before);
+            }
+        };
+    }
+
+    /**
+     * @return the node name, an empty string for the master. {@code null} if not resolved.
+     */
+    @CheckForNull
+    private String resolve(@Nonnull RunSelectorContext context) {
+        String resolvedNode = context.getEnvVars().expand(node);
+        if (resolvedNode.startsWith("$")) {
+            context.logDebug("Unresolved variable {0}", resolvedNode);
+            return null;
+        }
+        return MASTER.equals(resolvedNode) ? "" : resolvedNode;
+    }
+
+    /**
+     * @return {@code true} if the node name contains no variables.
+     */
+    @Override
+    public boolean isIncremental() {
+        return !node.contains("$");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDisplayName() {
+        return String.format("%s (%s)", super.getDisplayName(), getNode());
+    }
+
+    /**
+     * the descriptor for {@link NodeRunFilter}
+     */
+    @Symbol("builtOn")
+    @Extension
+    public static class DescriptorImpl extends RunFilterDescriptor {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getDisplayName() {
+            return Messages.NodeRunFilter_DisplayName();
+        }
+
+        /**
+         * @param node the name of the node
+         * @return the form validation result.
+         */
+        public FormValidation doCheckNode(@QueryParameter String node) {
+            if (StringUtils.isBlank(node)) {
+                return FormValidation.error(Messages.NodeRunFilter_NodeRequired());
+            }
+            return FormValidation.ok();
+        }
+    }
+}
@@ -62,7 +62,7 @@ public class NotRunFilter extends RunFilter {
      */
     @Override
     public boolean isSelectable(Run<?, ?> candidate, RunSelectorContext context) {
-        boolean result = getRunFilter().isSelectable(candidate, context);
+        boolean result = getRunFilter().evaluate(candidate, context);
         context.logDebug(
                 "{0}: filters result by {1} is reverted: {2} -> {3}",
                 candidate.getFullDisplayName(),
@@ -73,6 +73,14 @@ public class NotRunFilter extends RunFilter {
         return !result;
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isIncremental() {
+        return getRunFilter().isIncremental();
+    }
+    
     /**
      * the descriptor for {@link NotRunFilter}
      */
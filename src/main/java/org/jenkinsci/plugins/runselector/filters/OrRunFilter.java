@@ -30,9 +30,11 @@ import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.runselector.RunFilter;
 import org.jenkinsci.plugins.runselector.RunFilterDescriptor;
 import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.index.IndexCondition;
 import org.kohsuke.stapler.DataBoundConstructor;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -74,7 +76,7 @@ public class OrRunFilter extends RunFilter {
     @Override
     public boolean isSelectable(Run<?, ?> candidate, RunSelectorContext context) {
         for (RunFilter filter: getRunFilterList()) {
-            if (filter.isSelectable(candidate, context)) {
+            if (filter.evaluate(candidate, context)) {
                 context.logDebug(
                         "{0}: accepted by the filters {1} in {2}",
                         candidate.getFullDisplayName(),
@@ -87,6 +89,44 @@ public class OrRunFilter extends RunFilter {
         return false;
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isIncremental() {
+        for (RunFilter filter : getRunFilterList()) {
+            if (!filter.isIncremental()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isExhausted(@Nonnull Run<?, ?> candidate, @Nonnull RunSelectorContext context) {
+        for (RunFilter filter : getRunFilterList()) {
+            if (!filter.isExhausted(candidate, context)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IndexCondition getIndexCondition(RunSelectorContext context) {
+        List<IndexCondition> conditions = new ArrayList<IndexCondition>();
+        for (RunFilter filter : getRunFilterList()) {
+            conditions.add(filter.getIndexCondition(context));
+        }
+        return IndexCondition.or(conditions);
+    }
+    
     /**
      * the descriptor for {@link OrRunFilter}
      */
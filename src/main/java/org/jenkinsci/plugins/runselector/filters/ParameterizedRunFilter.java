@@ -35,6 +35,7 @@ import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.runselector.RunFilter;
 import org.jenkinsci.plugins.runselector.RunFilterDescriptor;
 import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.index.IndexCondition;
 import org.kohsuke.stapler.DataBoundConstructor;
 
 import javax.annotation.CheckForNull;
@@ -79,7 +80,22 @@ public class ParameterizedRunFilter extends RunFilter {
             context.logDebug("{0}: No filters is specified", getDisplayName());
             return true;
         }
-        return filter.isSelectable(candidate, context);
+        return filter.evaluate(candidate, context);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IndexCondition getIndexCondition(@Nonnull RunSelectorContext context) {
+        RunFilter filter;
+        try {
+            filter = getFilterFromXml(context.getEnvVars().expand(getParameter()));
+        } catch (RuntimeException e) {
+            // reported when evaluated.
+            return null;
+        }
+        return (filter != null) ? filter.getIndexCondition(context) : null;
     }
     
     /**
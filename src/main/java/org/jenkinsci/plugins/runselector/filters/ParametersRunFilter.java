@@ -25,6 +25,7 @@ package org.jenkinsci.plugins.runselector.filters;
 
 import hudson.EnvVars;
 import hudson.Extension;
+import hudson.Util;
 import hudson.model.AbstractBuild;
 import hudson.model.ParameterValue;
 import hudson.model.ParametersAction;
@@ -35,6 +36,8 @@ import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.runselector.RunFilter;
 import org.jenkinsci.plugins.runselector.RunFilterDescriptor;
 import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.index.BuildIndex;
+import org.jenkinsci.plugins.runselector.index.IndexCondition;
 import org.kohsuke.stapler.DataBoundConstructor;
 
 import javax.annotation.Nonnull;
@@ -117,6 +120,39 @@ public class ParametersRunFilter extends RunFilter {
         return true;
     }
     
+    /**
+     * @return {@code true} if parameters to match contain no variables.
+     */
+    @Override
+    public boolean isIncremental() {
+        return !Util.fixNull(getParamsToMatch()).contains("$");
+    }
+
+    /**
+     * Seeks builds having the parameters with the values.
+     * Builds without the parameters may match with other environment variables.
+     */
+    @Override
+    public IndexCondition getIndexCondition(@Nonnull RunSelectorContext context) {
+        List<StringParameterValue> filters = getFilterParameters(context);
+        if (filters.isEmpty()) {
+            return null;
+        }
+        List<IndexCondition> conditions = new ArrayList<IndexCondition>(filters.size());
+        for (final StringParameterValue spv : filters) {
+            conditions.add(new IndexCondition() {
+                @Override
+                public int seek(@Nonnull BuildIndex index, int before) {
+                    return Math.max(
+                            index.seekParameter(spv.getName(), spv.value, before),
+                            index.seekWithoutParameter(spv.getName(), before)
+                    );
+                }
+            });
+        }
+        return IndexCondition.and(conditions);
+    }
+
     @Override
     public String getDisplayName() {
         return String.format(
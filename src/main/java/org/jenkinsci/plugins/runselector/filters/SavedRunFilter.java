@@ -29,8 +29,12 @@ import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.runselector.RunFilter;
 import org.jenkinsci.plugins.runselector.RunFilterDescriptor;
 import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.index.BuildIndex;
+import org.jenkinsci.plugins.runselector.index.IndexCondition;
 import org.kohsuke.stapler.DataBoundConstructor;
 
+import javax.annotation.Nonnull;
+
 /**
  * Select the saved build (marked "keep forever").
  * @author Alan Harder
@@ -47,6 +51,27 @@ public class SavedRunFilter extends RunFilter {
         return run.isKeepLog();
     }
 
+    /**
+     * Seeks builds kept forever.
+     */
+    @Override
+    public IndexCondition getIndexCondition(@Nonnull RunSelectorContext context) {
+        return new IndexCondition() {
+            @Override
+            public int seek(@Nonnull BuildIndex index, int before) {
+                return index.seekKept(before);
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isIncremental() {
+        return true;
+    }
+
     /**
      * the descriptor for {@link SavedRunFilter}
      */
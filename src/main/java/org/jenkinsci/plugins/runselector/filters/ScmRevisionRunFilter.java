@@ -0,0 +1,152 @@
+package org.jenkinsci.plugins.runselector.filters;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Run;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunFilterDescriptor;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.index.BuildIndex;
+import org.jenkinsci.plugins.runselector.index.BuildTags;
+import org.jenkinsci.plugins.runselector.index.IndexCondition;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Accepts builds built from the same SCM revision as the current build, or the specified revision.
+ * <p>
+ * Revisions are read from variables SCMs provide (e.g. {@code GIT_COMMIT}),
+ * and looked up with tags in {@link BuildIndex}.
+ *
+ * @see BuildTags#revisionsOf(Run)
+ */
+public class ScmRevisionRunFilter extends RunFilter {
+    @Nonnull
+    private final String revision;
+
+    /**
+     * @param revision the revision to accept, or blank for revisions of the current build
+     */
+    @DataBoundConstructor
+    public ScmRevisionRunFilter(@CheckForNull String revision) {
+        this.revision = Util.fixNull(revision).trim();
+    }
+
+    /**
+     * @return the revision to accept, or blank for revisions of the current build. May include variable expression.
+     */
+    @Nonnull
+    public String getRevision() {
+        return revision;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isSelectable(@Nonnull Run<?, ?> candidate, @Nonnull RunSelectorContext context) {
+        Set<String> revisions = resolve(context);
+        if (revisions.isEmpty()) {
+            return false;
+        }
+        for (String candidateRevision : BuildTags.revisionsOf(candidate)) {
+            if (revisions.contains(candidateRevision)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Seeks builds tagged with the revisions, and running builds which may not be tagged yet.
+     */
+    @Override
+    public IndexCondition getIndexCondition(@Nonnull RunSelectorContext context) {
+        Set<String> revisions = resolve(context);
+        List<IndexCondition> conditions = new ArrayList<IndexCondition>();
+        for (String resolvedRevision : revisions) {
+            conditions.add(IndexCondition.tag(BuildTags.revision(resolvedRevision)));
+        }
+        conditions.add(IndexCondition.building());
+        return IndexCondition.or(conditions);
+    }
+
+    /**
+     * Resolves revisions once for a context, as this is called for each candidate.
+     */
+    @Nonnull
+    private Set<String> resolve(@Nonnull RunSelectorContext context) {
+        for (Object e : context.getExtensionList()) {
+            if (e instanceof ContextExtension && ((ContextExtension) e).owner == this) {
+                return ((ContextExtension) e).revisions;
+            }
+        }
+        Set<String> revisions = resolveRevisions(context);
+        context.addExtension(new ContextExtension(this, revisions));
+        return revisions;
+    }
+
+    @Nonnull
+    private Set<String> resolveRevisions(@Nonnull RunSelectorContext context) {
+        if (revision.isEmpty()) {
+            Run<?, ?> build = context.getBuild();
+            Set<String> revisions = (build != null) ? BuildTags.revisionsOf(build) : Collections.<String>emptySet();
+            if (revisions.isEmpty()) {
+                context.logDebug("{0}: No SCM revisions are available for the current build", getDisplayName());
+            }
+            return revisions;
+        }
+        String resolvedRevision = context.getEnvVars().expand(revision);
+        if (resolvedRevision.contains("$")) {
+            context.logDebug("Unresolved variable {0}", resolvedRevision);
+            return Collections.emptySet();
+        }
+        return Collections.singleton(resolvedRevision);
+    }
+
+    /**
+     * @return {@code true} if the revision is specified without variables.
+     */
+    @Override
+    public boolean isIncremental() {
+        return !revision.isEmpty() && !revision.contains("$");
+    }
+
+    /**
+     * An extension for {@link RunSelectorContext}
+     * that holds the resolved revisions.
+     */
+    private static class ContextExtension {
+        @Nonnull
+        private final ScmRevisionRunFilter owner;
+        @Nonnull
+        private final Set<String> revisions;
+
+        ContextExtension(@Nonnull ScmRevisionRunFilter owner, @Nonnull Set<String> revisions) {
+            this.owner = owner;
+            this.revisions = revisions;
+        }
+    }
+
+    /**
+     * the descriptor for {@link ScmRevisionRunFilter}
+     */
+    @Symbol("scmRevision")
+    @Extension
+    public static class DescriptorImpl extends RunFilterDescriptor {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getDisplayName() {
+            return Messages.ScmRevisionRunFilter_DisplayName();
+        }
+    }
+}
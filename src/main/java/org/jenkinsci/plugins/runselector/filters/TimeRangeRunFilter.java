@@ -0,0 +1,185 @@
+package org.jenkinsci.plugins.runselector.filters;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Run;
+import hudson.util.FormValidation;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunFilterDescriptor;
+import org.jenkinsci.plugins.runselector.TimeExpression;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.index.BlockSummary;
+import org.jenkinsci.plugins.runselector.index.BuildIndex;
+import org.jenkinsci.plugins.runselector.index.IndexCondition;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * Filters builds by their start times.
+ * Accepts builds started at or after {@link #getAfter()} and before {@link #getBefore()}.
+ *
+ * @see TimeExpression
+ */
+public class TimeRangeRunFilter extends RunFilter {
+    @Nonnull
+    private final String after;
+    @Nonnull
+    private final String before;
+
+    /**
+     * @param after  the time from, inclusive. Blank not to limit.
+     * @param before the time to, exclusive. Blank not to limit.
+     */
+    @DataBoundConstructor
+    public TimeRangeRunFilter(@CheckForNull String after, @CheckForNull String before) {
+        this.after = Util.fixNull(after).trim();
+        this.before = Util.fixNull(before).trim();
+    }
+
+    /**
+     * @return the time from, inclusive. May include variable expression.
+     */
+    @Nonnull
+    public String getAfter() {
+        return after;
+    }
+
+    /**
+     * @return the time to, exclusive. May include variable expression.
+     */
+    @Nonnull
+    public String getBefore() {
+        return before;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isSelectable(@Nonnull Run<?, ?> candidate, @Nonnull RunSelectorContext context) {
+        long[] range = resolve(context);
+        if (range == null) {
+            return false;
+        }
+        long timestamp = candidate.getTimeInMillis();
+        return range[0] <= timestamp && timestamp < range[1];
+    }
+
+    /**
+     * Assumes builds start in the order of their numbers, as {@link org.jenkinsci.plugins.runselector.selectors.AsOfTimeRunSelector} does.
+     *
+     * @return whether the candidate started before the range.
+     */
+    @Override
+    public boolean isExhausted(@Nonnull Run<?, ?> candidate, @Nonnull RunSelectorContext context) {
+        long[] range = resolve(context);
+        return range != null && candidate.getTimeInMillis() < range[0];
+    }
+
+    /**
+     * Skips builds out of the range, and blocks of builds all out of the range.
+     */
+    @Override
+    public IndexCondition getIndexCondition(@Nonnull RunSelectorContext context) {
+        final long[] range = resolve(context);
+        if (range == null) {
+            // reported when evaluated.
+            return null;
+        }
+        return IndexCondition.of(
+                new IndexCondition.RecordPredicate() {
+                    @Override
+                    public boolean test(@Nonnull BuildIndex index, int position) {
+                        long timestamp = index.timestampAt(position);
+                        return range[0] <= timestamp && timestamp < range[1];
+                    }
+                },
+                new IndexCondition.BlockPredicate() {
+                    @Override
+                    public boolean mayMatch(@Nonnull BlockSummary block) {
+                        return range[0] <= block.getMaxTimestamp() && block.getMinTimestamp() < range[1];
+                    }
+                }
+        );
+    }
+
+    /**
+     * @return {@code [from, to)} in milliseconds, {@code null} if not resolved.
+     */
+    @CheckForNull
+    private long[] resolve(@Nonnull RunSelectorContext context) {
+        long now = System.currentTimeMillis();
+        long[] range = {Long.MIN_VALUE, Long.MAX_VALUE};
+        String[] expressions = {after, before};
+        for (int i = 0; i < expressions.length; ++i) {
+            if (expressions[i].isEmpty()) {
+                continue;
+            }
+            String resolved = context.getEnvVars().expand(expressions[i]);
+            try {
+                range[i] = TimeExpression.parse(resolved, now);
+            } catch (IllegalArgumentException e) {
+                context.logInfo("{0}: {1}", getDisplayName(), e.getMessage());
+                return null;
+            }
+        }
+        return range;
+    }
+
+    /**
+     * @return {@code true} if the times are neither relative to now nor contain variables.
+     */
+    @Override
+    public boolean isIncremental() {
+        return TimeExpression.isAbsolute(after) && TimeExpression.isAbsolute(before);
+    }
+
+    /**
+     * the descriptor for {@link TimeRangeRunFilter}
+     */
+    @Symbol("timeRange")
+    @Extension
+    public static class DescriptorImpl extends RunFilterDescriptor {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getDisplayName() {
+            return Messages.TimeRangeRunFilter_DisplayName();
+        }
+
+        /**
+         * @param after the time from
+         * @return the form validation result.
+         */
+        public FormValidation doCheckAfter(@QueryParameter String after) {
+            return checkTime(after);
+        }
+
+        /**
+         * @param before the time to
+         * @return the form validation result.
+         */
+        public FormValidation doCheckBefore(@QueryParameter String before) {
+            return checkTime(before);
+        }
+
+        @Nonnull
+        private static FormValidation checkTime(@CheckForNull String time) {
+            if (StringUtils.isBlank(time) || time.contains("$")) {
+                return FormValidation.ok();
+            }
+            try {
+                TimeExpression.parse(time, System.currentTimeMillis());
+            } catch (IllegalArgumentException e) {
+                return FormValidation.error(e.getMessage());
+            }
+            return FormValidation.ok();
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package org.jenkinsci.plugins.runselector.index;
+
+import hudson.model.Result;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Summary of builds in a block of {@value #SIZE} consecutive build numbers in a {@link BuildIndex},
+ * to skip blocks which can't contain matching builds.
+ * <p>
+ * Parameters are summarized with a Bloom filter of name-value pairs and names all builds in the block have,
+ * so a block can be skipped only when no build has the value and all builds have the parameter.
+ */
+public final class BlockSummary {
+    /**
+     * The number of build numbers in a block.
+     */
+    public static final int SIZE = 256;
+
+    private static final int BLOOM_BITS = 1024;
+    private static final int BLOOM_HASHES = 3;
+
+    @Nonnull
+    private final BuildIndex index;
+    private final int count;
+    private final long minTimestamp;
+    private final long maxTimestamp;
+    /**
+     * Durations of completed builds.
+     */
+    private final long minDuration;
+    private final long maxDuration;
+    /**
+     * Bits of result ordinals shifted by one, and bit 0 for builds without results.
+     */
+    private final int resultMask;
+    private final int buildingCount;
+    private final int keepLogCount;
+    @Nonnull
+    private final long[] bloom;
+    /**
+     * Sorted ids of names of parameters all builds in the block have.
+     */
+    @Nonnull
+    private final int[] commonNames;
+
+    private BlockSummary(
+            @Nonnull BuildIndex index,
+            int count,
+            long minTimestamp,
+            long maxTimestamp,
+            long minDuration,
+            long maxDuration,
+            int resultMask,
+            int buildingCount,
+            int keepLogCount,
+            @Nonnull long[] bloom,
+            @Nonnull int[] commonNames
+    ) {
+        this.index = index;
+        this.count = count;
+        this.minTimestamp = minTimestamp;
+        this.maxTimestamp = maxTimestamp;
+        this.minDuration = minDuration;
+        this.maxDuration = maxDuration;
+        this.resultMask = resultMask;
+        this.buildingCount = buildingCount;
+        this.keepLogCount = keepLogCount;
+        this.bloom = bloom;
+        this.commonNames = commonNames;
+    }
+
+    /**
+     * Summarizes builds in positions {@code from} (inclusive) to {@code to} (exclusive).
+     * Called holding {@link BuildIndex#readLock()}.
+     */
+    @Nonnull
+    static BlockSummary of(@Nonnull BuildIndex index, int from, int to) {
+        long minTimestamp = Long.MAX_VALUE;
+        long maxTimestamp = Long.MIN_VALUE;
+        long minDuration = Long.MAX_VALUE;
+        long maxDuration = Long.MIN_VALUE;
+        int resultMask = 0;
+        int buildingCount = 0;
+        int keepLogCount = 0;
+        long[] bloom = new long[BLOOM_BITS / 64];
+        int[] commonNames = null;
+        for (int position = from; position < to; ++position) {
+            long timestamp = index.timestampAt(position);
+            minTimestamp = Math.min(minTimestamp, timestamp);
+            maxTimestamp = Math.max(maxTimestamp, timestamp);
+            resultMask |= 1 << (index.rawResultAt(position) + 1);
+            if (index.isBuildingAt(position)) {
+                ++buildingCount;
+            } else {
+                long duration = index.durationAt(position);
+                minDuration = Math.min(minDuration, duration);
+                maxDuration = Math.max(maxDuration, duration);
+            }
+            if (index.isKeepLogAt(position)) {
+                ++keepLogCount;
+            }
+            int[] pairs = index.rawParametersAt(position);
+            int[] names = new int[pairs.length / 2];
+            for (int i = 0; i < pairs.length; i += 2) {
+                addToBloom(bloom, pairs[i], pairs[i + 1]);
+                names[i / 2] = pairs[i];
+            }
+            Arrays.sort(names);
+            commonNames = (commonNames == null) ? names : intersect(commonNames, names);
+        }
+        return new BlockSummary(
+                index,
+                to - from,
+                minTimestamp,
+                maxTimestamp,
+                minDuration,
+                maxDuration,
+                resultMask,
+                buildingCount,
+                keepLogCount,
+                bloom,
+                (commonNames != null) ? commonNames : new int[0]
+        );
+    }
+
+    /**
+     * @return the number of builds in the block
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @return the minimum timestamp of builds in the block, {@link Long#MAX_VALUE} if no builds
+     */
+    public long getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    /**
+     * @return the maximum timestamp of builds in the block, {@link Long#MIN_VALUE} if no builds
+     */
+    public long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    /**
+     * @return the minimum duration of completed builds in the block, {@link Long#MAX_VALUE} if none
+     */
+    public long getMinDuration() {
+        return minDuration;
+    }
+
+    /**
+     * @return the maximum duration of completed builds in the block, {@link Long#MIN_VALUE} if none
+     */
+    public long getMaxDuration() {
+        return maxDuration;
+    }
+
+    /**
+     * @param result the result, {@code null} for builds without results
+     * @return whether any build in the block has the result
+     */
+    public boolean containsResult(@CheckForNull Result result) {
+        return (resultMask & (1 << (BuildIndex.toOrdinal(result) + 1))) != 0;
+    }
+
+    /**
+     * @return the number of running builds in the block
+     */
+    public int getBuildingCount() {
+        return buildingCount;
+    }
+
+    /**
+     * @return the number of builds kept forever in the block
+     */
+    public int getKeepLogCount() {
+        return keepLogCount;
+    }
+
+    /**
+     * @param name  the name of the parameter
+     * @param value the value of the parameter
+     * @return {@code false} if all builds in the block have the parameter with other values
+     */
+    public boolean mayContainParameter(@Nonnull String name, @Nonnull String value) {
+        int nameId = index.findId(name);
+        if (nameId < 0 || Arrays.binarySearch(commonNames, nameId) < 0) {
+            // some builds don't have the parameter.
+            return true;
+        }
+        int valueId = index.findId(value);
+        return valueId >= 0 && mightContain(bloom, nameId, valueId);
+    }
+
+    /**
+     * @param nameId the id of the name of a parameter
+     * @return whether all builds in the block have the parameter
+     */
+    boolean allHaveParameter(int nameId) {
+        return Arrays.binarySearch(commonNames, nameId) >= 0;
+    }
+
+    @Nonnull
+    private static int[] intersect(@Nonnull int[] a, @Nonnull int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                ++i;
+            } else if (a[i] > b[j]) {
+                ++j;
+            } else {
+                result[n++] = a[i];
+                ++i;
+                ++j;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private static void addToBloom(@Nonnull long[] bloom, int nameId, int valueId) {
+        long hash = hash(nameId, valueId);
+        for (int i = 0; i < BLOOM_HASHES; ++i) {
+            int bit = bitOf(hash, i);
+            bloom[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    private static boolean mightContain(@Nonnull long[] bloom, int nameId, int valueId) {
+        long hash = hash(nameId, valueId);
+        for (int i = 0; i < BLOOM_HASHES; ++i) {
+            int bit = bitOf(hash, i);
+            if ((bloom[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(int nameId, int valueId) {
+        // mix bits (from SplitMix64).
+        long h = ((long) nameId << 32) | (valueId & 0xFFFFFFFFL);
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    private static int bitOf(long hash, int i) {
+        // double hashing with the upper and lower halves.
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        return ((h1 + i * h2) & 0x7FFFFFFF) % BLOOM_BITS;
+    }
+}
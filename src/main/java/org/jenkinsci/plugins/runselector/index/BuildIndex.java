@@ -0,0 +1,977 @@
+package org.jenkinsci.plugins.runselector.index;
+
+import hudson.EnvVars;
+import hudson.model.AbstractBuild;
+import hudson.model.ParameterValue;
+import hudson.model.ParametersAction;
+import hudson.model.Result;
+import hudson.model.Run;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Metadata of builds of a job, to find builds without loading them.
+ * <p>
+ * Builds are held in columns sorted by the build number and accessed by their position.
+ * Strings (display names, node names, parameter names and values, tags) are stored in a dictionary and referred by ids.
+ * Tags are strings prefixed with their kind, e.g. SCM revisions (see {@link BuildTags}).
+ * Builds are also summarized per block of build numbers with {@link BlockSummary},
+ * looked up by parameters, display names and tags with compressed {@link PostingList}s,
+ * and by the "keep forever" flag with a bitmap of build numbers.
+ * Read methods must be called holding {@link #readLock()}.
+ * Persisted with {@link BuildIndexFile} and maintained by {@link BuildIndexes}.
+ */
+public final class BuildIndex {
+    /**
+     * The build is running.
+     */
+    static final byte FLAG_BUILDING = 1;
+
+    /**
+     * The build is kept forever.
+     */
+    static final byte FLAG_KEEP_LOG = 2;
+
+    /**
+     * The build has no result yet.
+     */
+    static final byte NO_RESULT = -1;
+
+    private static final Result[] RESULTS = {
+            Result.SUCCESS, Result.UNSTABLE, Result.FAILURE, Result.NOT_BUILT, Result.ABORTED
+    };
+
+    private static final int[] NO_PARAMETERS = new int[0];
+
+    private static final int[] NO_TAGS = new int[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int size;
+    private int[] numbers = new int[16];
+    private byte[] results = new byte[16];
+    private byte[] flags = new byte[16];
+    private long[] timestamps = new long[16];
+    private long[] durations = new long[16];
+    private int[] displayNames = new int[16];
+    /**
+     * Ids of names of nodes builds ran on, {@code -1} if not available.
+     */
+    private int[] nodes = new int[16];
+    /**
+     * Pairs of ids of names and values.
+     */
+    private int[][] parameters = new int[16][];
+    /**
+     * Sorted ids of tags.
+     */
+    private int[][] tags = new int[16][];
+
+    private final List<String> strings = new ArrayList<String>();
+    private final Map<String, Integer> stringIds = new HashMap<String, Integer>();
+
+    /**
+     * Summaries of blocks computed, keyed by build numbers divided by {@link BlockSummary#SIZE}.
+     * Computed while reading and discarded when builds in the block change.
+     */
+    private final ConcurrentMap<Integer, BlockSummary> blocks = new ConcurrentHashMap<Integer, BlockSummary>();
+
+    /**
+     * Name-value pairs of parameters, to build numbers having them.
+     * Built when first used, and updated as builds change.
+     */
+    @CheckForNull
+    private volatile Map<Long, PostingList> postings;
+
+    /**
+     * Ids of display names other than the default ones, to build numbers having them.
+     * Built when first used, and updated as builds are renamed.
+     */
+    @CheckForNull
+    private volatile Map<Integer, PostingList> displayNamePostings;
+
+    /**
+     * Ids of tags, to build numbers having them.
+     * Built when first used, and updated as builds change.
+     */
+    @CheckForNull
+    private volatile Map<Integer, PostingList> tagPostings;
+
+    /**
+     * Numbers of builds kept forever.
+     */
+    private final BitSet kept = new BitSet();
+
+    /**
+     * Whether builds may be kept forever because of builds of other jobs.
+     */
+    private volatile boolean keptByDependencies;
+
+    /**
+     * When the index is used for a selection last time, in milliseconds.
+     */
+    private volatile long lastUsed;
+
+    /**
+     * @return the lock to hold while reading the index
+     */
+    @Nonnull
+    public Lock readLock() {
+        return lock.readLock();
+    }
+
+    @Nonnull
+    Lock writeLock() {
+        return lock.writeLock();
+    }
+
+    /**
+     * @return the number of builds
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param position position of the build
+     * @return the build number
+     */
+    public int numberAt(int position) {
+        return numbers[position];
+    }
+
+    /**
+     * @param position position of the build
+     * @return the result, {@code null} if not available yet
+     */
+    @CheckForNull
+    public Result resultAt(int position) {
+        return toResult(results[position]);
+    }
+
+    /**
+     * @param position position of the build
+     * @return whether the build is running
+     */
+    public boolean isBuildingAt(int position) {
+        return (flags[position] & FLAG_BUILDING) != 0;
+    }
+
+    /**
+     * @param position position of the build
+     * @return whether the build is kept forever
+     */
+    public boolean isKeepLogAt(int position) {
+        return (flags[position] & FLAG_KEEP_LOG) != 0;
+    }
+
+    /**
+     * @param position position of the build
+     * @return when the build is scheduled, in milliseconds
+     */
+    public long timestampAt(int position) {
+        return timestamps[position];
+    }
+
+    /**
+     * @param position position of the build
+     * @return how long the build took, in milliseconds. {@code 0} if running.
+     */
+    public long durationAt(int position) {
+        return durations[position];
+    }
+
+    /**
+     * @param position position of the build
+     * @return the name of the node the build ran on, an empty string for the master.
+     *      {@code null} if not available, e.g. for Pipeline builds.
+     */
+    @CheckForNull
+    public String nodeAt(int position) {
+        int id = nodes[position];
+        return (id >= 0) ? strings.get(id) : null;
+    }
+
+    /**
+     * @param position position of the build
+     * @return the display name of the build
+     */
+    @Nonnull
+    public String displayNameAt(int position) {
+        int id = displayNames[position];
+        return (id >= 0) ? strings.get(id) : defaultDisplayName(numbers[position]);
+    }
+
+    /**
+     * @param position position of the build
+     * @param name     the name of the parameter
+     * @return the value of the parameter, {@code null} if the build doesn't have the parameter
+     */
+    @CheckForNull
+    public String parameterAt(int position, @Nonnull String name) {
+        Integer nameId = stringIds.get(name);
+        if (nameId == null) {
+            return null;
+        }
+        int[] pairs = parameters[position];
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (pairs[i] == nameId) {
+                return strings.get(pairs[i + 1]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param position position of the build
+     * @param tag      the tag, prefixed with its kind
+     * @return whether the build has the tag
+     * @see BuildTags
+     */
+    public boolean hasTagAt(int position, @Nonnull String tag) {
+        int id = findId(tag);
+        return id >= 0 && Arrays.binarySearch(tags[position], id) >= 0;
+    }
+
+    /**
+     * @param position position of the build
+     * @param prefix   the kind of tags
+     * @return tags of the kind the build has, without the prefix
+     * @see BuildTags
+     */
+    @Nonnull
+    public List<String> tagsAt(int position, @Nonnull String prefix) {
+        List<String> values = new ArrayList<String>();
+        for (int id : tags[position]) {
+            String tag = strings.get(id);
+            if (tag.startsWith(prefix)) {
+                values.add(tag.substring(prefix.length()));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Looks up the dictionary for tags of a kind, including ones no longer used by builds.
+     *
+     * @param prefix the kind of tags
+     * @return tags of the kind, without the prefix
+     * @see BuildTags
+     */
+    @Nonnull
+    public List<String> findTags(@Nonnull String prefix) {
+        List<String> values = new ArrayList<String>();
+        for (String value : strings) {
+            if (value.startsWith(prefix)) {
+                values.add(value.substring(prefix.length()));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @param number the build number
+     * @return the position of the build, or {@code -(insertion point) - 1} if not indexed
+     */
+    public int positionOf(int number) {
+        return Arrays.binarySearch(numbers, 0, size, number);
+    }
+
+    /**
+     * @param before the build number
+     * @return the position of the newest build older than {@code before}, {@code -1} if none
+     */
+    public int positionBefore(int before) {
+        int position = positionOf(before);
+        return (position >= 0) ? position - 1 : -position - 2;
+    }
+
+    /**
+     * @return the newest build number indexed, {@code 0} if none
+     */
+    public int lastNumber() {
+        return (size > 0) ? numbers[size - 1] : 0;
+    }
+
+    /**
+     * @param block the build number divided by {@link BlockSummary#SIZE}
+     * @return the summary of builds in the block
+     */
+    @Nonnull
+    public BlockSummary blockSummary(int block) {
+        BlockSummary summary = blocks.get(block);
+        if (summary == null) {
+            summary = BlockSummary.of(
+                    this,
+                    positionBefore(block * BlockSummary.SIZE) + 1,
+                    positionBefore((block + 1) * BlockSummary.SIZE) + 1
+            );
+            blocks.put(block, summary);
+        }
+        return summary;
+    }
+
+    /**
+     * @param name   the name of the parameter
+     * @param value  the value of the parameter
+     * @param before the build number to seek from, exclusive
+     * @return the newest build number lower than {@code before} with the parameter of the value,
+     *      {@code -1} if none
+     */
+    public int seekParameter(@Nonnull String name, @Nonnull String value, int before) {
+        int nameId = findId(name);
+        int valueId = findId(value);
+        if (nameId < 0 || valueId < 0) {
+            return -1;
+        }
+        PostingList posting = getPostings().get(pairKey(nameId, valueId));
+        return (posting != null) ? posting.seek(before) : -1;
+    }
+
+    /**
+     * @param name   the name of the parameter
+     * @param before the build number to seek from, exclusive
+     * @return the newest build number lower than {@code before} without the parameter, {@code -1} if none
+     */
+    public int seekWithoutParameter(@Nonnull String name, int before) {
+        int nameId = findId(name);
+        int position = positionBefore(before);
+        if (nameId < 0) {
+            return (position >= 0) ? numbers[position] : -1;
+        }
+        while (position >= 0) {
+            int block = numbers[position] / BlockSummary.SIZE;
+            int blockStart = block * BlockSummary.SIZE;
+            if (blockSummary(block).allHaveParameter(nameId)) {
+                position = positionBefore(blockStart);
+                continue;
+            }
+            for (; position >= 0 && numbers[position] >= blockStart; --position) {
+                if (!hasParameter(parameters[position], nameId)) {
+                    return numbers[position];
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param displayName the display name
+     * @param before      the build number to seek from, exclusive
+     * @return the newest build number lower than {@code before} with the display name, {@code -1} if none
+     */
+    public int seekDisplayName(@Nonnull String displayName, int before) {
+        int found = -1;
+        int id = findId(displayName);
+        if (id >= 0) {
+            PostingList posting = getDisplayNamePostings().get(id);
+            if (posting != null) {
+                found = posting.seek(before);
+            }
+        }
+        int number = parseDefaultDisplayName(displayName);
+        if (number > found && number < before) {
+            // builds with the default display name aren't listed.
+            int position = positionOf(number);
+            if (position >= 0 && displayNames[position] < 0) {
+                found = number;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @param tag    the tag, prefixed with its kind
+     * @param before the build number to seek from, exclusive
+     * @return the newest build number lower than {@code before} with the tag, {@code -1} if none
+     * @see BuildTags
+     */
+    public int seekTag(@Nonnull String tag, int before) {
+        int id = findId(tag);
+        if (id < 0) {
+            return -1;
+        }
+        PostingList posting = getTagPostings().get(id);
+        return (posting != null) ? posting.seek(before) : -1;
+    }
+
+    /**
+     * Scans the column of nodes, without looking up names.
+     *
+     * @param node   the name of the node, an empty string for the master
+     * @param before the build number to seek from, exclusive
+     * @return the newest build number lower than {@code before} ran on the node, {@code -1} if none
+     */
+    public int seekNode(@Nonnull String node, int before) {
+        int id = findId(node);
+        if (id < 0) {
+            return -1;
+        }
+        for (int position = positionBefore(before); position >= 0; --position) {
+            if (nodes[position] == id) {
+                return numbers[position];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param before the build number to seek from, exclusive
+     * @return the newest build number lower than {@code before} kept forever, {@code -1} if none
+     */
+    public int seekKept(int before) {
+        if (keptByDependencies) {
+            // Run#isKeepLog() can't be tracked.
+            int position = positionBefore(before);
+            return (position >= 0) ? numbers[position] : -1;
+        }
+        return (before > 0) ? kept.previousSetBit(before - 1) : -1;
+    }
+
+    /**
+     * @param keptByDependencies whether builds may be kept forever because of builds of other jobs,
+     *      e.g. downstream projects with "keep the build logs of dependencies"
+     */
+    void setKeptByDependencies(boolean keptByDependencies) {
+        this.keptByDependencies = keptByDependencies;
+    }
+
+    private static int parseDefaultDisplayName(@Nonnull String displayName) {
+        if (!displayName.startsWith("#")) {
+            return -1;
+        }
+        try {
+            int number = Integer.parseInt(displayName.substring(1));
+            return defaultDisplayName(number).equals(displayName) ? number : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static boolean hasParameter(@Nonnull int[] pairs, int nameId) {
+        for (int i = 0; i < pairs.length; i += 2) {
+            if (pairs[i] == nameId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Nonnull
+    private Map<Long, PostingList> getPostings() {
+        Map<Long, PostingList> postings = this.postings;
+        if (postings != null) {
+            return postings;
+        }
+        synchronized (this) {
+            if (this.postings == null) {
+                // readers may build it at once.
+                Map<Long, PostingList> built = new HashMap<Long, PostingList>();
+                for (int position = 0; position < size; ++position) {
+                    addPostings(built, numbers[position], parameters[position]);
+                }
+                this.postings = built;
+            }
+            return this.postings;
+        }
+    }
+
+    @Nonnull
+    private Map<Integer, PostingList> getDisplayNamePostings() {
+        Map<Integer, PostingList> displayNamePostings = this.displayNamePostings;
+        if (displayNamePostings != null) {
+            return displayNamePostings;
+        }
+        synchronized (this) {
+            if (this.displayNamePostings == null) {
+                // readers may build it at once.
+                Map<Integer, PostingList> built = new HashMap<Integer, PostingList>();
+                for (int position = 0; position < size; ++position) {
+                    addIdPosting(built, numbers[position], displayNames[position]);
+                }
+                this.displayNamePostings = built;
+            }
+            return this.displayNamePostings;
+        }
+    }
+
+    @Nonnull
+    private Map<Integer, PostingList> getTagPostings() {
+        Map<Integer, PostingList> tagPostings = this.tagPostings;
+        if (tagPostings != null) {
+            return tagPostings;
+        }
+        synchronized (this) {
+            if (this.tagPostings == null) {
+                // readers may build it at once.
+                Map<Integer, PostingList> built = new HashMap<Integer, PostingList>();
+                for (int position = 0; position < size; ++position) {
+                    for (int tag : tags[position]) {
+                        addIdPosting(built, numbers[position], tag);
+                    }
+                }
+                this.tagPostings = built;
+            }
+            return this.tagPostings;
+        }
+    }
+
+    private static void addIdPosting(@Nonnull Map<Integer, PostingList> postings, int number, int id) {
+        if (id < 0) {
+            return;
+        }
+        PostingList posting = postings.get(id);
+        if (posting == null) {
+            posting = new PostingList();
+            postings.put(id, posting);
+        }
+        posting.add(number);
+    }
+
+    private static void removeIdPosting(@Nonnull Map<Integer, PostingList> postings, int number, int id) {
+        if (id < 0) {
+            return;
+        }
+        PostingList posting = postings.get(id);
+        if (posting != null) {
+            posting.remove(number);
+            if (posting.size() == 0) {
+                postings.remove(id);
+            }
+        }
+    }
+
+    private static void addPostings(@Nonnull Map<Long, PostingList> postings, int number, @Nonnull int[] pairs) {
+        for (int i = 0; i < pairs.length; i += 2) {
+            Long key = pairKey(pairs[i], pairs[i + 1]);
+            PostingList posting = postings.get(key);
+            if (posting == null) {
+                posting = new PostingList();
+                postings.put(key, posting);
+            }
+            posting.add(number);
+        }
+    }
+
+    private static void removePostings(@Nonnull Map<Long, PostingList> postings, int number, @Nonnull int[] pairs) {
+        for (int i = 0; i < pairs.length; i += 2) {
+            Long key = pairKey(pairs[i], pairs[i + 1]);
+            PostingList posting = postings.get(key);
+            if (posting != null) {
+                posting.remove(number);
+                if (posting.size() == 0) {
+                    postings.remove(key);
+                }
+            }
+        }
+    }
+
+    private static long pairKey(int nameId, int valueId) {
+        return ((long) nameId << 32) | (valueId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return when the index is used for a selection last time, in milliseconds
+     */
+    public long getLastUsed() {
+        return lastUsed;
+    }
+
+    void setLastUsed(long lastUsed) {
+        this.lastUsed = lastUsed;
+    }
+
+    /**
+     * Records the index is used.
+     *
+     * @param now the current time in milliseconds
+     * @return whether the recorded time is updated, which is done at most once an hour
+     */
+    boolean touch(long now) {
+        if (now - lastUsed < TimeUnit.HOURS.toMillis(1)) {
+            return false;
+        }
+        lastUsed = now;
+        return true;
+    }
+
+    /**
+     * Adds or updates a build. Call holding {@link #writeLock()}.
+     *
+     * @param run the build
+     * @return whether the build was indexed as completed and is changed
+     */
+    boolean put(@Nonnull Run<?, ?> run) {
+        int number = run.getNumber();
+        String displayName = run.getDisplayName();
+        String node = nodeOf(run);
+        return put(
+                number,
+                toOrdinal(run.isBuilding() ? null : run.getResult()),
+                flagOf(run),
+                run.getTimeInMillis(),
+                run.getDuration(),
+                defaultDisplayName(number).equals(displayName) ? -1 : idOf(displayName),
+                (node != null) ? idOf(node) : -1,
+                parametersOf(run),
+                tagsOf(run)
+        );
+    }
+
+    /**
+     * Whether a running build is indexed as is.
+     * Parameters are fixed when started, and tags are recorded again when completed.
+     * Call holding {@link #readLock()}.
+     *
+     * @param run the running build
+     * @return {@code false} if not indexed as running or changed
+     */
+    boolean isIndexedAsRunning(@Nonnull Run<?, ?> run) {
+        int number = run.getNumber();
+        int position = positionOf(number);
+        if (position < 0 || !isBuildingAt(position) || !run.isBuilding() || flags[position] != flagOf(run)) {
+            return false;
+        }
+        String displayName = run.getDisplayName();
+        if (defaultDisplayName(number).equals(displayName)) {
+            if (displayNames[position] != -1) {
+                return false;
+            }
+        } else if (displayNames[position] < 0 || displayNames[position] != findId(displayName)) {
+            return false;
+        }
+        String node = nodeOf(run);
+        if (node == null) {
+            return nodes[position] == -1;
+        }
+        return nodes[position] >= 0 && nodes[position] == findId(node);
+    }
+
+    private static byte flagOf(@Nonnull Run<?, ?> run) {
+        byte flag = 0;
+        if (run.isBuilding()) {
+            flag |= FLAG_BUILDING;
+        }
+        if (run.isKeepLog()) {
+            flag |= FLAG_KEEP_LOG;
+        }
+        return flag;
+    }
+
+    @CheckForNull
+    private static String nodeOf(@Nonnull Run<?, ?> run) {
+        return (run instanceof AbstractBuild) ? ((AbstractBuild<?, ?>) run).getBuiltOnStr() : null;
+    }
+
+    /**
+     * Adds or updates a build without tags. Call holding {@link #writeLock()}.
+     *
+     * @return whether the build was indexed as completed and is changed
+     */
+    boolean put(int number, byte result, byte flag, long timestamp, int displayName, @Nonnull int[] pairs) {
+        return put(number, result, flag, timestamp, 0L, displayName, -1, pairs, NO_TAGS);
+    }
+
+    /**
+     * Adds or updates a build. Call holding {@link #writeLock()}.
+     *
+     * @param node   the id of the name of the node, {@code -1} if not available
+     * @param tagIds sorted ids of tags
+     * @return whether the build was indexed as completed and is changed
+     */
+    boolean put(
+            int number,
+            byte result,
+            byte flag,
+            long timestamp,
+            long duration,
+            int displayName,
+            int node,
+            @Nonnull int[] pairs,
+            @Nonnull int[] tagIds
+    ) {
+        int position = positionOf(number);
+        blocks.remove(number / BlockSummary.SIZE);
+        Map<Long, PostingList> postings = this.postings;
+        if (postings != null && (position < 0 || !Arrays.equals(parameters[position], pairs))) {
+            if (position >= 0) {
+                removePostings(postings, number, parameters[position]);
+            }
+            addPostings(postings, number, pairs);
+        }
+        Map<Integer, PostingList> displayNamePostings = this.displayNamePostings;
+        if (displayNamePostings != null && (position < 0 || displayNames[position] != displayName)) {
+            if (position >= 0) {
+                removeIdPosting(displayNamePostings, number, displayNames[position]);
+            }
+            addIdPosting(displayNamePostings, number, displayName);
+        }
+        Map<Integer, PostingList> tagPostings = this.tagPostings;
+        if (tagPostings != null && (position < 0 || !Arrays.equals(tags[position], tagIds))) {
+            if (position >= 0) {
+                for (int tag : tags[position]) {
+                    removeIdPosting(tagPostings, number, tag);
+                }
+            }
+            for (int tag : tagIds) {
+                addIdPosting(tagPostings, number, tag);
+            }
+        }
+        kept.set(number, (flag & FLAG_KEEP_LOG) != 0);
+        boolean modified = false;
+        if (position >= 0) {
+            modified = !isBuildingAt(position) && (
+                    results[position] != result
+                    || flags[position] != flag
+                    || timestamps[position] != timestamp
+                    || durations[position] != duration
+                    || displayNames[position] != displayName
+                    || nodes[position] != node
+                    || !Arrays.equals(parameters[position], pairs)
+                    || !Arrays.equals(tags[position], tagIds)
+            );
+        } else {
+            position = -position - 1;
+            ensureCapacity(size + 1);
+            int moved = size - position;
+            if (moved > 0) {
+                System.arraycopy(numbers, position, numbers, position + 1, moved);
+                System.arraycopy(results, position, results, position + 1, moved);
+                System.arraycopy(flags, position, flags, position + 1, moved);
+                System.arraycopy(timestamps, position, timestamps, position + 1, moved);
+                System.arraycopy(durations, position, durations, position + 1, moved);
+                System.arraycopy(displayNames, position, displayNames, position + 1, moved);
+                System.arraycopy(nodes, position, nodes, position + 1, moved);
+                System.arraycopy(parameters, position, parameters, position + 1, moved);
+                System.arraycopy(tags, position, tags, position + 1, moved);
+            }
+            size++;
+        }
+        numbers[position] = number;
+        results[position] = result;
+        flags[position] = flag;
+        timestamps[position] = timestamp;
+        durations[position] = duration;
+        displayNames[position] = displayName;
+        nodes[position] = node;
+        parameters[position] = pairs;
+        tags[position] = tagIds;
+        return modified;
+    }
+
+    /**
+     * Removes a build. Call holding {@link #writeLock()}.
+     *
+     * @param number the build number
+     * @return whether the build was indexed
+     */
+    boolean remove(int number) {
+        int position = positionOf(number);
+        if (position < 0) {
+            return false;
+        }
+        blocks.remove(number / BlockSummary.SIZE);
+        Map<Long, PostingList> postings = this.postings;
+        if (postings != null) {
+            removePostings(postings, number, parameters[position]);
+        }
+        Map<Integer, PostingList> displayNamePostings = this.displayNamePostings;
+        if (displayNamePostings != null) {
+            removeIdPosting(displayNamePostings, number, displayNames[position]);
+        }
+        Map<Integer, PostingList> tagPostings = this.tagPostings;
+        if (tagPostings != null) {
+            for (int tag : tags[position]) {
+                removeIdPosting(tagPostings, number, tag);
+            }
+        }
+        kept.clear(number);
+        int moved = size - position - 1;
+        if (moved > 0) {
+            System.arraycopy(numbers, position + 1, numbers, position, moved);
+            System.arraycopy(results, position + 1, results, position, moved);
+            System.arraycopy(flags, position + 1, flags, position, moved);
+            System.arraycopy(timestamps, position + 1, timestamps, position, moved);
+            System.arraycopy(durations, position + 1, durations, position, moved);
+            System.arraycopy(displayNames, position + 1, displayNames, position, moved);
+            System.arraycopy(nodes, position + 1, nodes, position, moved);
+            System.arraycopy(parameters, position + 1, parameters, position, moved);
+            System.arraycopy(tags, position + 1, tags, position, moved);
+        }
+        size--;
+        parameters[size] = null;
+        tags[size] = null;
+        return true;
+    }
+
+    /**
+     * @param position position of the build
+     * @return the raw result ordinal
+     */
+    byte rawResultAt(int position) {
+        return results[position];
+    }
+
+    byte rawFlagsAt(int position) {
+        return flags[position];
+    }
+
+    int rawDisplayNameAt(int position) {
+        return displayNames[position];
+    }
+
+    int rawNodeAt(int position) {
+        return nodes[position];
+    }
+
+    @Nonnull
+    int[] rawParametersAt(int position) {
+        return parameters[position];
+    }
+
+    @Nonnull
+    int[] rawTagsAt(int position) {
+        return tags[position];
+    }
+
+    /**
+     * @return strings referred by ids
+     */
+    @Nonnull
+    List<String> getStrings() {
+        return strings;
+    }
+
+    /**
+     * @param value a string
+     * @return the id of the string, added to the dictionary if not exists
+     */
+    int idOf(@Nonnull String value) {
+        Integer id = stringIds.get(value);
+        if (id == null) {
+            id = strings.size();
+            strings.add(value);
+            stringIds.put(value, id);
+        }
+        return id;
+    }
+
+    /**
+     * @return the number of strings in the dictionary, which only grows
+     */
+    public int getDictionarySize() {
+        return strings.size();
+    }
+
+    /**
+     * @param value a string
+     * @return the id of the string, {@code -1} if not in the dictionary
+     */
+    int findId(@Nonnull String value) {
+        Integer id = stringIds.get(value);
+        return (id != null) ? id : -1;
+    }
+
+    @Nonnull
+    private int[] parametersOf(@Nonnull Run<?, ?> run) {
+        EnvVars env = new EnvVars();
+        for (ParametersAction pa : run.getActions(ParametersAction.class)) {
+            for (ParameterValue pv : pa.getParameters()) {
+                if (pv == null || pv.isSensitive()) {
+                    // not to store secrets.
+                    continue;
+                }
+                pv.buildEnvironment(run, env);
+            }
+        }
+        if (env.isEmpty()) {
+            return NO_PARAMETERS;
+        }
+        int[] pairs = new int[env.size() * 2];
+        int i = 0;
+        for (Map.Entry<String, String> e : env.entrySet()) {
+            if (e.getValue().contains("$")) {
+                // may be expanded in the environment of the build.
+                continue;
+            }
+            pairs[i++] = idOf(e.getKey());
+            pairs[i++] = idOf(e.getValue());
+        }
+        return (i < pairs.length) ? Arrays.copyOf(pairs, i) : pairs;
+    }
+
+    @Nonnull
+    private int[] tagsOf(@Nonnull Run<?, ?> run) {
+        int position = positionOf(run.getNumber());
+        List<String> recorded = new ArrayList<String>();
+        if (position >= 0) {
+            for (int id : tags[position]) {
+                recorded.add(strings.get(id));
+            }
+        }
+        Set<String> values = BuildTags.of(run, recorded, position >= 0 && !isBuildingAt(position));
+        if (values.isEmpty()) {
+            return NO_TAGS;
+        }
+        int[] ids = new int[values.size()];
+        int i = 0;
+        for (String value : values) {
+            ids[i++] = idOf(value);
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (numbers.length >= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, numbers.length * 2);
+        numbers = Arrays.copyOf(numbers, newCapacity);
+        results = Arrays.copyOf(results, newCapacity);
+        flags = Arrays.copyOf(flags, newCapacity);
+        timestamps = Arrays.copyOf(timestamps, newCapacity);
+        durations = Arrays.copyOf(durations, newCapacity);
+        displayNames = Arrays.copyOf(displayNames, newCapacity);
+        nodes = Arrays.copyOf(nodes, newCapacity);
+        parameters = Arrays.copyOf(parameters, newCapacity);
+        tags = Arrays.copyOf(tags, newCapacity);
+    }
+
+    @Nonnull
+    private static String defaultDisplayName(int number) {
+        // Run#getDisplayName() without a custom name.
+        return "#" + number;
+    }
+
+    static byte toOrdinal(@CheckForNull Result result) {
+        if (result == null) {
+            return NO_RESULT;
+        }
+        for (byte i = 0; i < RESULTS.length; i++) {
+            if (RESULTS[i] == result) {
+                return i;
+            }
+        }
+        return NO_RESULT;
+    }
+
+    @CheckForNull
+    static Result toResult(byte ordinal) {
+        return (ordinal >= 0 && ordinal < RESULTS.length) ? RESULTS[ordinal] : null;
+    }
+}
@@ -0,0 +1,337 @@
+package org.jenkinsci.plugins.runselector.index;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.CRC32;
+
+/**
+ * The file storing a {@link BuildIndex} in the directory of the job.
+ * <p>
+ * The file consists of:
+ * <ul>
+ *     <li>the header: magic, format version, the number of records, the number of strings,
+ *     when the index is used last time and the CRC32 checksum of the rest of the file.</li>
+ *     <li>the dictionary: length-prefixed UTF-8 strings.</li>
+ *     <li>records: fixed-width records of the build number, the result ordinal, flags,
+ *     the timestamp, the duration, the string ids of the display name and the node, the number of parameters
+ *     and the number of tags, sorted by the build number.</li>
+ *     <li>parameters: pairs of string ids of names and values for each record.</li>
+ *     <li>tags: sorted string ids of tags for each record.</li>
+ * </ul>
+ * The file is decoded into the arrays of {@link BuildIndex} at once when read.
+ * <p>
+ * Builds changed after the file is written are appended to {@value #JOURNAL_NAME}
+ * as lines of build numbers, and are reconciled when the index is loaded next time.
+ * Files with a different version or a broken checksum are reported with {@link CorruptedIndexException}
+ * to have the index rebuilt.
+ */
+final class BuildIndexFile {
+    /**
+     * The name of the file in the directory of the job.
+     */
+    static final String NAME = "runSelectorIndex";
+
+    /**
+     * The name of the journal in the directory of the job.
+     */
+    static final String JOURNAL_NAME = NAME + ".journal";
+
+    private static final int MAGIC = 0x52534958; // "RSIX"
+
+    /**
+     * Increment when changing the format.
+     */
+    static final int VERSION = 5;
+
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 8 + 8;
+
+    private static final int RECORD_SIZE = 4 + 1 + 1 + 2 + 8 + 8 + 4 + 4 + 4 + 4;
+
+    private BuildIndexFile() {
+    }
+
+    /**
+     * The file can't be used, and the index should be rebuilt.
+     */
+    static final class CorruptedIndexException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        CorruptedIndexException(@Nonnull String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * @param file the file to read
+     * @return the index read from the file
+     * @throws CorruptedIndexException the file is broken or in an other version
+     * @throws IOException             failed to read the file
+     */
+    @Nonnull
+    static BuildIndex read(@Nonnull File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new CorruptedIndexException("Unexpected size " + size + " of " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            try {
+                return decode(buffer);
+            } catch (RuntimeException e) {
+                // e.g. BufferUnderflowException for truncated files.
+                CorruptedIndexException x = new CorruptedIndexException("Failed to decode " + file);
+                x.initCause(e);
+                throw x;
+            }
+        }
+    }
+
+    @Nonnull
+    private static BuildIndex decode(@Nonnull ByteBuffer buffer) throws CorruptedIndexException {
+        if (buffer.getInt() != MAGIC) {
+            throw new CorruptedIndexException("Not an index file");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new CorruptedIndexException("Unsupported version " + version);
+        }
+        int count = buffer.getInt();
+        int stringCount = buffer.getInt();
+        long lastUsed = buffer.getLong();
+        long checksum = buffer.getLong();
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate());
+        if (crc.getValue() != checksum) {
+            throw new CorruptedIndexException("Checksum mismatch");
+        }
+
+        BuildIndex index = new BuildIndex();
+        index.setLastUsed(lastUsed);
+        for (int i = 0; i < stringCount; ++i) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            index.idOf(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        ByteBuffer parameters = buffer.duplicate();
+        parameters.position(buffer.position() + count * RECORD_SIZE);
+        // tags follow parameters of all records.
+        int parameterCount = 0;
+        for (int i = 0; i < count; ++i) {
+            parameterCount += parameters.getInt(buffer.position() + i * RECORD_SIZE + RECORD_SIZE - 8);
+        }
+        ByteBuffer tags = buffer.duplicate();
+        tags.position(parameters.position() + parameterCount * 2 * 4);
+        for (int i = 0; i < count; ++i) {
+            int number = buffer.getInt();
+            byte result = buffer.get();
+            byte flags = buffer.get();
+            buffer.getShort(); // reserved
+            long timestamp = buffer.getLong();
+            long duration = buffer.getLong();
+            int displayName = buffer.getInt();
+            int node = buffer.getInt();
+            int[] pairs = new int[buffer.getInt() * 2];
+            for (int j = 0; j < pairs.length; ++j) {
+                pairs[j] = checkId(parameters.getInt(), stringCount);
+            }
+            int[] tagIds = new int[buffer.getInt()];
+            for (int j = 0; j < tagIds.length; ++j) {
+                tagIds[j] = checkId(tags.getInt(), stringCount);
+            }
+            index.put(
+                    number,
+                    result,
+                    flags,
+                    timestamp,
+                    duration,
+                    (displayName < 0) ? -1 : checkId(displayName, stringCount),
+                    (node < 0) ? -1 : checkId(node, stringCount),
+                    pairs,
+                    tagIds
+            );
+        }
+        return index;
+    }
+
+    /**
+     * Reads only the header of the file.
+     *
+     * @param file the file to read
+     * @return when the index is used last time, {@code 0} if not available
+     */
+    static long readLastUsed(@Nonnull File file) {
+        if (!file.exists()) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read until the end of the header
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                return 0;
+            }
+            header.getInt(); // records
+            header.getInt(); // strings
+            return header.getLong();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static int checkId(int id, int stringCount) throws CorruptedIndexException {
+        if (id < 0 || id >= stringCount) {
+            throw new CorruptedIndexException("Unknown string " + id);
+        }
+        return id;
+    }
+
+    /**
+     * Writes the index, replacing the existing file atomically.
+     * Call holding {@link BuildIndex#readLock()}.
+     *
+     * @param file  the file to write
+     * @param index the index to write
+     * @throws IOException failed to write the file
+     */
+    static void write(@Nonnull File file, @Nonnull BuildIndex index) throws IOException {
+        ByteBuffer buffer = encode(index);
+        File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(
+                tmp.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+        )) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Appends a changed build to the journal.
+     *
+     * @param journal the journal
+     * @param number  the number of the build
+     * @throws IOException failed to write the journal
+     */
+    static void appendJournal(@Nonnull File journal, int number) throws IOException {
+        // a single small write, not interleaved with other appends.
+        Files.write(
+                journal.toPath(),
+                (number + "\n").getBytes(StandardCharsets.US_ASCII),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND
+        );
+    }
+
+    /**
+     * @param journal the journal to read
+     * @return numbers of builds changed, empty if no journal
+     * @throws CorruptedIndexException the journal is broken, e.g. truncated when Jenkins crashed
+     * @throws IOException             failed to read the journal
+     */
+    @Nonnull
+    static Set<Integer> readJournal(@Nonnull File journal) throws IOException {
+        Set<Integer> numbers = new TreeSet<Integer>();
+        if (!journal.exists()) {
+            return numbers;
+        }
+        String content = new String(Files.readAllBytes(journal.toPath()), StandardCharsets.US_ASCII);
+        if (!content.isEmpty() && !content.endsWith("\n")) {
+            throw new CorruptedIndexException("Truncated journal " + journal);
+        }
+        for (String line : content.split("\n")) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            try {
+                numbers.add(Integer.parseInt(line));
+            } catch (NumberFormatException e) {
+                throw new CorruptedIndexException("Unexpected line " + line + " in " + journal);
+            }
+        }
+        return numbers;
+    }
+
+    @Nonnull
+    private static ByteBuffer encode(@Nonnull BuildIndex index) {
+        List<String> strings = index.getStrings();
+        byte[][] encoded = new byte[strings.size()][];
+        int size = HEADER_SIZE + index.size() * RECORD_SIZE;
+        for (int i = 0; i < encoded.length; ++i) {
+            encoded[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            size += 4 + encoded[i].length;
+        }
+        for (int position = 0; position < index.size(); ++position) {
+            size += index.rawParametersAt(position).length * 4;
+            size += index.rawTagsAt(position).length * 4;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.position(HEADER_SIZE);
+        for (byte[] bytes : encoded) {
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+        for (int position = 0; position < index.size(); ++position) {
+            buffer.putInt(index.numberAt(position));
+            buffer.put(index.rawResultAt(position));
+            buffer.put(index.rawFlagsAt(position));
+            buffer.putShort((short) 0);
+            buffer.putLong(index.timestampAt(position));
+            buffer.putLong(index.durationAt(position));
+            buffer.putInt(index.rawDisplayNameAt(position));
+            buffer.putInt(index.rawNodeAt(position));
+            buffer.putInt(index.rawParametersAt(position).length / 2);
+            buffer.putInt(index.rawTagsAt(position).length);
+        }
+        for (int position = 0; position < index.size(); ++position) {
+            for (int id : index.rawParametersAt(position)) {
+                buffer.putInt(id);
+            }
+        }
+        for (int position = 0; position < index.size(); ++position) {
+            for (int id : index.rawTagsAt(position)) {
+                buffer.putInt(id);
+            }
+        }
+
+        ByteBuffer body = buffer.duplicate();
+        body.position(HEADER_SIZE);
+        body.limit(size);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+
+        buffer.position(0);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(index.size());
+        buffer.putInt(encoded.length);
+        buffer.putLong(index.getLastUsed());
+        buffer.putLong(crc.getValue());
+        buffer.position(0);
+        return buffer;
+    }
+}
@@ -0,0 +1,772 @@
+package org.jenkinsci.plugins.runselector.index;
+
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.init.Terminator;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.Saveable;
+import hudson.model.TaskListener;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import hudson.model.listeners.SaveableListener;
+import jenkins.model.Jenkins;
+import jenkins.util.Timer;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Maintains {@link BuildIndex}es of jobs.
+ * <p>
+ * An index is loaded from {@value BuildIndexFile#NAME} in the directory of the job when first requested,
+ * or in the background by {@link IndexWarmup} at startup if used before,
+ * and rebuilt from builds when the file is missing, broken or in an other format.
+ * Builds completed while Jenkins was down are added when loaded.
+ * Until an index is ready, or while changes of builds are being applied to it,
+ * selections examine builds one by one.
+ * <p>
+ * Indexes are updated as builds start, complete, are saved (e.g. "Keep this build forever" is toggled)
+ * and are deleted.
+ * Changed builds of jobs having indexes are appended to {@value BuildIndexFile#JOURNAL_NAME} at once,
+ * even when the index is not loaded, and are reconciled when the index is loaded next time.
+ * Saves of running builds not changing indexed fields (e.g. by each step of Pipeline builds) are ignored,
+ * as running builds are read again when loaded.
+ * The index itself is written with a delay, and the journal is cleared then.
+ * <p>
+ * At most {@value #DEFAULT_MAX_LOADED} indexes are kept loaded, configurable with the system property
+ * {@code org.jenkinsci.plugins.runselector.index.BuildIndexes.maxLoaded},
+ * and indexes used least recently are written and unloaded over that.
+ * <p>
+ * Set the system property {@code org.jenkinsci.plugins.runselector.index.BuildIndexes.disabled}
+ * to {@code true} not to use indexes.
+ */
+@Extension
+public class BuildIndexes {
+    private static final Logger LOGGER = Logger.getLogger(BuildIndexes.class.getName());
+
+    static final boolean DISABLED = Boolean.getBoolean(BuildIndexes.class.getName() + ".disabled");
+
+    static final int DEFAULT_MAX_LOADED = 500;
+
+    /**
+     * Maximum number of indexes kept loaded.
+     */
+    static final int MAX_LOADED = Math.max(1, Integer.getInteger(
+            BuildIndexes.class.getName() + ".maxLoaded",
+            DEFAULT_MAX_LOADED
+    ));
+
+    /**
+     * Delay to save indexes after they are updated, to write the file once for bursts of builds.
+     */
+    private static final long SAVE_DELAY_SECONDS = 10;
+
+    /**
+     * Full name of the job to its index.
+     */
+    private final ConcurrentMap<String, Holder> holders = new ConcurrentHashMap<String, Holder>();
+
+    /**
+     * @return the instance, {@code null} if Jenkins is not running.
+     */
+    @CheckForNull
+    public static BuildIndexes get() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            return null;
+        }
+        List<BuildIndexes> all = jenkins.getExtensionList(BuildIndexes.class);
+        return all.isEmpty() ? null : all.get(0);
+    }
+
+    /**
+     * Returns the index of a job, and starts loading it if not loaded yet.
+     *
+     * @param job the job
+     * @return the index, {@code null} if not ready.
+     */
+    @CheckForNull
+    public BuildIndex getIndex(@Nonnull Job<?, ?> job) {
+        if (DISABLED) {
+            return null;
+        }
+        final Holder holder = holderOf(job);
+        synchronized (holder) {
+            holder.accessed = System.currentTimeMillis();
+            if (holder.index != null) {
+                if (holder.unapplied > 0) {
+                    // changes of builds are being applied.
+                    return null;
+                }
+                if (holder.index.touch(System.currentTimeMillis())) {
+                    scheduleSave(holder);
+                }
+                return holder.index;
+            }
+            if (holder.loading) {
+                return null;
+            }
+            holder.loading = true;
+        }
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                load(holder);
+            }
+        };
+        IndexWarmup warmup = IndexWarmup.get();
+        if (warmup != null) {
+            warmup.execute(IndexWarmup.URGENT, task);
+        } else {
+            Timer.get().submit(task);
+        }
+        return null;
+    }
+
+    /**
+     * Loads the index of a job synchronously.
+     *
+     * @param job the job
+     * @return the index, {@code null} if disabled.
+     */
+    @CheckForNull
+    public BuildIndex loadIndex(@Nonnull Job<?, ?> job) {
+        if (DISABLED) {
+            return null;
+        }
+        Holder holder = holderOf(job);
+        synchronized (holder) {
+            while (holder.loading) {
+                try {
+                    holder.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+            if (holder.index != null) {
+                return holder.index;
+            }
+            holder.loading = true;
+        }
+        return load(holder);
+    }
+
+    /**
+     * Loads the index of a job synchronously unless it is loaded or being loaded.
+     * Never waits for loads by other threads, which may be queued in the pool of {@link IndexWarmup}
+     * running this.
+     *
+     * @param job the job
+     * @return {@code false} if failed to load or disabled.
+     */
+    boolean warmIndex(@Nonnull Job<?, ?> job) {
+        if (DISABLED) {
+            return false;
+        }
+        Holder holder = holderOf(job);
+        synchronized (holder) {
+            if (holder.index != null || holder.loading) {
+                return true;
+            }
+            holder.loading = true;
+        }
+        return load(holder) != null;
+    }
+
+    @Nonnull
+    private Holder holderOf(@Nonnull Job<?, ?> job) {
+        Holder holder = holders.get(job.getFullName());
+        if (holder == null || holder.job != job) {
+            Holder created = new Holder(job);
+            holder = holders.putIfAbsent(job.getFullName(), created);
+            if (holder == null || holder.job != job) {
+                // reloaded or replaced with a new job of the same name.
+                holders.put(job.getFullName(), created);
+                holder = created;
+            }
+        }
+        return holder;
+    }
+
+    @CheckForNull
+    private BuildIndex load(@Nonnull Holder holder) {
+        Job<?, ?> job = holder.job;
+        BuildIndex index = null;
+        boolean dirty = false;
+        try {
+            File file = getFile(job);
+            if (file.exists()) {
+                try {
+                    BuildIndex read = BuildIndexFile.read(file);
+                    dirty = catchUp(job, read, BuildIndexFile.readJournal(getJournal(job)));
+                    index = read;
+                } catch (BuildIndexFile.CorruptedIndexException e) {
+                    LOGGER.log(Level.INFO, "Rebuilding the index of " + job.getFullName(), e);
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to read the index of " + job.getFullName() + ", rebuilding", e);
+                }
+            }
+            if (index == null) {
+                index = rebuild(job);
+                dirty = true;
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to load the index of " + job.getFullName(), e);
+            index = null;
+        }
+        while (true) {
+            Map<Integer, Boolean> pending;
+            synchronized (holder) {
+                if (index == null || holder.pending.isEmpty()) {
+                    holder.index = index;
+                    holder.loading = false;
+                    if (index != null) {
+                        // indexes warmed up at startup are ordered by the last use.
+                        holder.accessed = Math.max(holder.accessed, index.getLastUsed());
+                    }
+                    holder.pending = new TreeMap<Integer, Boolean>();
+                    holder.notifyAll();
+                    break;
+                }
+                pending = holder.pending;
+                holder.pending = new TreeMap<Integer, Boolean>();
+            }
+            // builds changed while loading.
+            index.writeLock().lock();
+            try {
+                for (Map.Entry<Integer, Boolean> e : pending.entrySet()) {
+                    Run<?, ?> run = e.getValue() ? null : job.getBuildByNumber(e.getKey());
+                    if (run != null) {
+                        index.put(run);
+                    } else {
+                        index.remove(e.getKey());
+                    }
+                }
+            } finally {
+                index.writeLock().unlock();
+            }
+            dirty = true;
+        }
+        if (index != null && dirty) {
+            scheduleSave(holder);
+        }
+        if (index != null) {
+            evict(holder);
+        }
+        return index;
+    }
+
+    /**
+     * Unloads indexes used least recently over {@link #MAX_LOADED}.
+     * Changes after unloaded are journaled, and reconciled when loaded again.
+     *
+     * @param loaded the holder just loaded, never unloaded here
+     */
+    private void evict(@Nonnull Holder loaded) {
+        List<Holder> resident = new ArrayList<Holder>();
+        // snapshot, not to change while sorting.
+        final Map<Holder, Long> accessed = new HashMap<Holder, Long>();
+        for (Holder holder : holders.values()) {
+            synchronized (holder) {
+                if (holder != loaded && holder.index != null && !holder.loading) {
+                    resident.add(holder);
+                    accessed.put(holder, holder.accessed);
+                }
+            }
+        }
+        int excess = resident.size() + 1 - MAX_LOADED;
+        if (excess <= 0) {
+            return;
+        }
+        Collections.sort(resident, new Comparator<Holder>() {
+            @Override
+            public int compare(Holder o1, Holder o2) {
+                return Long.compare(accessed.get(o1), accessed.get(o2));
+            }
+        });
+        for (Holder holder : resident.subList(0, excess)) {
+            flush(holder);
+            synchronized (holder) {
+                if (!holder.loading) {
+                    LOGGER.log(Level.FINE, "Unloading the index of {0}", holder.job.getFullName());
+                    holder.index = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds builds not in the index, and reconciles builds journaled or running when saved.
+     *
+     * @param journaled numbers of builds changed after the index is saved
+     * @return whether the index is updated
+     */
+    private static boolean catchUp(@Nonnull Job<?, ?> job, @Nonnull BuildIndex index, @Nonnull Set<Integer> journaled) {
+        boolean updated = false;
+        index.writeLock().lock();
+        try {
+            int last = index.lastNumber();
+            for (Run<?, ?> run = job.getLastBuild(); run != null && run.getNumber() > last; run = run.getPreviousBuild()) {
+                index.put(run);
+                updated = true;
+            }
+            Set<Integer> changed = new TreeSet<Integer>(journaled);
+            // builds running when saved.
+            for (int position = 0; position < index.size(); ++position) {
+                if (index.isBuildingAt(position)) {
+                    changed.add(index.numberAt(position));
+                }
+            }
+            for (int number : changed) {
+                Run<?, ?> run = job.getBuildByNumber(number);
+                if (run != null) {
+                    index.put(run);
+                } else {
+                    index.remove(number);
+                }
+                updated = true;
+            }
+        } finally {
+            index.writeLock().unlock();
+        }
+        return updated;
+    }
+
+    @Nonnull
+    private static BuildIndex rebuild(@Nonnull Job<?, ?> job) {
+        BuildIndex index = new BuildIndex();
+        index.writeLock().lock();
+        try {
+            for (Run<?, ?> run : job.getBuilds()) {
+                index.put(run);
+            }
+        } finally {
+            index.writeLock().unlock();
+        }
+        return index;
+    }
+
+    /**
+     * Updates the index for a build.
+     *
+     * @param run the build started, completed or saved
+     */
+    void update(@Nonnull Run<?, ?> run) {
+        if (DISABLED) {
+            return;
+        }
+        Holder holder = indexedHolderOf(run.getParent());
+        if (holder == null) {
+            return;
+        }
+        BuildIndex index = journal(holder, run.getNumber(), false);
+        if (index != null) {
+            apply(holder, index, run.getNumber(), run);
+        }
+    }
+
+    /**
+     * Updates the index for a build in the background.
+     * The change is journaled at once.
+     *
+     * @param run the build saved
+     */
+    void updateLater(@Nonnull final Run<?, ?> run) {
+        if (DISABLED) {
+            return;
+        }
+        final Holder holder = indexedHolderOf(run.getParent());
+        if (holder == null || (run.isBuilding() && isIndexedAsRunning(holder, run))) {
+            return;
+        }
+        final BuildIndex index = journal(holder, run.getNumber(), false);
+        if (index == null) {
+            return;
+        }
+        Timer.get().submit(new Runnable() {
+            @Override
+            public void run() {
+                apply(holder, index, run.getNumber(), run);
+            }
+        });
+    }
+
+    /**
+     * Removes a build from the index.
+     *
+     * @param job    the job
+     * @param number the number of the build deleted
+     */
+    void remove(@Nonnull Job<?, ?> job, int number) {
+        if (DISABLED) {
+            return;
+        }
+        Holder holder = indexedHolderOf(job);
+        if (holder == null) {
+            return;
+        }
+        BuildIndex index = journal(holder, number, true);
+        if (index != null) {
+            apply(holder, index, number, null);
+        }
+    }
+
+    /**
+     * @return the holder to record changes of builds, {@code null} if the job has no index,
+     *         which is built from builds when first selected from.
+     */
+    @CheckForNull
+    private Holder indexedHolderOf(@Nonnull Job<?, ?> job) {
+        Holder holder = holders.get(job.getFullName());
+        if ((holder == null || holder.job != job) && !getFile(job).exists()) {
+            return null;
+        }
+        return holderOf(job);
+    }
+
+    /**
+     * @param run the running build saved
+     * @return whether the save doesn't change the index, journaled or read again when loaded otherwise.
+     */
+    private static boolean isIndexedAsRunning(@Nonnull Holder holder, @Nonnull Run<?, ?> run) {
+        BuildIndex index;
+        synchronized (holder) {
+            if (holder.index == null) {
+                // journaled when started, or running when the index is saved.
+                return !holder.loading;
+            }
+            index = holder.index;
+        }
+        index.readLock().lock();
+        try {
+            return index.isIndexedAsRunning(run);
+        } finally {
+            index.readLock().unlock();
+        }
+    }
+
+    /**
+     * Appends a changed build to the journal.
+     *
+     * @param holder  the holder of the index
+     * @param number  the number of the build
+     * @param deleted whether the build is deleted
+     * @return the index to apply the change with {@link #apply(Holder, BuildIndex, int, Run)},
+     *         {@code null} if not loaded.
+     */
+    @CheckForNull
+    private static BuildIndex journal(@Nonnull Holder holder, int number, boolean deleted) {
+        synchronized (holder) {
+            if (holder.index == null && !holder.loading && !getFile(holder.job).exists()) {
+                // failed to load, or the file is deleted.
+                return null;
+            }
+            try {
+                BuildIndexFile.appendJournal(getJournal(holder.job), number);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to journal the build " + number + " of " + holder.job.getFullName(), e);
+                File file = getFile(holder.job);
+                if (holder.index == null && !holder.loading && file.exists() && !file.delete()) {
+                    LOGGER.log(Level.WARNING, "Failed to delete the stale index {0}", file);
+                }
+            }
+            if (holder.index == null) {
+                if (holder.loading) {
+                    // the build is still available when notified of deletion.
+                    holder.pending.put(number, deleted);
+                }
+                return null;
+            }
+            ++holder.unapplied;
+            return holder.index;
+        }
+    }
+
+    /**
+     * Applies a change journaled with {@link #journal(Holder, int, boolean)}.
+     *
+     * @param run the build changed, {@code null} if deleted
+     */
+    private void apply(@Nonnull Holder holder, @Nonnull BuildIndex index, int number, @CheckForNull Run<?, ?> run) {
+        index.writeLock().lock();
+        try {
+            if (run != null) {
+                index.put(run);
+            } else {
+                index.remove(number);
+            }
+        } finally {
+            index.writeLock().unlock();
+            synchronized (holder) {
+                if (--holder.unapplied == 0) {
+                    holder.notifyAll();
+                }
+            }
+        }
+        scheduleSave(holder);
+    }
+
+    /**
+     * Waits for changes of builds to be applied to the index of a job.
+     *
+     * @param job the job
+     * @throws InterruptedException interrupted while waiting
+     */
+    void awaitApplied(@Nonnull Job<?, ?> job) throws InterruptedException {
+        Holder holder = holderOf(job);
+        synchronized (holder) {
+            while (holder.unapplied > 0) {
+                holder.wait();
+            }
+        }
+    }
+
+    /**
+     * Forgets the index of a job.
+     *
+     * @param fullName  the full name of the job
+     * @param save whether to write pending changes
+     */
+    void forget(@Nonnull String fullName, boolean save) {
+        Holder holder = holders.remove(fullName);
+        if (holder == null) {
+            return;
+        }
+        synchronized (holder) {
+            if (!save) {
+                holder.saveScheduled = false;
+            }
+        }
+        if (save) {
+            flush(holder);
+        }
+    }
+
+    private void scheduleSave(@Nonnull final Holder holder) {
+        synchronized (holder) {
+            if (holder.saveScheduled) {
+                return;
+            }
+            holder.saveScheduled = true;
+        }
+        Timer.get().schedule(new Runnable() {
+            @Override
+            public void run() {
+                flush(holder);
+            }
+        }, SAVE_DELAY_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static void flush(@Nonnull Holder holder) {
+        synchronized (holder) {
+            if (!holder.saveScheduled) {
+                return;
+            }
+        }
+        saveNow(holder);
+    }
+
+    private static void saveNow(@Nonnull Holder holder) {
+        BuildIndex index;
+        synchronized (holder) {
+            holder.saveScheduled = false;
+            index = holder.index;
+        }
+        if (index == null) {
+            return;
+        }
+        File file = getFile(holder.job);
+        index.readLock().lock();
+        try {
+            BuildIndexFile.write(file, index);
+            synchronized (holder) {
+                // changes journaled but not applied yet are not in the file.
+                if (holder.unapplied == 0) {
+                    Files.deleteIfExists(getJournal(holder.job).toPath());
+                }
+            }
+        } catch (IOException e) {
+            // rebuilt or caught up when loaded next time.
+            LOGGER.log(Level.WARNING, "Failed to save " + file, e);
+        } finally {
+            index.readLock().unlock();
+        }
+    }
+
+    @Nonnull
+    private static File getFile(@Nonnull Job<?, ?> job) {
+        return new File(job.getRootDir(), BuildIndexFile.NAME);
+    }
+
+    @Nonnull
+    private static File getJournal(@Nonnull Job<?, ?> job) {
+        return new File(job.getRootDir(), BuildIndexFile.JOURNAL_NAME);
+    }
+
+    /**
+     * Writes pending updates.
+     */
+    @Terminator
+    public static void flushAll() {
+        BuildIndexes indexes = get();
+        if (indexes == null) {
+            return;
+        }
+        for (Holder holder : indexes.holders.values()) {
+            flush(holder);
+        }
+    }
+
+    /**
+     * The index of a job and its state.
+     * Fields are guarded by the instance.
+     */
+    private static final class Holder {
+        @Nonnull
+        private final Job<?, ?> job;
+        @CheckForNull
+        private BuildIndex index;
+        private boolean loading;
+        /**
+         * Numbers of builds changed while loading to whether they are deleted.
+         */
+        @Nonnull
+        private Map<Integer, Boolean> pending = new TreeMap<Integer, Boolean>();
+        private boolean saveScheduled;
+        /**
+         * The number of changes journaled but not applied to the index yet.
+         */
+        private int unapplied;
+        /**
+         * When the index is last requested.
+         */
+        private long accessed;
+
+        Holder(@Nonnull Job<?, ?> job) {
+            this.job = job;
+        }
+    }
+
+    /**
+     * Updates indexes when builds start, complete or are deleted.
+     * Runs before other listeners, which may select builds.
+     */
+    @Extension(ordinal = 1000)
+    public static class RunListenerImpl extends RunListener<Run<?, ?>> {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onStarted(Run<?, ?> run, TaskListener listener) {
+            BuildIndexes indexes = get();
+            if (indexes != null) {
+                indexes.update(run);
+            }
+        }
+
+        /**
+         * Builds are no longer {@link Run#isBuilding()} after completed,
+         * and selections without indexes (e.g. {@link Job#getLastStableBuild()}) already see them.
+         */
+        @Override
+        public void onCompleted(Run<?, ?> run, @Nonnull TaskListener listener) {
+            BuildIndexes indexes = get();
+            if (indexes != null) {
+                indexes.update(run);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onFinalized(Run<?, ?> run) {
+            BuildIndexes indexes = get();
+            if (indexes != null) {
+                indexes.update(run);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            BuildIndexes indexes = get();
+            if (indexes != null) {
+                indexes.remove(run.getParent(), run.getNumber());
+            }
+        }
+    }
+
+    /**
+     * Updates indexes when builds are modified, e.g. results or "Keep this build forever".
+     * Runs before other listeners, which may select builds,
+     * and indexes are not used until updated in the background.
+     */
+    @Extension(ordinal = 1000)
+    public static class SaveableListenerImpl extends SaveableListener {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (!(o instanceof Run)) {
+                return;
+            }
+            BuildIndexes indexes = get();
+            if (indexes != null) {
+                indexes.updateLater((Run<?, ?>) o);
+            }
+        }
+    }
+
+    /**
+     * Forgets indexes when jobs are deleted, renamed or moved.
+     */
+    @Extension
+    public static class ItemListenerImpl extends ItemListener {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onDeleted(Item item) {
+            BuildIndexes indexes = get();
+            if (item instanceof Job && indexes != null) {
+                indexes.forget(item.getFullName(), false);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            BuildIndexes indexes = get();
+            if (item instanceof Job && indexes != null) {
+                // the file is moved with the job.
+                indexes.forget(oldFullName, true);
+            }
+        }
+    }
+}
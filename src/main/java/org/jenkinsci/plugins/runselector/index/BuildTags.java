@@ -0,0 +1,218 @@
+package org.jenkinsci.plugins.runselector.index;
+
+import hudson.model.AbstractBuild;
+import hudson.model.Cause;
+import hudson.model.Job;
+import hudson.model.Node;
+import hudson.model.Run;
+import hudson.model.labels.LabelAtom;
+import hudson.scm.SCM;
+import jenkins.triggers.SCMTriggerItem;
+
+import javax.annotation.Nonnull;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Tags of builds stored in {@link BuildIndex}, strings prefixed with their kind.
+ *
+ * @see BuildIndex#seekTag(String, int)
+ * @see BuildIndex#hasTagAt(int, String)
+ */
+public final class BuildTags {
+    private static final Logger LOGGER = Logger.getLogger(BuildTags.class.getName());
+
+    /**
+     * The prefix of SCM revisions.
+     */
+    public static final String REVISION = "revision:";
+
+    /**
+     * The prefix of relative paths of artifacts.
+     */
+    public static final String ARTIFACT = "artifact:";
+
+    /**
+     * Builds with more artifacts than {@link #MAX_ARTIFACTS}, which artifacts aren't recorded for.
+     */
+    public static final String ARTIFACTS_OMITTED = "artifacts-omitted";
+
+    /**
+     * The prefix of class names of causes, including their superclasses.
+     */
+    public static final String CAUSE = "cause:";
+
+    /**
+     * The prefix of ids of users who started builds.
+     */
+    public static final String CAUSE_USER = "cause-user:";
+
+    /**
+     * The prefix of full names of upstream jobs which triggered builds.
+     */
+    public static final String CAUSE_UPSTREAM = "cause-upstream:";
+
+    /**
+     * The prefix of labels of nodes builds ran on, including names of nodes.
+     */
+    public static final String LABEL = "label:";
+
+    private static final int MAX_ARTIFACTS = Integer.getInteger(BuildTags.class.getName() + ".maxArtifacts", 1000);
+
+    /**
+     * Variables SCMs provide revisions with.
+     */
+    private static final String[] REVISION_VARIABLES = {
+            "GIT_COMMIT", "SVN_REVISION", "MERCURIAL_REVISION", "P4_CHANGELIST"
+    };
+
+    private BuildTags() {
+    }
+
+    /**
+     * @param revision the SCM revision
+     * @return the tag for the revision
+     */
+    @Nonnull
+    public static String revision(@Nonnull String revision) {
+        return REVISION + revision;
+    }
+
+    /**
+     * @param relativePath the relative path of the artifact
+     * @return the tag for the artifact
+     */
+    @Nonnull
+    public static String artifact(@Nonnull String relativePath) {
+        return ARTIFACT + relativePath;
+    }
+
+    /**
+     * @param label the name of the label
+     * @return the tag for the label
+     */
+    @Nonnull
+    public static String label(@Nonnull String label) {
+        return LABEL + label;
+    }
+
+    /**
+     * Artifacts are listed only once when the build completes,
+     * and labels are recorded only once while the node exists.
+     *
+     * @param run       the build
+     * @param recorded  tags recorded for the build before
+     * @param completed whether the build was recorded as completed
+     * @return tags of the build
+     */
+    @Nonnull
+    static Set<String> of(@Nonnull Run<?, ?> run, @Nonnull Collection<String> recorded, boolean completed) {
+        Set<String> tags = new TreeSet<String>();
+        for (String revision : revisionsOf(run)) {
+            tags.add(revision(revision));
+        }
+        for (Cause cause : run.getCauses()) {
+            for (Class<?> c = cause.getClass(); c != Cause.class && c != Object.class; c = c.getSuperclass()) {
+                tags.add(CAUSE + c.getName());
+            }
+            if (cause instanceof Cause.UserIdCause && ((Cause.UserIdCause) cause).getUserId() != null) {
+                tags.add(CAUSE_USER + ((Cause.UserIdCause) cause).getUserId());
+            } else if (cause instanceof Cause.UpstreamCause) {
+                tags.add(CAUSE_UPSTREAM + ((Cause.UpstreamCause) cause).getUpstreamProject());
+            }
+        }
+        if (completed) {
+            for (String tag : recorded) {
+                if (tag.startsWith(ARTIFACT) || tag.equals(ARTIFACTS_OMITTED)) {
+                    tags.add(tag);
+                }
+            }
+        } else if (!run.isBuilding()) {
+            List<? extends Run<?, ?>.Artifact> artifacts = run.getArtifactsUpTo(MAX_ARTIFACTS + 1);
+            if (artifacts.size() > MAX_ARTIFACTS) {
+                tags.add(ARTIFACTS_OMITTED);
+            } else {
+                for (Run<?, ?>.Artifact artifact : artifacts) {
+                    tags.add(artifact(artifact.relativePath));
+                }
+            }
+        }
+        boolean labelled = false;
+        for (String tag : recorded) {
+            if (tag.startsWith(LABEL)) {
+                tags.add(tag);
+                labelled = true;
+            }
+        }
+        if (!labelled) {
+            for (LabelAtom label : labelsOf(run)) {
+                tags.add(label(label.getName()));
+            }
+        }
+        return tags;
+    }
+
+    /**
+     * @param run the build
+     * @return labels of the node the build runs on, empty if not available (e.g. the node is removed)
+     */
+    @Nonnull
+    private static Set<LabelAtom> labelsOf(@Nonnull Run<?, ?> run) {
+        if (!(run instanceof AbstractBuild)) {
+            return Collections.emptySet();
+        }
+        Node node = ((AbstractBuild<?, ?>) run).getBuiltOn();
+        return (node != null) ? node.getAssignedLabels() : Collections.<LabelAtom>emptySet();
+    }
+
+    /**
+     * Revisions are read from variables SCMs of the job provide for the build,
+     * as SCM plugins record revisions in their own ways.
+     * Multiple revisions are available for jobs checking out multiple repositories.
+     *
+     * @param run the build
+     * @return SCM revisions the build is built from, empty if not available (e.g. before checking out)
+     */
+    @Nonnull
+    public static Set<String> revisionsOf(@Nonnull Run<?, ?> run) {
+        Job<?, ?> job = run.getParent();
+        SCMTriggerItem item = SCMTriggerItem.SCMTriggerItems.asSCMTriggerItem(job);
+        if (item == null) {
+            return Collections.emptySet();
+        }
+        Set<String> revisions = new TreeSet<String>();
+        for (SCM scm : item.getSCMs()) {
+            Map<String, String> env = new HashMap<String, String>();
+            try {
+                scm.buildEnvironment(run, env);
+            } catch (RuntimeException e) {
+                // SCMs may fail for builds not checked out.
+                LOGGER.log(Level.FINE, "Failed to read revisions of " + run.getFullDisplayName(), e);
+                continue;
+            }
+            for (Map.Entry<String, String> e : env.entrySet()) {
+                if (isRevisionVariable(e.getKey()) && e.getValue() != null && !e.getValue().isEmpty()) {
+                    revisions.add(e.getValue());
+                }
+            }
+        }
+        return revisions;
+    }
+
+    private static boolean isRevisionVariable(@Nonnull String name) {
+        for (String variable : REVISION_VARIABLES) {
+            // e.g. SVN_REVISION_1 for multiple locations.
+            if (name.equals(variable) || name.startsWith(variable + "_")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,209 @@
+package org.jenkinsci.plugins.runselector.index;
+
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds builds in a {@link BuildIndex} which may satisfy a {@link RunSelector} or a {@link RunFilter}.
+ * <p>
+ * A condition may accept builds the selector or the filter doesn't accept,
+ * as candidates are evaluated with the filter anyway,
+ * but must not reject builds they accept.
+ *
+ * @see RunSelector#getIndexCondition(RunSelectorContext)
+ * @see RunFilter#getIndexCondition(RunSelectorContext)
+ */
+public abstract class IndexCondition {
+    /**
+     * Called holding {@link BuildIndex#readLock()}.
+     *
+     * @param index  the index of the job
+     * @param before the build number to seek from, exclusive
+     * @return the newest build number lower than {@code before} which may satisfy this condition,
+     *      {@code -1} if none.
+     */
+    public abstract int seek(@Nonnull BuildIndex index, int before);
+
+    /**
+     * Tests builds one by one.
+     */
+    public interface RecordPredicate {
+        /**
+         * @param index    the index of the job
+         * @param position the position of the build in the index
+         * @return whether the build may satisfy the condition
+         */
+        boolean test(@Nonnull BuildIndex index, int position);
+    }
+
+    /**
+     * Tests blocks of builds.
+     */
+    public interface BlockPredicate {
+        /**
+         * @param block the summary of builds in the block
+         * @return whether any build in the block may satisfy the condition
+         */
+        boolean mayMatch(@Nonnull BlockSummary block);
+    }
+
+    /**
+     * @param predicate the test for each build
+     * @return the condition walking builds from newer to older
+     */
+    @Nonnull
+    public static IndexCondition of(@Nonnull RecordPredicate predicate) {
+        return of(predicate, null);
+    }
+
+    /**
+     * @param predicate      the test for each build
+     * @param blockPredicate the test for blocks of builds, {@code null} not to skip blocks
+     * @return the condition walking builds from newer to older, skipping blocks without matching builds
+     */
+    @Nonnull
+    public static IndexCondition of(
+            @Nonnull final RecordPredicate predicate,
+            @CheckForNull final BlockPredicate blockPredicate
+    ) {
+        return new IndexCondition() {
+            @Override
+            public int seek(@Nonnull BuildIndex index, int before) {
+                int position = index.positionBefore(before);
+                while (position >= 0) {
+                    int block = index.numberAt(position) / BlockSummary.SIZE;
+                    int blockStart = block * BlockSummary.SIZE;
+                    if (blockPredicate != null && !blockPredicate.mayMatch(index.blockSummary(block))) {
+                        position = index.positionBefore(blockStart);
+                        continue;
+                    }
+                    for (; position >= 0 && index.numberAt(position) >= blockStart; --position) {
+                        if (predicate.test(index, position)) {
+                            return index.numberAt(position);
+                        }
+                    }
+                }
+                return -1;
+            }
+        };
+    }
+
+    /**
+     * @param tag the tag, prefixed with its kind
+     * @return the condition seeking builds with the tag
+     * @see BuildTags
+     */
+    @Nonnull
+    public static IndexCondition tag(@Nonnull final String tag) {
+        return new IndexCondition() {
+            @Override
+            public int seek(@Nonnull BuildIndex index, int before) {
+                return index.seekTag(tag, before);
+            }
+        };
+    }
+
+    /**
+     * Running builds, which conditions on information recorded when builds complete should accept.
+     *
+     * @return the condition walking running builds
+     */
+    @Nonnull
+    public static IndexCondition building() {
+        return of(
+                new RecordPredicate() {
+                    @Override
+                    public boolean test(@Nonnull BuildIndex index, int position) {
+                        return index.isBuildingAt(position);
+                    }
+                },
+                new BlockPredicate() {
+                    @Override
+                    public boolean mayMatch(@Nonnull BlockSummary block) {
+                        return block.getBuildingCount() > 0;
+                    }
+                }
+        );
+    }
+
+    /**
+     * @param conditions conditions, {@code null} for conditions which can't be evaluated with indexes
+     * @return the condition satisfied when all conditions are satisfied,
+     *      {@code null} if none can be evaluated with indexes.
+     */
+    @CheckForNull
+    public static IndexCondition and(@Nonnull List<IndexCondition> conditions) {
+        final List<IndexCondition> available = new ArrayList<IndexCondition>();
+        for (IndexCondition condition : conditions) {
+            if (condition != null) {
+                available.add(condition);
+            }
+        }
+        if (available.isEmpty()) {
+            return null;
+        }
+        if (available.size() == 1) {
+            return available.get(0);
+        }
+        return new IndexCondition() {
+            @Override
+            public int seek(@Nonnull BuildIndex index, int before) {
+                // seek each condition to the build the previous one found
+                // until all conditions agree.
+                int bound = before;
+                while (true) {
+                    int number = available.get(0).seek(index, bound);
+                    if (number < 0) {
+                        return -1;
+                    }
+                    boolean agreed = true;
+                    for (int i = 1; i < available.size(); ++i) {
+                        int other = available.get(i).seek(index, number + 1);
+                        if (other < 0) {
+                            return -1;
+                        }
+                        if (other != number) {
+                            bound = other + 1;
+                            agreed = false;
+                            break;
+                        }
+                    }
+                    if (agreed) {
+                        return number;
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * @param conditions conditions, {@code null} for conditions which can't be evaluated with indexes
+     * @return the condition satisfied when any of conditions is satisfied,
+     *      {@code null} if any can't be evaluated with indexes.
+     */
+    @CheckForNull
+    public static IndexCondition or(@Nonnull final List<IndexCondition> conditions) {
+        if (conditions.isEmpty() || conditions.contains(null)) {
+            return null;
+        }
+        if (conditions.size() == 1) {
+            return conditions.get(0);
+        }
+        return new IndexCondition() {
+            @Override
+            public int seek(@Nonnull BuildIndex index, int before) {
+                int newest = -1;
+                for (IndexCondition condition : conditions) {
+                    newest = Math.max(newest, condition.seek(index, before));
+                }
+                return newest;
+            }
+        };
+    }
+}
@@ -0,0 +1,271 @@
+package org.jenkinsci.plugins.runselector.index;
+
+import hudson.Extension;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.init.Terminator;
+import hudson.model.Job;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.ExceptionCatchingThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Loads {@link BuildIndex}es in a bounded thread pool,
+ * and loads indexes of jobs selected from before in the background after jobs are loaded at startup.
+ * <p>
+ * Indexes requested by selections are loaded first,
+ * and then indexes of jobs used recently by selections, up to {@link BuildIndexes#MAX_LOADED}.
+ * Indexes of other jobs are built when first selected from, not to load all builds at startup.
+ * The progress is shown with {@link IndexWarmupLink}.
+ * <p>
+ * The size of the pool can be configured with the system property
+ * {@code org.jenkinsci.plugins.runselector.index.IndexWarmup.poolSize}.
+ */
+@Extension
+public class IndexWarmup {
+    private static final Logger LOGGER = Logger.getLogger(IndexWarmup.class.getName());
+
+    /**
+     * Maximum number of indexes loaded at once.
+     */
+    static final int POOL_SIZE = Integer.getInteger(
+            IndexWarmup.class.getName() + ".poolSize",
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2))
+    );
+
+    /**
+     * Priority of loads requested by selections.
+     */
+    static final long URGENT = Long.MAX_VALUE;
+
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private volatile int total;
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final Set<String> running = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private volatile long startedAt;
+    private volatile long finishedAt;
+
+    public IndexWarmup() {
+        executor = new ThreadPoolExecutor(
+                POOL_SIZE,
+                POOL_SIZE,
+                60L,
+                TimeUnit.SECONDS,
+                // tasks must be passed with execute(), not submit().
+                new PriorityBlockingQueue<Runnable>(),
+                new ExceptionCatchingThreadFactory(new NamingThreadFactory(
+                        new DaemonThreadFactory(),
+                        "Run selector index loading"
+                ))
+        );
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @return the instance, {@code null} if Jenkins is not running.
+     */
+    @CheckForNull
+    public static IndexWarmup get() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            return null;
+        }
+        List<IndexWarmup> all = jenkins.getExtensionList(IndexWarmup.class);
+        return all.isEmpty() ? null : all.get(0);
+    }
+
+    /**
+     * Starts loading indexes of jobs selected from before.
+     */
+    @Initializer(after = InitMilestone.JOB_LOADED)
+    public static void warmUp() {
+        IndexWarmup warmup = get();
+        BuildIndexes indexes = BuildIndexes.get();
+        if (BuildIndexes.DISABLED || warmup == null || indexes == null) {
+            return;
+        }
+        warmup.start(indexes);
+    }
+
+    private void start(@Nonnull final BuildIndexes indexes) {
+        List<Job> jobs;
+        try (ACLContext ctx = ACL.as(ACL.SYSTEM)) {
+            jobs = Jenkins.getActiveInstance().getAllItems(Job.class);
+        }
+        final List<Candidate> candidates = new ArrayList<Candidate>(jobs.size());
+        for (Job<?, ?> job : jobs) {
+            // 0 if missing, broken or never used.
+            long lastUsed = BuildIndexFile.readLastUsed(new File(job.getRootDir(), BuildIndexFile.NAME));
+            if (lastUsed > 0) {
+                candidates.add(new Candidate(job, lastUsed));
+            }
+        }
+        Collections.sort(candidates, new Comparator<Candidate>() {
+            @Override
+            public int compare(Candidate o1, Candidate o2) {
+                return Long.compare(o2.lastUsed, o1.lastUsed);
+            }
+        });
+        if (candidates.size() > BuildIndexes.MAX_LOADED) {
+            // would be unloaded at once.
+            candidates.subList(BuildIndexes.MAX_LOADED, candidates.size()).clear();
+        }
+        total = candidates.size();
+        completed.set(0);
+        failed.set(0);
+        startedAt = System.currentTimeMillis();
+        finishedAt = (total == 0) ? startedAt : 0;
+        LOGGER.log(Level.FINE, "Loading indexes of {0} jobs", total);
+        for (final Candidate candidate : candidates) {
+            execute(candidate.lastUsed, new Runnable() {
+                @Override
+                public void run() {
+                    String name = candidate.job.getFullName();
+                    running.add(name);
+                    try {
+                        // loadIndex() would wait for a load queued behind this task.
+                        if (!indexes.warmIndex(candidate.job)) {
+                            failed.incrementAndGet();
+                        }
+                    } finally {
+                        running.remove(name);
+                        if (completed.incrementAndGet() >= total) {
+                            finishedAt = System.currentTimeMillis();
+                            LOGGER.log(Level.FINE, "Loaded indexes of {0} jobs", total);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * @param priority tasks with higher priorities run first
+     * @param task     the task to run
+     */
+    void execute(long priority, @Nonnull Runnable task) {
+        executor.execute(new PrioritizedTask(priority, sequence.incrementAndGet(), task));
+    }
+
+    /**
+     * @return the number of jobs to load indexes at startup, selected from before
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * @return the number of jobs whose indexes are loaded
+     */
+    public int getCompleted() {
+        return Math.min(completed.get(), total);
+    }
+
+    /**
+     * @return the number of jobs whose indexes failed to load
+     */
+    public int getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * @return full names of jobs whose indexes are being loaded
+     */
+    @Nonnull
+    public List<String> getRunning() {
+        List<String> names = new ArrayList<String>(running);
+        Collections.sort(names);
+        return names;
+    }
+
+    /**
+     * @return whether indexes of all jobs are loaded
+     */
+    public boolean isFinished() {
+        return finishedAt != 0;
+    }
+
+    /**
+     * @return seconds taken to load indexes so far
+     */
+    public long getElapsedSeconds() {
+        if (startedAt == 0) {
+            return 0;
+        }
+        long end = isFinished() ? finishedAt : System.currentTimeMillis();
+        return TimeUnit.MILLISECONDS.toSeconds(end - startedAt);
+    }
+
+    /**
+     * Stops loading indexes.
+     */
+    @Terminator
+    public static void shutdown() {
+        IndexWarmup warmup = get();
+        if (warmup != null) {
+            warmup.executor.shutdownNow();
+        }
+    }
+
+    private static final class Candidate {
+        @Nonnull
+        private final Job<?, ?> job;
+        private final long lastUsed;
+
+        Candidate(@Nonnull Job<?, ?> job, long lastUsed) {
+            this.job = job;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    /**
+     * Orders tasks by priorities, and then by the order submitted.
+     */
+    private static final class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        private final long priority;
+        private final long sequence;
+        @Nonnull
+        private final Runnable task;
+
+        PrioritizedTask(long priority, long sequence, @Nonnull Runnable task) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask o) {
+            int c = Long.compare(o.priority, priority);
+            return (c != 0) ? c : Long.compare(sequence, o.sequence);
+        }
+    }
+}
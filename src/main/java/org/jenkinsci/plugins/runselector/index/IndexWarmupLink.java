@@ -0,0 +1,52 @@
+package org.jenkinsci.plugins.runselector.index;
+
+import hudson.Extension;
+import hudson.model.ManagementLink;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * Shows the progress of {@link IndexWarmup} in "Manage Jenkins".
+ */
+@Extension
+public class IndexWarmupLink extends ManagementLink {
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getIconFileName() {
+        return "monitor.png";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDisplayName() {
+        return Messages.IndexWarmupLink_DisplayName();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDescription() {
+        return Messages.IndexWarmupLink_Description();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getUrlName() {
+        return "runSelectorIndexes";
+    }
+
+    /**
+     * @return the progress to display, {@code null} if indexes are disabled
+     */
+    @CheckForNull
+    public IndexWarmup getWarmup() {
+        return BuildIndexes.DISABLED ? null : IndexWarmup.get();
+    }
+}
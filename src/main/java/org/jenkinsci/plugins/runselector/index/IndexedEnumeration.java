@@ -0,0 +1,131 @@
+package org.jenkinsci.plugins.runselector.index;
+
+import hudson.model.AbstractProject;
+import hudson.model.Job;
+import hudson.model.Run;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.metrics.SelectionProfiler;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Enumerates builds for a selection with a {@link BuildIndex}
+ * instead of {@link RunSelector#getNextBuild(Job, RunSelectorContext)}.
+ * <p>
+ * Builds are enumerated from newer to older, skipping builds the selector and the filter never accept.
+ * The filter is still to be evaluated for each build enumerated.
+ */
+public final class IndexedEnumeration {
+    @Nonnull
+    private final BuildIndexes indexes;
+    @Nonnull
+    private final Job<?, ?> job;
+    @Nonnull
+    private final BuildIndex index;
+    @Nonnull
+    private final IndexCondition condition;
+
+    private IndexedEnumeration(
+            @Nonnull BuildIndexes indexes,
+            @Nonnull Job<?, ?> job,
+            @Nonnull BuildIndex index,
+            @Nonnull IndexCondition condition
+    ) {
+        this.indexes = indexes;
+        this.job = job;
+        this.index = index;
+        this.condition = condition;
+    }
+
+    /**
+     * @param job      the job to pick a build from
+     * @param selector the selector
+     * @param context  context for the current execution of runselector
+     * @return the enumeration, {@code null} if the selector doesn't support indexes or the index isn't ready.
+     */
+    @CheckForNull
+    public static IndexedEnumeration begin(
+            @Nonnull Job<?, ?> job,
+            @Nonnull RunSelector selector,
+            @Nonnull RunSelectorContext context
+    ) {
+        if (BuildIndexes.DISABLED) {
+            return null;
+        }
+        IndexCondition selectorCondition = selector.getIndexCondition(context);
+        if (selectorCondition == null) {
+            return null;
+        }
+        BuildIndexes indexes = BuildIndexes.get();
+        if (indexes == null) {
+            return null;
+        }
+        BuildIndex index = indexes.getIndex(job);
+        if (index == null) {
+            return null;
+        }
+        index.setKeptByDependencies(isKeptByDependencies(job));
+        IndexCondition condition = IndexCondition.and(Arrays.asList(
+                selectorCondition,
+                context.getRunFilter().getIndexCondition(context)
+        ));
+        if (condition == null) {
+            return null;
+        }
+        return new IndexedEnumeration(indexes, job, index, condition);
+    }
+
+    /**
+     * @param job the job
+     * @return whether {@link Run#isKeepLog()} of builds may change with builds of downstream projects
+     */
+    private static boolean isKeptByDependencies(@Nonnull Job<?, ?> job) {
+        if (!(job instanceof AbstractProject)) {
+            return false;
+        }
+        for (AbstractProject<?, ?> downstream : ((AbstractProject<?, ?>) job).getDownstreamProjects()) {
+            if (downstream.isKeepDependencies()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param context context for the current execution of runselector
+     * @return the build older than {@link RunSelectorContext#getLastMatchBuild()} which may match,
+     *      {@code null} if no more builds.
+     */
+    @CheckForNull
+    public Run<?, ?> next(@Nonnull RunSelectorContext context) {
+        Run<?, ?> last = context.getLastMatchBuild();
+        int before = (last != null) ? last.getNumber() : Integer.MAX_VALUE;
+        while (true) {
+            int number;
+            boolean skipped;
+            index.readLock().lock();
+            try {
+                number = condition.seek(index, before);
+                skipped = index.positionBefore(before) != ((number >= 0) ? index.positionOf(number) : -1);
+            } finally {
+                index.readLock().unlock();
+            }
+            if (skipped) {
+                SelectionProfiler.recordCacheHit(context);
+            }
+            if (number < 0) {
+                return null;
+            }
+            Run<?, ?> run = job.getBuildByNumber(number);
+            if (run != null) {
+                return run;
+            }
+            // removed without notifications, e.g. while Jenkins was down.
+            indexes.remove(job, number);
+            before = number;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package org.jenkinsci.plugins.runselector.index;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Sorted build numbers compressed with deltas encoded as variable-length integers.
+ * <p>
+ * Every {@value #SKIP_INTERVAL}th number is also kept uncompressed with its offset,
+ * so seeking decodes at most {@value #SKIP_INTERVAL} numbers.
+ * Adding numbers larger than existing ones is cheap, and other changes re-encode the whole list.
+ * Not thread safe.
+ */
+final class PostingList {
+    private static final int SKIP_INTERVAL = 64;
+
+    private byte[] data = new byte[8];
+    private int length;
+    private int count;
+    private int last;
+
+    private int[] skipNumbers = new int[1];
+    /**
+     * Offsets of numbers following ones in {@link #skipNumbers}.
+     */
+    private int[] skipOffsets = new int[1];
+    private int skipCount;
+
+    /**
+     * @return the number of build numbers
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * @param number the build number to add
+     */
+    void add(int number) {
+        if (count > 0 && number <= last) {
+            int[] numbers = toArray();
+            int position = Arrays.binarySearch(numbers, number);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            int[] added = new int[numbers.length + 1];
+            System.arraycopy(numbers, 0, added, 0, position);
+            added[position] = number;
+            System.arraycopy(numbers, position, added, position + 1, numbers.length - position);
+            reset(added);
+            return;
+        }
+        append(number);
+    }
+
+    /**
+     * @param number the build number to remove
+     */
+    void remove(int number) {
+        if (count == 0 || number > last) {
+            return;
+        }
+        int[] numbers = toArray();
+        int position = Arrays.binarySearch(numbers, number);
+        if (position < 0) {
+            return;
+        }
+        int[] removed = new int[numbers.length - 1];
+        System.arraycopy(numbers, 0, removed, 0, position);
+        System.arraycopy(numbers, position + 1, removed, position, numbers.length - position - 1);
+        reset(removed);
+    }
+
+    /**
+     * @param before the build number to seek from, exclusive
+     * @return the largest number lower than {@code before}, {@code -1} if none
+     */
+    int seek(int before) {
+        if (count == 0 || skipNumbers[0] >= before) {
+            return -1;
+        }
+        if (last < before) {
+            return last;
+        }
+        int skip = Arrays.binarySearch(skipNumbers, 0, skipCount, before);
+        skip = (skip >= 0) ? skip - 1 : -skip - 2;
+        int result = skipNumbers[skip];
+        int offset = skipOffsets[skip];
+        int decoded = skip * SKIP_INTERVAL + 1;
+        while (decoded < count && offset < length) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            int number = result + value;
+            if (number >= before) {
+                break;
+            }
+            result = number;
+            ++decoded;
+        }
+        return result;
+    }
+
+    /**
+     * @return all build numbers in the ascending order
+     */
+    @Nonnull
+    int[] toArray() {
+        int[] numbers = new int[count];
+        int offset = 0;
+        int previous = 0;
+        for (int i = 0; i < count; ++i) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            previous += value;
+            numbers[i] = previous;
+        }
+        return numbers;
+    }
+
+    private void reset(@Nonnull int[] numbers) {
+        length = 0;
+        count = 0;
+        last = 0;
+        skipCount = 0;
+        for (int number : numbers) {
+            append(number);
+        }
+    }
+
+    private void append(int number) {
+        int delta = number - last;
+        if (length + 5 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+        }
+        while ((delta & ~0x7F) != 0) {
+            data[length++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        data[length++] = (byte) delta;
+        if (count % SKIP_INTERVAL == 0) {
+            if (skipCount == skipNumbers.length) {
+                skipNumbers = Arrays.copyOf(skipNumbers, skipCount * 2);
+                skipOffsets = Arrays.copyOf(skipOffsets, skipCount * 2);
+            }
+            skipNumbers[skipCount] = number;
+            skipOffsets[skipCount] = length;
+            ++skipCount;
+        }
+        ++count;
+        last = number;
+    }
+}
@@ -0,0 +1,314 @@
+package org.jenkinsci.plugins.runselector.metrics;
+
+import hudson.model.Job;
+import hudson.model.Run;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunSelector;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Emits Java Flight Recorder events for {@link RunSelector#select} and {@link RunFilter#isSelectable}.
+ * <p>
+ * Events are defined with {@code jdk.jfr.EventFactory} through reflection,
+ * as the plugin is built for Java 8 and should keep working on JVMs without JFR.
+ * When JFR is not available, or the events are not enabled in the running recording,
+ * {@link #beginSelection()} and {@link #beginFilter()} return {@code null} and nothing is recorded.
+ * <ul>
+ *   <li>{@value #SELECTION_EVENT}: job, selector, selected build number, candidates scanned and duration.</li>
+ *   <li>{@value #FILTER_EVENT}: job, build, filter, result and duration.
+ *       Recorded only when it takes longer than {@link #FILTER_THRESHOLD_MILLIS} by default.</li>
+ * </ul>
+ */
+public final class SelectionEvents {
+    private static final Logger LOGGER = Logger.getLogger(SelectionEvents.class.getName());
+
+    /**
+     * Name of the event for selections.
+     */
+    public static final String SELECTION_EVENT = "org.jenkinsci.plugins.runselector.Selection";
+
+    /**
+     * Name of the event for filter evaluations.
+     */
+    public static final String FILTER_EVENT = "org.jenkinsci.plugins.runselector.FilterEvaluation";
+
+    /**
+     * Default threshold for {@value #FILTER_EVENT}.
+     * Can be overridden with the system property {@code org.jenkinsci.plugins.runselector.metrics.SelectionEvents.filterThresholdMillis},
+     * or with the {@code threshold} setting of the recording.
+     */
+    public static final long FILTER_THRESHOLD_MILLIS = Long.getLong(SelectionEvents.class.getName() + ".filterThresholdMillis", 10L);
+
+    @CheckForNull
+    private static final EventType SELECTION = EventType.define(
+            SELECTION_EVENT,
+            "Run Selection",
+            "Selection of a build by a run selector",
+            null,
+            new Field(String.class, "job", "Job"),
+            new Field(String.class, "selector", "Selector"),
+            new Field(int.class, "buildNumber", "Selected Build Number"),
+            new Field(int.class, "candidates", "Candidates Scanned")
+    );
+
+    @CheckForNull
+    private static final EventType FILTER = EventType.define(
+            FILTER_EVENT,
+            "Run Filter Evaluation",
+            "Evaluation of a build by a run filter",
+            FILTER_THRESHOLD_MILLIS + " ms",
+            new Field(String.class, "job", "Job"),
+            new Field(int.class, "buildNumber", "Build Number"),
+            new Field(String.class, "filter", "Filter"),
+            new Field(boolean.class, "accepted", "Accepted")
+    );
+
+    private SelectionEvents() {
+    }
+
+    /**
+     * @return whether JFR events can be emitted in this JVM.
+     */
+    public static boolean isAvailable() {
+        return SELECTION != null && FILTER != null;
+    }
+
+    /**
+     * Starts an event for a selection.
+     *
+     * @return the event to pass to {@link #commitSelection}, {@code null} if not recording.
+     */
+    @CheckForNull
+    public static Object beginSelection() {
+        return (SELECTION != null) ? SELECTION.begin() : null;
+    }
+
+    /**
+     * Ends and commits an event for a selection.
+     *
+     * @param event      the event returned from {@link #beginSelection()}
+     * @param job        the job builds are selected from
+     * @param selector   the selector
+     * @param selected   the selected build
+     * @param candidates number of builds examined
+     */
+    public static void commitSelection(
+            @CheckForNull Object event,
+            @Nonnull Job<?, ?> job,
+            @Nonnull RunSelector selector,
+            @CheckForNull Run<?, ?> selected,
+            int candidates
+    ) {
+        if (event == null || SELECTION == null || !SELECTION.end(event)) {
+            return;
+        }
+        SELECTION.commit(
+                event,
+                job.getFullName(),
+                selector.getDisplayName(),
+                (selected != null) ? selected.getNumber() : -1,
+                candidates
+        );
+    }
+
+    /**
+     * Starts an event for a filter evaluation.
+     *
+     * @return the event to pass to {@link #commitFilter}, {@code null} if not recording.
+     */
+    @CheckForNull
+    public static Object beginFilter() {
+        return (FILTER != null) ? FILTER.begin() : null;
+    }
+
+    /**
+     * Ends and commits an event for a filter evaluation
+     * if it takes longer than the threshold.
+     *
+     * @param event     the event returned from {@link #beginFilter()}
+     * @param filter    the filter
+     * @param candidate the evaluated build
+     * @param accepted  whether the filter accepted the build
+     */
+    public static void commitFilter(
+            @CheckForNull Object event,
+            @Nonnull RunFilter filter,
+            @Nonnull Run<?, ?> candidate,
+            boolean accepted
+    ) {
+        if (event == null || FILTER == null || !FILTER.end(event)) {
+            return;
+        }
+        FILTER.commit(
+                event,
+                candidate.getParent().getFullName(),
+                candidate.getNumber(),
+                filter.getDisplayName(),
+                accepted
+        );
+    }
+
+    /**
+     * A field of an event.
+     */
+    private static class Field {
+        private final Class<?> type;
+        private final String name;
+        private final String label;
+
+        Field(@Nonnull Class<?> type, @Nonnull String name, @Nonnull String label) {
+            this.type = type;
+            this.name = name;
+            this.label = label;
+        }
+    }
+
+    /**
+     * An event type defined with {@code jdk.jfr.EventFactory}.
+     */
+    private static class EventType {
+        private final Object eventType;
+        private final Object factory;
+        private final MethodHandle isEnabledHandle;
+        private final MethodHandle newEventHandle;
+        private final MethodHandle beginHandle;
+        private final MethodHandle endHandle;
+        private final MethodHandle shouldCommitHandle;
+        private final MethodHandle setHandle;
+        private final MethodHandle commitHandle;
+
+        private EventType(@Nonnull Object factory) throws ReflectiveOperationException {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory");
+            Class<?> eventTypeClass = Class.forName("jdk.jfr.EventType");
+            Class<?> eventClass = Class.forName("jdk.jfr.Event");
+            this.factory = factory;
+            this.eventType = factoryClass.getMethod("getEventType").invoke(factory);
+            this.isEnabledHandle = lookup.unreflect(eventTypeClass.getMethod("isEnabled"))
+                    .asType(MethodType.methodType(boolean.class, Object.class));
+            this.newEventHandle = lookup.unreflect(factoryClass.getMethod("newEvent"))
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            this.beginHandle = lookup.unreflect(eventClass.getMethod("begin"))
+                    .asType(MethodType.methodType(void.class, Object.class));
+            this.endHandle = lookup.unreflect(eventClass.getMethod("end"))
+                    .asType(MethodType.methodType(void.class, Object.class));
+            this.shouldCommitHandle = lookup.unreflect(eventClass.getMethod("shouldCommit"))
+                    .asType(MethodType.methodType(boolean.class, Object.class));
+            this.setHandle = lookup.unreflect(eventClass.getMethod("set", int.class, Object.class))
+                    .asType(MethodType.methodType(void.class, Object.class, int.class, Object.class));
+            this.commitHandle = lookup.unreflect(eventClass.getMethod("commit"))
+                    .asType(MethodType.methodType(void.class, Object.class));
+        }
+
+        /**
+         * @return the event type, {@code null} if JFR is not available.
+         */
+        @CheckForNull
+        static EventType define(
+                @Nonnull String name,
+                @Nonnull String label,
+                @Nonnull String description,
+                @CheckForNull String threshold,
+                @Nonnull Field... fields
+        ) {
+            try {
+                Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+                Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+                Constructor<?> annotationElement = annotationElementClass.getConstructor(Class.class, Object.class);
+                Constructor<?> valueDescriptor = valueDescriptorClass.getConstructor(Class.class, String.class, List.class);
+
+                List<Object> annotations = new ArrayList<Object>();
+                annotations.add(annotationElement.newInstance(annotation("jdk.jfr.Name"), name));
+                annotations.add(annotationElement.newInstance(annotation("jdk.jfr.Label"), label));
+                annotations.add(annotationElement.newInstance(annotation("jdk.jfr.Description"), description));
+                annotations.add(annotationElement.newInstance(
+                        annotation("jdk.jfr.Category"),
+                        new String[]{"Jenkins", "Run Selector"}
+                ));
+                if (threshold != null) {
+                    annotations.add(annotationElement.newInstance(annotation("jdk.jfr.Threshold"), threshold));
+                }
+
+                List<Object> values = new ArrayList<Object>();
+                for (Field field : fields) {
+                    values.add(valueDescriptor.newInstance(
+                            field.type,
+                            field.name,
+                            Collections.singletonList(annotationElement.newInstance(annotation("jdk.jfr.Label"), field.label))
+                    ));
+                }
+
+                Object factory = Class.forName("jdk.jfr.EventFactory")
+                        .getMethod("create", List.class, List.class)
+                        .invoke(null, annotations, values);
+                return new EventType(factory);
+            } catch (ClassNotFoundException e) {
+                LOGGER.log(Level.FINE, "JFR is not available. {0} is not recorded.", name);
+                return null;
+            } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Failed to define JFR event " + name, e);
+                return null;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Class<? extends Annotation> annotation(@Nonnull String name) throws ClassNotFoundException {
+            return (Class<? extends Annotation>) Class.forName(name);
+        }
+
+        /**
+         * @return a started event, or {@code null} if the event type is not enabled.
+         */
+        @CheckForNull
+        Object begin() {
+            try {
+                if (!(boolean) isEnabledHandle.invokeExact(eventType)) {
+                    return null;
+                }
+                Object event = (Object) newEventHandle.invokeExact(factory);
+                beginHandle.invokeExact(event);
+                return event;
+            } catch (Throwable t) {
+                LOGGER.log(Level.FINE, "Failed to begin JFR event", t);
+                return null;
+            }
+        }
+
+        /**
+         * @return whether the event should be committed.
+         */
+        boolean end(@Nonnull Object event) {
+            try {
+                endHandle.invokeExact(event);
+                return (boolean) shouldCommitHandle.invokeExact(event);
+            } catch (Throwable t) {
+                LOGGER.log(Level.FINE, "Failed to end JFR event", t);
+                return false;
+            }
+        }
+
+        void commit(@Nonnull Object event, Object... values) {
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    setHandle.invokeExact(event, i, values[i]);
+                }
+                commitHandle.invokeExact(event);
+            } catch (Throwable t) {
+                LOGGER.log(Level.FINE, "Failed to commit JFR event " + Arrays.toString(values), t);
+            }
+        }
+    }
+}
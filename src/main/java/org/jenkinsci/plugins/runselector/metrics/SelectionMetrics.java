@@ -0,0 +1,434 @@
+package org.jenkinsci.plugins.runselector.metrics;
+
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.init.Terminator;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunSelector;
+
+import javax.annotation.Nonnull;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Collects statistics of {@link RunSelector#select} and {@link RunFilter#isSelectable}.
+ * <p>
+ * Statistics are aggregated per class of selectors and filters.
+ * All counters are striped adders, so recording never blocks concurrent selections.
+ * Exposed through JMX as {@value #OBJECT_NAME} and through {@link SelectionMetricsLink}.
+ */
+public class SelectionMetrics implements SelectionMetricsMXBean {
+    private static final Logger LOGGER = Logger.getLogger(SelectionMetrics.class.getName());
+
+    /**
+     * The name the metrics are registered with in the platform MBean server.
+     */
+    public static final String OBJECT_NAME = "org.jenkinsci.plugins.runselector:type=SelectionMetrics";
+
+    private static final SelectionMetrics INSTANCE = new SelectionMetrics();
+
+    private final ConcurrentMap<String, SelectorStats> selectorStats = new ConcurrentHashMap<String, SelectorStats>();
+    private final ConcurrentMap<String, FilterStats> filterStats = new ConcurrentHashMap<String, FilterStats>();
+
+    SelectionMetrics() {
+    }
+
+    /**
+     * @return the metrics shared in this Jenkins
+     */
+    @Nonnull
+    public static SelectionMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Records a call of {@link RunSelector#select}.
+     *
+     * @param selector   the selector
+     * @param nanos      time spent for the selection
+     * @param candidates number of builds examined
+     * @param matched    whether a build is selected
+     */
+    public void recordSelection(@Nonnull RunSelector selector, long nanos, int candidates, boolean matched) {
+        SelectorStats stats = getSelectorStats(selector);
+        stats.latency.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+        stats.candidates.record(candidates);
+        if (matched) {
+            stats.matches.increment();
+        }
+    }
+
+    /**
+     * Records a call of {@link RunSelector#getNextBuild}.
+     *
+     * @param selector the selector
+     * @param nanos    time spent to enumerate the build
+     */
+    public void recordNextBuild(@Nonnull RunSelector selector, long nanos) {
+        getSelectorStats(selector).nextBuildLatency.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * Records a call of {@link RunFilter#isSelectable}.
+     *
+     * @param filter   the filter
+     * @param nanos    time spent for the evaluation
+     * @param accepted whether the filter accepted the build
+     */
+    public void recordFilter(@Nonnull RunFilter filter, long nanos, boolean accepted) {
+        FilterStats stats = getFilterStats(filter);
+        stats.latency.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+        if (accepted) {
+            stats.accepted.increment();
+        }
+    }
+
+    @Nonnull
+    private SelectorStats getSelectorStats(@Nonnull RunSelector selector) {
+        String name = selector.getClass().getName();
+        SelectorStats stats = selectorStats.get(name);
+        if (stats == null) {
+            SelectorStats created = new SelectorStats(name, descriptorNameOf(selector));
+            stats = selectorStats.putIfAbsent(name, created);
+            if (stats == null) {
+                stats = created;
+            }
+        }
+        return stats;
+    }
+
+    @Nonnull
+    private FilterStats getFilterStats(@Nonnull RunFilter filter) {
+        String name = filter.getClass().getName();
+        FilterStats stats = filterStats.get(name);
+        if (stats == null) {
+            FilterStats created = new FilterStats(name, descriptorNameOf(filter));
+            stats = filterStats.putIfAbsent(name, created);
+            if (stats == null) {
+                stats = created;
+            }
+        }
+        return stats;
+    }
+
+    @Nonnull
+    private static String descriptorNameOf(@Nonnull RunSelector selector) {
+        try {
+            return selector.getDescriptor().getDisplayName();
+        } catch (AssertionError e) {
+            // no descriptor available (e.g. selectors in unit tests)
+            return selector.getClass().getSimpleName();
+        }
+    }
+
+    @Nonnull
+    private static String descriptorNameOf(@Nonnull RunFilter filter) {
+        try {
+            return filter.getDescriptor().getDisplayName();
+        } catch (AssertionError e) {
+            // no descriptor available (e.g. filters in unit tests)
+            return filter.getClass().getSimpleName();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getSelections() {
+        long total = 0;
+        for (SelectorStats stats : selectorStats.values()) {
+            total += stats.getSelections();
+        }
+        return total;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCandidatesScanned() {
+        long total = 0;
+        for (SelectorStats stats : selectorStats.values()) {
+            total += stats.getCandidatesScanned();
+        }
+        return total;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getFilterEvaluations() {
+        long total = 0;
+        for (FilterStats stats : filterStats.values()) {
+            total += stats.getEvaluations();
+        }
+        return total;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Nonnull
+    public List<SelectorStats> getSelectorStats() {
+        List<SelectorStats> result = new ArrayList<SelectorStats>(selectorStats.values());
+        Collections.sort(result, new Comparator<SelectorStats>() {
+            @Override
+            public int compare(SelectorStats o1, SelectorStats o2) {
+                return o1.getName().compareTo(o2.getName());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Nonnull
+    public List<FilterStats> getFilterStats() {
+        List<FilterStats> result = new ArrayList<FilterStats>(filterStats.values());
+        Collections.sort(result, new Comparator<FilterStats>() {
+            @Override
+            public int compare(FilterStats o1, FilterStats o2) {
+                return o1.getName().compareTo(o2.getName());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        selectorStats.clear();
+        filterStats.clear();
+    }
+
+    private static double toMillis(double micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * Statistics for a class of {@link RunSelector}.
+     * Latencies are kept in microseconds.
+     */
+    public static class SelectorStats {
+        private final String name;
+        private final String displayName;
+        private final Histogram latency = new Histogram();
+        private final Histogram nextBuildLatency = new Histogram();
+        private final Histogram candidates = new Histogram();
+        private final LongAdder matches = new LongAdder();
+
+        SelectorStats(@Nonnull String name, @Nonnull String displayName) {
+            this.name = name;
+            this.displayName = displayName;
+        }
+
+        /**
+         * @return the class name of the selector
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the display name of the selector
+         */
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        /**
+         * @return number of selections
+         */
+        public long getSelections() {
+            return latency.getCount();
+        }
+
+        /**
+         * @return number of selections which selected a build
+         */
+        public long getMatches() {
+            return matches.sum();
+        }
+
+        /**
+         * @return ratio of selections which selected a build
+         */
+        public double getMatchRatio() {
+            long selections = getSelections();
+            return (selections == 0) ? 0 : (double) getMatches() / selections;
+        }
+
+        public double getMeanMillis() {
+            return toMillis(latency.getMean());
+        }
+
+        public double getP50Millis() {
+            return toMillis(latency.getPercentile(50));
+        }
+
+        public double getP90Millis() {
+            return toMillis(latency.getPercentile(90));
+        }
+
+        public double getP99Millis() {
+            return toMillis(latency.getPercentile(99));
+        }
+
+        public double getMaxMillis() {
+            return toMillis(latency.getMax());
+        }
+
+        /**
+         * @return total number of builds examined in selections
+         */
+        public long getCandidatesScanned() {
+            return candidates.getSum();
+        }
+
+        public double getMeanCandidates() {
+            return candidates.getMean();
+        }
+
+        public long getP99Candidates() {
+            return candidates.getPercentile(99);
+        }
+
+        public long getMaxCandidates() {
+            return candidates.getMax();
+        }
+
+        /**
+         * @return number of calls of {@link RunSelector#getNextBuild}
+         */
+        public long getNextBuildCalls() {
+            return nextBuildLatency.getCount();
+        }
+
+        public double getMeanNextBuildMicros() {
+            return nextBuildLatency.getMean();
+        }
+
+        public long getP99NextBuildMicros() {
+            return nextBuildLatency.getPercentile(99);
+        }
+    }
+
+    /**
+     * Statistics for a class of {@link RunFilter}.
+     * Latencies are kept in microseconds.
+     */
+    public static class FilterStats {
+        private final String name;
+        private final String displayName;
+        private final Histogram latency = new Histogram();
+        private final LongAdder accepted = new LongAdder();
+
+        FilterStats(@Nonnull String name, @Nonnull String displayName) {
+            this.name = name;
+            this.displayName = displayName;
+        }
+
+        /**
+         * @return the class name of the filter
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the display name of the filter
+         */
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        /**
+         * @return number of evaluated builds
+         */
+        public long getEvaluations() {
+            return latency.getCount();
+        }
+
+        /**
+         * @return number of accepted builds
+         */
+        public long getAccepted() {
+            return accepted.sum();
+        }
+
+        /**
+         * @return ratio of accepted builds
+         */
+        public double getAcceptanceRatio() {
+            long evaluations = getEvaluations();
+            return (evaluations == 0) ? 0 : (double) getAccepted() / evaluations;
+        }
+
+        public double getMeanMicros() {
+            return latency.getMean();
+        }
+
+        public long getP90Micros() {
+            return latency.getPercentile(90);
+        }
+
+        public long getP99Micros() {
+            return latency.getPercentile(99);
+        }
+
+        public long getMaxMicros() {
+            return latency.getMax();
+        }
+    }
+
+    /**
+     * Registers the metrics to the platform MBean server.
+     */
+    @Initializer(after = InitMilestone.PLUGINS_STARTED)
+    public static void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(INSTANCE, name);
+            }
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Failed to register " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * Unregisters the metrics from the platform MBean server.
+     */
+    @Terminator
+    public static void unregisterMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Failed to unregister " + OBJECT_NAME, e);
+        }
+    }
+}
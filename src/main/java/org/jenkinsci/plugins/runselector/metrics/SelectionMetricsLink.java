@@ -0,0 +1,78 @@
+package org.jenkinsci.plugins.runselector.metrics;
+
+import hudson.Extension;
+import hudson.model.ManagementLink;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Shows {@link SelectionMetrics} in "Manage Jenkins".
+ */
+@Extension
+public class SelectionMetricsLink extends ManagementLink {
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getIconFileName() {
+        return "monitor.png";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDisplayName() {
+        return Messages.SelectionMetricsLink_DisplayName();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDescription() {
+        return Messages.SelectionMetricsLink_Description();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getUrlName() {
+        return "runSelectorMetrics";
+    }
+
+    /**
+     * @return metrics to display
+     */
+    @Nonnull
+    public SelectionMetrics getMetrics() {
+        return SelectionMetrics.get();
+    }
+
+    /**
+     * @param value    value to format
+     * @param decimals number of fraction digits
+     * @return formatted value
+     */
+    @Nonnull
+    public String format(double value, int decimals) {
+        return String.format("%." + decimals + "f", value);
+    }
+
+    /**
+     * Clears all statistics.
+     *
+     * @return redirect to the metrics page
+     */
+    @RequirePOST
+    public HttpResponse doReset() {
+        Jenkins.getActiveInstance().checkPermission(Jenkins.ADMINISTER);
+        getMetrics().reset();
+        return HttpResponses.redirectToDot();
+    }
+}
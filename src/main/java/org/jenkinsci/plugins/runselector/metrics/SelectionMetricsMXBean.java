@@ -0,0 +1,38 @@
+package org.jenkinsci.plugins.runselector.metrics;
+
+import java.util.List;
+
+/**
+ * JMX interface of {@link SelectionMetrics}.
+ */
+public interface SelectionMetricsMXBean {
+    /**
+     * @return total number of selections
+     */
+    long getSelections();
+
+    /**
+     * @return total number of builds examined in selections
+     */
+    long getCandidatesScanned();
+
+    /**
+     * @return total number of builds evaluated by filters
+     */
+    long getFilterEvaluations();
+
+    /**
+     * @return statistics per selector class
+     */
+    List<SelectionMetrics.SelectorStats> getSelectorStats();
+
+    /**
+     * @return statistics per filter class
+     */
+    List<SelectionMetrics.FilterStats> getFilterStats();
+
+    /**
+     * Clears all statistics.
+     */
+    void reset();
+}
@@ -0,0 +1,312 @@
+package org.jenkinsci.plugins.runselector.metrics;
+
+import hudson.model.Run;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time spent in each selector and filter of a selection.
+ * <p>
+ * Repeated calls of the same node are aggregated,
+ * so the size only depends on the configuration, not on the number of builds examined.
+ * Recorded by {@link SelectionProfiler} and stored in {@link SelectionProfileAction}.
+ */
+public class SelectionProfile {
+    /**
+     * Kinds of nodes.
+     */
+    public enum Kind {
+        /**
+         * {@link org.jenkinsci.plugins.runselector.RunSelector#select}
+         */
+        SELECTOR,
+        /**
+         * {@link org.jenkinsci.plugins.runselector.RunSelector#getNextBuild}
+         */
+        ENUMERATION,
+        /**
+         * {@link org.jenkinsci.plugins.runselector.RunFilter#isSelectable}
+         */
+        FILTER
+    }
+
+    /**
+     * A selector or a filter in the selection.
+     */
+    public static class Node {
+        @Nonnull
+        private final Kind kind;
+        @Nonnull
+        private final String name;
+        private long nanos;
+        private int calls;
+        private int candidates;
+        private int accepted;
+        private int cacheHits;
+        @CheckForNull
+        private List<Node> children;
+
+        Node(@Nonnull Kind kind, @Nonnull String name) {
+            this.kind = kind;
+            this.name = name;
+        }
+
+        /**
+         * @param kind kind of the child
+         * @param name name of the child
+         * @return the existing child with the same kind and name, or a new child.
+         */
+        @Nonnull
+        Node child(@Nonnull Kind kind, @Nonnull String name) {
+            if (children == null) {
+                children = new ArrayList<Node>();
+            }
+            for (Node child : children) {
+                if (child.kind == kind && child.name.equals(name)) {
+                    return child;
+                }
+            }
+            Node child = new Node(kind, name);
+            children.add(child);
+            return child;
+        }
+
+        void record(long nanos, boolean accepted) {
+            this.nanos += nanos;
+            this.calls++;
+            if (accepted) {
+                this.accepted++;
+            }
+        }
+
+        void countCandidate() {
+            candidates++;
+        }
+
+        void countCacheHit() {
+            cacheHits++;
+        }
+
+        @Nonnull
+        public Kind getKind() {
+            return kind;
+        }
+
+        @Nonnull
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return time spent in this node including children
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * @return time spent in this node excluding children
+         */
+        public long getSelfNanos() {
+            long self = nanos;
+            for (Node child : getChildren()) {
+                self -= child.getNanos();
+            }
+            return Math.max(self, 0);
+        }
+
+        public double getMillis() {
+            return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        public double getSelfMillis() {
+            return getSelfNanos() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        /**
+         * @return number of times this node is called
+         */
+        public int getCalls() {
+            return calls;
+        }
+
+        /**
+         * @return number of builds a selector visited
+         */
+        public int getCandidates() {
+            return candidates;
+        }
+
+        /**
+         * @return number of builds visited by this and nested selectors
+         */
+        public int getTotalCandidates() {
+            int total = candidates;
+            for (Node child : getChildren()) {
+                total += child.getTotalCandidates();
+            }
+            return total;
+        }
+
+        /**
+         * @return number of calls which accepted (filters) or found (enumerations) a build
+         */
+        public int getAccepted() {
+            return accepted;
+        }
+
+        /**
+         * @return number of builds resolved without examining them
+         */
+        public int getCacheHits() {
+            return cacheHits;
+        }
+
+        @Nonnull
+        public List<Node> getChildren() {
+            return (children != null) ? Collections.unmodifiableList(children) : Collections.<Node>emptyList();
+        }
+    }
+
+    /**
+     * A node placed in a flame graph.
+     */
+    public static class Frame {
+        private final Node node;
+        private final int depth;
+        private final double left;
+        private final double width;
+
+        Frame(@Nonnull Node node, int depth, double left, double width) {
+            this.node = node;
+            this.depth = depth;
+            this.left = left;
+            this.width = width;
+        }
+
+        @Nonnull
+        public Node getNode() {
+            return node;
+        }
+
+        /**
+         * @return depth from the outermost selector
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * @return offset from the left in percent
+         */
+        public double getLeft() {
+            return left;
+        }
+
+        /**
+         * @return width in percent
+         */
+        public double getWidth() {
+            return width;
+        }
+    }
+
+    @Nonnull
+    private final String jobName;
+    private final long timestamp;
+    @Nonnull
+    private final Node root;
+    @CheckForNull
+    private String selectedBuild;
+
+    SelectionProfile(@Nonnull String jobName, @Nonnull Node root) {
+        this.jobName = jobName;
+        this.timestamp = System.currentTimeMillis();
+        this.root = root;
+    }
+
+    void setSelected(@CheckForNull Run<?, ?> selected) {
+        this.selectedBuild = (selected != null) ? selected.getFullDisplayName() : null;
+    }
+
+    /**
+     * @return the full name of the job builds are selected from
+     */
+    @Nonnull
+    public String getJobName() {
+        return jobName;
+    }
+
+    /**
+     * @return when the selection started
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return when the selection started
+     */
+    @Nonnull
+    public Date getDate() {
+        return new Date(timestamp);
+    }
+
+    /**
+     * @return the outermost selector
+     */
+    @Nonnull
+    public Node getRoot() {
+        return root;
+    }
+
+    /**
+     * @return the selected build, {@code null} if no build is selected
+     */
+    @CheckForNull
+    public String getSelectedBuild() {
+        return selectedBuild;
+    }
+
+    /**
+     * @return all nodes laid out for a flame graph in the depth-first order.
+     */
+    @Nonnull
+    public List<Frame> getFrames() {
+        List<Frame> frames = new ArrayList<Frame>();
+        layout(frames, root, 0, 0, 100.0);
+        return frames;
+    }
+
+    /**
+     * @return frames grouped by the depth, the outermost selector first.
+     */
+    @Nonnull
+    public List<List<Frame>> getRows() {
+        List<List<Frame>> rows = new ArrayList<List<Frame>>();
+        for (Frame frame : getFrames()) {
+            while (rows.size() <= frame.getDepth()) {
+                rows.add(new ArrayList<Frame>());
+            }
+            rows.get(frame.getDepth()).add(frame);
+        }
+        return rows;
+    }
+
+    private void layout(@Nonnull List<Frame> frames, @Nonnull Node node, int depth, double left, double width) {
+        frames.add(new Frame(node, depth, left, width));
+        long total = node.getNanos();
+        double offset = left;
+        for (Node child : node.getChildren()) {
+            double childWidth = (total > 0) ? width * Math.min(child.getNanos(), total) / total : 0;
+            layout(frames, child, depth + 1, offset, childWidth);
+            offset += childWidth;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.jenkinsci.plugins.runselector.metrics;
+
+import hudson.model.Run;
+import jenkins.model.RunAction2;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Holds {@link SelectionProfile}s of selections performed by a build.
+ * Allows users to diagnose slow selections after the build finished.
+ */
+public class SelectionProfileAction implements RunAction2 {
+    /**
+     * Maximum number of profiles kept in a build. Older profiles are discarded.
+     */
+    static final int MAX_PROFILES = Integer.getInteger(SelectionProfileAction.class.getName() + ".maxProfiles", 20);
+
+    private final List<SelectionProfile> profiles = new ArrayList<SelectionProfile>();
+
+    private transient Run<?, ?> run;
+
+    /**
+     * Adds a profile to the build.
+     *
+     * @param build   the build performed the selection
+     * @param profile the profile of the selection
+     */
+    static void attach(@Nonnull Run<?, ?> build, @Nonnull SelectionProfile profile) {
+        SelectionProfileAction action;
+        synchronized (build) {
+            action = build.getAction(SelectionProfileAction.class);
+            if (action == null) {
+                action = new SelectionProfileAction();
+                build.addAction(action);
+            }
+        }
+        action.add(profile);
+    }
+
+    private synchronized void add(@Nonnull SelectionProfile profile) {
+        profiles.add(profile);
+        while (profiles.size() > MAX_PROFILES) {
+            profiles.remove(0);
+        }
+    }
+
+    /**
+     * @return profiles of selections in the build
+     */
+    @Nonnull
+    public synchronized List<SelectionProfile> getProfiles() {
+        return Collections.unmodifiableList(new ArrayList<SelectionProfile>(profiles));
+    }
+
+    /**
+     * @return the build performed the selections
+     */
+    @CheckForNull
+    public Run<?, ?> getRun() {
+        return run;
+    }
+
+    /**
+     * @param value    value to format
+     * @param decimals number of fraction digits
+     * @return formatted value
+     */
+    @Nonnull
+    public String format(double value, int decimals) {
+        return String.format("%." + decimals + "f", value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getIconFileName() {
+        return "clock.png";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDisplayName() {
+        return Messages.SelectionProfileAction_DisplayName();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getUrlName() {
+        return "selectionProfile";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onAttached(Run<?, ?> r) {
+        this.run = r;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onLoad(Run<?, ?> r) {
+        this.run = r;
+    }
+}
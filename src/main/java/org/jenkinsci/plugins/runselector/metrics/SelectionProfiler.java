@@ -0,0 +1,187 @@
+package org.jenkinsci.plugins.runselector.metrics;
+
+import hudson.model.Job;
+import hudson.model.Run;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Records a {@link SelectionProfile} while a selection runs.
+ * <p>
+ * Held in {@link RunSelectorContext} as an extension.
+ * As this is not {@link Cloneable}, contexts cloned for nested selectors share the same profiler
+ * and nested selectors and filters are recorded as children of the node running them.
+ * When the outermost selector finishes, the profile is attached to the build running the selection
+ * with {@link SelectionProfileAction}.
+ * <p>
+ * Set the system property {@code org.jenkinsci.plugins.runselector.metrics.SelectionProfiler.disabled}
+ * to {@code true} to disable profiling.
+ */
+public final class SelectionProfiler {
+    private static final boolean DISABLED = Boolean.getBoolean(SelectionProfiler.class.getName() + ".disabled");
+
+    private static final String ENUMERATION_NAME = "getNextBuild";
+
+    @Nonnull
+    private final SelectionProfile profile;
+    private final Deque<SelectionProfile.Node> stack = new ArrayDeque<SelectionProfile.Node>();
+
+    private SelectionProfiler(@Nonnull Job<?, ?> job, @Nonnull RunSelector selector) {
+        SelectionProfile.Node root = new SelectionProfile.Node(SelectionProfile.Kind.SELECTOR, selector.getDisplayName());
+        this.profile = new SelectionProfile(job.getFullName(), root);
+        stack.push(root);
+    }
+
+    /**
+     * Starts recording a selector.
+     * Starts a new profile if the selector is the outermost one.
+     *
+     * @param job      the job to pick a build from
+     * @param selector the selector
+     * @param context  context for the current execution of runselector
+     * @return the profiler to pass to {@link #exitSelector}, {@code null} if profiling is disabled.
+     */
+    @CheckForNull
+    public static SelectionProfiler enterSelector(
+            @Nonnull Job<?, ?> job,
+            @Nonnull RunSelector selector,
+            @Nonnull RunSelectorContext context
+    ) {
+        if (context.getExtension(Disabled.class) != null) {
+            return null;
+        }
+        SelectionProfiler profiler = context.getExtension(SelectionProfiler.class);
+        if (profiler != null && profiler.stack.isEmpty()) {
+            // left by a finished selection in a context kept to continue the enumeration.
+            context.removeExtension(profiler);
+            profiler = null;
+        }
+        if (profiler == null) {
+            if (DISABLED) {
+                return null;
+            }
+            profiler = new SelectionProfiler(job, selector);
+            context.addExtension(profiler);
+            return profiler;
+        }
+        profiler.push(SelectionProfile.Kind.SELECTOR, selector.getDisplayName());
+        return profiler;
+    }
+
+    /**
+     * Ends recording a selector started with {@link #enterSelector}.
+     * Attaches the profile to the build if this is the outermost selector.
+     *
+     * @param context  context passed to {@link #enterSelector}
+     * @param nanos    time spent in the selector
+     * @param selected the selected build
+     */
+    public void exitSelector(@Nonnull RunSelectorContext context, long nanos, @CheckForNull Run<?, ?> selected) {
+        SelectionProfile.Node node = stack.pop();
+        node.record(nanos, selected != null);
+        if (stack.isEmpty()) {
+            context.removeExtension(this);
+            profile.setSelected(selected);
+            SelectionProfileAction.attach(context.getBuild(), profile);
+        }
+    }
+
+    /**
+     * Records a call of {@link RunSelector#getNextBuild}.
+     *
+     * @param nanos     time spent to enumerate
+     * @param candidate the enumerated build
+     */
+    public void recordNextBuild(long nanos, @CheckForNull Run<?, ?> candidate) {
+        SelectionProfile.Node selector = stack.peek();
+        selector.child(SelectionProfile.Kind.ENUMERATION, ENUMERATION_NAME).record(nanos, candidate != null);
+        if (candidate != null) {
+            selector.countCandidate();
+        }
+    }
+
+    /**
+     * Starts recording a filter.
+     *
+     * @param filter  the filter
+     * @param context context for the current execution of runselector
+     * @return the profiler to pass to {@link #exitFilter}, {@code null} if not profiling.
+     */
+    @CheckForNull
+    public static SelectionProfiler enterFilter(@Nonnull RunFilter filter, @Nonnull RunSelectorContext context) {
+        SelectionProfiler profiler = context.getExtension(SelectionProfiler.class);
+        if (profiler == null || profiler.stack.isEmpty()) {
+            // evaluated outside of selections.
+            return null;
+        }
+        profiler.push(SelectionProfile.Kind.FILTER, filter.getDisplayName());
+        return profiler;
+    }
+
+    /**
+     * Ends recording a filter started with {@link #enterFilter}.
+     *
+     * @param nanos    time spent in the filter
+     * @param accepted whether the filter accepted the build
+     */
+    public void exitFilter(long nanos, boolean accepted) {
+        stack.pop().record(nanos, accepted);
+    }
+
+    /**
+     * Records a build resolved without examining it (e.g. with an index or a cache).
+     *
+     * @param context context for the current execution of runselector
+     */
+    public static void recordCacheHit(@Nonnull RunSelectorContext context) {
+        SelectionProfiler profiler = context.getExtension(SelectionProfiler.class);
+        if (profiler != null && !profiler.stack.isEmpty()) {
+            profiler.stack.peek().countCacheHit();
+        }
+    }
+
+    /**
+     * Makes a context kept across selections record to the profiler of the current selection.
+     *
+     * @param context      context for the current execution of runselector
+     * @param childContext context cloned from {@code context} in a previous selection
+     */
+    public static void share(@Nonnull RunSelectorContext context, @Nonnull RunSelectorContext childContext) {
+        SelectionProfiler stale = childContext.getExtension(SelectionProfiler.class);
+        if (stale != null) {
+            childContext.removeExtension(stale);
+        }
+        SelectionProfiler profiler = context.getExtension(SelectionProfiler.class);
+        if (profiler != null) {
+            childContext.addExtension(profiler);
+        }
+    }
+
+    /**
+     * Disables profiling selections with the context,
+     * for selections not performed by the build of the context.
+     *
+     * @param context context for the current execution of runselector
+     */
+    public static void disable(@Nonnull RunSelectorContext context) {
+        if (context.getExtension(Disabled.class) == null) {
+            context.addExtension(new Disabled());
+        }
+    }
+
+    private void push(@Nonnull SelectionProfile.Kind kind, @Nonnull String name) {
+        stack.push(stack.peek().child(kind, name));
+    }
+
+    /**
+     * Marks a context not to be profiled.
+     */
+    private static final class Disabled {
+    }
+}
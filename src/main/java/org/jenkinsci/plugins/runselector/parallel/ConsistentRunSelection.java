@@ -0,0 +1,353 @@
+package org.jenkinsci.plugins.runselector.parallel;
+
+import hudson.model.Cause;
+import hudson.model.Job;
+import hudson.model.ParameterValue;
+import hudson.model.ParametersAction;
+import hudson.model.Run;
+import org.jenkinsci.plugins.runselector.Messages;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.index.BuildTags;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Selects a consistent set of builds from multiple jobs,
+ * builds sharing the same value of a {@link JoinKey} (e.g. triggered by the same upstream build).
+ * <p>
+ * Each job is enumerated with {@link RunSelector#selectNext(Job, RunSelectorContext)},
+ * and builds of all jobs are joined newest first as merged with {@link RunMerge}.
+ * Each job keeps a hash table from values of the key to its newest build having the value,
+ * and the selection stops as soon as a build completes a value all jobs have.
+ * So the selected set is the one whose oldest build is the newest,
+ * and builds older than it are never enumerated.
+ */
+public class ConsistentRunSelection {
+    private static final int DEFAULT_DEPTH = Integer.getInteger(ConsistentRunSelection.class.getName() + ".depth", 100);
+
+    /**
+     * Extracts values builds of different jobs are joined on.
+     */
+    public abstract static class JoinKey {
+        /**
+         * Joins builds triggered by the same upstream build.
+         */
+        public static final JoinKey UPSTREAM = new JoinKey("upstream") {
+            @Override
+            @Nonnull
+            public Set<String> valuesOf(@Nonnull Run<?, ?> run) {
+                Set<String> values = new TreeSet<String>();
+                for (Cause cause : run.getCauses()) {
+                    if (cause instanceof Cause.UpstreamCause) {
+                        Cause.UpstreamCause upstream = (Cause.UpstreamCause) cause;
+                        values.add(upstream.getUpstreamProject() + "#" + upstream.getUpstreamBuild());
+                    }
+                }
+                return values;
+            }
+        };
+
+        /**
+         * Joins builds built from the same SCM revision.
+         *
+         * @see BuildTags#revisionsOf(Run)
+         */
+        public static final JoinKey REVISION = new JoinKey("revision") {
+            @Override
+            @Nonnull
+            public Set<String> valuesOf(@Nonnull Run<?, ?> run) {
+                return BuildTags.revisionsOf(run);
+            }
+        };
+
+        private static final String PARAMETER_PREFIX = "parameter:";
+
+        @Nonnull
+        private final String name;
+
+        private JoinKey(@Nonnull String name) {
+            this.name = name;
+        }
+
+        /**
+         * Joins builds with the same value of a parameter.
+         * Sensitive parameters (e.g. passwords) are ignored, as values are logged.
+         *
+         * @param parameterName the name of the parameter
+         * @return the key
+         */
+        @Nonnull
+        public static JoinKey parameter(@Nonnull final String parameterName) {
+            return new JoinKey(PARAMETER_PREFIX + parameterName) {
+                @Override
+                @Nonnull
+                public Set<String> valuesOf(@Nonnull Run<?, ?> run) {
+                    for (ParametersAction pa : run.getActions(ParametersAction.class)) {
+                        ParameterValue pv = pa.getParameter(parameterName);
+                        if (pv != null && !pv.isSensitive() && pv.getValue() != null) {
+                            return Collections.singleton(pv.getValue().toString());
+                        }
+                    }
+                    return Collections.emptySet();
+                }
+            };
+        }
+
+        /**
+         * @param name {@code upstream}, {@code revision} or {@code parameter:NAME}
+         * @return the key
+         * @throws IllegalArgumentException the name is not valid
+         */
+        @Nonnull
+        public static JoinKey fromName(@Nonnull String name) {
+            String trimmed = name.trim();
+            if (UPSTREAM.name.equalsIgnoreCase(trimmed)) {
+                return UPSTREAM;
+            }
+            if (REVISION.name.equalsIgnoreCase(trimmed)) {
+                return REVISION;
+            }
+            if (trimmed.startsWith(PARAMETER_PREFIX) && trimmed.length() > PARAMETER_PREFIX.length()) {
+                return parameter(trimmed.substring(PARAMETER_PREFIX.length()).trim());
+            }
+            throw new IllegalArgumentException(Messages.ConsistentRunSelection_InvalidJoinKey(name));
+        }
+
+        /**
+         * @param run a build
+         * @return values of the key the build has. Empty if the build can't be joined.
+         */
+        @Nonnull
+        public abstract Set<String> valuesOf(@Nonnull Run<?, ?> run);
+
+        /**
+         * @return the name of the key, that {@link #fromName(String)} accepts.
+         */
+        @Nonnull
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * The selected set of builds.
+     */
+    public static class Result {
+        @Nonnull
+        private final String value;
+        @Nonnull
+        private final Map<String, Run<?, ?>> runs;
+
+        Result(@Nonnull String value, @Nonnull Map<String, Run<?, ?>> runs) {
+            this.value = value;
+            this.runs = Collections.unmodifiableMap(runs);
+        }
+
+        /**
+         * @return the value of the key all builds share
+         */
+        @Nonnull
+        public String getValue() {
+            return value;
+        }
+
+        /**
+         * @return selected builds for keys passed to {@link #add}, in the order jobs are added
+         */
+        @Nonnull
+        public Map<String, Run<?, ?>> getRuns() {
+            return runs;
+        }
+    }
+
+    /**
+     * The enumeration of a job.
+     */
+    private class Cursor extends RunMerge.Cursor {
+        @Nonnull
+        private final String key;
+        @Nonnull
+        private final RunSelector selector;
+        /**
+         * values of the join key to the newest build having the value.
+         */
+        @Nonnull
+        private final Map<String, Run<?, ?>> table = new HashMap<String, Run<?, ?>>();
+        private int enumerated;
+
+        Cursor(
+                @Nonnull String key,
+                @Nonnull Job<?, ?> job,
+                @Nonnull RunSelector selector,
+                @Nonnull RunSelectorContext context
+        ) {
+            super(job, context);
+            this.key = key;
+            this.selector = selector;
+        }
+
+        @Override
+        Run<?, ?> next() throws IOException, InterruptedException {
+            Run<?, ?> next = (enumerated < depth) ? selector.selectNext(job, context) : null;
+            if (next != null) {
+                ++enumerated;
+            }
+            return next;
+        }
+    }
+
+    @Nonnull
+    private final RunSelectorContext context;
+    @Nonnull
+    private final JoinKey joinKey;
+    @Nonnull
+    private final Map<String, Cursor> cursors = new LinkedHashMap<String, Cursor>();
+    private int depth = DEFAULT_DEPTH;
+
+    /**
+     * @param context context to clone for each job. The filter is replaced with one passed to {@link #add}.
+     * @param joinKey the key to join builds on
+     */
+    public ConsistentRunSelection(@Nonnull RunSelectorContext context, @Nonnull JoinKey joinKey) {
+        this.context = context;
+        this.joinKey = joinKey;
+    }
+
+    /**
+     * @param depth the maximum number of builds to enumerate for each job
+     */
+    public void setDepth(int depth) {
+        this.depth = (depth > 0) ? depth : DEFAULT_DEPTH;
+    }
+
+    /**
+     * @return the maximum number of builds to enumerate for each job
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Adds a job to select a build from.
+     *
+     * @param key      the key for the result
+     * @param job      the job to pick a build from
+     * @param selector the selector for the job
+     * @param filter   the filter for the job
+     * @throws IllegalArgumentException the key is already added
+     */
+    public void add(
+            @Nonnull String key,
+            @Nonnull Job<?, ?> job,
+            @Nonnull RunSelector selector,
+            @Nonnull RunFilter filter
+    ) {
+        if (cursors.containsKey(key)) {
+            throw new IllegalArgumentException(Messages.ParallelRunSelection_DuplicateKey(key));
+        }
+        RunSelectorContext childContext = context.clone();
+        childContext.setRunFilter(filter);
+        cursors.put(key, new Cursor(key, job, selector, childContext));
+    }
+
+    /**
+     * @return the newest consistent set of builds. {@code null} if not found.
+     * @throws IOException if an error occurs in a selection
+     * @throws InterruptedException interrupted while waiting. Running selections are interrupted.
+     */
+    @CheckForNull
+    public Result select() throws IOException, InterruptedException {
+        if (cursors.isEmpty()) {
+            return null;
+        }
+        for (Cursor cursor : cursors.values()) {
+            Run<?, ?> last = cursor.job.getLastBuild();
+            if (last == null) {
+                context.logDebug("{0}: no builds", cursor.job.getFullName());
+                return null;
+            }
+            cursor.bound = last.getTimeInMillis();
+        }
+        Joiner joiner = new Joiner();
+        joiner.merge(cursors.values());
+        if (joiner.result == null && !joiner.unjoinable) {
+            context.logDebug("No consistent set of builds by {0}", joinKey);
+        }
+        return joiner.result;
+    }
+
+    /**
+     * Joins builds of all jobs as they are merged newest first.
+     */
+    private class Joiner extends RunMerge<Cursor> {
+        @CheckForNull
+        private Result result;
+        private boolean unjoinable;
+
+        @Override
+        long key(@Nonnull Run<?, ?> run) {
+            return run.getTimeInMillis();
+        }
+
+        @Override
+        boolean accept(@Nonnull Cursor cursor) {
+            result = join(cursor, cursor.head);
+            return result != null;
+        }
+
+        @Override
+        boolean exhausted(@Nonnull Cursor cursor) {
+            if (!cursor.table.isEmpty()) {
+                return false;
+            }
+            // no builds of the job can be joined.
+            context.logDebug("{0}: no builds with {1}", cursor.job.getFullName(), joinKey);
+            unjoinable = true;
+            return true;
+        }
+    }
+
+    /**
+     * Adds a build to the table of its job, and probes tables of other jobs.
+     *
+     * @return the consistent set completed with the build. {@code null} if not completed.
+     */
+    @CheckForNull
+    private Result join(@Nonnull Cursor cursor, @Nonnull Run<?, ?> run) {
+        for (String value : joinKey.valuesOf(run)) {
+            if (cursor.table.containsKey(value)) {
+                // a newer build already has the value.
+                continue;
+            }
+            cursor.table.put(value, run);
+            Map<String, Run<?, ?>> runs = new LinkedHashMap<String, Run<?, ?>>();
+            for (Cursor other : cursors.values()) {
+                Run<?, ?> joined = other.table.get(value);
+                if (joined == null) {
+                    break;
+                }
+                runs.put(other.key, joined);
+            }
+            if (runs.size() == cursors.size()) {
+                context.logDebug("Selected builds with {0} {1}", joinKey, value);
+                return new Result(value, runs);
+            }
+        }
+        return null;
+    }
+}
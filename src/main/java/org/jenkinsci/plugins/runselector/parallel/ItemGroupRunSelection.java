@@ -0,0 +1,182 @@
+package org.jenkinsci.plugins.runselector.parallel;
+
+import hudson.model.ItemGroup;
+import hudson.model.Items;
+import hudson.model.Job;
+import hudson.model.Run;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Selects the newest builds matching a selector across all jobs in an {@link ItemGroup}
+ * (e.g. a folder or a multibranch project).
+ * <p>
+ * Each job is enumerated with {@link RunSelector#selectNext(Job, RunSelectorContext)},
+ * and the enumerations are merged newest first with {@link RunMerge}, bounded by the last build of each job.
+ * The remaining enumerations are cancelled once enough builds are selected.
+ */
+public class ItemGroupRunSelection {
+    /**
+     * How to compare builds of different jobs.
+     */
+    public enum Order {
+        /**
+         * Builds started later are newer.
+         */
+        TIMESTAMP {
+            @Override
+            long bound(@Nonnull Job<?, ?> job) {
+                Run<?, ?> last = job.getLastBuild();
+                return (last != null) ? last.getTimeInMillis() : Long.MIN_VALUE;
+            }
+
+            @Override
+            long key(@Nonnull Run<?, ?> run) {
+                return run.getTimeInMillis();
+            }
+        },
+        /**
+         * Builds with larger numbers are newer.
+         */
+        NUMBER {
+            @Override
+            long bound(@Nonnull Job<?, ?> job) {
+                return (job.getLastBuild() != null) ? job.getNextBuildNumber() - 1 : Long.MIN_VALUE;
+            }
+
+            @Override
+            long key(@Nonnull Run<?, ?> run) {
+                return run.getNumber();
+            }
+        };
+
+        /**
+         * @param job a job
+         * @return the key of the newest build the job can yield. {@link Long#MIN_VALUE} if the job has no builds.
+         */
+        abstract long bound(@Nonnull Job<?, ?> job);
+
+        /**
+         * @param run a build
+         * @return the key to sort builds with. Larger is newer.
+         */
+        abstract long key(@Nonnull Run<?, ?> run);
+    }
+
+    /**
+     * The enumeration of a job.
+     */
+    private class Cursor extends RunMerge.Cursor {
+        Cursor(@Nonnull Job<?, ?> job, @Nonnull RunSelectorContext context, long bound) {
+            super(job, context);
+            this.bound = bound;
+        }
+
+        @Override
+        Run<?, ?> next() throws IOException, InterruptedException {
+            return selector.selectNext(job, context);
+        }
+    }
+
+    @Nonnull
+    private final RunSelectorContext context;
+    @Nonnull
+    private final ItemGroup<?> group;
+    @Nonnull
+    private final RunSelector selector;
+    @Nonnull
+    private Order order = Order.TIMESTAMP;
+    private int limit = 1;
+
+    /**
+     * @param context  context to clone for each job
+     * @param group    the item group to select builds from. Nested item groups are also searched.
+     * @param selector the selector applied to each job
+     */
+    public ItemGroupRunSelection(
+            @Nonnull RunSelectorContext context,
+            @Nonnull ItemGroup<?> group,
+            @Nonnull RunSelector selector
+    ) {
+        this.context = context;
+        this.group = group;
+        this.selector = selector;
+    }
+
+    /**
+     * @param order how to compare builds of different jobs
+     */
+    public void setOrder(@Nonnull Order order) {
+        this.order = order;
+    }
+
+    /**
+     * @return how to compare builds of different jobs
+     */
+    @Nonnull
+    public Order getOrder() {
+        return order;
+    }
+
+    /**
+     * @param limit the maximum number of builds to select. {@code 0} for no limit.
+     */
+    public void setLimit(int limit) {
+        this.limit = Math.max(limit, 0);
+    }
+
+    /**
+     * @return the maximum number of builds to select. {@code 0} for no limit.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return selected builds, the newest first
+     * @throws IOException if an error occurs in a selection
+     * @throws InterruptedException interrupted while waiting. Running selections are interrupted.
+     */
+    @Nonnull
+    public List<Run<?, ?>> select() throws IOException, InterruptedException {
+        List<Cursor> cursors = new ArrayList<Cursor>();
+        for (Job<?, ?> job : Items.getAllItems(group, Job.class)) {
+            long bound = order.bound(job);
+            if (bound == Long.MIN_VALUE) {
+                continue;
+            }
+            cursors.add(new Cursor(job, context.clone(), bound));
+        }
+        // jobs likely to yield the newest build first.
+        Collections.sort(cursors, new Comparator<Cursor>() {
+            @Override
+            public int compare(Cursor o1, Cursor o2) {
+                return Long.compare(o2.bound, o1.bound);
+            }
+        });
+        context.logDebug("Selecting from {0} jobs in {1}", cursors.size(), group.getFullName());
+
+        final List<Run<?, ?>> selected = new ArrayList<Run<?, ?>>();
+        new RunMerge<Cursor>() {
+            @Override
+            long key(@Nonnull Run<?, ?> run) {
+                return order.key(run);
+            }
+
+            @Override
+            boolean accept(@Nonnull Cursor cursor) {
+                selected.add(cursor.head);
+                context.logDebug("{0}: selected", cursor.head.getFullDisplayName());
+                return limit > 0 && selected.size() >= limit;
+            }
+        }.merge(cursors);
+        return selected;
+    }
+}
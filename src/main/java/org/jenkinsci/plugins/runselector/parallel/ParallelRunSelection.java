@@ -0,0 +1,246 @@
+package org.jenkinsci.plugins.runselector.parallel;
+
+import hudson.AbortException;
+import hudson.model.Job;
+import hudson.model.Run;
+import org.jenkinsci.plugins.runselector.Messages;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+/**
+ * Selects builds from multiple jobs concurrently in {@link SelectionExecutor}.
+ * <p>
+ * Each job is selected with a clone of the context passed to the constructor,
+ * so environment variables of the build are computed only once.
+ * A failure for a job doesn't stop selections for other jobs
+ * unless {@link #setFailFast(boolean)} is set.
+ */
+public class ParallelRunSelection {
+    /**
+     * The result of the selection for a job.
+     */
+    public static class Result {
+        @Nonnull
+        private final String key;
+        @Nonnull
+        private final Job<?, ?> job;
+        @Nonnull
+        private final RunSelector selector;
+        @Nonnull
+        private final RunFilter filter;
+        @CheckForNull
+        private final Run<?, ?> run;
+        @CheckForNull
+        private final Exception failure;
+
+        Result(
+                @Nonnull Target target,
+                @CheckForNull Run<?, ?> run,
+                @CheckForNull Exception failure
+        ) {
+            this.key = target.key;
+            this.job = target.job;
+            this.selector = target.selector;
+            this.filter = target.filter;
+            this.run = run;
+            this.failure = failure;
+        }
+
+        /**
+         * @return the key passed to {@link #add}
+         */
+        @Nonnull
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return the job builds are selected from
+         */
+        @Nonnull
+        public Job<?, ?> getJob() {
+            return job;
+        }
+
+        /**
+         * @return the selected build. {@code null} if no build matches or the selection failed.
+         */
+        @CheckForNull
+        public Run<?, ?> getRun() {
+            return run;
+        }
+
+        /**
+         * @return the exception thrown from the selection. {@code null} if the selection finished.
+         */
+        @CheckForNull
+        public Exception getFailure() {
+            return failure;
+        }
+
+        /**
+         * @return whether a build is selected
+         */
+        public boolean isSelected() {
+            return run != null;
+        }
+
+        /**
+         * @return description of the failure. {@code null} if a build is selected.
+         */
+        @CheckForNull
+        public String getFailureMessage() {
+            if (failure != null) {
+                return Messages.ParallelRunSelection_Failed(key, failure.toString());
+            }
+            if (run == null) {
+                return Messages.SelectRunStep_MissingRun(key, selector.getDisplayName(), filter.getDisplayName());
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A job to select a build from.
+     */
+    private static class Target implements Callable<Result> {
+        @Nonnull
+        private final String key;
+        @Nonnull
+        private final Job<?, ?> job;
+        @Nonnull
+        private final RunSelector selector;
+        @Nonnull
+        private final RunFilter filter;
+        @Nonnull
+        private final RunSelectorContext context;
+
+        Target(
+                @Nonnull String key,
+                @Nonnull Job<?, ?> job,
+                @Nonnull RunSelector selector,
+                @Nonnull RunFilter filter,
+                @Nonnull RunSelectorContext context
+        ) {
+            this.key = key;
+            this.job = job;
+            this.selector = selector;
+            this.filter = filter;
+            this.context = context;
+        }
+
+        @Override
+        public Result call() throws InterruptedException {
+            try {
+                return new Result(this, selector.select(job, context), null);
+            } catch (IOException | RuntimeException e) {
+                return new Result(this, null, e);
+            }
+        }
+    }
+
+    @Nonnull
+    private final RunSelectorContext context;
+    @Nonnull
+    private final Map<String, Target> targets = new LinkedHashMap<String, Target>();
+    private boolean failFast;
+
+    /**
+     * @param context context to clone for each job. The filter is replaced with one passed to {@link #add}.
+     */
+    public ParallelRunSelection(@Nonnull RunSelectorContext context) {
+        this.context = context;
+    }
+
+    /**
+     * @param failFast whether to stop selections as soon as a selection fails or selects no build.
+     */
+    public void setFailFast(boolean failFast) {
+        this.failFast = failFast;
+    }
+
+    /**
+     * @return whether to stop selections as soon as a selection fails or selects no build.
+     */
+    public boolean isFailFast() {
+        return failFast;
+    }
+
+    /**
+     * Adds a job to select a build from.
+     *
+     * @param key      the key for the result
+     * @param job      the job to pick a build from
+     * @param selector the selector for the job
+     * @param filter   the filter for the job
+     * @throws IllegalArgumentException the key is already added
+     */
+    public void add(
+            @Nonnull String key,
+            @Nonnull Job<?, ?> job,
+            @Nonnull RunSelector selector,
+            @Nonnull RunFilter filter
+    ) {
+        if (targets.containsKey(key)) {
+            throw new IllegalArgumentException(Messages.ParallelRunSelection_DuplicateKey(key));
+        }
+        RunSelectorContext childContext = context.clone();
+        childContext.setRunFilter(filter);
+        targets.put(key, new Target(key, job, selector, filter, childContext));
+    }
+
+    /**
+     * Runs selections for all added jobs and waits for them.
+     *
+     * @return results in the order jobs are added
+     * @throws IOException the first failure if {@link #isFailFast()}.
+     *      {@link AbortException} if no build is selected.
+     * @throws InterruptedException interrupted while waiting. Running selections are interrupted.
+     */
+    @Nonnull
+    public Map<String, Result> select() throws IOException, InterruptedException {
+        CompletionService<Result> completion = new ExecutorCompletionService<Result>(SelectionExecutor.get());
+        List<Future<Result>> futures = new ArrayList<Future<Result>>(targets.size());
+        Map<String, Result> completed = new HashMap<String, Result>();
+        try {
+            for (Target target : targets.values()) {
+                futures.add(completion.submit(SelectionExecutor.impersonating(target)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                Result result = SelectionExecutor.await(completion.take());
+                completed.put(result.getKey(), result);
+                if (failFast && !result.isSelected()) {
+                    if (result.getFailure() != null) {
+                        throw new IOException(result.getFailureMessage(), result.getFailure());
+                    }
+                    throw new AbortException(result.getFailureMessage());
+                }
+            }
+        } finally {
+            for (Future<Result> future : futures) {
+                // no effect for finished selections.
+                future.cancel(true);
+            }
+        }
+
+        Map<String, Result> results = new LinkedHashMap<String, Result>();
+        for (String key : targets.keySet()) {
+            results.put(key, completed.get(key));
+        }
+        return results;
+    }
+}
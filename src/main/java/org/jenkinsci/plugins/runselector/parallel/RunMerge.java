@@ -0,0 +1,157 @@
+package org.jenkinsci.plugins.runselector.parallel;
+
+import hudson.model.Job;
+import hudson.model.Run;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+/**
+ * Merges enumerations of builds of multiple jobs newest first in a k-way merge.
+ * <p>
+ * Each job is enumerated in {@link SelectionExecutor}, one build at a time.
+ * The cursor of a job bounds the builds the job can yield,
+ * so a build is passed to {@link #accept(Cursor)} as soon as no job still being enumerated can yield a newer one,
+ * and the remaining enumerations are cancelled once the merge stops.
+ * Enumerations of jobs are expected to yield builds newest first, as most selectors do.
+ *
+ * @param <C> the type of cursors
+ */
+abstract class RunMerge<C extends RunMerge.Cursor> {
+    /**
+     * The enumeration of a job.
+     */
+    abstract static class Cursor implements Callable<Cursor> {
+        @Nonnull
+        final Job<?, ?> job;
+        @Nonnull
+        final RunSelectorContext context;
+        private boolean started;
+        /**
+         * the key of the newest build this cursor can yield.
+         */
+        long bound;
+        @CheckForNull
+        Run<?, ?> head;
+        long headKey;
+
+        Cursor(@Nonnull Job<?, ?> job, @Nonnull RunSelectorContext context) {
+            this.job = job;
+            this.context = context;
+        }
+
+        @Override
+        public Cursor call() throws IOException, InterruptedException {
+            if (!started) {
+                context.setLastMatchBuild(null);
+                started = true;
+            }
+            head = next();
+            return this;
+        }
+
+        /**
+         * @return the next build of the job, {@code null} if no more.
+         * @throws IOException          if an error occurs in the selection
+         * @throws InterruptedException interrupted
+         */
+        @CheckForNull
+        abstract Run<?, ?> next() throws IOException, InterruptedException;
+    }
+
+    /**
+     * @param run a build
+     * @return the key to sort builds with. Larger is newer.
+     */
+    abstract long key(@Nonnull Run<?, ?> run);
+
+    /**
+     * Called with the head of a cursor, newest first among all jobs.
+     *
+     * @param cursor the cursor with the build
+     * @return whether to stop the merge
+     */
+    abstract boolean accept(@Nonnull C cursor);
+
+    /**
+     * Called when a cursor yields no more builds.
+     *
+     * @param cursor the cursor
+     * @return whether to stop the merge
+     */
+    boolean exhausted(@Nonnull C cursor) {
+        return false;
+    }
+
+    /**
+     * Enumerates cursors until {@link #accept(Cursor)} or {@link #exhausted(Cursor)} stops the merge
+     * or all cursors are exhausted.
+     * {@link Cursor#bound} of each cursor must be initialized.
+     *
+     * @param cursors cursors to merge, those likely to yield the newest build first
+     * @throws IOException          if an error occurs in a selection
+     * @throws InterruptedException interrupted while waiting. Running selections are interrupted.
+     */
+    final void merge(@Nonnull Collection<C> cursors) throws IOException, InterruptedException {
+        PriorityQueue<C> ready = new PriorityQueue<C>(Math.max(cursors.size(), 1), new Comparator<C>() {
+            @Override
+            public int compare(C o1, C o2) {
+                int result = Long.compare(o2.headKey, o1.headKey);
+                return (result != 0) ? result : o1.job.getFullName().compareTo(o2.job.getFullName());
+            }
+        });
+        CompletionService<Cursor> completion = new ExecutorCompletionService<Cursor>(SelectionExecutor.get());
+        Map<C, Future<Cursor>> pending = new HashMap<C, Future<Cursor>>();
+        try {
+            for (C cursor : cursors) {
+                pending.put(cursor, completion.submit(SelectionExecutor.impersonating(cursor)));
+            }
+            while (true) {
+                while (!ready.isEmpty() && ready.peek().headKey >= maxBound(pending)) {
+                    // no pending job can yield a newer build.
+                    C cursor = ready.poll();
+                    if (accept(cursor)) {
+                        return;
+                    }
+                    cursor.bound = cursor.headKey;
+                    pending.put(cursor, completion.submit(SelectionExecutor.impersonating(cursor)));
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                @SuppressWarnings("unchecked")
+                C cursor = (C) SelectionExecutor.await(completion.take());
+                pending.remove(cursor);
+                if (cursor.head != null) {
+                    cursor.headKey = key(cursor.head);
+                    ready.add(cursor);
+                } else if (exhausted(cursor)) {
+                    return;
+                }
+            }
+        } finally {
+            for (Future<Cursor> future : pending.values()) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private static long maxBound(@Nonnull Map<? extends Cursor, ?> pending) {
+        long max = Long.MIN_VALUE;
+        for (Cursor cursor : pending.keySet()) {
+            max = Math.max(max, cursor.bound);
+        }
+        return max;
+    }
+}
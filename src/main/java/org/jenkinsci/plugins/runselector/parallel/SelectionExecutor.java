@@ -0,0 +1,127 @@
+package org.jenkinsci.plugins.runselector.parallel;
+
+import hudson.init.Terminator;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.ExceptionCatchingThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import org.acegisecurity.Authentication;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded thread pool shared by all concurrent selections.
+ * <p>
+ * The size can be configured with the system property
+ * {@code org.jenkinsci.plugins.runselector.parallel.SelectionExecutor.poolSize}.
+ * Selections exceeding the size wait in the queue, so concurrent selections
+ * never load more histories at once than the pool allows.
+ */
+public final class SelectionExecutor {
+    /**
+     * Maximum number of selections running at once.
+     */
+    static final int POOL_SIZE = Integer.getInteger(
+            SelectionExecutor.class.getName() + ".poolSize",
+            Math.max(4, Runtime.getRuntime().availableProcessors())
+    );
+
+    private static ThreadPoolExecutor executor;
+
+    private SelectionExecutor() {
+    }
+
+    /**
+     * @return the shared pool
+     */
+    @Nonnull
+    public static synchronized ExecutorService get() {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(
+                    POOL_SIZE,
+                    POOL_SIZE,
+                    60L,
+                    TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(),
+                    new ExceptionCatchingThreadFactory(new NamingThreadFactory(
+                            new DaemonThreadFactory(),
+                            "Run selector parallel selection"
+                    ))
+            );
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
+    /**
+     * Wraps a task to run with the authentication of the current thread,
+     * as selectors and filters look up items with the permission of the build.
+     *
+     * @param task the task to run in the pool
+     * @param <V>  the result type of the task
+     * @return the task running with the current authentication
+     */
+    @Nonnull
+    public static <V> Callable<V> impersonating(@Nonnull final Callable<V> task) {
+        final Authentication auth = Jenkins.getAuthentication();
+        return new Callable<V>() {
+            @Override
+            public V call() throws Exception {
+                try (ACLContext ctx = ACL.as(auth)) {
+                    return task.call();
+                }
+            }
+        };
+    }
+
+    /**
+     * Waits for a task run in the pool, and rethrows its failure as is.
+     *
+     * @param future the task submitted to the pool
+     * @param <V>    the result type of the task
+     * @return the result of the task
+     * @throws IOException          the task failed with it, or with a checked exception
+     * @throws InterruptedException interrupted while waiting, or the task was interrupted
+     */
+    static <V> V await(@Nonnull Future<V> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Stops the pool.
+     */
+    @Terminator
+    public static synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+}
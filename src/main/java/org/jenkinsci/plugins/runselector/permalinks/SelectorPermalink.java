@@ -0,0 +1,125 @@
+package org.jenkinsci.plugins.runselector.permalinks;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.model.Failure;
+import hudson.model.PermalinkProjectAction.Permalink;
+import hudson.util.FormValidation;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.runselector.Messages;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.filters.NoRunFilter;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * A permalink pointing to the build selected with a {@link RunSelector} and a {@link RunFilter},
+ * e.g. {@code lastStableRelease}.
+ * Defined in {@link SelectorPermalinksProperty}.
+ */
+public class SelectorPermalink extends AbstractDescribableImpl<SelectorPermalink> {
+    @Nonnull
+    private final String id;
+
+    @CheckForNull
+    private String displayName;
+
+    @Nonnull
+    private final RunSelector selector;
+
+    @CheckForNull
+    private RunFilter filter;
+
+    /**
+     * @param id       the id used in URLs
+     * @param selector the selector to pick the build
+     */
+    @DataBoundConstructor
+    public SelectorPermalink(String id, @Nonnull RunSelector selector) {
+        this.id = Util.fixNull(id).trim();
+        this.selector = selector;
+    }
+
+    /**
+     * @return the id used in URLs
+     */
+    @Nonnull
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the name displayed in the job page. The id if not specified.
+     */
+    @Nonnull
+    public String getDisplayName() {
+        return (displayName != null) ? displayName : id;
+    }
+
+    @DataBoundSetter
+    public void setDisplayName(String displayName) {
+        this.displayName = Util.fixEmptyAndTrim(displayName);
+    }
+
+    /**
+     * @return the selector to pick the build
+     */
+    @Nonnull
+    public RunSelector getSelector() {
+        return selector;
+    }
+
+    /**
+     * @return the filter for the selector
+     */
+    @Nonnull
+    public RunFilter getFilter() {
+        return (filter != null) ? filter : new NoRunFilter();
+    }
+
+    @DataBoundSetter
+    public void setFilter(RunFilter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * @return identifies the configuration, to detect builds resolved with an old configuration.
+     */
+    @Nonnull
+    String getDigest() {
+        return Util.getDigestOf(Jenkins.XSTREAM2.toXML(selector) + Jenkins.XSTREAM2.toXML(getFilter()));
+    }
+
+    @Extension
+    public static class DescriptorImpl extends Descriptor<SelectorPermalink> {
+        @Override
+        public String getDisplayName() {
+            return Messages.SelectorPermalink_DisplayName();
+        }
+
+        public FormValidation doCheckId(@QueryParameter String value) {
+            String id = Util.fixEmptyAndTrim(value);
+            if (id == null) {
+                return FormValidation.error(Messages.SelectorPermalink_MissingId());
+            }
+            try {
+                Jenkins.checkGoodName(id);
+            } catch (Failure e) {
+                return FormValidation.error(e.getMessage());
+            }
+            for (Permalink p : Permalink.BUILTIN) {
+                if (p.getId().equals(id)) {
+                    return FormValidation.error(Messages.SelectorPermalink_BuiltinId(id));
+                }
+            }
+            return FormValidation.ok();
+        }
+    }
+}
@@ -0,0 +1,526 @@
+package org.jenkinsci.plugins.runselector.permalinks;
+
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Action;
+import hudson.model.Job;
+import hudson.model.JobProperty;
+import hudson.model.JobPropertyDescriptor;
+import hudson.model.PermalinkProjectAction;
+import hudson.model.Run;
+import hudson.model.Saveable;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.util.AtomicFileWriter;
+import jenkins.model.Jenkins;
+import jenkins.model.TransientActionFactory;
+import jenkins.util.Timer;
+import net.sf.json.JSONObject;
+import org.apache.commons.io.FileUtils;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.runselector.Messages;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.metrics.SelectionProfiler;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.StaplerRequest;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Defines {@link SelectorPermalink}s of a job, exposed through {@link Job#getPermalinks()}.
+ * <p>
+ * Like {@link jenkins.model.PeepholePermalink}, the selected builds are cached in the file {@value #CACHE_FILE}
+ * in the job directory, so resolving permalinks doesn't run selections.
+ * When builds complete, are deleted or are modified, entries the change can affect are evaluated again in background.
+ * For selections picking the newest matching build ({@link RunSelector#isIncremental()}),
+ * those are entries pointing to a deleted build, and entries pointing to builds older than a completed or modified build.
+ * Entries of other selections are evaluated again on any change.
+ * Entries for changed configurations are evaluated again when resolved.
+ * Selections are always evaluated in the context of the last build of the job.
+ */
+public class SelectorPermalinksProperty extends JobProperty<Job<?, ?>> {
+    private static final Logger LOGGER = Logger.getLogger(SelectorPermalinksProperty.class.getName());
+
+    private static final String CACHE_FILE = "selectorPermalinks";
+
+    @Nonnull
+    private final List<SelectorPermalink> permalinks;
+
+    /**
+     * Id of a permalink to the resolved build, loaded lazily.
+     */
+    @CheckForNull
+    private transient Map<String, Entry> cache;
+
+    /**
+     * Ids of permalinks to evaluate again in background.
+     */
+    @Nonnull
+    private transient Set<String> dirty = new HashSet<String>();
+
+    /**
+     * The task evaluating {@link #dirty} permalinks, {@code null} if not running.
+     */
+    @CheckForNull
+    private transient Future<?> reevaluation;
+
+    /**
+     * Incremented whenever entries are updated or invalidated,
+     * not to overwrite them with results evaluated before.
+     */
+    private transient int generation;
+
+    /**
+     * @param permalinks permalinks to define
+     */
+    @DataBoundConstructor
+    public SelectorPermalinksProperty(List<SelectorPermalink> permalinks) {
+        this.permalinks = (permalinks != null)
+                ? new ArrayList<SelectorPermalink>(permalinks)
+                : Collections.<SelectorPermalink>emptyList();
+    }
+
+    /**
+     * @return permalinks to define
+     */
+    @Nonnull
+    public List<SelectorPermalink> getPermalinks() {
+        return Collections.unmodifiableList(permalinks);
+    }
+
+    /**
+     * @param permalink the permalink defined in this property
+     * @return the build the permalink points to
+     */
+    @CheckForNull
+    public Run<?, ?> resolve(@Nonnull SelectorPermalink permalink) {
+        Job<?, ?> job;
+        String digest = permalink.getDigest();
+        int started;
+        synchronized (this) {
+            job = owner;
+            if (job == null) {
+                return null;
+            }
+            Entry entry = loadCache(job).get(permalink.getId());
+            if (entry != null && entry.digest.equals(digest)) {
+                if (entry.number < 0) {
+                    return null;
+                }
+                Run<?, ?> run = job.getBuildByNumber(entry.number);
+                if (run != null) {
+                    return run;
+                }
+                // deleted, or removed without notifications.
+                dirty.add(permalink.getId());
+                scheduleReevaluation();
+                return null;
+            }
+            started = generation;
+        }
+        // not evaluated yet, or the configuration changed. Other permalinks are resolved meanwhile.
+        Integer number = evaluate(job, permalink);
+        if (number == null) {
+            return null;
+        }
+        synchronized (this) {
+            if (generation == started) {
+                Map<String, Entry> entries = loadCache(job);
+                entries.put(permalink.getId(), new Entry(digest, number));
+                saveCache(job, entries);
+            }
+        }
+        return (number >= 0) ? job.getBuildByNumber(number) : null;
+    }
+
+    /**
+     * Evaluates again entries a completed, deleted or modified build can affect, in background.
+     *
+     * @param number  the number of the build
+     * @param deleted whether the build is deleted, or completed or modified
+     */
+    synchronized void invalidate(int number, boolean deleted) {
+        Job<?, ?> job = owner;
+        if (job == null) {
+            return;
+        }
+        Map<String, Entry> entries = loadCache(job);
+        boolean affected = false;
+        for (SelectorPermalink permalink : permalinks) {
+            Entry entry = entries.get(permalink.getId());
+            if (entry == null) {
+                // evaluated when resolved.
+                continue;
+            }
+            // a changed build may newly match only if newer than the cached one.
+            if (!isNewestFirst(permalink) || (deleted ? entry.number == number : entry.number <= number)) {
+                dirty.add(permalink.getId());
+                affected = true;
+            }
+        }
+        if (affected) {
+            ++generation;
+            scheduleReevaluation();
+        }
+    }
+
+    /**
+     * @return whether the permalink selects the newest matching build, depending only on the state of builds.
+     */
+    private static boolean isNewestFirst(@Nonnull SelectorPermalink permalink) {
+        return permalink.getSelector().isIncremental() && permalink.getFilter().isIncremental();
+    }
+
+    private void scheduleReevaluation() {
+        if (reevaluation != null) {
+            // picks up dirty entries before finishing.
+            return;
+        }
+        reevaluation = Timer.get().submit(new Runnable() {
+            @Override
+            public void run() {
+                reevaluate();
+            }
+        });
+    }
+
+    /**
+     * Evaluates dirty entries until none are left, without blocking {@link #resolve(SelectorPermalink)}.
+     */
+    private void reevaluate() {
+        while (true) {
+            Job<?, ?> job;
+            Set<String> ids;
+            int started;
+            synchronized (this) {
+                job = owner;
+                if (job == null || dirty.isEmpty()) {
+                    dirty.clear();
+                    reevaluation = null;
+                    return;
+                }
+                ids = new HashSet<String>(dirty);
+                dirty.clear();
+                started = generation;
+            }
+            Map<String, Entry> evaluated = new HashMap<String, Entry>();
+            for (SelectorPermalink permalink : permalinks) {
+                if (ids.contains(permalink.getId())) {
+                    Integer number = evaluate(job, permalink);
+                    if (number != null) {
+                        evaluated.put(permalink.getId(), new Entry(permalink.getDigest(), number));
+                    }
+                }
+            }
+            synchronized (this) {
+                if (generation != started) {
+                    // changed while evaluating.
+                    dirty.addAll(ids);
+                    continue;
+                }
+                Map<String, Entry> entries = loadCache(job);
+                entries.keySet().removeAll(ids);
+                entries.putAll(evaluated);
+                saveCache(job, entries);
+            }
+        }
+    }
+
+    /**
+     * Waits for the evaluation in background. Only for tests.
+     */
+    void awaitReevaluation() throws InterruptedException, ExecutionException {
+        while (true) {
+            Future<?> future;
+            synchronized (this) {
+                future = reevaluation;
+            }
+            if (future == null) {
+                return;
+            }
+            future.get();
+        }
+    }
+
+    /**
+     * {@link #dirty} is not deserialized.
+     */
+    private Object readResolve() {
+        dirty = new HashSet<String>();
+        return this;
+    }
+
+    /**
+     * Evaluates a permalink in the context of the last build.
+     *
+     * @return the number of the selected build, {@code -1} if none, {@code null} if failed.
+     */
+    @CheckForNull
+    private static Integer evaluate(@Nonnull Job<?, ?> job, @Nonnull SelectorPermalink permalink) {
+        Run<?, ?> build = job.getLastBuild();
+        if (build == null) {
+            // no builds.
+            return -1;
+        }
+        try {
+            RunSelectorContext context = new RunSelectorContext(
+                    Jenkins.getActiveInstance(),
+                    build,
+                    TaskListener.NULL,
+                    permalink.getFilter()
+            );
+            // not a selection by the build.
+            SelectionProfiler.disable(context);
+            Run<?, ?> selected = permalink.getSelector().select(job, context);
+            return (selected != null) ? selected.getNumber() : -1;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to evaluate " + permalink.getId() + " of " + job.getFullName(), e);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    @Nonnull
+    private Map<String, Entry> loadCache(@Nonnull Job<?, ?> job) {
+        if (cache != null) {
+            return cache;
+        }
+        cache = new HashMap<String, Entry>();
+        File file = new File(job.getRootDir(), CACHE_FILE);
+        if (!file.exists()) {
+            return cache;
+        }
+        try {
+            for (String line : FileUtils.readLines(file, StandardCharsets.UTF_8)) {
+                String[] fields = line.split(" ");
+                if (fields.length == 3) {
+                    cache.put(fields[0], new Entry(fields[1], Integer.parseInt(fields[2])));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // evaluated again.
+            LOGGER.log(Level.WARNING, "Failed to load " + file, e);
+            cache.clear();
+        }
+        return cache;
+    }
+
+    private static void saveCache(@Nonnull Job<?, ?> job, @Nonnull Map<String, Entry> cache) {
+        File file = new File(job.getRootDir(), CACHE_FILE);
+        try {
+            AtomicFileWriter w = new AtomicFileWriter(file);
+            try {
+                for (Map.Entry<String, Entry> e : cache.entrySet()) {
+                    w.write(e.getKey() + " " + e.getValue().digest + " " + e.getValue().number + "\n");
+                }
+                w.commit();
+            } finally {
+                w.abort();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save " + file, e);
+        }
+    }
+
+    /**
+     * A build resolved for a permalink.
+     */
+    private static final class Entry {
+        @Nonnull
+        private final String digest;
+        private final int number;
+
+        Entry(@Nonnull String digest, int number) {
+            this.digest = digest;
+            this.number = number;
+        }
+    }
+
+    /**
+     * The {@link PermalinkProjectAction.Permalink} for {@link SelectorPermalink}.
+     */
+    static final class Link extends PermalinkProjectAction.Permalink {
+        @Nonnull
+        private final SelectorPermalinksProperty property;
+        @Nonnull
+        private final SelectorPermalink permalink;
+
+        Link(@Nonnull SelectorPermalinksProperty property, @Nonnull SelectorPermalink permalink) {
+            this.property = property;
+            this.permalink = permalink;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return permalink.getDisplayName();
+        }
+
+        @Override
+        public String getId() {
+            return permalink.getId();
+        }
+
+        @Override
+        public Run<?, ?> resolve(Job<?, ?> job) {
+            return property.resolve(permalink);
+        }
+    }
+
+    /**
+     * Exposes permalinks through {@link Job#getPermalinks()}.
+     */
+    static final class PermalinksAction implements PermalinkProjectAction {
+        @Nonnull
+        private final SelectorPermalinksProperty property;
+
+        PermalinksAction(@Nonnull SelectorPermalinksProperty property) {
+            this.property = property;
+        }
+
+        @Override
+        public List<Permalink> getPermalinks() {
+            List<Permalink> links = new ArrayList<Permalink>();
+            for (SelectorPermalink permalink : property.getPermalinks()) {
+                links.add(new Link(property, permalink));
+            }
+            return links;
+        }
+
+        @Override
+        public String getIconFileName() {
+            return null;
+        }
+
+        @Override
+        public String getDisplayName() {
+            return null;
+        }
+
+        @Override
+        public String getUrlName() {
+            return null;
+        }
+    }
+
+    /**
+     * Adds {@link PermalinksAction} to jobs with {@link SelectorPermalinksProperty}.
+     */
+    @Extension
+    @SuppressWarnings("rawtypes")
+    public static class ActionFactoryImpl extends TransientActionFactory<Job> {
+        @Override
+        public Class<Job> type() {
+            return Job.class;
+        }
+
+        @Nonnull
+        @Override
+        public Collection<? extends Action> createFor(@Nonnull Job target) {
+            SelectorPermalinksProperty property = propertyOf(target);
+            return (property != null)
+                    ? Collections.singletonList(new PermalinksAction(property))
+                    : Collections.<Action>emptyList();
+        }
+    }
+
+    /**
+     * Evaluates permalinks when builds complete, and again when builds are deleted.
+     * Only marks entries to evaluate, not to block the completion.
+     */
+    @Extension
+    public static class RunListenerImpl extends RunListener<Run<?, ?>> {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onFinalized(Run<?, ?> run) {
+            SelectorPermalinksProperty property = propertyOf(run.getParent());
+            if (property != null) {
+                property.invalidate(run.getNumber(), false);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            SelectorPermalinksProperty property = propertyOf(run.getParent());
+            if (property != null) {
+                property.invalidate(run.getNumber(), true);
+            }
+        }
+    }
+
+    /**
+     * Evaluates permalinks when completed builds are modified, e.g. results or "Keep this build forever".
+     * Saves before builds are finalized are covered by {@link RunListenerImpl#onFinalized(Run)}.
+     */
+    @Extension
+    public static class SaveableListenerImpl extends SaveableListener {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (!(o instanceof Run) || ((Run<?, ?>) o).isLogUpdated()) {
+                return;
+            }
+            SelectorPermalinksProperty property = propertyOf(((Run<?, ?>) o).getParent());
+            if (property != null) {
+                property.invalidate(((Run<?, ?>) o).getNumber(), false);
+            }
+        }
+    }
+
+    @CheckForNull
+    private static SelectorPermalinksProperty propertyOf(@Nonnull Job<?, ?> job) {
+        SelectorPermalinksProperty property = job.getProperty(SelectorPermalinksProperty.class);
+        return (property != null && !property.permalinks.isEmpty()) ? property : null;
+    }
+
+    @Symbol("selectorPermalinks")
+    @Extension
+    public static class DescriptorImpl extends JobPropertyDescriptor {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getDisplayName() {
+            return Messages.SelectorPermalinksProperty_DisplayName();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public JobProperty<?> newInstance(StaplerRequest req, JSONObject formData) throws FormException {
+            JSONObject block = formData.optJSONObject("selectorPermalinks");
+            if (block == null || block.isNullObject()) {
+                // not checked.
+                return null;
+            }
+            return super.newInstance(req, block);
+        }
+    }
+}
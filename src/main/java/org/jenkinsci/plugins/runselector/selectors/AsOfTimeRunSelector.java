@@ -0,0 +1,198 @@
+package org.jenkinsci.plugins.runselector.selectors;
+
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.util.FormValidation;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.RunSelectorDescriptor;
+import org.jenkinsci.plugins.runselector.TimeExpression;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.index.BlockSummary;
+import org.jenkinsci.plugins.runselector.index.BuildIndex;
+import org.jenkinsci.plugins.runselector.index.IndexCondition;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+
+/**
+ * Selects builds started at or before the specified time, the newest first.
+ * <p>
+ * The newest one is found by binary search over build numbers,
+ * as start times of builds increase with their numbers.
+ *
+ * @see TimeExpression
+ */
+public class AsOfTimeRunSelector extends RunSelector {
+    @Nonnull
+    private final String time;
+
+    /**
+     * @param time the time to select builds started before
+     */
+    @DataBoundConstructor
+    public AsOfTimeRunSelector(@CheckForNull String time) {
+        this.time = Util.fixNull(time).trim();
+    }
+
+    /**
+     * @return the time to select builds started before. May include variable expression.
+     */
+    @Nonnull
+    public String getTime() {
+        return time;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @CheckForNull
+    public Run<?, ?> getNextBuild(@Nonnull Job<?, ?> job, @Nonnull RunSelectorContext context) throws IOException {
+        long asOf = resolve(context);
+        Run<?, ?> previousBuild = context.getLastMatchBuild();
+        Run<?, ?> candidate = (previousBuild == null)
+                ? findLastStartedBy(job, asOf)
+                : previousBuild.getPreviousBuild();
+        while (candidate != null && candidate.getTimeInMillis() > asOf) {
+            // the clock went backward.
+            candidate = candidate.getPreviousBuild();
+        }
+        return candidate;
+    }
+
+    /**
+     * Loads only builds tested in the binary search.
+     *
+     * @param job  the job
+     * @param asOf the time, in milliseconds
+     * @return the newest build started at or before the time, {@code null} if none
+     */
+    @CheckForNull
+    private static Run<?, ?> findLastStartedBy(@Nonnull Job<?, ?> job, long asOf) {
+        Run<?, ?> last = job.getLastBuild();
+        if (last == null || last.getTimeInMillis() <= asOf) {
+            return last;
+        }
+        Run<?, ?> low = job.getFirstBuild();
+        if (low == null || low.getTimeInMillis() > asOf) {
+            return null;
+        }
+        // low starts at or before the time, and builds after high start after the time.
+        int lowNumber = low.getNumber();
+        int highNumber = last.getNumber();
+        while (highNumber - lowNumber > 1) {
+            int mid = (lowNumber + highNumber) >>> 1;
+            Run<?, ?> run = job.getNearestOldBuild(mid);
+            if (run == null || run.getNumber() <= lowNumber) {
+                // no builds between.
+                lowNumber = mid;
+            } else if (run.getTimeInMillis() <= asOf) {
+                low = run;
+                lowNumber = mid;
+            } else {
+                highNumber = run.getNumber();
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Builds started at or before the time.
+     */
+    @Override
+    public IndexCondition getIndexCondition(@Nonnull RunSelectorContext context) {
+        final long asOf;
+        try {
+            asOf = resolve(context);
+        } catch (AbortException e) {
+            // reported when enumerated.
+            return null;
+        }
+        return IndexCondition.of(
+                new IndexCondition.RecordPredicate() {
+                    @Override
+                    public boolean test(@Nonnull BuildIndex index, int position) {
+                        return index.timestampAt(position) <= asOf;
+                    }
+                },
+                new IndexCondition.BlockPredicate() {
+                    @Override
+                    public boolean mayMatch(@Nonnull BlockSummary block) {
+                        return block.getMinTimestamp() <= asOf;
+                    }
+                }
+        );
+    }
+
+    private long resolve(@Nonnull RunSelectorContext context) throws AbortException {
+        String resolved = context.getEnvVars().expand(time);
+        try {
+            return TimeExpression.parse(resolved, System.currentTimeMillis());
+        } catch (IllegalArgumentException e) {
+            throw new AbortException(e.getMessage());
+        }
+    }
+
+    /**
+     * @return {@code true} if the time is neither relative to now nor contains variables.
+     */
+    @Override
+    public boolean isIncremental() {
+        return TimeExpression.isAbsolute(time);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isDescending() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDisplayName() {
+        return String.format("%s (%s)", super.getDisplayName(), getTime());
+    }
+
+    @Symbol("asOf")
+    @Extension
+    public static class DescriptorImpl extends RunSelectorDescriptor {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getDisplayName() {
+            return Messages.AsOfTimeRunSelector_DisplayName();
+        }
+
+        /**
+         * @param time the time to select builds started before
+         * @return the form validation result.
+         */
+        public FormValidation doCheckTime(@QueryParameter String time) {
+            if (StringUtils.isBlank(time)) {
+                return FormValidation.error(Messages.AsOfTimeRunSelector_TimeRequired());
+            }
+            if (time.contains("$")) {
+                return FormValidation.ok();
+            }
+            try {
+                TimeExpression.parse(time, System.currentTimeMillis());
+            } catch (IllegalArgumentException e) {
+                return FormValidation.error(e.getMessage());
+            }
+            return FormValidation.ok();
+        }
+    }
+}
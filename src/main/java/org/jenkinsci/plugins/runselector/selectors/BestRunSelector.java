@@ -0,0 +1,605 @@
+package org.jenkinsci.plugins.runselector.selectors;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.Iterables;
+import hudson.Extension;
+import hudson.ExtensionPoint;
+import hudson.Util;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.model.Job;
+import hudson.model.ParameterValue;
+import hudson.model.ParametersAction;
+import hudson.model.Run;
+import hudson.util.FormValidation;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunFilterDescriptor;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.RunSelectorDescriptor;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.filters.AndRunFilter;
+import org.jenkinsci.plugins.runselector.filters.NoRunFilter;
+import org.jenkinsci.plugins.runselector.index.BuildIndex;
+import org.jenkinsci.plugins.runselector.index.BuildIndexes;
+import org.jenkinsci.plugins.runselector.metrics.SelectionProfiler;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Selects the best builds among the first builds a child selector selects,
+ * ranked by a key like the duration (e.g. the fastest of the last 10 stable builds).
+ * <p>
+ * Only the best {@link #getTop()} builds are kept while candidates are enumerated,
+ * and keys are read from {@link BuildIndex} when available.
+ * Builds without keys (e.g. running builds for {@link Duration}) are skipped.
+ * Builds are selected from the best, and the newer first among builds with the same key.
+ */
+public class BestRunSelector extends RunSelector {
+    /**
+     * Extracts the key to rank builds with.
+     */
+    public abstract static class Key extends AbstractDescribableImpl<Key> implements ExtensionPoint {
+        /**
+         * @param run the build
+         * @return the key of the build, {@code null} if the build doesn't have it.
+         */
+        @CheckForNull
+        public abstract Double keyOf(@Nonnull Run<?, ?> run);
+
+        /**
+         * Reads the key from the index, to avoid reading it from a loaded build.
+         * Called with the read lock of the index held.
+         *
+         * @param index    the index of the job
+         * @param position position of the build
+         * @return the key of the build, {@code null} to read it from the build instead.
+         */
+        @CheckForNull
+        public Double keyOf(@Nonnull BuildIndex index, int position) {
+            return null;
+        }
+
+        /**
+         * @return the display name of the key, with configurations.
+         */
+        public String getDisplayName() {
+            return getDescriptor().getDisplayName();
+        }
+    }
+
+    /**
+     * How long builds took. Running builds have no keys.
+     */
+    public static class Duration extends Key {
+        @DataBoundConstructor
+        public Duration() {
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Double keyOf(@Nonnull Run<?, ?> run) {
+            return run.isBuilding() ? null : (double) run.getDuration();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Double keyOf(@Nonnull BuildIndex index, int position) {
+            return index.isBuildingAt(position) ? null : (double) index.durationAt(position);
+        }
+
+        /**
+         * the descriptor for {@link Duration}
+         */
+        @Symbol("buildDuration")
+        @Extension
+        public static class DescriptorImpl extends Descriptor<Key> {
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public String getDisplayName() {
+                return Messages.BestRunSelector_Duration_DisplayName();
+            }
+        }
+    }
+
+    /**
+     * When builds are scheduled.
+     */
+    public static class Timestamp extends Key {
+        @DataBoundConstructor
+        public Timestamp() {
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Double keyOf(@Nonnull Run<?, ?> run) {
+            return (double) run.getTimeInMillis();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Double keyOf(@Nonnull BuildIndex index, int position) {
+            return (double) index.timestampAt(position);
+        }
+
+        /**
+         * the descriptor for {@link Timestamp}
+         */
+        @Symbol("buildTimestamp")
+        @Extension
+        public static class DescriptorImpl extends Descriptor<Key> {
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public String getDisplayName() {
+                return Messages.BestRunSelector_Timestamp_DisplayName();
+            }
+        }
+    }
+
+    /**
+     * The numeric value of a parameter. Builds without the parameter or with non-numeric values have no keys.
+     * Sensitive parameters (e.g. passwords) are ignored.
+     */
+    public static class Parameter extends Key {
+        @Nonnull
+        private final String name;
+
+        /**
+         * @param name the name of the parameter
+         */
+        @DataBoundConstructor
+        public Parameter(@CheckForNull String name) {
+            this.name = Util.fixNull(name).trim();
+        }
+
+        /**
+         * @return the name of the parameter
+         */
+        @Nonnull
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Double keyOf(@Nonnull Run<?, ?> run) {
+            for (ParametersAction pa : run.getActions(ParametersAction.class)) {
+                ParameterValue pv = pa.getParameter(name);
+                if (pv != null && !pv.isSensitive() && pv.getValue() != null) {
+                    return parse(pv.getValue().toString());
+                }
+            }
+            return null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Double keyOf(@Nonnull BuildIndex index, int position) {
+            // sensitive parameters aren't in the index.
+            String value = index.parameterAt(position, name);
+            return (value != null) ? parse(value) : null;
+        }
+
+        @CheckForNull
+        private static Double parse(@Nonnull String value) {
+            try {
+                return Double.valueOf(value.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getDisplayName() {
+            return String.format("%s (%s)", super.getDisplayName(), getName());
+        }
+
+        /**
+         * the descriptor for {@link Parameter}
+         */
+        @Symbol("numericParameter")
+        @Extension
+        public static class DescriptorImpl extends Descriptor<Key> {
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public String getDisplayName() {
+                return Messages.BestRunSelector_Parameter_DisplayName();
+            }
+
+            /**
+             * @param name the name of the parameter
+             * @return the form validation result.
+             */
+            public FormValidation doCheckName(@QueryParameter String name) {
+                if (StringUtils.isBlank(name)) {
+                    return FormValidation.error(Messages.BestRunSelector_Parameter_NameRequired());
+                }
+                return FormValidation.ok();
+            }
+        }
+    }
+
+    /**
+     * A candidate with its key.
+     */
+    private static final class Ranked {
+        @Nonnull
+        public final Run<?, ?> run;
+        public final double key;
+        /**
+         * The order candidates are found in, to prefer newer builds for the same key.
+         */
+        public final int order;
+
+        Ranked(@Nonnull Run<?, ?> run, double key, int order) {
+            this.run = run;
+            this.key = key;
+            this.order = order;
+        }
+    }
+
+    /**
+     * An extension for {@link RunSelectorContext}
+     * that holds enumeration status.
+     */
+    private static class ContextExtension {
+        @Nonnull
+        public final BestRunSelector owner;
+        /**
+         * ranked builds not selected yet, the best first.
+         */
+        @Nonnull
+        public final Deque<Run<?, ?>> ranked;
+
+        ContextExtension(@Nonnull BestRunSelector owner, @Nonnull Deque<Run<?, ?>> ranked) {
+            this.owner = owner;
+            this.ranked = ranked;
+        }
+    }
+
+    private static final int DEFAULT_CANDIDATES = 10;
+
+    @Nonnull
+    private final RunSelector selector;
+
+    @Nonnull
+    private final Key key;
+
+    @Nonnull
+    private RunFilter filter = new NoRunFilter();
+
+    private int candidates = DEFAULT_CANDIDATES;
+
+    private int top = 1;
+
+    private boolean highest;
+
+    /**
+     * @param selector the selector enumerating candidates
+     * @param key      the key to rank candidates with
+     */
+    @DataBoundConstructor
+    public BestRunSelector(@Nonnull RunSelector selector, @Nonnull Key key) {
+        this.selector = selector;
+        this.key = key;
+    }
+
+    /**
+     * @return the selector enumerating candidates
+     */
+    @Nonnull
+    public RunSelector getSelector() {
+        return selector;
+    }
+
+    /**
+     * @return the key to rank candidates with
+     */
+    @Nonnull
+    public Key getKey() {
+        return key;
+    }
+
+    /**
+     * @return the filter applied to candidates
+     */
+    @Nonnull
+    public RunFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * @param filter the filter applied to candidates
+     */
+    @DataBoundSetter
+    public void setFilter(@CheckForNull RunFilter filter) {
+        this.filter = (filter != null) ? filter : new NoRunFilter();
+    }
+
+    /**
+     * @return the number of candidates to rank
+     */
+    public int getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * @param candidates the number of candidates to rank
+     */
+    @DataBoundSetter
+    public void setCandidates(int candidates) {
+        this.candidates = (candidates > 0) ? candidates : DEFAULT_CANDIDATES;
+    }
+
+    /**
+     * @return the number of the best builds to select
+     */
+    public int getTop() {
+        return top;
+    }
+
+    /**
+     * @param top the number of the best builds to select
+     */
+    @DataBoundSetter
+    public void setTop(int top) {
+        this.top = (top > 0) ? top : 1;
+    }
+
+    /**
+     * @return {@code true} to prefer higher keys, {@code false} to prefer lower keys.
+     */
+    public boolean isHighest() {
+        return highest;
+    }
+
+    /**
+     * @param highest {@code true} to prefer higher keys, {@code false} to prefer lower keys.
+     */
+    @DataBoundSetter
+    public void setHighest(boolean highest) {
+        this.highest = highest;
+    }
+
+    /**
+     * Ranks candidates at the first call, and selects ranked builds one by one.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    @CheckForNull
+    public Run<?, ?> selectNext(@Nonnull Job<?, ?> job, @Nonnull RunSelectorContext context)
+            throws IOException, InterruptedException
+    {
+        SelectionProfiler profiler = SelectionProfiler.enterSelector(job, this, context);
+        long start = System.nanoTime();
+        Run<?, ?> selected = null;
+        try {
+            ContextExtension ext = getContextExtension(context);
+            if (ext != null && context.getLastMatchBuild() == null) {
+                // restarted.
+                context.removeExtension(ext);
+                ext = null;
+            }
+            if (ext == null) {
+                ext = new ContextExtension(this, rank(job, context));
+                context.addExtension(ext);
+            }
+            selected = ext.ranked.pollFirst();
+            context.setLastMatchBuild(selected);
+            if (selected == null) {
+                context.removeExtension(ext);
+            }
+            return selected;
+        } finally {
+            if (profiler != null) {
+                profiler.exitSelector(context, System.nanoTime() - start, selected);
+            }
+        }
+    }
+
+    /**
+     * Enumerates up to {@link #getCandidates()} builds, keeping the best {@link #getTop()} builds in a heap
+     * whose head is the worst kept build.
+     *
+     * @return the best builds, the best first.
+     */
+    @Nonnull
+    private Deque<Run<?, ?>> rank(@Nonnull Job<?, ?> job, @Nonnull RunSelectorContext context)
+            throws IOException, InterruptedException
+    {
+        final Comparator<Ranked> better = new Comparator<Ranked>() {
+            @Override
+            public int compare(Ranked o1, Ranked o2) {
+                int c = highest ? Double.compare(o2.key, o1.key) : Double.compare(o1.key, o2.key);
+                return (c != 0) ? c : Integer.compare(o1.order, o2.order);
+            }
+        };
+        PriorityQueue<Ranked> heap = new PriorityQueue<Ranked>(top + 1, new Comparator<Ranked>() {
+            @Override
+            public int compare(Ranked o1, Ranked o2) {
+                return better.compare(o2, o1);
+            }
+        });
+        BuildIndexes indexes = BuildIndexes.get();
+        BuildIndex index = (indexes != null) ? indexes.getIndex(job) : null;
+        RunSelectorContext childContext = createChildContext(context);
+        int found = 0;
+        while (found < candidates) {
+            SelectionProfiler.share(context, childContext);
+            Run<?, ?> candidate = selector.selectNext(job, childContext);
+            if (candidate == null) {
+                break;
+            }
+            ++found;
+            Double value = keyOf(index, candidate);
+            if (value == null || value.isNaN()) {
+                context.logDebug("{0}: {1} has no {2}", getDisplayName(), candidate.getFullDisplayName(), key.getDisplayName());
+                continue;
+            }
+            heap.add(new Ranked(candidate, value, found));
+            if (heap.size() > top) {
+                heap.poll();
+            }
+        }
+        context.logDebug("{0}: ranked {1} builds", getDisplayName(), found);
+        Deque<Run<?, ?>> ranked = new ArrayDeque<Run<?, ?>>(heap.size());
+        while (!heap.isEmpty()) {
+            // the worst first.
+            ranked.addFirst(heap.poll().run);
+        }
+        return ranked;
+    }
+
+    @CheckForNull
+    private Double keyOf(@CheckForNull BuildIndex index, @Nonnull Run<?, ?> candidate) {
+        if (index != null) {
+            index.readLock().lock();
+            try {
+                int position = index.positionOf(candidate.getNumber());
+                Double value = (position >= 0) ? key.keyOf(index, position) : null;
+                if (value != null) {
+                    return value;
+                }
+            } finally {
+                index.readLock().unlock();
+            }
+        }
+        return key.keyOf(candidate);
+    }
+
+    @Nonnull
+    private RunSelectorContext createChildContext(@Nonnull RunSelectorContext context) {
+        RunSelectorContext childContext = context.clone();
+        // the state of this selector is not passed to the child.
+        ContextExtension ext = getContextExtension(childContext);
+        if (ext != null) {
+            childContext.removeExtension(ext);
+        }
+        if (filter instanceof NoRunFilter) {
+            // nothing to do.
+        } else if (context.getRunFilter() instanceof NoRunFilter) {
+            childContext.setRunFilter(filter);
+        } else {
+            childContext.setRunFilter(new AndRunFilter(Arrays.asList(
+                    childContext.getRunFilter()
+                    , filter
+            )));
+        }
+        childContext.setLastMatchBuild(null);
+        return childContext;
+    }
+
+    @CheckForNull
+    private ContextExtension getContextExtension(@Nonnull RunSelectorContext context) {
+        for (Object e : context.getExtensionList()) {
+            if (e instanceof ContextExtension && ((ContextExtension) e).owner == this) {
+                return (ContextExtension) e;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDisplayName() {
+        return String.format("%s (%s)", super.getDisplayName(), key.getDisplayName());
+    }
+
+    /**
+     * the descriptor for {@link BestRunSelector}
+     */
+    @Symbol("best")
+    @Extension(ordinal = -105)
+    public static class DescriptorImpl extends RunSelectorDescriptor {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getDisplayName() {
+            return Messages.BestRunSelector_DisplayName();
+        }
+
+        /**
+         * @return descriptors of all {@link RunSelector} except {@link BestRunSelector}
+         */
+        public Iterable<? extends Descriptor<? extends RunSelector>> getRunSelectorDescriptorList() {
+            // remove BestRunSelector itself.
+            return Iterables.filter(
+                    Jenkins.getInstance().getDescriptorList(RunSelector.class),
+                    new Predicate<Descriptor<? extends RunSelector>>() {
+                        @Override
+                        public boolean apply(Descriptor<? extends RunSelector> d) {
+                            return !BestRunSelector.class.isAssignableFrom(d.clazz);
+                        }
+                    }
+            );
+        }
+
+        /**
+         * @return descriptors of keys
+         */
+        public List<Descriptor<Key>> getKeyDescriptorList() {
+            return Jenkins.getInstance().getDescriptorList(Key.class);
+        }
+
+        /**
+         * @return descriptors for all {@link RunFilter}s.
+         */
+        public List<RunFilterDescriptor> getFilterDescriptorList() {
+            return RunFilter.allWithNoRunFilter();
+        }
+
+        /**
+         * @param candidates the number of candidates
+         * @return the form validation result.
+         */
+        public FormValidation doCheckCandidates(@QueryParameter String candidates) {
+            return FormValidation.validatePositiveInteger(candidates);
+        }
+
+        /**
+         * @param top the number of builds to select
+         * @return the form validation result.
+         */
+        public FormValidation doCheckTop(@QueryParameter String top) {
+            return FormValidation.validatePositiveInteger(top);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.jenkinsci.plugins.runselector.selectors;
+
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.util.FormValidation;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.runselector.BuildNumberRange;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.RunSelectorDescriptor;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.index.IndexCondition;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+
+/**
+ * Selects builds in a range of build numbers, the newest first.
+ * Stops as soon as builds get out of the range.
+ *
+ * @see BuildNumberRange
+ */
+public class BuildNumberRangeRunSelector extends RunSelector {
+    @Nonnull
+    private final String range;
+
+    /**
+     * @param range the range of build numbers
+     */
+    @DataBoundConstructor
+    public BuildNumberRangeRunSelector(@CheckForNull String range) {
+        this.range = Util.fixNull(range).trim();
+    }
+
+    /**
+     * @return the range of build numbers. May include variable expression.
+     */
+    @Nonnull
+    public String getRange() {
+        return range;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @CheckForNull
+    public Run<?, ?> getNextBuild(@Nonnull Job<?, ?> job, @Nonnull RunSelectorContext context) throws IOException {
+        String resolvedRange = context.getEnvVars().expand(range);
+        if (resolvedRange.contains("$")) {
+            context.logDebug("Unresolved variable {0}", resolvedRange);
+            return null;
+        }
+        Run<?, ?> lastBuild = job.getLastBuild();
+        if (lastBuild == null) {
+            return null;
+        }
+        BuildNumberRange numbers;
+        try {
+            numbers = BuildNumberRange.parse(resolvedRange, lastBuild.getNumber());
+        } catch (IllegalArgumentException e) {
+            throw new AbortException(e.getMessage());
+        }
+        Run<?, ?> previousBuild = context.getLastMatchBuild();
+        Run<?, ?> candidate = (previousBuild == null)
+                ? job.getNearestOldBuild(Math.min(numbers.getTo(), lastBuild.getNumber()))
+                : previousBuild.getPreviousBuild();
+        if (candidate == null || candidate.getNumber() < numbers.getFrom()) {
+            // passed the lower bound.
+            return null;
+        }
+        return candidate;
+    }
+
+    /**
+     * Builds in the range, if the range doesn't depend on the last build.
+     */
+    @Override
+    public IndexCondition getIndexCondition(@Nonnull RunSelectorContext context) {
+        String resolvedRange = context.getEnvVars().expand(range);
+        if (resolvedRange.contains("last") || resolvedRange.contains("$")) {
+            return null;
+        }
+        try {
+            return BuildNumberRange.parse(resolvedRange, 0).toIndexCondition();
+        } catch (IllegalArgumentException e) {
+            // reported when enumerated.
+            return null;
+        }
+    }
+
+    /**
+     * @return {@code true} if the range depends neither on the last build nor on variables.
+     */
+    @Override
+    public boolean isIncremental() {
+        return !BuildNumberRange.isRelative(range);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isDescending() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDisplayName() {
+        return String.format("%s (%s)", super.getDisplayName(), getRange());
+    }
+
+    @Symbol("buildNumberRange")
+    @Extension
+    public static class DescriptorImpl extends RunSelectorDescriptor {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getDisplayName() {
+            return Messages.BuildNumberRangeRunSelector_DisplayName();
+        }
+
+        /**
+         * @param range the range of build numbers
+         * @return the form validation result.
+         */
+        public FormValidation doCheckRange(@QueryParameter String range) {
+            if (StringUtils.isBlank(range)) {
+                return FormValidation.error(Messages.BuildNumberRangeRunSelector_RangeRequired());
+            }
+            if (range.contains("$")) {
+                return FormValidation.ok();
+            }
+            try {
+                BuildNumberRange.parse(range, 0);
+            } catch (IllegalArgumentException e) {
+                return FormValidation.error(e.getMessage());
+            }
+            return FormValidation.ok();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package org.jenkinsci.plugins.runselector.selectors;
+
+import hudson.model.Job;
+import hudson.model.Run;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.metrics.SelectionProfiler;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Base for selectors combining builds enumerated by child selectors.
+ * <p>
+ * Each child is enumerated lazily with {@link RunSelector#selectNext(Job, RunSelectorContext)}
+ * in its own context, and is advanced only when its current build is consumed or needs to catch up.
+ * Children are expected to enumerate builds from the newest to the oldest,
+ * as most selectors do.
+ */
+public abstract class CombiningRunSelector extends RunSelector {
+    /**
+     * The enumeration of a child selector.
+     */
+    protected static final class Cursor {
+        @Nonnull
+        private final RunSelector selector;
+        @Nonnull
+        private final RunSelectorContext context;
+        @CheckForNull
+        private Run<?, ?> head;
+        private boolean started;
+        private boolean consumed;
+
+        private Cursor(@Nonnull RunSelector selector, @Nonnull RunSelectorContext context) {
+            this.selector = selector;
+            this.context = context;
+        }
+
+        /**
+         * @return the current build of the child. {@code null} if the child has no more builds.
+         */
+        @CheckForNull
+        public Run<?, ?> getHead() {
+            return head;
+        }
+
+        /**
+         * @return the build number of the current build. {@code -1} if the child has no more builds.
+         */
+        public int getHeadNumber() {
+            return (head != null) ? head.getNumber() : -1;
+        }
+
+        /**
+         * Marks the current build consumed.
+         * The child is advanced when the next build is requested.
+         */
+        public void consume() {
+            consumed = true;
+        }
+
+        /**
+         * Advances the child to its next build.
+         *
+         * @param job    the job to pick a build from
+         * @param parent context of the combining selector
+         * @return the new current build
+         * @throws IOException if an error occurs while performing the operation.
+         * @throws InterruptedException if any thread interrupts the current thread.
+         */
+        @CheckForNull
+        public Run<?, ?> advance(@Nonnull Job<?, ?> job, @Nonnull RunSelectorContext parent)
+                throws IOException, InterruptedException
+        {
+            SelectionProfiler.share(parent, context);
+            if (!started) {
+                context.setLastMatchBuild(null);
+                started = true;
+            }
+            consumed = false;
+            head = selector.selectNext(job, context);
+            return head;
+        }
+
+        /**
+         * Advances the child if it is not started or the current build is consumed.
+         */
+        private void prepare(@Nonnull Job<?, ?> job, @Nonnull RunSelectorContext parent)
+                throws IOException, InterruptedException
+        {
+            if (!started || consumed) {
+                advance(job, parent);
+            }
+        }
+    }
+
+    /**
+     * An extension for {@link RunSelectorContext}
+     * that holds enumeration status.
+     */
+    private static class ContextExtension {
+        @Nonnull
+        public final CombiningRunSelector owner;
+        @Nonnull
+        public final List<Cursor> cursors;
+
+        ContextExtension(@Nonnull CombiningRunSelector owner, @Nonnull List<Cursor> cursors) {
+            this.owner = owner;
+            this.cursors = cursors;
+        }
+    }
+
+    @Nonnull
+    private final List<RunSelector> selectors;
+
+    /**
+     * @param selectors child selectors
+     */
+    protected CombiningRunSelector(@CheckForNull List<RunSelector> selectors) {
+        this.selectors = (selectors != null) ? selectors : Collections.<RunSelector>emptyList();
+    }
+
+    /**
+     * @return child selectors
+     */
+    @Nonnull
+    public List<RunSelector> getSelectors() {
+        return selectors;
+    }
+
+    /**
+     * Combines builds of children.
+     *
+     * @param job     the job to pick a build from
+     * @param context context for the current execution of runselector
+     * @param cursors enumerations of children, in the order of {@link #getSelectors()}.
+     *      Children are already advanced if not started or consumed.
+     * @return the next build. {@code null} if no more builds.
+     * @throws IOException if an error occurs while performing the operation.
+     * @throws InterruptedException if any thread interrupts the current thread.
+     */
+    @CheckForNull
+    protected abstract Run<?, ?> combine(
+            @Nonnull Job<?, ?> job,
+            @Nonnull RunSelectorContext context,
+            @Nonnull List<Cursor> cursors
+    ) throws IOException, InterruptedException;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @CheckForNull
+    public Run<?, ?> selectNext(@Nonnull Job<?, ?> job, @Nonnull RunSelectorContext context)
+            throws IOException, InterruptedException
+    {
+        SelectionProfiler profiler = SelectionProfiler.enterSelector(job, this, context);
+        long start = System.nanoTime();
+        Run<?, ?> selected = null;
+        try {
+            ContextExtension ext = getContextExtension(context);
+            if (ext != null && context.getLastMatchBuild() == null) {
+                // restarted.
+                context.removeExtension(ext);
+                ext = null;
+            }
+            if (ext == null) {
+                List<Cursor> cursors = new ArrayList<Cursor>(getSelectors().size());
+                for (RunSelector selector : getSelectors()) {
+                    RunSelectorContext childContext = context.clone();
+                    childContext.setLastMatchBuild(null);
+                    cursors.add(new Cursor(selector, childContext));
+                }
+                ext = new ContextExtension(this, cursors);
+                context.addExtension(ext);
+            }
+            for (Cursor cursor : ext.cursors) {
+                cursor.prepare(job, context);
+            }
+            selected = combine(job, context, ext.cursors);
+            context.setLastMatchBuild(selected);
+            if (selected == null) {
+                context.removeExtension(ext);
+            }
+            return selected;
+        } finally {
+            if (profiler != null) {
+                profiler.exitSelector(context, System.nanoTime() - start, selected);
+            }
+        }
+    }
+
+    @CheckForNull
+    private ContextExtension getContextExtension(@Nonnull RunSelectorContext context) {
+        for (Object e : context.getExtensionList()) {
+            if (e instanceof ContextExtension && ((ContextExtension) e).owner == this) {
+                return (ContextExtension) e;
+            }
+        }
+        return null;
+    }
+}
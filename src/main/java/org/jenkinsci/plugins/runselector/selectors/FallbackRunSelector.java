@@ -42,6 +42,7 @@ import org.jenkinsci.plugins.runselector.RunSelectorDescriptor;
 import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
 import org.jenkinsci.plugins.runselector.filters.AndRunFilter;
 import org.jenkinsci.plugins.runselector.filters.NoRunFilter;
+import org.jenkinsci.plugins.runselector.metrics.SelectionProfiler;
 import org.kohsuke.stapler.DataBoundConstructor;
 
 import javax.annotation.CheckForNull;
@@ -171,37 +172,107 @@ public class FallbackRunSelector extends RunSelector {
     }
 
     /**
+     * An extension for {@link RunSelectorContext}
+     * that holds enumeration status.
+     */
+    private static class ContextExtension {
+        /**
+         * index of the entry currently tried.
+         */
+        public int index;
+        /**
+         * context for the entry currently tried.
+         */
+        @CheckForNull
+        public RunSelectorContext childContext;
+        /**
+         * whether the current entry has selected a build.
+         */
+        public boolean matched;
+    }
+
+    /**
+     * Selects builds from the first entry that selects any build.
+     * Once an entry selects a build, following builds are selected only from that entry.
+     *
      * {@inheritDoc}
      */
     @Override
     @CheckForNull
-    public Run<?, ?> select(@Nonnull Job<?, ?> job, @Nonnull RunSelectorContext context)
+    public Run<?, ?> selectNext(@Nonnull Job<?, ?> job, @Nonnull RunSelectorContext context)
             throws IOException, InterruptedException
     {
-        for (Entry entry : getEntryList()) {
-            RunSelectorContext childContext = context.clone();
-            if (entry.getRunFilter() instanceof NoRunFilter) {
-                // nothing to do.
-            } else if (context.getRunFilter() instanceof NoRunFilter) {
-                childContext.setRunFilter(entry.getRunFilter());
-            } else {
-                // RunFilters are provided both in context and this selectors.
-                // Merge them.
-                childContext.setRunFilter(new AndRunFilter(Arrays.asList(
-                        childContext.getRunFilter()
-                        , entry.getRunFilter()
-                )));
+        SelectionProfiler profiler = SelectionProfiler.enterSelector(job, this, context);
+        long start = System.nanoTime();
+        Run<?, ?> selected = null;
+        try {
+            ContextExtension ext = context.getExtension(ContextExtension.class);
+            if (ext != null && context.getLastMatchBuild() == null) {
+                // restarted.
+                context.removeExtension(ext);
+                ext = null;
             }
-            // Ensure this is the first match.
-            childContext.setLastMatchBuild(null);
-            
-            context.logDebug("Try {0}", entry.getRunSelector().getDisplayName());
-            Run<?, ?> candidate = entry.getRunSelector().select(job, childContext);
-            if (candidate != null) {
-                return candidate;
+            if (ext == null) {
+                ext = new ContextExtension();
+                context.addExtension(ext);
             }
+            while (ext.index < getEntryList().size()) {
+                Entry entry = getEntryList().get(ext.index);
+                if (ext.childContext == null) {
+                    ext.childContext = createChildContext(entry, context, ext);
+                    context.logDebug("Try {0}", entry.getRunSelector().getDisplayName());
+                } else {
+                    SelectionProfiler.share(context, ext.childContext);
+                }
+                Run<?, ?> candidate = entry.getRunSelector().selectNext(job, ext.childContext);
+                if (candidate != null) {
+                    ext.matched = true;
+                    selected = candidate;
+                    break;
+                }
+                if (ext.matched) {
+                    // no more builds from the entry.
+                    break;
+                }
+                ext.index++;
+                ext.childContext = null;
+            }
+            context.setLastMatchBuild(selected);
+            if (selected == null) {
+                context.removeExtension(ext);
+            }
+            return selected;
+        } finally {
+            if (profiler != null) {
+                profiler.exitSelector(context, System.nanoTime() - start, selected);
+            }
+        }
+    }
+
+    @Nonnull
+    private static RunSelectorContext createChildContext(
+            @Nonnull Entry entry,
+            @Nonnull RunSelectorContext context,
+            @Nonnull ContextExtension ext
+    ) {
+        RunSelectorContext childContext = context.clone();
+        // the state of this selector is not passed to children.
+        childContext.removeExtension(ext);
+        if (entry.getRunFilter() instanceof NoRunFilter) {
+            // nothing to do.
+        } else if (context.getRunFilter() instanceof NoRunFilter) {
+            childContext.setRunFilter(entry.getRunFilter());
+        } else {
+            // RunFilters are provided both in context and this selectors.
+            // Merge them.
+            childContext.setRunFilter(new AndRunFilter(Arrays.asList(
+                    childContext.getRunFilter()
+                    , entry.getRunFilter()
+            )));
         }
-        return null;
+        // Ensure this is the first match.
+        childContext.setLastMatchBuild(null);
+        return childContext;
     }
 
     @Symbol("fallback")
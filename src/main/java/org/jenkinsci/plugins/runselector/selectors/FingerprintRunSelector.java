@@ -0,0 +1,200 @@
+package org.jenkinsci.plugins.runselector.selectors;
+
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.AbstractBuild;
+import hudson.model.Fingerprint;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.tasks.Fingerprinter;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.runselector.RunSelectorDescriptor;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.metrics.SelectionProfiler;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Selects the build which produced a file, with the fingerprint of the file.
+ * <p>
+ * The build is looked up in the fingerprint records of Jenkins,
+ * and only the build the file is originally recorded with is selected, not builds which used the file.
+ * Builds are scanned for {@link Fingerprinter.FingerprintAction} only if the file has no records,
+ * up to {@code org.jenkinsci.plugins.runselector.selectors.FingerprintRunSelector.scanLimit} builds.
+ * Results are cached for recently looked up files.
+ */
+public class FingerprintRunSelector extends AbstractSpecificRunSelector {
+    private static final Pattern MD5 = Pattern.compile("[0-9a-fA-F]{32}");
+    private static final int CACHE_SIZE = Integer.getInteger(FingerprintRunSelector.class.getName() + ".cacheSize", 256);
+    private static final int SCAN_LIMIT = Integer.getInteger(FingerprintRunSelector.class.getName() + ".scanLimit", 100);
+
+    /**
+     * The full name of a job and the MD5 of a file, to the number of the build of the job produced the file.
+     */
+    private static final Map<String, Integer> CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<String, Integer>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            }
+    );
+
+    @Nonnull
+    private final String artifact;
+
+    /**
+     * @param artifact the MD5 of the file, or the path of the file in the workspace of the current build
+     */
+    @DataBoundConstructor
+    public FingerprintRunSelector(@CheckForNull String artifact) {
+        this.artifact = Util.fixNull(artifact).trim();
+    }
+
+    /**
+     * @return the MD5 of the file, or the path of the file in the workspace. May include variable expression.
+     */
+    @Nonnull
+    public String getArtifact() {
+        return artifact;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @CheckForNull
+    public Run<?, ?> getBuild(@Nonnull Job<?, ?> job, @Nonnull RunSelectorContext context)
+            throws IOException, InterruptedException {
+        String resolvedArtifact = context.getEnvVars().expand(artifact);
+        if (resolvedArtifact.startsWith("$")) {
+            context.logDebug("Unresolved variable {0}", resolvedArtifact);
+            return null;
+        }
+        String md5 = digestOf(resolvedArtifact, context);
+        if (md5 == null) {
+            return null;
+        }
+
+        String key = job.getFullName() + "\n" + md5;
+        Integer cached = CACHE.get(key);
+        if (cached != null) {
+            Run<?, ?> run = job.getBuildByNumber(cached);
+            if (run != null) {
+                SelectionProfiler.recordCacheHit(context);
+                return run;
+            }
+            // deleted.
+            CACHE.remove(key);
+        }
+
+        Run<?, ?> run;
+        Fingerprint fingerprint = context.getJenkins().getFingerprintMap().get(md5);
+        if (fingerprint != null) {
+            run = findProducer(job, fingerprint);
+        } else {
+            context.logDebug("{0}: No fingerprint records for {1}. Scanning builds of {2}.", getDisplayName(), md5, job.getFullName());
+            run = scan(job, md5, context);
+        }
+        if (run == null) {
+            context.logDebug("{0}: No build of {1} produced {2}", getDisplayName(), job.getFullName(), resolvedArtifact);
+            return null;
+        }
+        CACHE.put(key, run.getNumber());
+        return run;
+    }
+
+    /**
+     * @return the MD5 in lower case, {@code null} if not available.
+     */
+    @CheckForNull
+    private String digestOf(@Nonnull String resolvedArtifact, @Nonnull RunSelectorContext context)
+            throws IOException, InterruptedException {
+        if (MD5.matcher(resolvedArtifact).matches()) {
+            return resolvedArtifact.toLowerCase(Locale.ENGLISH);
+        }
+        Run<?, ?> build = context.getBuild();
+        FilePath workspace = (build instanceof AbstractBuild) ? ((AbstractBuild<?, ?>) build).getWorkspace() : null;
+        if (workspace == null) {
+            context.logInfo("{0}: {1} is not an MD5 and no workspace is available.", getDisplayName(), resolvedArtifact);
+            return null;
+        }
+        FilePath file = workspace.child(resolvedArtifact);
+        if (!file.exists()) {
+            context.logInfo("{0}: {1} doesn't exist.", getDisplayName(), file.getRemote());
+            return null;
+        }
+        return file.digest();
+    }
+
+    /**
+     * @return the build the fingerprint is originally recorded with,
+     *         {@code null} if the file is produced by an other job or its producer is unknown.
+     */
+    @CheckForNull
+    private static Run<?, ?> findProducer(@Nonnull Job<?, ?> job, @Nonnull Fingerprint fingerprint) {
+        Fingerprint.BuildPtr original = fingerprint.getOriginal();
+        if (original == null || !original.is(job)) {
+            return null;
+        }
+        return job.getBuildByNumber(original.getNumber());
+    }
+
+    /**
+     * Examines up to {@link #SCAN_LIMIT} completed builds.
+     *
+     * @return the oldest build recorded the fingerprint.
+     */
+    @CheckForNull
+    private Run<?, ?> scan(@Nonnull Job<?, ?> job, @Nonnull String md5, @Nonnull RunSelectorContext context) {
+        Run<?, ?> found = null;
+        int scanned = 0;
+        for (Run<?, ?> run = job.getLastCompletedBuild(); run != null; run = run.getPreviousCompletedBuild()) {
+            if (++scanned > SCAN_LIMIT) {
+                context.logInfo(
+                        "{0}: Scanned {1} builds of {2} for {3}, and stopped at {4}.",
+                        getDisplayName(),
+                        SCAN_LIMIT,
+                        job.getFullName(),
+                        md5,
+                        run.getDisplayName()
+                );
+                break;
+            }
+            Fingerprinter.FingerprintAction action = run.getAction(Fingerprinter.FingerprintAction.class);
+            if (action != null && action.getRecords().containsValue(md5)) {
+                found = run;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDisplayName() {
+        return String.format("%s (%s)", super.getDisplayName(), getArtifact());
+    }
+
+    @Symbol("producedBy")
+    @Extension
+    public static class DescriptorImpl extends RunSelectorDescriptor {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getDisplayName() {
+            return Messages.FingerprintRunSelector_DisplayName();
+        }
+    }
+}
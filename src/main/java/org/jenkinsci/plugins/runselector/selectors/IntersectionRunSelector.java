@@ -0,0 +1,89 @@
+package org.jenkinsci.plugins.runselector.selectors;
+
+import hudson.Extension;
+import hudson.model.Job;
+import hudson.model.Run;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.RunSelectorDescriptor;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Selects builds all child selectors select, the newest first.
+ */
+public class IntersectionRunSelector extends CombiningRunSelector {
+    /**
+     * @param selectors child selectors
+     */
+    @DataBoundConstructor
+    public IntersectionRunSelector(List<RunSelector> selectors) {
+        super(selectors);
+    }
+
+    /**
+     * Convenient constructor.
+     *
+     * @param selectors child selectors
+     */
+    public IntersectionRunSelector(@Nonnull RunSelector... selectors) {
+        this(Arrays.asList(selectors));
+    }
+
+    /**
+     * Advances children ahead of the oldest current build until all children agree.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    @CheckForNull
+    protected Run<?, ?> combine(
+            @Nonnull Job<?, ?> job,
+            @Nonnull RunSelectorContext context,
+            @Nonnull List<Cursor> cursors
+    ) throws IOException, InterruptedException {
+        if (cursors.isEmpty()) {
+            return null;
+        }
+        while (true) {
+            int oldest = Integer.MAX_VALUE;
+            for (Cursor cursor : cursors) {
+                if (cursor.getHead() == null) {
+                    // no more builds common to all children.
+                    return null;
+                }
+                oldest = Math.min(oldest, cursor.getHeadNumber());
+            }
+            boolean aligned = true;
+            for (Cursor cursor : cursors) {
+                if (cursor.getHeadNumber() > oldest) {
+                    aligned = false;
+                    if (cursor.advance(job, context) == null) {
+                        return null;
+                    }
+                }
+            }
+            if (aligned) {
+                for (Cursor cursor : cursors) {
+                    cursor.consume();
+                }
+                return cursors.get(0).getHead();
+            }
+        }
+    }
+
+    @Symbol("intersection")
+    @Extension(ordinal = -110)
+    public static class DescriptorImpl extends RunSelectorDescriptor {
+        @Override
+        public String getDisplayName() {
+            return Messages.IntersectionRunSelector_DisplayName();
+        }
+    }
+}
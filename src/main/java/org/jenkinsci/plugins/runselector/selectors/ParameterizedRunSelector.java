@@ -31,6 +31,7 @@ import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.runselector.RunSelector;
 import org.jenkinsci.plugins.runselector.RunSelectorDescriptor;
 import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.metrics.SelectionProfiler;
 import org.kohsuke.stapler.DataBoundConstructor;
 
 import javax.annotation.CheckForNull;
@@ -70,15 +71,52 @@ public class ParameterizedRunSelector extends RunSelector {
 
     @Override
     @CheckForNull
-    public Run<?, ?> select(@Nonnull Job<?, ?> job, @Nonnull RunSelectorContext context)
+    public Run<?, ?> selectNext(@Nonnull Job<?, ?> job, @Nonnull RunSelectorContext context)
             throws IOException, InterruptedException
     {
-        RunSelector selector = getSelector(context);
-        if (selector == null) {
-            context.logInfo("No selectors was resolved.");
-            return null;
+        SelectionProfiler profiler = SelectionProfiler.enterSelector(job, this, context);
+        long start = System.nanoTime();
+        Run<?, ?> selected = null;
+        try {
+            ContextExtension ext = context.getExtension(ContextExtension.class);
+            if (ext != null && context.getLastMatchBuild() == null) {
+                // restarted.
+                context.removeExtension(ext);
+                ext = null;
+            }
+            if (ext == null) {
+                // resolve the selector only once in an enumeration.
+                RunSelector selector = getSelector(context);
+                if (selector == null) {
+                    context.logInfo("No selectors was resolved.");
+                    return null;
+                }
+                ext = new ContextExtension(selector);
+                context.addExtension(ext);
+            }
+            selected = ext.selector.selectNext(job, context);
+            if (selected == null) {
+                context.removeExtension(ext);
+            }
+            return selected;
+        } finally {
+            if (profiler != null) {
+                profiler.exitSelector(context, System.nanoTime() - start, selected);
+            }
+        }
+    }
+
+    /**
+     * An extension for {@link RunSelectorContext}
+     * that holds the resolved selector.
+     */
+    private static class ContextExtension {
+        @Nonnull
+        public final RunSelector selector;
+
+        ContextExtension(@Nonnull RunSelector selector) {
+            this.selector = selector;
         }
-        return selector.select(job, context);
     }
 
     /**
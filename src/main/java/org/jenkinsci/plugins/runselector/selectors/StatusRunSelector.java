@@ -24,6 +24,7 @@
 package org.jenkinsci.plugins.runselector.selectors;
 
 import hudson.Extension;
+import hudson.Util;
 import hudson.model.Job;
 import hudson.model.Result;
 import hudson.model.Run;
@@ -31,6 +32,9 @@ import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.runselector.RunSelector;
 import org.jenkinsci.plugins.runselector.RunSelectorDescriptor;
 import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.index.BlockSummary;
+import org.jenkinsci.plugins.runselector.index.BuildIndex;
+import org.jenkinsci.plugins.runselector.index.IndexCondition;
 import org.jvnet.localizer.Localizable;
 import org.kohsuke.stapler.DataBoundConstructor;
 
@@ -175,6 +179,73 @@ public class StatusRunSelector extends RunSelector {
         return null;
     }
 
+    /**
+     * Subclasses may enumerate builds in other orders,
+     * and should override this to opt in.
+     *
+     * @return {@code true} only for {@link StatusRunSelector} itself.
+     */
+    @Override
+    public boolean isIncremental() {
+        return getClass() == StatusRunSelector.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IndexCondition getIndexCondition(@Nonnull RunSelectorContext context) {
+        if (Util.isOverridden(StatusRunSelector.class, getClass(), "getNextBuild", Job.class, RunSelectorContext.class)) {
+            // enumerates builds in a different way.
+            return null;
+        }
+        final BuildStatus status = getBuildStatus();
+        IndexCondition.BlockPredicate blockPredicate = new IndexCondition.BlockPredicate() {
+            @Override
+            public boolean mayMatch(@Nonnull BlockSummary block) {
+                switch (status) {
+                    case STABLE:
+                        return block.containsResult(Result.SUCCESS);
+                    case UNSTABLE:
+                        return block.containsResult(Result.UNSTABLE);
+                    case FAILED:
+                        return block.containsResult(Result.FAILURE);
+                    case SUCCESSFUL:
+                        return block.containsResult(Result.SUCCESS) || block.containsResult(Result.UNSTABLE);
+                    case COMPLETED:
+                        return block.getBuildingCount() < block.getCount();
+                    default:
+                        return true;
+                }
+            }
+        };
+        return IndexCondition.of(new IndexCondition.RecordPredicate() {
+            @Override
+            public boolean test(@Nonnull BuildIndex index, int position) {
+                if (status == BuildStatus.ANY) {
+                    return true;
+                }
+                if (index.isBuildingAt(position)) {
+                    return false;
+                }
+                Result r = index.resultAt(position);
+                switch (status) {
+                    case STABLE:
+                        return Result.SUCCESS.equals(r);
+                    case UNSTABLE:
+                        return Result.UNSTABLE.equals(r);
+                    case FAILED:
+                        return Result.FAILURE.equals(r);
+                    case SUCCESSFUL:
+                        return r != null && r.isBetterOrEqualTo(Result.UNSTABLE);
+                    default:
+                        // COMPLETED
+                        return true;
+                }
+            }
+        }, blockPredicate);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -183,6 +183,11 @@ public class TriggeringRunSelector extends RunSelector {
     @CheckForNull
     public Run<?, ?> getNextBuild(@Nonnull Job<?, ?> job, @Nonnull RunSelectorContext context) {
         ContextExtension ext = context.getExtension(ContextExtension.class);
+        if (ext != null && context.getLastMatchBuild() == null) {
+            // restarted.
+            context.removeExtension(ext);
+            ext = null;
+        }
         if (ext == null) {
             // first time to be called.
             ext = new ContextExtension();
@@ -0,0 +1,77 @@
+package org.jenkinsci.plugins.runselector.selectors;
+
+import hudson.Extension;
+import hudson.model.Job;
+import hudson.model.Run;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.RunSelectorDescriptor;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Selects builds any of child selectors selects, the newest first.
+ * Builds selected by multiple children are selected only once.
+ */
+public class UnionRunSelector extends CombiningRunSelector {
+    /**
+     * @param selectors child selectors
+     */
+    @DataBoundConstructor
+    public UnionRunSelector(List<RunSelector> selectors) {
+        super(selectors);
+    }
+
+    /**
+     * Convenient constructor.
+     *
+     * @param selectors child selectors
+     */
+    public UnionRunSelector(@Nonnull RunSelector... selectors) {
+        this(Arrays.asList(selectors));
+    }
+
+    /**
+     * Merges children with the largest build number first.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    @CheckForNull
+    protected Run<?, ?> combine(
+            @Nonnull Job<?, ?> job,
+            @Nonnull RunSelectorContext context,
+            @Nonnull List<Cursor> cursors
+    ) {
+        Cursor newest = null;
+        for (Cursor cursor : cursors) {
+            if (cursor.getHead() != null && (newest == null || cursor.getHeadNumber() > newest.getHeadNumber())) {
+                newest = cursor;
+            }
+        }
+        if (newest == null) {
+            return null;
+        }
+        Run<?, ?> selected = newest.getHead();
+        for (Cursor cursor : cursors) {
+            if (cursor.getHeadNumber() == newest.getHeadNumber()) {
+                cursor.consume();
+            }
+        }
+        return selected;
+    }
+
+    @Symbol("union")
+    @Extension(ordinal = -110)
+    public static class DescriptorImpl extends RunSelectorDescriptor {
+        @Override
+        public String getDisplayName() {
+            return Messages.UnionRunSelector_DisplayName();
+        }
+    }
+}
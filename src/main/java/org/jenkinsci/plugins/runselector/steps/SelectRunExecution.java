@@ -16,6 +16,9 @@ import org.jenkinsci.plugins.workflow.steps.AbstractSynchronousStepExecution;
 import org.jenkinsci.plugins.workflow.steps.StepContextParameter;
 import org.jenkinsci.plugins.workflow.support.steps.build.RunWrapper;
 
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
 /**
  * The execution of {@link SelectRunStep}.
  *
@@ -39,41 +42,61 @@ public class SelectRunExecution extends AbstractSynchronousStepExecution<RunWrap
 
     @Override
     public RunWrapper run() throws Exception {
+        Jenkins jenkins = getJenkins();
+        Job<?, ?> upstreamJob = getUpstreamJob(jenkins, step.getJob(), run);
+        RunSelector selector = getSelector(step.getSelector(), listener);
+        RunFilter filter = getFilter(step.getFilter(), listener);
 
-        String jobName = step.getJob();
-        if (jobName == null) {
-            throw new AbortException(Messages.SelectRunStep_MissingJobParameter());
+        RunSelectorContext context = new RunSelectorContext(jenkins, run, listener, filter);
+        context.setVerbose(step.isVerbose());
+
+        Run<?, ?> upstreamRun = selector.select(upstreamJob, context);
+        if (upstreamRun == null) {
+            throw new AbortException(Messages.SelectRunStep_MissingRun(step.getJob(), selector.getDisplayName(), filter.getDisplayName()));
         }
 
+        return new RunWrapper(upstreamRun, false);
+    }
+
+    @Nonnull
+    static Jenkins getJenkins() {
         Jenkins jenkins = Jenkins.getInstance();
         if (jenkins == null) {
             throw new IllegalStateException("Jenkins has not been started, or was already shut down");
         }
+        return jenkins;
+    }
+
+    @Nonnull
+    static Job<?, ?> getUpstreamJob(@Nonnull Jenkins jenkins, @CheckForNull String jobName, @Nonnull Run<?, ?> run)
+            throws AbortException
+    {
+        if (jobName == null) {
+            throw new AbortException(Messages.SelectRunStep_MissingJobParameter());
+        }
+
         Job<?, ?> upstreamJob = jenkins.getItem(jobName, run.getParent(), Job.class);
         if (upstreamJob == null) {
             throw new AbortException(Messages.SelectRunStep_MissingJob(jobName));
         }
+        return upstreamJob;
+    }
 
-        RunSelector selector = step.getSelector();
+    @Nonnull
+    static RunSelector getSelector(@CheckForNull RunSelector selector, @Nonnull TaskListener listener) {
         if (selector == null) {
             listener.getLogger().println(Messages.SelectRunStep_MissingRunSelector(DEFAULT_RUN_SELECTOR.getDisplayName()));
             selector = DEFAULT_RUN_SELECTOR;
         }
+        return selector;
+    }
 
-        RunFilter filter = step.getFilter();
+    @Nonnull
+    static RunFilter getFilter(@CheckForNull RunFilter filter, @Nonnull TaskListener listener) {
         if (filter == null) {
             listener.getLogger().println(Messages.SelectRunStep_MissingRunFilter());
             filter = DEFAULT_RUN_FILTER;
         }
-
-        RunSelectorContext context = new RunSelectorContext(jenkins, run, listener, filter);
-        context.setVerbose(step.isVerbose());
-
-        Run<?, ?> upstreamRun = selector.select(upstreamJob, context);
-        if (upstreamRun == null) {
-            throw new AbortException(Messages.SelectRunStep_MissingRun(jobName, selector.getDisplayName(), filter.getDisplayName()));
-        }
-
-        return new RunWrapper(upstreamRun, false);
+        return filter;
     }
 }
@@ -0,0 +1,128 @@
+package org.jenkinsci.plugins.runselector.steps;
+
+import com.google.inject.Inject;
+import hudson.AbortException;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.runselector.Messages;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.parallel.ConsistentRunSelection;
+import org.jenkinsci.plugins.runselector.parallel.ParallelRunSelection;
+import org.jenkinsci.plugins.workflow.steps.AbstractSynchronousNonBlockingStepExecution;
+import org.jenkinsci.plugins.workflow.steps.StepContextParameter;
+import org.jenkinsci.plugins.workflow.support.steps.build.RunWrapper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The execution of {@link SelectRunFromJobsStep}.
+ * Runs outside of the CPS thread and waits for selections running in parallel.
+ */
+public class SelectRunFromJobsExecution extends AbstractSynchronousNonBlockingStepExecution<Map<String, RunWrapper>> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Inject
+    private transient SelectRunFromJobsStep step;
+
+    @StepContextParameter
+    private transient Run<?, ?> run;
+    @StepContextParameter
+    private transient TaskListener listener;
+
+    @Override
+    public Map<String, RunWrapper> run() throws Exception {
+        if (step.getTargets().isEmpty()) {
+            throw new AbortException(Messages.SelectRunFromJobsStep_MissingTargets());
+        }
+        Jenkins jenkins = SelectRunExecution.getJenkins();
+        RunSelector defaultSelector = null;
+        RunFilter defaultFilter = null;
+
+        RunSelectorContext context = new RunSelectorContext(jenkins, run, listener);
+        context.setVerbose(step.isVerbose());
+        ParallelRunSelection selection = new ParallelRunSelection(context);
+        selection.setFailFast(step.isFailFast());
+        ConsistentRunSelection consistent = null;
+        if (step.getConsistentBy() != null) {
+            try {
+                consistent = new ConsistentRunSelection(context, ConsistentRunSelection.JoinKey.fromName(step.getConsistentBy()));
+            } catch (IllegalArgumentException e) {
+                throw new AbortException(e.getMessage());
+            }
+        }
+        for (SelectRunFromJobsStep.Target target : step.getTargets()) {
+            String jobName = target.getJob();
+            if (jobName == null) {
+                throw new AbortException(Messages.SelectRunStep_MissingJobParameter());
+            }
+            Job<?, ?> upstreamJob = SelectRunExecution.getUpstreamJob(jenkins, jobName, run);
+            RunSelector selector = target.getSelector();
+            if (selector == null) {
+                if (defaultSelector == null) {
+                    defaultSelector = SelectRunExecution.getSelector(step.getSelector(), listener);
+                }
+                selector = defaultSelector;
+            }
+            RunFilter filter = target.getFilter();
+            if (filter == null) {
+                if (defaultFilter == null) {
+                    defaultFilter = SelectRunExecution.getFilter(step.getFilter(), listener);
+                }
+                filter = defaultFilter;
+            }
+            try {
+                if (consistent != null) {
+                    consistent.add(jobName, upstreamJob, selector, filter);
+                } else {
+                    selection.add(jobName, upstreamJob, selector, filter);
+                }
+            } catch (IllegalArgumentException e) {
+                throw new AbortException(e.getMessage());
+            }
+        }
+        if (consistent != null) {
+            return selectConsistent(consistent);
+        }
+
+        Map<String, RunWrapper> upstreamRuns = new LinkedHashMap<String, RunWrapper>();
+        for (ParallelRunSelection.Result result : selection.select().values()) {
+            Run<?, ?> upstreamRun = result.getRun();
+            if (upstreamRun == null) {
+                listener.getLogger().println(result.getFailureMessage());
+                upstreamRuns.put(result.getKey(), null);
+                continue;
+            }
+            upstreamRuns.put(result.getKey(), new RunWrapper(upstreamRun, false));
+        }
+        return upstreamRuns;
+    }
+
+    /**
+     * @return runs of all projects, or {@code null} for all projects if no consistent set is found.
+     */
+    private Map<String, RunWrapper> selectConsistent(ConsistentRunSelection consistent) throws Exception {
+        ConsistentRunSelection.Result result = consistent.select();
+        Map<String, RunWrapper> upstreamRuns = new LinkedHashMap<String, RunWrapper>();
+        if (result == null) {
+            String message = Messages.ConsistentRunSelection_NotFound(step.getConsistentBy());
+            if (step.isFailFast()) {
+                throw new AbortException(message);
+            }
+            listener.getLogger().println(message);
+            for (SelectRunFromJobsStep.Target target : step.getTargets()) {
+                upstreamRuns.put(target.getJob(), null);
+            }
+            return upstreamRuns;
+        }
+        for (Map.Entry<String, Run<?, ?>> e : result.getRuns().entrySet()) {
+            upstreamRuns.put(e.getKey(), new RunWrapper(e.getValue(), false));
+        }
+        return upstreamRuns;
+    }
+}
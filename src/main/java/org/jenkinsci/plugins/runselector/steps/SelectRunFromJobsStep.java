@@ -0,0 +1,198 @@
+package org.jenkinsci.plugins.runselector.steps;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import org.jenkinsci.plugins.runselector.Messages;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepDescriptorImpl;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepImpl;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The selectRunFromJobs step selects a run from each of multiple projects concurrently.
+ * Returns a map from the project name to the selected run.
+ */
+public class SelectRunFromJobsStep extends AbstractStepImpl {
+
+    /**
+     * A project to select a run from.
+     */
+    public static class Target extends AbstractDescribableImpl<Target> {
+        @CheckForNull
+        private final String job;
+
+        @CheckForNull
+        private RunSelector selector;
+
+        @CheckForNull
+        private RunFilter filter;
+
+        @DataBoundConstructor
+        public Target(String job) {
+            this.job = Util.fixEmptyAndTrim(job);
+        }
+
+        @CheckForNull
+        public String getJob() {
+            return job;
+        }
+
+        /**
+         * @return the selector for this project. {@code null} to use the one of the step.
+         */
+        @CheckForNull
+        public RunSelector getSelector() {
+            return selector;
+        }
+
+        @DataBoundSetter
+        public void setSelector(RunSelector selector) {
+            this.selector = selector;
+        }
+
+        /**
+         * @return the filter for this project. {@code null} to use the one of the step.
+         */
+        @CheckForNull
+        public RunFilter getFilter() {
+            return filter;
+        }
+
+        @DataBoundSetter
+        public void setFilter(RunFilter filter) {
+            this.filter = filter;
+        }
+
+        @Extension
+        public static class DescriptorImpl extends Descriptor<Target> {
+            @Override
+            public String getDisplayName() {
+                return Messages.SelectRunFromJobsStep_Target_DisplayName();
+            }
+        }
+    }
+
+    @Nonnull
+    private final List<Target> targets;
+
+    private boolean verbose;
+
+    private boolean failFast;
+
+    @CheckForNull
+    private RunSelector selector;
+
+    @CheckForNull
+    private RunFilter filter;
+
+    @CheckForNull
+    private String consistentBy;
+
+    @DataBoundConstructor
+    public SelectRunFromJobsStep(List<Target> targets) {
+        this.targets = (targets != null) ? targets : Collections.<Target>emptyList();
+    }
+
+    @Nonnull
+    public List<Target> getTargets() {
+        return targets;
+    }
+
+    /**
+     * @return the selector for projects without selectors
+     */
+    @CheckForNull
+    public RunSelector getSelector() {
+        return selector;
+    }
+
+    @DataBoundSetter
+    public void setSelector(RunSelector selector) {
+        this.selector = selector;
+    }
+
+    /**
+     * @return the filter for projects without filters
+     */
+    @CheckForNull
+    public RunFilter getFilter() {
+        return filter;
+    }
+
+    @DataBoundSetter
+    public void setFilter(RunFilter filter) {
+        this.filter = filter;
+    }
+
+    public boolean isVerbose() {
+        return verbose;
+    }
+
+    @DataBoundSetter
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    /**
+     * @return the key to select runs of all projects consistent by
+     *      ({@code upstream}, {@code revision} or {@code parameter:NAME}).
+     *      {@code null} to select runs independently.
+     * @see org.jenkinsci.plugins.runselector.parallel.ConsistentRunSelection.JoinKey#fromName(String)
+     */
+    @CheckForNull
+    public String getConsistentBy() {
+        return consistentBy;
+    }
+
+    @DataBoundSetter
+    public void setConsistentBy(String consistentBy) {
+        this.consistentBy = Util.fixEmptyAndTrim(consistentBy);
+    }
+
+    /**
+     * @return whether to fail as soon as a selection for a project fails
+     */
+    public boolean isFailFast() {
+        return failFast;
+    }
+
+    @DataBoundSetter
+    public void setFailFast(boolean failFast) {
+        this.failFast = failFast;
+    }
+
+    @Extension
+    public static class DescriptorImpl extends AbstractStepDescriptorImpl {
+
+        public DescriptorImpl() {
+            super(SelectRunFromJobsExecution.class);
+        }
+
+        @Override
+        public String getDisplayName() {
+            return Messages.SelectRunFromJobsStep_DisplayName();
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "selectRunFromJobs";
+        }
+
+        @Override
+        public String getHelpFile(String fieldName) {
+            if ("selector".equals(fieldName) || "filter".equals(fieldName) || "verbose".equals(fieldName)) {
+                return "/plugin/run-selector/help-" + fieldName + ".html";
+            }
+            return super.getHelpFile(fieldName);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package org.jenkinsci.plugins.runselector.steps;
+
+import com.google.inject.Inject;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.runselector.Messages;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.workflow.steps.AbstractSynchronousStepExecution;
+import org.jenkinsci.plugins.workflow.steps.StepContextParameter;
+import org.jenkinsci.plugins.workflow.support.steps.build.RunWrapper;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * The execution of {@link SelectRunsStep}.
+ */
+public class SelectRunsExecution extends AbstractSynchronousStepExecution<List<RunWrapper>> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Inject
+    private transient SelectRunsStep step;
+
+    @StepContextParameter
+    private transient Run<?, ?> run;
+    @StepContextParameter
+    private transient TaskListener listener;
+
+    @Override
+    public List<RunWrapper> run() throws Exception {
+        Jenkins jenkins = SelectRunExecution.getJenkins();
+        Job<?, ?> upstreamJob = SelectRunExecution.getUpstreamJob(jenkins, step.getJob(), run);
+        RunSelector selector = SelectRunExecution.getSelector(step.getSelector(), listener);
+        RunFilter filter = SelectRunExecution.getFilter(step.getFilter(), listener);
+
+        RunSelectorContext context = new RunSelectorContext(jenkins, run, listener, filter);
+        context.setVerbose(step.isVerbose());
+
+        List<RunWrapper> upstreamRuns = new ArrayList<RunWrapper>();
+        try {
+            Iterator<Run<?, ?>> it = selector.stream(upstreamJob, context).iterator();
+            while ((step.getLimit() <= 0 || upstreamRuns.size() < step.getLimit()) && it.hasNext()) {
+                upstreamRuns.add(new RunWrapper(it.next(), false));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (CancellationException e) {
+            if (e.getCause() instanceof InterruptedException) {
+                throw (InterruptedException) e.getCause();
+            }
+            throw e;
+        }
+
+        if (upstreamRuns.isEmpty()) {
+            listener.getLogger().println(Messages.SelectRunsStep_NoRuns(step.getJob(), selector.getDisplayName(), filter.getDisplayName()));
+        }
+        return upstreamRuns;
+    }
+}
@@ -0,0 +1,67 @@
+package org.jenkinsci.plugins.runselector.steps;
+
+import com.google.inject.Inject;
+import hudson.AbortException;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.runselector.Messages;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.parallel.ItemGroupRunSelection;
+import org.jenkinsci.plugins.workflow.steps.AbstractSynchronousNonBlockingStepExecution;
+import org.jenkinsci.plugins.workflow.steps.StepContextParameter;
+import org.jenkinsci.plugins.workflow.support.steps.build.RunWrapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The execution of {@link SelectRunsFromFolderStep}.
+ * Runs outside of the CPS thread and waits for selections running in parallel.
+ */
+public class SelectRunsFromFolderExecution extends AbstractSynchronousNonBlockingStepExecution<List<RunWrapper>> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Inject
+    private transient SelectRunsFromFolderStep step;
+
+    @StepContextParameter
+    private transient Run<?, ?> run;
+    @StepContextParameter
+    private transient TaskListener listener;
+
+    @Override
+    public List<RunWrapper> run() throws Exception {
+        String folderName = step.getFolder();
+        if (folderName == null) {
+            throw new AbortException(Messages.SelectRunsFromFolderStep_MissingFolderParameter());
+        }
+        Jenkins jenkins = SelectRunExecution.getJenkins();
+        Item folder = jenkins.getItem(folderName, run.getParent(), Item.class);
+        if (!(folder instanceof ItemGroup)) {
+            throw new AbortException(Messages.SelectRunsFromFolderStep_MissingFolder(folderName));
+        }
+        RunSelector selector = SelectRunExecution.getSelector(step.getSelector(), listener);
+        RunFilter filter = SelectRunExecution.getFilter(step.getFilter(), listener);
+
+        RunSelectorContext context = new RunSelectorContext(jenkins, run, listener, filter);
+        context.setVerbose(step.isVerbose());
+        ItemGroupRunSelection selection = new ItemGroupRunSelection(context, (ItemGroup<?>) folder, selector);
+        selection.setOrder(step.getOrder());
+        selection.setLimit(step.getLimit());
+
+        List<RunWrapper> upstreamRuns = new ArrayList<RunWrapper>();
+        for (Run<?, ?> upstreamRun : selection.select()) {
+            upstreamRuns.add(new RunWrapper(upstreamRun, false));
+        }
+        if (upstreamRuns.isEmpty()) {
+            listener.getLogger().println(Messages.SelectRunsStep_NoRuns(folderName, selector.getDisplayName(), filter.getDisplayName()));
+        }
+        return upstreamRuns;
+    }
+}
@@ -0,0 +1,136 @@
+package org.jenkinsci.plugins.runselector.steps;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.util.ListBoxModel;
+import org.jenkinsci.plugins.runselector.Messages;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.parallel.ItemGroupRunSelection;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepDescriptorImpl;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepImpl;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+/**
+ * The selectRunsFromFolder step selects the newest runs across all projects in a folder
+ * (or a multibranch project) based on the given selector and, optionally, the run filter.
+ */
+public class SelectRunsFromFolderStep extends AbstractStepImpl {
+
+    @CheckForNull
+    private final String folder;
+
+    private boolean verbose;
+
+    @CheckForNull
+    private RunSelector selector;
+
+    @CheckForNull
+    private RunFilter filter;
+
+    private int limit = 1;
+
+    @Nonnull
+    private ItemGroupRunSelection.Order order = ItemGroupRunSelection.Order.TIMESTAMP;
+
+    @DataBoundConstructor
+    public SelectRunsFromFolderStep(String folder) {
+        this.folder = Util.fixEmptyAndTrim(folder);
+    }
+
+    @CheckForNull
+    public String getFolder() {
+        return folder;
+    }
+
+    @CheckForNull
+    public RunSelector getSelector() {
+        return selector;
+    }
+
+    @DataBoundSetter
+    public void setSelector(RunSelector selector) {
+        this.selector = selector;
+    }
+
+    @CheckForNull
+    public RunFilter getFilter() {
+        return filter;
+    }
+
+    @DataBoundSetter
+    public void setFilter(RunFilter filter) {
+        this.filter = filter;
+    }
+
+    public boolean isVerbose() {
+        return verbose;
+    }
+
+    @DataBoundSetter
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    /**
+     * @return the maximum number of runs to select. {@code 0} for no limit.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    @DataBoundSetter
+    public void setLimit(int limit) {
+        this.limit = Math.max(limit, 0);
+    }
+
+    /**
+     * @return how to compare runs of different projects
+     */
+    @Nonnull
+    public ItemGroupRunSelection.Order getOrder() {
+        return order;
+    }
+
+    @DataBoundSetter
+    public void setOrder(ItemGroupRunSelection.Order order) {
+        this.order = (order != null) ? order : ItemGroupRunSelection.Order.TIMESTAMP;
+    }
+
+    @Extension
+    public static class DescriptorImpl extends AbstractStepDescriptorImpl {
+
+        public DescriptorImpl() {
+            super(SelectRunsFromFolderExecution.class);
+        }
+
+        @Override
+        public String getDisplayName() {
+            return Messages.SelectRunsFromFolderStep_DisplayName();
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "selectRunsFromFolder";
+        }
+
+        @Override
+        public String getHelpFile(String fieldName) {
+            if ("selector".equals(fieldName) || "filter".equals(fieldName) || "verbose".equals(fieldName)) {
+                return "/plugin/run-selector/help-" + fieldName + ".html";
+            }
+            return super.getHelpFile(fieldName);
+        }
+
+        public ListBoxModel doFillOrderItems() {
+            ListBoxModel items = new ListBoxModel();
+            items.add(Messages.SelectRunsFromFolderStep_Order_Timestamp(), ItemGroupRunSelection.Order.TIMESTAMP.name());
+            items.add(Messages.SelectRunsFromFolderStep_Order_Number(), ItemGroupRunSelection.Order.NUMBER.name());
+            return items;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.jenkinsci.plugins.runselector.steps;
+
+import hudson.Extension;
+import org.jenkinsci.plugins.runselector.Messages;
+import org.jenkinsci.plugins.workflow.steps.AbstractStepDescriptorImpl;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+/**
+ * The selectRuns step selects multiple runs from a given project name based on the given selector
+ * and, optionally, the run filter.
+ * Runs are returned in the order the selector enumerates them, up to {@link #getLimit()}.
+ */
+public class SelectRunsStep extends SelectRunStep {
+
+    private int limit;
+
+    @DataBoundConstructor
+    public SelectRunsStep(String job) {
+        super(job);
+    }
+
+    /**
+     * @return the maximum number of runs to select. {@code 0} for no limit.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    @DataBoundSetter
+    public void setLimit(int limit) {
+        this.limit = Math.max(limit, 0);
+    }
+
+    @Extension
+    public static class DescriptorImpl extends AbstractStepDescriptorImpl {
+
+        public DescriptorImpl() {
+            super(SelectRunsExecution.class);
+        }
+
+        @Override
+        public String getDisplayName() {
+            return Messages.SelectRunsStep_DisplayName();
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "selectRuns";
+        }
+
+        @Override
+        public String getHelpFile(String fieldName) {
+            if ("selector".equals(fieldName) || "filter".equals(fieldName) || "verbose".equals(fieldName)) {
+                return "/plugin/run-selector/help-" + fieldName + ".html";
+            }
+            return super.getHelpFile(fieldName);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package org.jenkinsci.plugins.runselector.triggers;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Action;
+import hudson.model.Cause;
+import hudson.model.CauseAction;
+import hudson.model.InvisibleAction;
+import hudson.model.Item;
+import hudson.model.Items;
+import hudson.model.Job;
+import hudson.model.Queue;
+import hudson.model.Run;
+import hudson.model.queue.Tasks;
+import hudson.security.ACL;
+import hudson.triggers.Trigger;
+import hudson.triggers.TriggerDescriptor;
+import hudson.util.FormValidation;
+import jenkins.model.Jenkins;
+import jenkins.model.ParameterizedJobMixIn;
+import org.acegisecurity.Authentication;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.runselector.Messages;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.filters.NoRunFilter;
+import org.jenkinsci.plugins.runselector.selectors.StatusRunSelector;
+import org.kohsuke.stapler.AncestorInPath;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Starts the job when a completed build of the upstream job is selected by a {@link RunSelector} and a {@link RunFilter}.
+ * <p>
+ * Instead of polling the upstream job, builds are evaluated when they complete by {@link RunSelectorTriggers},
+ * so the job is started once for each build newly matching the selector.
+ */
+public class RunSelectorTrigger extends Trigger<Job<?, ?>> {
+    private static final Logger LOGGER = Logger.getLogger(RunSelectorTrigger.class.getName());
+
+    @Nonnull
+    private final String upstreamJob;
+
+    @CheckForNull
+    private RunSelector selector;
+
+    @CheckForNull
+    private RunFilter filter;
+
+    /**
+     * @param upstreamJob the name of the job to watch, relative to this job
+     */
+    @DataBoundConstructor
+    public RunSelectorTrigger(String upstreamJob) {
+        this.upstreamJob = Util.fixNull(upstreamJob).trim();
+    }
+
+    /**
+     * @return the name of the job to watch, relative to this job
+     */
+    @Nonnull
+    public String getUpstreamJob() {
+        return upstreamJob;
+    }
+
+    /**
+     * @return the selector for builds of the upstream job
+     */
+    @Nonnull
+    public RunSelector getSelector() {
+        return (selector != null) ? selector : new StatusRunSelector();
+    }
+
+    @DataBoundSetter
+    public void setSelector(RunSelector selector) {
+        this.selector = selector;
+    }
+
+    /**
+     * @return the filter for builds of the upstream job
+     */
+    @Nonnull
+    public RunFilter getFilter() {
+        return (filter != null) ? filter : new NoRunFilter();
+    }
+
+    @DataBoundSetter
+    public void setFilter(RunFilter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * @return the job this trigger starts, {@code null} if not started yet
+     */
+    @CheckForNull
+    Job<?, ?> getJob() {
+        return job;
+    }
+
+    /**
+     * @return the full name of the upstream job, {@code null} if not started yet
+     */
+    @CheckForNull
+    String getUpstreamFullName() {
+        if (job == null || upstreamJob.isEmpty()) {
+            return null;
+        }
+        return Items.getCanonicalName(job.getParent(), upstreamJob);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void start(Job<?, ?> project, boolean newInstance) {
+        super.start(project, newInstance);
+        RunSelectorTriggers triggers = RunSelectorTriggers.get();
+        if (triggers != null) {
+            triggers.register(this);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void stop() {
+        RunSelectorTriggers triggers = RunSelectorTriggers.get();
+        if (triggers != null) {
+            triggers.unregister(this);
+        }
+        super.stop();
+    }
+
+    /**
+     * Schedules the job for a matching build.
+     *
+     * @param upstream the matching build
+     */
+    void fire(@Nonnull Run<?, ?> upstream) {
+        Job<?, ?> job = this.job;
+        if (job == null) {
+            return;
+        }
+        if (!canRead(job, upstream.getParent())) {
+            LOGGER.log(Level.WARNING, "{0} is not allowed to see {1}", new Object[]{
+                    job.getFullName(),
+                    upstream.getParent().getFullName()
+            });
+            return;
+        }
+        LOGGER.log(Level.FINE, "{0} matched, scheduling {1}", new Object[]{
+                upstream.getFullDisplayName(),
+                job.getFullName()
+        });
+        ParameterizedJobMixIn.scheduleBuild2(
+                job,
+                -1,
+                new CauseAction(new Cause.UpstreamCause(upstream)),
+                new TriggeredAction(upstream)
+        );
+    }
+
+    private static boolean canRead(@Nonnull Job<?, ?> job, @Nonnull Job<?, ?> upstream) {
+        if (!(job instanceof Queue.Task)) {
+            return upstream.getACL().hasPermission(ACL.SYSTEM, Item.READ);
+        }
+        Authentication auth = Tasks.getAuthenticationOf((Queue.Task) job);
+        return upstream.getACL().hasPermission(auth, Item.READ);
+    }
+
+    /**
+     * Identifies the upstream build the job is started for,
+     * not to merge builds started for different upstream builds in the queue.
+     */
+    public static class TriggeredAction extends InvisibleAction implements Queue.QueueAction {
+        @Nonnull
+        private final String upstreamJob;
+        private final int upstreamBuild;
+
+        TriggeredAction(@Nonnull Run<?, ?> upstream) {
+            this.upstreamJob = upstream.getParent().getFullName();
+            this.upstreamBuild = upstream.getNumber();
+        }
+
+        /**
+         * @return the full name of the upstream job
+         */
+        @Nonnull
+        public String getUpstreamJob() {
+            return upstreamJob;
+        }
+
+        /**
+         * @return the number of the upstream build
+         */
+        public int getUpstreamBuild() {
+            return upstreamBuild;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean shouldSchedule(List<Action> actions) {
+            for (Action action : actions) {
+                if (action instanceof TriggeredAction
+                        && ((TriggeredAction) action).upstreamJob.equals(upstreamJob)
+                        && ((TriggeredAction) action).upstreamBuild == upstreamBuild) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    @Symbol("selectedUpstream")
+    @Extension
+    public static class DescriptorImpl extends TriggerDescriptor {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isApplicable(Item item) {
+            return item instanceof Job && item instanceof ParameterizedJobMixIn.ParameterizedJob;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getDisplayName() {
+            return Messages.RunSelectorTrigger_DisplayName();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getHelpFile(String fieldName) {
+            if ("selector".equals(fieldName) || "filter".equals(fieldName)) {
+                return "/plugin/run-selector/help-" + fieldName + ".html";
+            }
+            return super.getHelpFile(fieldName);
+        }
+
+        public FormValidation doCheckUpstreamJob(@AncestorInPath Job<?, ?> job, @QueryParameter String value) {
+            String name = Util.fixEmptyAndTrim(value);
+            if (name == null) {
+                return FormValidation.error(Messages.RunSelectorTrigger_MissingUpstreamJob());
+            }
+            Jenkins jenkins = Jenkins.getInstance();
+            if (jenkins == null || job == null) {
+                return FormValidation.ok();
+            }
+            if (jenkins.getItem(name, job, Job.class) == null) {
+                return FormValidation.error(Messages.RunSelectorTrigger_NoSuchJob(name));
+            }
+            return FormValidation.ok();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package org.jenkinsci.plugins.runselector.triggers;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import jenkins.model.Jenkins;
+import jenkins.util.Timer;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.metrics.SelectionProfiler;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Started {@link RunSelectorTrigger}s grouped by upstream jobs.
+ * <p>
+ * When a build completes, triggers for its job are evaluated at once:
+ * triggers with the same selector and filter share a single selection,
+ * which examines only builds from the newest one down to the completed one.
+ * As a build completes only once, each job is started once for each matching build.
+ * Builds matching only after they complete (e.g. kept later) don't start jobs.
+ * Triggers are evaluated in {@link Timer}, not to block finalizing builds with selections.
+ */
+@Extension
+public class RunSelectorTriggers {
+    private static final Logger LOGGER = Logger.getLogger(RunSelectorTriggers.class.getName());
+
+    /**
+     * Full name of the upstream job to triggers.
+     */
+    private final Map<String, List<RunSelectorTrigger>> triggers = new HashMap<String, List<RunSelectorTrigger>>();
+
+    /**
+     * Evaluations scheduled and not finished yet.
+     */
+    private final List<Future<?>> pending = new ArrayList<Future<?>>();
+
+    /**
+     * @return the instance, {@code null} if Jenkins is not running.
+     */
+    @CheckForNull
+    public static RunSelectorTriggers get() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            return null;
+        }
+        List<RunSelectorTriggers> all = jenkins.getExtensionList(RunSelectorTriggers.class);
+        return all.isEmpty() ? null : all.get(0);
+    }
+
+    synchronized void register(@Nonnull RunSelectorTrigger trigger) {
+        String upstream = trigger.getUpstreamFullName();
+        if (upstream == null) {
+            return;
+        }
+        List<RunSelectorTrigger> list = triggers.get(upstream);
+        if (list == null) {
+            list = new ArrayList<RunSelectorTrigger>();
+            triggers.put(upstream, list);
+        }
+        list.add(trigger);
+    }
+
+    synchronized void unregister(@Nonnull RunSelectorTrigger trigger) {
+        // the job may be moved since registered.
+        for (Iterator<List<RunSelectorTrigger>> it = triggers.values().iterator(); it.hasNext(); ) {
+            List<RunSelectorTrigger> list = it.next();
+            // triggers are compared by identity.
+            list.remove(trigger);
+            if (list.isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * @param job the upstream job
+     * @return triggers watching the job
+     */
+    @Nonnull
+    synchronized List<RunSelectorTrigger> getTriggers(@Nonnull Job<?, ?> job) {
+        List<RunSelectorTrigger> list = triggers.get(job.getFullName());
+        return (list != null) ? new ArrayList<RunSelectorTrigger>(list) : new ArrayList<RunSelectorTrigger>();
+    }
+
+    /**
+     * Schedules evaluating triggers for a completed build.
+     *
+     * @param run the completed build
+     */
+    void schedule(@Nonnull final Run<?, ?> run) {
+        if (getTriggers(run.getParent()).isEmpty()) {
+            return;
+        }
+        Future<?> future = Timer.get().submit(new Runnable() {
+            @Override
+            public void run() {
+                onCompleted(run);
+            }
+        });
+        synchronized (pending) {
+            pending.add(future);
+            // not to accumulate finished ones.
+            for (Iterator<Future<?>> it = pending.iterator(); it.hasNext(); ) {
+                if (it.next().isDone()) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits for scheduled evaluations. Only for tests.
+     */
+    void awaitPending() throws InterruptedException, ExecutionException {
+        while (true) {
+            Future<?> future;
+            synchronized (pending) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                future = pending.remove(0);
+            }
+            future.get();
+        }
+    }
+
+    /**
+     * Starts jobs whose triggers select the completed build.
+     *
+     * @param run the completed build
+     */
+    void onCompleted(@Nonnull Run<?, ?> run) {
+        List<RunSelectorTrigger> list = getTriggers(run.getParent());
+        if (list.isEmpty()) {
+            return;
+        }
+        Map<String, List<RunSelectorTrigger>> groups = new LinkedHashMap<String, List<RunSelectorTrigger>>();
+        for (RunSelectorTrigger trigger : list) {
+            String key;
+            try {
+                key = Util.getDigestOf(
+                        Jenkins.XSTREAM2.toXML(trigger.getSelector()) + Jenkins.XSTREAM2.toXML(trigger.getFilter())
+                );
+            } catch (RuntimeException e) {
+                // the configuration can't be serialized, evaluated alone.
+                key = "@" + System.identityHashCode(trigger);
+            }
+            List<RunSelectorTrigger> group = groups.get(key);
+            if (group == null) {
+                group = new ArrayList<RunSelectorTrigger>();
+                groups.put(key, group);
+            }
+            group.add(trigger);
+        }
+        for (List<RunSelectorTrigger> group : groups.values()) {
+            RunSelectorTrigger first = group.get(0);
+            if (!matches(run, first.getSelector(), first.getFilter())) {
+                continue;
+            }
+            for (RunSelectorTrigger trigger : group) {
+                trigger.fire(run);
+            }
+        }
+    }
+
+    /**
+     * @return whether the selector enumerates the build before builds older than it
+     */
+    private static boolean matches(@Nonnull Run<?, ?> run, @Nonnull RunSelector selector, @Nonnull RunFilter filter) {
+        Job<?, ?> job = run.getParent();
+        try {
+            RunSelectorContext context = new RunSelectorContext(Jenkins.getActiveInstance(), run, TaskListener.NULL, filter);
+            // not a selection by the build.
+            SelectionProfiler.disable(context);
+            for (
+                    Run<?, ?> selected = selector.select(job, context);
+                    selected != null && selected.getNumber() >= run.getNumber();
+                    selected = selector.selectNext(job, context)
+                    ) {
+                if (selected.getNumber() == run.getNumber()) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to evaluate " + run.getFullDisplayName() + " with " + selector.getDisplayName(), e);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Evaluates triggers when builds complete.
+     */
+    @Extension
+    public static class RunListenerImpl extends RunListener<Run<?, ?>> {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onFinalized(Run<?, ?> run) {
+            RunSelectorTriggers triggers = get();
+            if (triggers != null) {
+                triggers.schedule(run);
+            }
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package org.jenkinsci.plugins.runselector.watermark;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.XmlFile;
+import hudson.init.Terminator;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.Saveable;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import hudson.model.listeners.SaveableListener;
+import jenkins.model.Jenkins;
+import jenkins.util.Timer;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Remembers how far previous selections examined the history of a job,
+ * so that the next selection with the same configuration examines only newer builds.
+ * <p>
+ * A watermark is kept per consumer job, upstream job and configuration of the selector and the filter.
+ * It holds the highest build number examined and the build selected from builds up to that number.
+ * Applied only when both {@link RunSelector#isIncremental()} and {@link RunFilter#isIncremental()} are {@code true},
+ * as results for old builds can be reused only when they don't depend on the context.
+ * <p>
+ * Watermarks of a job are discarded when a build up to the watermark is deleted, completed or saved
+ * (e.g. its result is changed or "Keep this build forever" is toggled),
+ * and when the job is deleted, renamed or moved.
+ * Stored in {@code org.jenkinsci.plugins.runselector.watermark.SelectionWatermarks.xml} in the Jenkins home.
+ * <p>
+ * Set the system property {@code org.jenkinsci.plugins.runselector.watermark.SelectionWatermarks.disabled}
+ * to {@code true} to always examine the whole history.
+ */
+@Extension
+public class SelectionWatermarks implements Saveable {
+    private static final Logger LOGGER = Logger.getLogger(SelectionWatermarks.class.getName());
+
+    private static final boolean DISABLED = Boolean.getBoolean(SelectionWatermarks.class.getName() + ".disabled");
+
+    /**
+     * Delay to save watermarks after they are updated, to write the file once for bursts of selections.
+     */
+    private static final long SAVE_DELAY_SECONDS = 10;
+
+    /**
+     * Full name of the upstream job to watermarks keyed with {@link #keyOf}.
+     */
+    private Map<String, Map<String, Watermark>> watermarks = new HashMap<String, Map<String, Watermark>>();
+
+    /**
+     * Selections in progress, which must not store watermarks when builds they examined are changed.
+     */
+    private transient final Set<Scan> scans = Collections.newSetFromMap(new WeakHashMap<Scan, Boolean>());
+
+    private transient boolean loaded;
+    private transient boolean saveScheduled;
+
+    /**
+     * @return the instance, {@code null} if Jenkins is not running.
+     */
+    @CheckForNull
+    public static SelectionWatermarks get() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            return null;
+        }
+        List<SelectionWatermarks> all = jenkins.getExtensionList(SelectionWatermarks.class);
+        return all.isEmpty() ? null : all.get(0);
+    }
+
+    /**
+     * Starts a selection from the newest build.
+     *
+     * @param job      the job to pick a build from
+     * @param selector the selector
+     * @param context  context for the current execution of runselector
+     * @return the scan to consult for each candidate, {@code null} if the selection can't be incremental.
+     */
+    @CheckForNull
+    public static Scan begin(@Nonnull Job<?, ?> job, @Nonnull RunSelector selector, @Nonnull RunSelectorContext context) {
+        RunFilter filter = context.getRunFilter();
+        if (DISABLED || !selector.isIncremental() || !filter.isIncremental()) {
+            return null;
+        }
+        SelectionWatermarks watermarks = get();
+        if (watermarks == null) {
+            return null;
+        }
+        String key;
+        try {
+            key = keyOf(context.getBuild().getParent(), selector, filter);
+        } catch (RuntimeException e) {
+            // the configuration can't be serialized.
+            LOGGER.log(Level.FINE, "Cannot identify the configuration of " + selector.getDisplayName(), e);
+            return null;
+        }
+        // builds still running will change and can't be covered.
+        int highest = job.getNextBuildNumber() - 1;
+        for (Run<?, ?> run = job.getLastBuild(); run != null && run.isBuilding(); run = run.getPreviousBuild()) {
+            highest = run.getNumber() - 1;
+        }
+        return watermarks.startScan(job, key, highest);
+    }
+
+    @Nonnull
+    private static String keyOf(@Nonnull Job<?, ?> consumer, @Nonnull RunSelector selector, @Nonnull RunFilter filter) {
+        // ':' is not allowed in names of items.
+        return consumer.getFullName() + ':' + Util.getDigestOf(
+                Jenkins.XSTREAM2.toXML(selector) + Jenkins.XSTREAM2.toXML(filter)
+        );
+    }
+
+    @Nonnull
+    private synchronized Scan startScan(@Nonnull Job<?, ?> job, @Nonnull String key, int highest) {
+        load();
+        Map<String, Watermark> jobWatermarks = watermarks.get(job.getFullName());
+        Scan scan = new Scan(
+                this,
+                job,
+                key,
+                highest,
+                (jobWatermarks != null) ? jobWatermarks.get(key) : null
+        );
+        scans.add(scan);
+        return scan;
+    }
+
+    private synchronized void put(@Nonnull Scan scan, @Nonnull Watermark watermark) {
+        if (!scans.remove(scan)) {
+            // builds examined by the scan are changed.
+            return;
+        }
+        String jobName = scan.job.getFullName();
+        Map<String, Watermark> jobWatermarks = watermarks.get(jobName);
+        if (jobWatermarks == null) {
+            jobWatermarks = new HashMap<String, Watermark>();
+            watermarks.put(jobName, jobWatermarks);
+        }
+        jobWatermarks.put(scan.key, watermark);
+        scheduleSave();
+    }
+
+    /**
+     * Discards watermarks covering a build.
+     *
+     * @param run the build changed
+     */
+    synchronized void invalidate(@Nonnull Run<?, ?> run) {
+        String jobName = run.getParent().getFullName();
+        int number = run.getNumber();
+        for (Iterator<Scan> it = scans.iterator(); it.hasNext(); ) {
+            Scan scan = it.next();
+            if (scan.job.getFullName().equals(jobName) && scan.highest >= number) {
+                it.remove();
+            }
+        }
+        load();
+        Map<String, Watermark> jobWatermarks = watermarks.get(jobName);
+        if (jobWatermarks == null) {
+            return;
+        }
+        boolean removed = false;
+        for (Iterator<Watermark> it = jobWatermarks.values().iterator(); it.hasNext(); ) {
+            if (it.next().highest >= number) {
+                it.remove();
+                removed = true;
+            }
+        }
+        if (removed) {
+            if (jobWatermarks.isEmpty()) {
+                watermarks.remove(jobName);
+            }
+            saveNow();
+        }
+    }
+
+    /**
+     * Discards watermarks of a job, either as the upstream or as the consumer.
+     *
+     * @param fullName the full name of the job
+     */
+    synchronized void invalidate(@Nonnull String fullName) {
+        String prefix = fullName + ':';
+        for (Iterator<Scan> it = scans.iterator(); it.hasNext(); ) {
+            Scan scan = it.next();
+            if (scan.job.getFullName().equals(fullName) || scan.key.startsWith(prefix)) {
+                it.remove();
+            }
+        }
+        load();
+        boolean removed = (watermarks.remove(fullName) != null);
+        for (Iterator<Map<String, Watermark>> it = watermarks.values().iterator(); it.hasNext(); ) {
+            Map<String, Watermark> jobWatermarks = it.next();
+            removed |= jobWatermarks.keySet().removeIf(key -> key.startsWith(prefix));
+            if (jobWatermarks.isEmpty()) {
+                it.remove();
+            }
+        }
+        if (removed) {
+            saveNow();
+        }
+    }
+
+    /**
+     * @param job the upstream job
+     * @return the number of watermarks kept for the job
+     */
+    public synchronized int size(@Nonnull Job<?, ?> job) {
+        load();
+        Map<String, Watermark> jobWatermarks = watermarks.get(job.getFullName());
+        return (jobWatermarks != null) ? jobWatermarks.size() : 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void save() throws IOException {
+        saveScheduled = false;
+        getConfigFile().write(this);
+    }
+
+    private void saveNow() {
+        try {
+            save();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save " + getConfigFile(), e);
+        }
+    }
+
+    private void scheduleSave() {
+        if (saveScheduled) {
+            return;
+        }
+        saveScheduled = true;
+        Timer.get().schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (SelectionWatermarks.this) {
+                    if (saveScheduled) {
+                        saveNow();
+                    }
+                }
+            }
+        }, SAVE_DELAY_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        XmlFile file = getConfigFile();
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            file.unmarshal(this);
+        } catch (IOException e) {
+            // only costs full scans.
+            LOGGER.log(Level.WARNING, "Failed to load " + file, e);
+        }
+        if (watermarks == null) {
+            watermarks = new HashMap<String, Map<String, Watermark>>();
+        }
+    }
+
+    @Nonnull
+    private XmlFile getConfigFile() {
+        return new XmlFile(Jenkins.XSTREAM2, new File(Jenkins.getActiveInstance().getRootDir(), getClass().getName() + ".xml"));
+    }
+
+    /**
+     * Writes pending updates.
+     */
+    @Terminator
+    public static void flush() {
+        SelectionWatermarks watermarks = get();
+        if (watermarks == null) {
+            return;
+        }
+        synchronized (watermarks) {
+            if (watermarks.saveScheduled) {
+                watermarks.saveNow();
+            }
+        }
+    }
+
+    /**
+     * The result of a previous selection.
+     */
+    private static final class Watermark {
+        /**
+         * The highest build number examined.
+         */
+        private final int highest;
+        /**
+         * The number of the build selected from builds up to {@link #highest}, {@code -1} if none.
+         */
+        private final int match;
+
+        Watermark(int highest, int match) {
+            this.highest = highest;
+            this.match = match;
+        }
+    }
+
+    /**
+     * A selection consulting and updating a watermark.
+     */
+    public static final class Scan {
+        @Nonnull
+        private final SelectionWatermarks owner;
+        @Nonnull
+        private final Job<?, ?> job;
+        @Nonnull
+        private final String key;
+        private final int highest;
+        @CheckForNull
+        private Watermark watermark;
+
+        Scan(
+                @Nonnull SelectionWatermarks owner,
+                @Nonnull Job<?, ?> job,
+                @Nonnull String key,
+                int highest,
+                @CheckForNull Watermark watermark
+        ) {
+            this.owner = owner;
+            this.job = job;
+            this.key = key;
+            this.highest = highest;
+            this.watermark = watermark;
+        }
+
+        /**
+         * @param candidate the build enumerated by the selector
+         * @return whether the candidate and older builds are examined by a previous selection.
+         *      Use {@link #getMatch()} as the result in that case.
+         */
+        public boolean covers(@Nonnull Run<?, ?> candidate) {
+            if (watermark == null || candidate.getNumber() > watermark.highest) {
+                return false;
+            }
+            if (watermark.match >= 0 && getMatch() == null) {
+                // removed without notifications, e.g. while Jenkins was down.
+                watermark = null;
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * @return the build selected by the previous selection, {@code null} if none.
+         */
+        @CheckForNull
+        public Run<?, ?> getMatch() {
+            return (watermark != null && watermark.match >= 0) ? job.getBuildByNumber(watermark.match) : null;
+        }
+
+        /**
+         * Stores the watermark for the next selection.
+         *
+         * @param selected the selected build, {@code null} if no build matched.
+         */
+        public void finish(@CheckForNull Run<?, ?> selected) {
+            if (highest <= 0 || (selected != null && selected.getNumber() > highest)) {
+                // newer than builds examined.
+                owner.forget(this);
+                return;
+            }
+            owner.put(this, new Watermark(highest, (selected != null) ? selected.getNumber() : -1));
+        }
+    }
+
+    private synchronized void forget(@Nonnull Scan scan) {
+        scans.remove(scan);
+    }
+
+    /**
+     * Discards watermarks when builds are completed or deleted.
+     */
+    @Extension
+    public static class RunListenerImpl extends RunListener<Run<?, ?>> {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onFinalized(Run<?, ?> run) {
+            SelectionWatermarks watermarks = get();
+            if (watermarks != null) {
+                watermarks.invalidate(run);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            SelectionWatermarks watermarks = get();
+            if (watermarks != null) {
+                watermarks.invalidate(run);
+            }
+        }
+    }
+
+    /**
+     * Discards watermarks when builds are modified, e.g. results or "Keep this build forever".
+     */
+    @Extension
+    public static class SaveableListenerImpl extends SaveableListener {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (!(o instanceof Run)) {
+                return;
+            }
+            SelectionWatermarks watermarks = get();
+            if (watermarks != null) {
+                watermarks.invalidate((Run<?, ?>) o);
+            }
+        }
+    }
+
+    /**
+     * Discards watermarks when jobs are deleted, renamed or moved.
+     */
+    @Extension
+    public static class ItemListenerImpl extends ItemListener {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onDeleted(Item item) {
+            invalidate(item, item.getFullName());
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            invalidate(item, oldFullName);
+        }
+
+        private static void invalidate(@Nonnull Item item, @Nonnull String fullName) {
+            if (!(item instanceof Job)) {
+                return;
+            }
+            SelectionWatermarks watermarks = get();
+            if (watermarks != null) {
+                watermarks.invalidate(fullName);
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.jenkinsci.plugins.runselector;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Job;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.filters.NoRunFilter;
+import org.jenkinsci.plugins.runselector.selectors.BuildNumberRunSelector;
+import org.jenkinsci.plugins.runselector.selectors.FallbackRunSelector;
+import org.jenkinsci.plugins.runselector.selectors.StatusRunSelector;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.FailureBuilder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link RunSelector#stream(Job, RunSelectorContext)}.
+ */
+public class RunSelectorStreamTest {
+
+    @ClassRule
+    public static final JenkinsRule j = new JenkinsRule();
+
+    private static FreeStyleProject jobToSelect;
+    private static Run<?, ?> selecter;
+
+    /**
+     * Builds #1 (success), #2 (failure), #3 (success), #4 (success)
+     */
+    @BeforeClass
+    public static void setUp() throws Exception {
+        jobToSelect = j.createFreeStyleProject();
+        j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0));
+        jobToSelect.getBuildersList().add(new FailureBuilder());
+        j.assertBuildStatus(Result.FAILURE, jobToSelect.scheduleBuild2(0).get());
+        jobToSelect.getBuildersList().clear();
+        j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0));
+        j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0));
+
+        selecter = j.assertBuildStatusSuccess(j.createFreeStyleProject().scheduleBuild2(0));
+    }
+
+    @Test
+    public void testStream() throws Exception {
+        RunSelector selector = new StatusRunSelector(StatusRunSelector.BuildStatus.STABLE);
+        assertThat(numbers(selector.stream(jobToSelect, newContext()).collect(Collectors.<Run<?, ?>>toList())),
+                contains(4, 3, 1));
+    }
+
+    @Test
+    public void testStreamWithLimit() throws Exception {
+        RunSelector selector = new StatusRunSelector(StatusRunSelector.BuildStatus.STABLE);
+        RunSelectorContext context = newContext();
+        assertThat(numbers(selector.stream(jobToSelect, context).limit(2).collect(Collectors.<Run<?, ?>>toList())),
+                contains(4, 3));
+
+        // the context can be used for a new selection.
+        assertThat(selector.select(jobToSelect, context).getNumber(), is(4));
+    }
+
+    @Test
+    public void testSelectNext() throws Exception {
+        RunSelector selector = new StatusRunSelector(StatusRunSelector.BuildStatus.STABLE);
+        RunSelectorContext context = newContext();
+        assertThat(selector.select(jobToSelect, context).getNumber(), is(4));
+        assertThat(selector.selectNext(jobToSelect, context).getNumber(), is(3));
+        assertThat(selector.selectNext(jobToSelect, context).getNumber(), is(1));
+        assertThat(selector.selectNext(jobToSelect, context), nullValue());
+    }
+
+    @Test
+    public void testStreamFallback() throws Exception {
+        RunSelector selector = new FallbackRunSelector(
+                new BuildNumberRunSelector("10"),
+                new StatusRunSelector(StatusRunSelector.BuildStatus.STABLE),
+                new StatusRunSelector(StatusRunSelector.BuildStatus.ANY)
+        );
+        assertThat(numbers(selector.stream(jobToSelect, newContext()).collect(Collectors.<Run<?, ?>>toList())),
+                contains(4, 3, 1));
+    }
+
+    @Test
+    public void testStreamFallbackStopsAtMatchedEntry() throws Exception {
+        RunSelector selector = new FallbackRunSelector(
+                new BuildNumberRunSelector("3"),
+                new StatusRunSelector(StatusRunSelector.BuildStatus.ANY)
+        );
+        assertThat(numbers(selector.stream(jobToSelect, newContext()).collect(Collectors.<Run<?, ?>>toList())),
+                contains(3));
+    }
+
+    @Test
+    public void testStreamSelectOnlySelector() throws Exception {
+        RunSelector selector = new SelectOnlyRunSelector(2);
+        assertThat(numbers(selector.stream(jobToSelect, newContext()).collect(Collectors.<Run<?, ?>>toList())),
+                contains(2));
+        assertThat(new SelectOnlyRunSelector(10).stream(jobToSelect, newContext()).count(), is(0L));
+    }
+
+    @Test
+    public void testStreamNoMatch() throws Exception {
+        RunSelector selector = new BuildNumberRunSelector("10");
+        assertThat(selector.stream(jobToSelect, newContext()).collect(Collectors.<Run<?, ?>>toList()), is(empty()));
+    }
+
+    /**
+     * A selector written before {@link RunSelector#selectNext(Job, RunSelectorContext)} was introduced.
+     */
+    private static class SelectOnlyRunSelector extends RunSelector {
+        private final int number;
+
+        SelectOnlyRunSelector(int number) {
+            this.number = number;
+        }
+
+        @Override
+        @CheckForNull
+        public Run<?, ?> select(@Nonnull Job<?, ?> job, @Nonnull RunSelectorContext context) {
+            return job.getBuildByNumber(number);
+        }
+    }
+
+    @Nonnull
+    private static RunSelectorContext newContext() {
+        return new RunSelectorContext(j.jenkins, selecter, TaskListener.NULL, new NoRunFilter());
+    }
+
+    @Nonnull
+    private static List<Integer> numbers(@Nonnull List<Run<?, ?>> runs) {
+        return runs.stream().map(Run::getNumber).collect(Collectors.toList());
+    }
+}
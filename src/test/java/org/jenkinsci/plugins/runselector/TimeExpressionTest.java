@@ -0,0 +1,37 @@
+package org.jenkinsci.plugins.runselector;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link TimeExpression}.
+ */
+public class TimeExpressionTest {
+
+    @Test
+    public void testParse() throws Exception {
+        long now = 1500000000000L;
+        long local = LocalDateTime.of(2017, 7, 14, 14, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        assertThat(TimeExpression.parse("1400000000000", now), is(1400000000000L));
+        assertThat(TimeExpression.parse("24h", now), is(now - 24 * 3600 * 1000L));
+        assertThat(TimeExpression.parse("2w", now), is(now - 14 * 24 * 3600 * 1000L));
+        assertThat(TimeExpression.parse("2017-07-14T14:00", now), is(local));
+        assertThat(TimeExpression.parse("2017-07-14 14:00:00", now), is(local));
+        assertThat(TimeExpression.parse("2017-07-14T14:00Z", now), is(1500040800000L));
+        assertThat(TimeExpression.parse("2017-07-14T23:00+09:00", now), is(1500040800000L));
+
+        assertThat(TimeExpression.isAbsolute("2017-07-14"), is(true));
+        assertThat(TimeExpression.isAbsolute("24h"), is(false));
+        assertThat(TimeExpression.isAbsolute("$CUT"), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseInvalid() throws Exception {
+        TimeExpression.parse("yesterday", 0);
+    }
+}
@@ -0,0 +1,116 @@
+package org.jenkinsci.plugins.runselector.filters;
+
+import hudson.model.Cause;
+import hudson.model.FreeStyleProject;
+import hudson.model.ParametersAction;
+import hudson.model.ParametersDefinitionProperty;
+import hudson.model.Run;
+import hudson.model.StringParameterDefinition;
+import hudson.model.StringParameterValue;
+import hudson.model.TaskListener;
+import hudson.tasks.ArtifactArchiver;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.index.BuildIndexes;
+import org.jenkinsci.plugins.runselector.selectors.StatusRunSelector;
+import org.jenkinsci.plugins.runselector.testutils.FileWriteBuilder;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import javax.annotation.Nonnull;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link ArtifactRunFilter}.
+ */
+public class ArtifactRunFilterTest {
+
+    @ClassRule
+    public static final JenkinsRule j = new JenkinsRule();
+
+    private static FreeStyleProject jobToSelect;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        jobToSelect = createArtifactProject("dist/app.zip", "dist/app.txt", "dist/sub/lib.zip", "other/app.zip");
+        // matched with artifacts recorded in the index.
+        BuildIndexes.get().loadIndex(jobToSelect);
+    }
+
+    @Test
+    public void testCompile() throws Exception {
+        Pattern pattern = ArtifactRunFilter.compile("dist/*.zip");
+        assertThat(pattern.matcher("dist/app.zip").matches(), is(true));
+        assertThat(pattern.matcher("dist/sub/lib.zip").matches(), is(false));
+        pattern = ArtifactRunFilter.compile("**/*.zip");
+        assertThat(pattern.matcher("app.zip").matches(), is(true));
+        assertThat(pattern.matcher("dist/sub/lib.zip").matches(), is(true));
+        pattern = ArtifactRunFilter.compile("dist/");
+        assertThat(pattern.matcher("dist/sub/lib.zip").matches(), is(true));
+        assertThat(pattern.matcher("other/app.zip").matches(), is(false));
+        pattern = ArtifactRunFilter.compile("app.???");
+        assertThat(pattern.matcher("app.zip").matches(), is(true));
+        assertThat(pattern.matcher("app.html").matches(), is(false));
+    }
+
+    @Test
+    public void testArtifacts() throws Exception {
+        assertThat(select("dist/*.zip").getNumber(), is(1));
+        assertThat(select("dist/*.txt").getNumber(), is(2));
+        assertThat(select("dist/**/*.zip").getNumber(), is(3));
+        assertThat(select("**/app.zip").getNumber(), is(4));
+        assertThat(select("dist/*.txt, dist/*.zip"), nullValue());
+        assertThat(select("*.jar"), nullValue());
+
+        RunSelector selector = new StatusRunSelector();
+        RunSelectorContext context = createContext("dist/**/*.zip");
+        assertThat(selector.select(jobToSelect, context).getNumber(), is(3));
+        assertThat(selector.selectNext(jobToSelect, context).getNumber(), is(1));
+        assertThat(selector.selectNext(jobToSelect, context), nullValue());
+    }
+
+    @Test
+    public void testDeletedArtifacts() throws Exception {
+        FreeStyleProject p = createArtifactProject("dist/app.zip", "dist/app.zip");
+        BuildIndexes.get().loadIndex(p);
+        p.getBuildByNumber(2).deleteArtifacts();
+
+        Run<?, ?> selected = new StatusRunSelector().select(p, createContext("dist/*.zip"));
+        assertThat(selected.getNumber(), is(1));
+    }
+
+    @Nonnull
+    private static FreeStyleProject createArtifactProject(@Nonnull String... files) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.addProperty(new ParametersDefinitionProperty(new StringParameterDefinition("FILE", "")));
+        p.getBuildersList().add(new FileWriteBuilder("${FILE}", "${BUILD_NUMBER}"));
+        p.getPublishersList().add(new ArtifactArchiver("**"));
+        for (String file : files) {
+            if (p.getSomeWorkspace() != null) {
+                p.getSomeWorkspace().deleteContents();
+            }
+            j.assertBuildStatusSuccess(p.scheduleBuild2(
+                    0,
+                    new Cause.UserIdCause(),
+                    new ParametersAction(new StringParameterValue("FILE", file))
+            ));
+        }
+        return p;
+    }
+
+    private static Run<?, ?> select(@Nonnull String artifacts) throws Exception {
+        return new StatusRunSelector().select(jobToSelect, createContext(artifacts));
+    }
+
+    @Nonnull
+    private static RunSelectorContext createContext(@Nonnull String artifacts) throws Exception {
+        Run<?, ?> run = j.assertBuildStatusSuccess(j.createFreeStyleProject().scheduleBuild2(0));
+        return new RunSelectorContext(j.jenkins, run, TaskListener.NULL, new ArtifactRunFilter(artifacts));
+    }
+}
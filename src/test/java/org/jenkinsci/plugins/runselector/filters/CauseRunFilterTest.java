@@ -0,0 +1,119 @@
+package org.jenkinsci.plugins.runselector.filters;
+
+import hudson.model.Cause;
+import hudson.model.FreeStyleProject;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.User;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.triggers.TimerTrigger;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.index.BuildIndex;
+import org.jenkinsci.plugins.runselector.index.BuildIndexes;
+import org.jenkinsci.plugins.runselector.index.BuildTags;
+import org.jenkinsci.plugins.runselector.selectors.StatusRunSelector;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link CauseRunFilter}.
+ */
+public class CauseRunFilterTest {
+
+    @ClassRule
+    public static final JenkinsRule j = new JenkinsRule();
+
+    private static FreeStyleProject upstream;
+
+    private static FreeStyleProject jobToSelect;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        j.jenkins.setSecurityRealm(j.createDummySecurityRealm());
+        upstream = j.createFreeStyleProject();
+        Run<?, ?> upstreamBuild = j.assertBuildStatusSuccess(upstream.scheduleBuild2(0));
+
+        jobToSelect = j.createFreeStyleProject();
+        j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0, new TimerTrigger.TimerTriggerCause()));
+        buildAs("alice");
+        j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0, new Cause.UpstreamCause(upstreamBuild)));
+        buildAs("bob");
+        j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0, new TimerTrigger.TimerTriggerCause()));
+    }
+
+    private static void buildAs(@Nonnull String userId) throws Exception {
+        Cause cause;
+        try (ACLContext ctx = ACL.as(User.get(userId))) {
+            cause = new Cause.UserIdCause();
+        }
+        j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0, cause));
+    }
+
+    @Test
+    public void testType() throws Exception {
+        RunSelector selector = new StatusRunSelector();
+        RunSelectorContext context = createContext("TIMER", "");
+        assertThat(selector.select(jobToSelect, context).getNumber(), is(5));
+        assertThat(selector.selectNext(jobToSelect, context).getNumber(), is(1));
+        assertThat(selector.selectNext(jobToSelect, context), nullValue());
+
+        assertThat(numberOf(selector.select(jobToSelect, createContext("user", ""))), is(4));
+        assertThat(numberOf(selector.select(jobToSelect, createContext("UPSTREAM", ""))), is(3));
+        assertThat(numberOf(selector.select(jobToSelect, createContext("REMOTE", ""))), is(-1));
+        assertThat(numberOf(selector.select(jobToSelect, createContext(Cause.UserIdCause.class.getName(), ""))), is(4));
+    }
+
+    @Test
+    public void testValue() throws Exception {
+        RunSelector selector = new StatusRunSelector();
+        assertThat(numberOf(selector.select(jobToSelect, createContext("USER", "alice"))), is(2));
+        assertThat(numberOf(selector.select(jobToSelect, createContext("USER", "carol"))), is(-1));
+        assertThat(numberOf(selector.select(jobToSelect, createContext("UPSTREAM", upstream.getFullName()))), is(3));
+        assertThat(numberOf(selector.select(jobToSelect, createContext("UPSTREAM", "other"))), is(-1));
+    }
+
+    @Test
+    public void testIndex() throws Exception {
+        BuildIndex index = BuildIndexes.get().loadIndex(jobToSelect);
+        assertThat(index, notNullValue());
+        index.readLock().lock();
+        try {
+            String timer = BuildTags.CAUSE + TimerTrigger.TimerTriggerCause.class.getName();
+            assertThat(index.seekTag(timer, Integer.MAX_VALUE), is(5));
+            assertThat(index.seekTag(timer, 5), is(1));
+            assertThat(index.seekTag(BuildTags.CAUSE_USER + "bob", Integer.MAX_VALUE), is(4));
+        } finally {
+            index.readLock().unlock();
+        }
+
+        // not tagged, and builds are examined.
+        RunSelector selector = new StatusRunSelector();
+        RunSelectorContext context = createContext(Cause.class.getName(), "");
+        assertThat(new CauseRunFilter(Cause.class.getName()).getIndexCondition(context), nullValue());
+        assertThat(numberOf(selector.select(jobToSelect, context)), is(5));
+    }
+
+    @Nonnull
+    private static RunSelectorContext createContext(@Nonnull String type, @Nonnull String value) throws Exception {
+        Run<?, ?> run = j.assertBuildStatusSuccess(j.createFreeStyleProject().scheduleBuild2(0));
+        CauseRunFilter filter = new CauseRunFilter(type);
+        filter.setValue(value);
+        return new RunSelectorContext(j.jenkins, run, TaskListener.NULL, filter);
+    }
+
+    private static int numberOf(@CheckForNull Run<?, ?> run) {
+        return (run != null) ? run.getNumber() : -1;
+    }
+}
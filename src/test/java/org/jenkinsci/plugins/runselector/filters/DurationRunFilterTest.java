@@ -0,0 +1,123 @@
+package org.jenkinsci.plugins.runselector.filters;
+
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.queue.QueueTaskFuture;
+import hudson.util.OneShotEvent;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.index.BuildIndex;
+import org.jenkinsci.plugins.runselector.index.BuildIndexes;
+import org.jenkinsci.plugins.runselector.index.IndexCondition;
+import org.jenkinsci.plugins.runselector.selectors.StatusRunSelector;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.SleepBuilder;
+import org.jvnet.hudson.test.TestBuilder;
+
+import javax.annotation.Nonnull;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link DurationRunFilter}.
+ */
+public class DurationRunFilterTest {
+
+    @ClassRule
+    public static final JenkinsRule j = new JenkinsRule();
+
+    private static FreeStyleProject jobToSelect;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        jobToSelect = j.createFreeStyleProject();
+        j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0));
+        jobToSelect.getBuildersList().add(new SleepBuilder(3000));
+        j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0));
+        jobToSelect.getBuildersList().clear();
+        j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0));
+    }
+
+    @Test
+    public void testDuration() throws Exception {
+        RunSelector selector = new StatusRunSelector();
+        assertThat(selector.select(jobToSelect, createContext("2s", "")).getNumber(), is(2));
+
+        RunSelectorContext context = createContext("", "2s");
+        assertThat(selector.select(jobToSelect, context).getNumber(), is(3));
+        assertThat(selector.selectNext(jobToSelect, context).getNumber(), is(1));
+        assertThat(selector.selectNext(jobToSelect, context), nullValue());
+
+        assertThat(selector.select(jobToSelect, createContext("1h", "")), nullValue());
+        // malformed.
+        assertThat(selector.select(jobToSelect, createContext("2 minutes", "")), nullValue());
+    }
+
+    @Test
+    public void testIndex() throws Exception {
+        BuildIndex index = BuildIndexes.get().loadIndex(jobToSelect);
+        assertThat(index, notNullValue());
+        index.readLock().lock();
+        try {
+            assertThat(index.durationAt(index.positionOf(2)), greaterThanOrEqualTo(3000L));
+            assertThat(index.blockSummary(0).getMaxDuration(), greaterThanOrEqualTo(3000L));
+            assertThat(index.nodeAt(index.positionOf(2)), is(""));
+        } finally {
+            index.readLock().unlock();
+        }
+    }
+
+    @Test
+    public void testRunning() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        final OneShotEvent started = new OneShotEvent();
+        final OneShotEvent finish = new OneShotEvent();
+        p.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException {
+                started.signal();
+                finish.block();
+                return true;
+            }
+        });
+        RunSelectorContext context = createContext("1h", "");
+        BuildIndex index = BuildIndexes.get().loadIndex(p);
+        QueueTaskFuture<FreeStyleBuild> f = p.scheduleBuild2(0);
+        started.block();
+        try {
+            IndexCondition condition = new DurationRunFilter("1h", "").getIndexCondition(context);
+            assertThat(condition, notNullValue());
+            index.readLock().lock();
+            try {
+                // may have completed since indexed, and left to isSelectable().
+                assertThat(index.isBuildingAt(index.positionOf(2)), is(true));
+                assertThat(condition.seek(index, Integer.MAX_VALUE), is(2));
+                assertThat(condition.seek(index, 2), is(-1));
+            } finally {
+                index.readLock().unlock();
+            }
+        } finally {
+            finish.signal();
+        }
+        j.assertBuildStatusSuccess(f);
+    }
+
+    @Nonnull
+    private static RunSelectorContext createContext(@Nonnull String min, @Nonnull String max) throws Exception {
+        Run<?, ?> run = j.assertBuildStatusSuccess(j.createFreeStyleProject().scheduleBuild2(0));
+        return new RunSelectorContext(j.jenkins, run, TaskListener.NULL, new DurationRunFilter(min, max));
+    }
+}
@@ -0,0 +1,79 @@
+package org.jenkinsci.plugins.runselector.filters;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Label;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.slaves.DumbSlave;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.selectors.StatusRunSelector;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link NodeRunFilter} and {@link LabelRunFilter}.
+ */
+public class NodeRunFilterTest {
+
+    @ClassRule
+    public static final JenkinsRule j = new JenkinsRule();
+
+    private static FreeStyleProject jobToSelect;
+
+    private static DumbSlave linux;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        linux = j.createOnlineSlave(Label.get("linux large"));
+        DumbSlave windows = j.createOnlineSlave(Label.get("windows"));
+
+        jobToSelect = j.createFreeStyleProject();
+        jobToSelect.setAssignedNode(linux);
+        j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0));
+        jobToSelect.setAssignedNode(windows);
+        j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0));
+        jobToSelect.setAssignedNode(j.jenkins);
+        j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0));
+        jobToSelect.setAssignedLabel(null);
+
+        // labels the node had are used.
+        j.jenkins.removeNode(windows);
+    }
+
+    @Test
+    public void testNode() throws Exception {
+        RunSelector selector = new StatusRunSelector();
+        assertThat(numberOf(selector.select(jobToSelect, createContext(new NodeRunFilter(linux.getNodeName())))), is(1));
+        assertThat(numberOf(selector.select(jobToSelect, createContext(new NodeRunFilter("master")))), is(3));
+        assertThat(numberOf(selector.select(jobToSelect, createContext(new NodeRunFilter("unknown")))), is(-1));
+    }
+
+    @Test
+    public void testLabel() throws Exception {
+        RunSelector selector = new StatusRunSelector();
+        assertThat(numberOf(selector.select(jobToSelect, createContext(new LabelRunFilter("linux && large")))), is(1));
+        assertThat(numberOf(selector.select(jobToSelect, createContext(new LabelRunFilter("windows")))), is(2));
+        assertThat(numberOf(selector.select(jobToSelect, createContext(new LabelRunFilter("linux && !large")))), is(-1));
+        assertThat(numberOf(selector.select(jobToSelect, createContext(new LabelRunFilter("master")))), is(3));
+    }
+
+    @Nonnull
+    private static RunSelectorContext createContext(@Nonnull RunFilter filter) throws Exception {
+        Run<?, ?> run = j.assertBuildStatusSuccess(j.createFreeStyleProject().scheduleBuild2(0));
+        return new RunSelectorContext(j.jenkins, run, TaskListener.NULL, filter);
+    }
+
+    private static int numberOf(@CheckForNull Run<?, ?> run) {
+        return (run != null) ? run.getNumber() : -1;
+    }
+}
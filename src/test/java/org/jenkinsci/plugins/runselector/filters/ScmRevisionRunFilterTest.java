@@ -0,0 +1,156 @@
+package org.jenkinsci.plugins.runselector.filters;
+
+import hudson.model.Cause;
+import hudson.model.FreeStyleProject;
+import hudson.model.ParameterValue;
+import hudson.model.ParametersAction;
+import hudson.model.ParametersDefinitionProperty;
+import hudson.model.Run;
+import hudson.model.StringParameterDefinition;
+import hudson.model.StringParameterValue;
+import hudson.model.TaskListener;
+import hudson.scm.NullSCM;
+import hudson.scm.SCMDescriptor;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.index.BuildIndex;
+import org.jenkinsci.plugins.runselector.index.BuildIndexes;
+import org.jenkinsci.plugins.runselector.index.BuildTags;
+import org.jenkinsci.plugins.runselector.selectors.StatusRunSelector;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestExtension;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link ScmRevisionRunFilter}.
+ */
+public class ScmRevisionRunFilterTest {
+
+    @ClassRule
+    public static final JenkinsRule j = new JenkinsRule();
+
+    private static FreeStyleProject jobToSelect;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        jobToSelect = createRevisionProject();
+        for (String revision : new String[]{"a1", "b2", "a1", "c3"}) {
+            build(jobToSelect, revision);
+        }
+    }
+
+    @Test
+    public void testSameRevision() throws Exception {
+        Run<?, ?> run = build(createRevisionProject(), "a1");
+        RunSelector selector = new StatusRunSelector();
+        RunSelectorContext context = new RunSelectorContext(j.jenkins, run, TaskListener.NULL, new ScmRevisionRunFilter(""));
+        assertThat(selector.select(jobToSelect, context).getNumber(), is(3));
+        assertThat(selector.selectNext(jobToSelect, context).getNumber(), is(1));
+        assertThat(selector.selectNext(jobToSelect, context), nullValue());
+
+        run = build(createRevisionProject(), "d4");
+        context = new RunSelectorContext(j.jenkins, run, TaskListener.NULL, new ScmRevisionRunFilter(""));
+        assertThat(selector.select(jobToSelect, context), nullValue());
+
+        // no revisions for the current build.
+        run = j.assertBuildStatusSuccess(j.createFreeStyleProject().scheduleBuild2(0));
+        context = new RunSelectorContext(j.jenkins, run, TaskListener.NULL, new ScmRevisionRunFilter(""));
+        assertThat(selector.select(jobToSelect, context), nullValue());
+    }
+
+    @Test
+    public void testSpecifiedRevision() throws Exception {
+        Run<?, ?> run = build(createRevisionProject(), "b2");
+        RunSelector selector = new StatusRunSelector();
+        RunSelectorContext context = new RunSelectorContext(j.jenkins, run, TaskListener.NULL, new ScmRevisionRunFilter("c3"));
+        assertThat(selector.select(jobToSelect, context).getNumber(), is(4));
+
+        context = new RunSelectorContext(j.jenkins, run, TaskListener.NULL, new ScmRevisionRunFilter("${REV}"));
+        assertThat(selector.select(jobToSelect, context).getNumber(), is(2));
+    }
+
+    @Test
+    public void testResolvedPerContext() throws Exception {
+        ScmRevisionRunFilter filter = new ScmRevisionRunFilter("");
+        RunSelectorContext context = new RunSelectorContext(j.jenkins, build(createRevisionProject(), "a1"), TaskListener.NULL);
+        int extensions = context.getExtensionList().size();
+        assertThat(filter.isSelectable(jobToSelect.getBuildByNumber(3), context), is(true));
+        assertThat(filter.isSelectable(jobToSelect.getBuildByNumber(2), context), is(false));
+        assertThat(filter.getIndexCondition(context), notNullValue());
+        // resolved once for all candidates.
+        assertThat(context.getExtensionList().size(), is(extensions + 1));
+
+        // resolved again in an other context.
+        context = new RunSelectorContext(j.jenkins, build(createRevisionProject(), "b2"), TaskListener.NULL);
+        assertThat(filter.isSelectable(jobToSelect.getBuildByNumber(2), context), is(true));
+        assertThat(filter.isSelectable(jobToSelect.getBuildByNumber(3), context), is(false));
+    }
+
+    @Test
+    public void testIndex() throws Exception {
+        BuildIndex index = BuildIndexes.get().loadIndex(jobToSelect);
+        assertThat(index, notNullValue());
+        index.readLock().lock();
+        try {
+            assertThat(index.seekTag(BuildTags.revision("a1"), Integer.MAX_VALUE), is(3));
+            assertThat(index.seekTag(BuildTags.revision("a1"), 3), is(1));
+            assertThat(index.seekTag(BuildTags.revision("d4"), Integer.MAX_VALUE), is(-1));
+            assertThat(index.hasTagAt(index.positionOf(2), BuildTags.revision("b2")), is(true));
+        } finally {
+            index.readLock().unlock();
+        }
+    }
+
+    @Nonnull
+    private static FreeStyleProject createRevisionProject() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.addProperty(new ParametersDefinitionProperty(new StringParameterDefinition("REV", "")));
+        p.setScm(new RevisionSCM());
+        return p;
+    }
+
+    @Nonnull
+    private static Run<?, ?> build(@Nonnull FreeStyleProject p, @Nonnull String revision) throws Exception {
+        return j.assertBuildStatusSuccess(p.scheduleBuild2(
+                0,
+                new Cause.UserIdCause(),
+                new ParametersAction(new StringParameterValue("REV", revision))
+        ));
+    }
+
+    /**
+     * Provides the parameter {@code REV} as the revision.
+     */
+    public static class RevisionSCM extends NullSCM {
+        @Override
+        public void buildEnvironment(@Nonnull Run<?, ?> build, @Nonnull Map<String, String> env) {
+            ParametersAction action = build.getAction(ParametersAction.class);
+            ParameterValue value = (action != null) ? action.getParameter("REV") : null;
+            if (value instanceof StringParameterValue) {
+                env.put("GIT_COMMIT", ((StringParameterValue) value).value);
+            }
+        }
+
+        @TestExtension
+        public static class DescriptorImpl extends SCMDescriptor<RevisionSCM> {
+            public DescriptorImpl() {
+                super(null);
+            }
+
+            @Override
+            public String getDisplayName() {
+                return "Revision";
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.jenkinsci.plugins.runselector.filters;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.RunSelectorDescriptor;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestExtension;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link TimeRangeRunFilter}.
+ */
+public class TimeRangeRunFilterTest {
+
+    @Rule
+    public final JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testExhausted() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        for (int i = 0; i < 5; ++i) {
+            j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+            Thread.sleep(10);
+        }
+        Run<?, ?> run = j.assertBuildStatusSuccess(j.createFreeStyleProject().scheduleBuild2(0));
+        TimeRangeRunFilter filter = new TimeRangeRunFilter(
+                Long.toString(p.getBuildByNumber(3).getTimeInMillis()),
+                Long.toString(p.getBuildByNumber(5).getTimeInMillis())
+        );
+        RunSelectorContext context = new RunSelectorContext(j.jenkins, run, TaskListener.NULL, filter);
+
+        EnumeratingRunSelector selector = new EnumeratingRunSelector();
+        assertThat(selector.select(p, context).getNumber(), is(4));
+        assertThat(selector.selectNext(p, context).getNumber(), is(3));
+        assertThat(selector.selectNext(p, context), nullValue());
+        // stops at #2 without examining older builds.
+        assertThat(selector.enumerated, is(Arrays.asList(5, 4, 3, 2)));
+        assertThat(filter.isExhausted(p.getBuildByNumber(2), context), is(true));
+        assertThat(filter.isExhausted(p.getBuildByNumber(3), context), is(false));
+    }
+
+    /**
+     * Enumerates all builds from newer to older without indexes.
+     */
+    public static class EnumeratingRunSelector extends RunSelector {
+        private final List<Integer> enumerated = new ArrayList<Integer>();
+
+        @Override
+        public Run<?, ?> getNextBuild(@Nonnull Job<?, ?> job, @Nonnull RunSelectorContext context) {
+            Run<?, ?> previous = context.getLastMatchBuild();
+            Run<?, ?> next = (previous == null) ? job.getLastBuild() : previous.getPreviousBuild();
+            if (next != null) {
+                enumerated.add(next.getNumber());
+            }
+            return next;
+        }
+
+        @Override
+        public boolean isDescending() {
+            return true;
+        }
+
+        @TestExtension
+        public static class DescriptorImpl extends RunSelectorDescriptor {
+            @Override
+            public String getDisplayName() {
+                return "Enumerating";
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.jenkinsci.plugins.runselector.index;
+
+import hudson.model.Result;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link BlockSummary}.
+ */
+public class BlockSummaryTest {
+
+    @Test
+    public void testSummary() throws Exception {
+        BuildIndex index = new BuildIndex();
+        for (int number = 1; number <= 600; ++number) {
+            put(index, number, (number == 300) ? Result.FAILURE : Result.SUCCESS, number == 10, "BRANCH", "b" + number / 100);
+        }
+
+        BlockSummary first = index.blockSummary(0);
+        assertThat(first.getCount(), is(255));
+        assertThat(first.getMinTimestamp(), is(1000L));
+        assertThat(first.getMaxTimestamp(), is(255000L));
+        assertThat(first.getKeepLogCount(), is(1));
+        assertThat(first.containsResult(Result.SUCCESS), is(true));
+        assertThat(first.containsResult(Result.FAILURE), is(false));
+        assertThat(index.blockSummary(1).containsResult(Result.FAILURE), is(true));
+
+        assertThat(first.mayContainParameter("BRANCH", "b1"), is(true));
+        assertThat(first.mayContainParameter("BRANCH", "b5"), is(false));
+        // builds without the parameter may match.
+        assertThat(first.mayContainParameter("PLATFORM", "linux"), is(true));
+
+        // discarded when a build in the block changes.
+        put(index, 20, Result.FAILURE, false, "BRANCH", "b0");
+        assertThat(index.blockSummary(0).containsResult(Result.FAILURE), is(true));
+    }
+
+    @Test
+    public void testSkipBlocks() throws Exception {
+        BuildIndex index = new BuildIndex();
+        for (int number = 1; number <= 1000; ++number) {
+            put(index, number, Result.SUCCESS, false, "BRANCH", (number == 5) ? "release" : "master");
+        }
+        final int[] tested = new int[1];
+        IndexCondition condition = IndexCondition.of(
+                new IndexCondition.RecordPredicate() {
+                    @Override
+                    public boolean test(@Nonnull BuildIndex index, int position) {
+                        ++tested[0];
+                        return "release".equals(index.parameterAt(position, "BRANCH"));
+                    }
+                },
+                new IndexCondition.BlockPredicate() {
+                    @Override
+                    public boolean mayMatch(@Nonnull BlockSummary block) {
+                        return block.mayContainParameter("BRANCH", "release");
+                    }
+                }
+        );
+        assertThat(condition.seek(index, Integer.MAX_VALUE), is(5));
+        // only builds in the first block are tested.
+        assertThat(tested[0] <= BlockSummary.SIZE, is(true));
+        assertThat(condition.seek(index, 5), is(-1));
+    }
+
+    private static void put(@Nonnull BuildIndex index, int number, @Nonnull Result result, boolean keepLog, @Nonnull String name, @Nonnull String value) {
+        index.put(
+                number,
+                BuildIndex.toOrdinal(result),
+                keepLog ? BuildIndex.FLAG_KEEP_LOG : 0,
+                number * 1000L,
+                -1,
+                new int[]{index.idOf(name), index.idOf(value)}
+        );
+    }
+}
@@ -0,0 +1,111 @@
+package org.jenkinsci.plugins.runselector.index;
+
+import hudson.model.Result;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link BuildIndex}.
+ */
+public class BuildIndexTest {
+
+    @Test
+    public void testSeekParameter() throws Exception {
+        BuildIndex index = new BuildIndex();
+        for (int number = 1; number <= 1000; ++number) {
+            put(index, number, "BRANCH", (number % 100 == 7) ? "release/7" : "master");
+        }
+        assertThat(index.seekParameter("BRANCH", "release/7", Integer.MAX_VALUE), is(907));
+        assertThat(index.seekParameter("BRANCH", "release/7", 907), is(807));
+        assertThat(index.seekParameter("BRANCH", "release/8", Integer.MAX_VALUE), is(-1));
+        assertThat(index.seekParameter("PLATFORM", "linux", Integer.MAX_VALUE), is(-1));
+        assertThat(index.seekWithoutParameter("BRANCH", Integer.MAX_VALUE), is(-1));
+        assertThat(index.seekWithoutParameter("PLATFORM", Integer.MAX_VALUE), is(1000));
+
+        // updated as builds change.
+        put(index, 500, "BRANCH", "release/7");
+        put(index, 907, "BRANCH", "master");
+        index.remove(807);
+        assertThat(index.seekParameter("BRANCH", "release/7", Integer.MAX_VALUE), is(707));
+        assertThat(index.seekParameter("BRANCH", "release/7", 507), is(500));
+        put(index, 1001, "PLATFORM", "linux");
+        assertThat(index.seekWithoutParameter("BRANCH", Integer.MAX_VALUE), is(1001));
+        assertThat(index.seekWithoutParameter("BRANCH", 1001), is(-1));
+    }
+
+    @Test
+    public void testSeekDisplayName() throws Exception {
+        BuildIndex index = new BuildIndex();
+        for (int number = 1; number <= 1000; ++number) {
+            index.put(
+                    number,
+                    BuildIndex.toOrdinal(Result.SUCCESS),
+                    (byte) 0,
+                    number * 1000L,
+                    (number % 100 == 0) ? index.idOf("release-" + number / 100) : -1,
+                    new int[0]
+            );
+        }
+        assertThat(index.seekDisplayName("release-3", Integer.MAX_VALUE), is(300));
+        assertThat(index.seekDisplayName("release-3", 300), is(-1));
+        assertThat(index.seekDisplayName("#42", Integer.MAX_VALUE), is(42));
+        assertThat(index.seekDisplayName("#42", 42), is(-1));
+        // renamed.
+        assertThat(index.seekDisplayName("#500", Integer.MAX_VALUE), is(-1));
+        assertThat(index.seekDisplayName("#0042", Integer.MAX_VALUE), is(-1));
+
+        // updated as builds are renamed.
+        index.put(900, BuildIndex.toOrdinal(Result.SUCCESS), (byte) 0, 900000L, index.idOf("release-3"), new int[0]);
+        index.put(300, BuildIndex.toOrdinal(Result.SUCCESS), (byte) 0, 300000L, -1, new int[0]);
+        assertThat(index.seekDisplayName("release-3", Integer.MAX_VALUE), is(900));
+        assertThat(index.seekDisplayName("release-3", 900), is(-1));
+        assertThat(index.seekDisplayName("release-9", Integer.MAX_VALUE), is(-1));
+        assertThat(index.seekDisplayName("#300", Integer.MAX_VALUE), is(300));
+        index.remove(900);
+        assertThat(index.seekDisplayName("release-3", Integer.MAX_VALUE), is(-1));
+    }
+
+    @Test
+    public void testSeekKept() throws Exception {
+        BuildIndex index = new BuildIndex();
+        for (int number = 1; number <= 1000; ++number) {
+            index.put(
+                    number,
+                    BuildIndex.toOrdinal(Result.SUCCESS),
+                    (number == 10 || number == 600) ? BuildIndex.FLAG_KEEP_LOG : 0,
+                    number * 1000L,
+                    -1,
+                    new int[0]
+            );
+        }
+        assertThat(index.seekKept(Integer.MAX_VALUE), is(600));
+        assertThat(index.seekKept(600), is(10));
+        assertThat(index.seekKept(10), is(-1));
+
+        // updated as builds are kept, released and deleted.
+        index.put(800, BuildIndex.toOrdinal(Result.SUCCESS), BuildIndex.FLAG_KEEP_LOG, 800000L, -1, new int[0]);
+        index.put(600, BuildIndex.toOrdinal(Result.SUCCESS), (byte) 0, 600000L, -1, new int[0]);
+        index.remove(10);
+        assertThat(index.seekKept(Integer.MAX_VALUE), is(800));
+        assertThat(index.seekKept(800), is(-1));
+
+        // all builds may be kept.
+        index.setKeptByDependencies(true);
+        assertThat(index.seekKept(800), is(799));
+    }
+
+    private static void put(@Nonnull BuildIndex index, int number, @Nonnull String name, @Nonnull String value) {
+        index.put(
+                number,
+                BuildIndex.toOrdinal(Result.SUCCESS),
+                (byte) 0,
+                number * 1000L,
+                -1,
+                new int[]{index.idOf(name), index.idOf(value)}
+        );
+    }
+}
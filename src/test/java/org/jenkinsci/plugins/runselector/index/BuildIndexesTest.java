@@ -0,0 +1,225 @@
+package org.jenkinsci.plugins.runselector.index;
+
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.Cause;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.ParametersAction;
+import hudson.model.ParametersDefinitionProperty;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.StringParameterDefinition;
+import hudson.model.StringParameterValue;
+import hudson.model.TaskListener;
+import hudson.model.queue.QueueTaskFuture;
+import hudson.util.OneShotEvent;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.selectors.StatusRunSelector;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.FailureBuilder;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link BuildIndexes}.
+ */
+public class BuildIndexesTest {
+
+    @Rule
+    public final JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testIndex() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.addProperty(new ParametersDefinitionProperty(new StringParameterDefinition("BRANCH", "master")));
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        p.getBuildersList().add(new FailureBuilder());
+        j.assertBuildStatus(Result.FAILURE, p.scheduleBuild2(
+                0,
+                new Cause.UserCause(),
+                new ParametersAction(new StringParameterValue("BRANCH", "release"))
+        ).get());
+
+        BuildIndex index = BuildIndexes.get().loadIndex(p);
+        assertThat(index, notNullValue());
+        assertThat(index.size(), is(2));
+        assertThat(index.resultAt(index.positionOf(1)), is(Result.SUCCESS));
+        assertThat(index.resultAt(index.positionOf(2)), is(Result.FAILURE));
+        assertThat(index.parameterAt(index.positionOf(2), "BRANCH"), is("release"));
+        assertThat(index.parameterAt(index.positionOf(2), "PLATFORM"), nullValue());
+        assertThat(index.displayNameAt(index.positionOf(1)), is("#1"));
+
+        // updated as builds change.
+        p.getBuildersList().clear();
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        assertThat(index.size(), is(3));
+        p.getBuildByNumber(1).keepLog(true);
+        BuildIndexes.get().awaitApplied(p);
+        assertThat(index.isKeepLogAt(index.positionOf(1)), is(true));
+        p.getBuildByNumber(1).setDisplayName("first");
+        BuildIndexes.get().awaitApplied(p);
+        assertThat(index.displayNameAt(index.positionOf(1)), is("first"));
+        p.getBuildByNumber(2).delete();
+        assertThat(index.positionOf(2) < 0, is(true));
+
+        BuildIndexes.flushAll();
+        BuildIndex read = BuildIndexFile.read(new File(p.getRootDir(), BuildIndexFile.NAME));
+        assertThat(read.size(), is(2));
+        assertThat(read.isKeepLogAt(read.positionOf(1)), is(true));
+        assertThat(read.displayNameAt(read.positionOf(1)), is("first"));
+        assertThat(read.parameterAt(read.positionOf(3), "BRANCH"), is("master"));
+    }
+
+    @Test
+    public void testRebuildCorruptedIndex() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        BuildIndexes.get().loadIndex(p);
+        BuildIndexes.flushAll();
+
+        File file = new File(p.getRootDir(), BuildIndexFile.NAME);
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file.toPath(), bytes);
+        BuildIndexes.get().forget(p.getFullName(), false);
+
+        BuildIndex index = BuildIndexes.get().loadIndex(p);
+        assertThat(index.size(), is(2));
+
+        Files.write(file.toPath(), "garbage".getBytes(StandardCharsets.UTF_8));
+        BuildIndexes.get().forget(p.getFullName(), false);
+        index = BuildIndexes.get().loadIndex(p);
+        assertThat(index.size(), is(2));
+    }
+
+    @Test
+    public void testCatchUp() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        BuildIndexes.get().loadIndex(p);
+        BuildIndexes.flushAll();
+        BuildIndexes.get().forget(p.getFullName(), false);
+
+        // completed while the index is not loaded.
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        BuildIndex index = BuildIndexes.get().loadIndex(p);
+        assertThat(index.size(), is(2));
+    }
+
+    @Test
+    public void testJournal() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        BuildIndexes.get().loadIndex(p);
+        BuildIndexes.flushAll();
+        File journal = new File(p.getRootDir(), BuildIndexFile.JOURNAL_NAME);
+        assertThat(journal.exists(), is(false));
+        BuildIndexes.get().forget(p.getFullName(), false);
+
+        // changed while the index is not loaded.
+        p.getBuildByNumber(1).keepLog(true);
+        p.getBuildByNumber(2).delete();
+        assertThat(journal.exists(), is(true));
+
+        BuildIndex index = BuildIndexes.get().loadIndex(p);
+        assertThat(index.size(), is(2));
+        assertThat(index.isKeepLogAt(index.positionOf(1)), is(true));
+        assertThat(index.positionOf(2) < 0, is(true));
+
+        BuildIndexes.flushAll();
+        assertThat(journal.exists(), is(false));
+        BuildIndex read = BuildIndexFile.read(new File(p.getRootDir(), BuildIndexFile.NAME));
+        assertThat(read.size(), is(2));
+        assertThat(read.isKeepLogAt(read.positionOf(1)), is(true));
+    }
+
+    @Test
+    public void testJournalWithoutIndex() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        p.getBuildByNumber(1).keepLog(true);
+        p.getBuildByNumber(2).delete();
+        assertThat(new File(p.getRootDir(), BuildIndexFile.JOURNAL_NAME).exists(), is(false));
+        assertThat(new File(p.getRootDir(), BuildIndexFile.NAME).exists(), is(false));
+
+        // built when first used.
+        BuildIndex index = BuildIndexes.get().loadIndex(p);
+        assertThat(index.size(), is(1));
+        assertThat(index.isKeepLogAt(index.positionOf(1)), is(true));
+    }
+
+    @Test
+    public void testSaveRunning() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        final OneShotEvent started = new OneShotEvent();
+        final OneShotEvent finish = new OneShotEvent();
+        p.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException {
+                started.signal();
+                finish.block();
+                return true;
+            }
+        });
+        BuildIndexes indexes = BuildIndexes.get();
+        BuildIndex index = indexes.loadIndex(p);
+        QueueTaskFuture<FreeStyleBuild> f = p.scheduleBuild2(0);
+        started.block();
+        FreeStyleBuild build = p.getBuildByNumber(1);
+        indexes.awaitApplied(p);
+        File journal = new File(p.getRootDir(), BuildIndexFile.JOURNAL_NAME);
+        BuildIndexes.flushAll();
+        assertThat(journal.exists(), is(false));
+
+        // e.g. saved by each step of Pipeline builds.
+        build.save();
+        assertThat(indexes.getIndex(p), notNullValue());
+        assertThat(journal.exists(), is(false));
+
+        build.setDisplayName("running");
+        indexes.awaitApplied(p);
+        assertThat(index.displayNameAt(index.positionOf(1)), is("running"));
+        assertThat(index.isBuildingAt(index.positionOf(1)), is(true));
+        assertThat(journal.exists(), is(true));
+
+        finish.signal();
+        j.assertBuildStatusSuccess(f);
+    }
+
+    @Test
+    public void testSelectWithIndex() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        p.getBuildersList().add(new FailureBuilder());
+        j.assertBuildStatus(Result.FAILURE, p.scheduleBuild2(0).get());
+        j.assertBuildStatus(Result.FAILURE, p.scheduleBuild2(0).get());
+        Run<?, ?> consumer = j.assertBuildStatusSuccess(j.createFreeStyleProject().scheduleBuild2(0));
+        BuildIndexes.get().loadIndex(p);
+
+        StatusRunSelector selector = new StatusRunSelector(StatusRunSelector.BuildStatus.STABLE);
+        RunSelectorContext context = new RunSelectorContext(j.jenkins, consumer, TaskListener.NULL);
+        assertThat(selector.select(p, context).getNumber(), is(1));
+        assertThat(selector.selectNext(p, context), nullValue());
+
+        selector = new StatusRunSelector(StatusRunSelector.BuildStatus.FAILED);
+        assertThat(selector.select(p, context).getNumber(), is(3));
+        assertThat(selector.selectNext(p, context).getNumber(), is(2));
+        assertThat(selector.selectNext(p, context), nullValue());
+    }
+}
@@ -0,0 +1,105 @@
+package org.jenkinsci.plugins.runselector.index;
+
+import hudson.model.FreeStyleProject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link IndexWarmup}.
+ */
+public class IndexWarmupTest {
+
+    @Rule
+    public final JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testWarmUp() throws Exception {
+        FreeStyleProject p1 = j.createFreeStyleProject();
+        FreeStyleProject p2 = j.createFreeStyleProject();
+        j.assertBuildStatusSuccess(p1.scheduleBuild2(0));
+        j.assertBuildStatusSuccess(p2.scheduleBuild2(0));
+
+        // only p1 is selected from.
+        BuildIndexes indexes = BuildIndexes.get();
+        assertThat(indexes.loadIndex(p1), notNullValue());
+        assertThat(indexes.getIndex(p1), notNullValue());
+        BuildIndexes.flushAll();
+        indexes.forget(p1.getFullName(), true);
+
+        IndexWarmup.warmUp();
+        IndexWarmup warmup = IndexWarmup.get();
+        long timeout = System.currentTimeMillis() + 30000;
+        while (!warmup.isFinished() && System.currentTimeMillis() < timeout) {
+            Thread.sleep(100);
+        }
+        assertThat(warmup.isFinished(), is(true));
+        assertThat(warmup.getTotal(), is(1));
+        assertThat(warmup.getCompleted(), is(1));
+        assertThat(warmup.getFailed(), is(0));
+
+        // built when first selected from.
+        BuildIndexes.flushAll();
+        assertThat(new File(p1.getRootDir(), BuildIndexFile.NAME).exists(), is(true));
+        assertThat(new File(p2.getRootDir(), BuildIndexFile.NAME).exists(), is(false));
+
+        j.createWebClient().goTo("runSelectorIndexes");
+    }
+
+    @Test
+    public void testWarmUpWhileRequested() throws Exception {
+        final FreeStyleProject p = j.createFreeStyleProject();
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        final BuildIndexes indexes = BuildIndexes.get();
+        IndexWarmup warmup = IndexWarmup.get();
+
+        // a warm-up task holds a thread, and other threads are busy.
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch requested = new CountDownLatch(1);
+        final CountDownLatch warmed = new CountDownLatch(1);
+        final AtomicBoolean result = new AtomicBoolean();
+        warmup.execute(0, new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    requested.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                result.set(indexes.warmIndex(p));
+                warmed.countDown();
+            }
+        });
+        for (int i = 1; i < IndexWarmup.POOL_SIZE; ++i) {
+            warmup.execute(0, new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        warmed.await();
+                    } catch (InterruptedException e) {
+                        // exit
+                    }
+                }
+            });
+        }
+        started.await();
+
+        // the load is queued behind the warm-up task.
+        assertThat(indexes.getIndex(p), nullValue());
+        requested.countDown();
+        assertThat(warmed.await(30, TimeUnit.SECONDS), is(true));
+        assertThat(result.get(), is(true));
+        assertThat(indexes.loadIndex(p), notNullValue());
+    }
+}
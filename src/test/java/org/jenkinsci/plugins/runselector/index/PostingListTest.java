@@ -0,0 +1,48 @@
+package org.jenkinsci.plugins.runselector.index;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link PostingList}.
+ */
+public class PostingListTest {
+
+    @Test
+    public void testSeek() throws Exception {
+        PostingList posting = new PostingList();
+        assertThat(posting.seek(Integer.MAX_VALUE), is(-1));
+        for (int number = 3; number <= 30000; number += 3) {
+            posting.add(number);
+        }
+        assertThat(posting.size(), is(10000));
+        assertThat(posting.seek(Integer.MAX_VALUE), is(30000));
+        assertThat(posting.seek(30000), is(29997));
+        assertThat(posting.seek(1000), is(999));
+        assertThat(posting.seek(193), is(192));
+        assertThat(posting.seek(4), is(3));
+        assertThat(posting.seek(3), is(-1));
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        PostingList posting = new PostingList();
+        for (int number = 1; number <= 200; ++number) {
+            posting.add(number * 1000);
+        }
+        posting.add(1500);
+        posting.add(1500);
+        assertThat(posting.size(), is(201));
+        assertThat(posting.seek(2000), is(1500));
+
+        posting.remove(1500);
+        posting.remove(1000);
+        posting.remove(12345);
+        assertThat(posting.size(), is(199));
+        assertThat(posting.seek(2000), is(-1));
+        assertThat(posting.seek(150001), is(150000));
+        assertThat(posting.toArray()[0], is(2000));
+    }
+}
@@ -0,0 +1,74 @@
+package org.jenkinsci.plugins.runselector.metrics;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.selectors.StatusRunSelector;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests for {@link SelectionEvents}.
+ * JFR is accessed through reflection as tests are built for Java 8, too.
+ */
+public class SelectionEventsTest {
+
+    @ClassRule
+    public static final JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testSelectionEvent() throws Exception {
+        assumeTrue(SelectionEvents.isAvailable());
+
+        FreeStyleProject jobToSelect = j.createFreeStyleProject();
+        j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0));
+        FreeStyleProject selecter = j.createFreeStyleProject();
+        Run run = j.assertBuildStatusSuccess(selecter.scheduleBuild2(0));
+
+        Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+        Object recording = recordingClass.newInstance();
+        recordingClass.getMethod("enable", String.class).invoke(recording, SelectionEvents.SELECTION_EVENT);
+        recordingClass.getMethod("start").invoke(recording);
+        Run selected = new StatusRunSelector().select(
+                jobToSelect,
+                new RunSelectorContext(j.jenkins, run, TaskListener.NULL)
+        );
+        recordingClass.getMethod("stop").invoke(recording);
+        assertThat(selected, notNullValue());
+
+        File dump = File.createTempFile("selection", ".jfr");
+        try {
+            recordingClass.getMethod("dump", Path.class).invoke(recording, dump.toPath());
+            List<?> events = (List<?>) Class.forName("jdk.jfr.consumer.RecordingFile")
+                    .getMethod("readAllEvents", Path.class)
+                    .invoke(null, dump.toPath());
+            List<String> selectedJobs = new ArrayList<String>();
+            for (Object event : events) {
+                Object eventType = event.getClass().getMethod("getEventType").invoke(event);
+                String name = (String) eventType.getClass().getMethod("getName").invoke(eventType);
+                if (!SelectionEvents.SELECTION_EVENT.equals(name)) {
+                    continue;
+                }
+                Method getValue = event.getClass().getMethod("getValue", String.class);
+                selectedJobs.add(getValue.invoke(event, "job") + "#" + getValue.invoke(event, "buildNumber"));
+            }
+            assertThat(selectedJobs, contains(jobToSelect.getFullName() + "#1"));
+        } finally {
+            recordingClass.getMethod("close").invoke(recording);
+            dump.delete();
+        }
+    }
+}
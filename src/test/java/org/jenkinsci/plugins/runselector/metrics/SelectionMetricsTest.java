@@ -0,0 +1,119 @@
+package org.jenkinsci.plugins.runselector.metrics;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.filters.NoRunFilter;
+import org.jenkinsci.plugins.runselector.filters.NotRunFilter;
+import org.jenkinsci.plugins.runselector.selectors.StatusRunSelector;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import javax.annotation.CheckForNull;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link SelectionMetrics}.
+ */
+public class SelectionMetricsTest {
+
+    @ClassRule
+    public static final JenkinsRule j = new JenkinsRule();
+
+    @Before
+    public void setUp() {
+        SelectionMetrics.get().reset();
+    }
+
+    @Test
+    public void testRecordsSelectionsAndFilters() throws Exception {
+        FreeStyleProject jobToSelect = j.createFreeStyleProject();
+        j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0));
+        j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0));
+        j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0));
+
+        FreeStyleProject selecter = j.createFreeStyleProject();
+        Run run = j.assertBuildStatusSuccess(selecter.scheduleBuild2(0));
+
+        StatusRunSelector selector = new StatusRunSelector(StatusRunSelector.BuildStatus.ANY);
+        RunSelectorContext context = new RunSelectorContext(
+                j.jenkins, run, TaskListener.NULL, new NotRunFilter(new NoRunFilter()));
+        assertThat(selector.select(jobToSelect, context), nullValue());
+
+        context = new RunSelectorContext(j.jenkins, run, TaskListener.NULL);
+        assertThat(selector.select(jobToSelect, context), is((Run) jobToSelect.getLastBuild()));
+
+        SelectionMetrics.SelectorStats selectorStats = findSelectorStats(StatusRunSelector.class.getName());
+        assertThat(selectorStats, notNullValue());
+        assertThat(selectorStats.getSelections(), is(2L));
+        assertThat(selectorStats.getMatches(), is(1L));
+        assertThat(selectorStats.getCandidatesScanned(), is(4L));
+        assertThat(selectorStats.getMaxCandidates(), is(3L));
+        // 3 builds and the end of the enumeration in the first selection, 1 build in the second.
+        assertThat(selectorStats.getNextBuildCalls(), is(5L));
+
+        SelectionMetrics.FilterStats notStats = findFilterStats(NotRunFilter.class.getName());
+        assertThat(notStats, notNullValue());
+        assertThat(notStats.getEvaluations(), is(3L));
+        assertThat(notStats.getAccepted(), is(0L));
+
+        SelectionMetrics.FilterStats noStats = findFilterStats(NoRunFilter.class.getName());
+        assertThat(noStats, notNullValue());
+        assertThat(noStats.getEvaluations(), is(4L));
+        assertThat(noStats.getAcceptanceRatio(), is(1.0));
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(SelectionMetrics.OBJECT_NAME);
+        assertThat(server.isRegistered(name), is(true));
+        assertThat((Long) server.getAttribute(name, "Selections"), is(0L));
+    }
+
+    @Test
+    public void testHistogram() {
+        Histogram histogram = new Histogram();
+        assertThat(histogram.getPercentile(50), is(0L));
+        for (long i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        assertThat(histogram.getCount(), is(100L));
+        assertThat(histogram.getSum(), is(5050L));
+        assertThat(histogram.getMax(), is(100L));
+        // 50 falls in [32, 64)
+        assertThat(histogram.getPercentile(50), is(63L));
+        // capped with the max value
+        assertThat(histogram.getPercentile(99), is(100L));
+    }
+
+    @CheckForNull
+    private static SelectionMetrics.SelectorStats findSelectorStats(String name) {
+        for (SelectionMetrics.SelectorStats stats : SelectionMetrics.get().getSelectorStats()) {
+            if (stats.getName().equals(name)) {
+                return stats;
+            }
+        }
+        return null;
+    }
+
+    @CheckForNull
+    private static SelectionMetrics.FilterStats findFilterStats(String name) {
+        for (SelectionMetrics.FilterStats stats : SelectionMetrics.get().getFilterStats()) {
+            if (stats.getName().equals(name)) {
+                return stats;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,100 @@
+package org.jenkinsci.plugins.runselector.metrics;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.filters.NoRunFilter;
+import org.jenkinsci.plugins.runselector.filters.NotRunFilter;
+import org.jenkinsci.plugins.runselector.selectors.FallbackRunSelector;
+import org.jenkinsci.plugins.runselector.selectors.StatusRunSelector;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link SelectionProfileAction}.
+ */
+public class SelectionProfileActionTest {
+
+    @ClassRule
+    public static final JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testProfileIsAttached() throws Exception {
+        FreeStyleProject jobToSelect = j.createFreeStyleProject();
+        j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0));
+        j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0));
+
+        FreeStyleProject selecter = j.createFreeStyleProject();
+        Run run = j.assertBuildStatusSuccess(selecter.scheduleBuild2(0));
+
+        StatusRunSelector selector = new StatusRunSelector(StatusRunSelector.BuildStatus.ANY);
+        RunSelectorContext context = new RunSelectorContext(
+                j.jenkins, run, TaskListener.NULL, new NotRunFilter(new NoRunFilter()));
+        assertThat(selector.select(jobToSelect, context), nullValue());
+        assertThat(context.getExtension(SelectionProfiler.class), nullValue());
+
+        SelectionProfileAction action = run.getAction(SelectionProfileAction.class);
+        assertThat(action, notNullValue());
+        assertThat(action.getProfiles(), hasSize(1));
+
+        SelectionProfile profile = action.getProfiles().get(0);
+        assertThat(profile.getJobName(), is(jobToSelect.getFullName()));
+        assertThat(profile.getSelectedBuild(), nullValue());
+
+        SelectionProfile.Node root = profile.getRoot();
+        assertThat(root.getKind(), is(SelectionProfile.Kind.SELECTOR));
+        assertThat(root.getName(), is(selector.getDisplayName()));
+        assertThat(root.getCandidates(), is(2));
+
+        List<SelectionProfile.Node> children = root.getChildren();
+        assertThat(children, hasSize(2));
+        assertThat(children.get(0).getKind(), is(SelectionProfile.Kind.ENUMERATION));
+        // 2 builds and the end of the enumeration.
+        assertThat(children.get(0).getCalls(), is(3));
+        assertThat(children.get(1).getKind(), is(SelectionProfile.Kind.FILTER));
+        assertThat(children.get(1).getCalls(), is(2));
+        assertThat(children.get(1).getAccepted(), is(0));
+        assertThat(children.get(1).getChildren(), hasSize(1));
+        assertThat(children.get(1).getChildren().get(0).getAccepted(), is(2));
+
+        assertThat(profile.getRows(), hasSize(3));
+        assertThat(profile.getFrames(), hasSize(4));
+        j.createWebClient().getPage(run, "selectionProfile");
+    }
+
+    @Test
+    public void testNestedSelectors() throws Exception {
+        FreeStyleProject jobToSelect = j.createFreeStyleProject();
+        j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0));
+
+        FreeStyleProject selecter = j.createFreeStyleProject();
+        Run run = j.assertBuildStatusSuccess(selecter.scheduleBuild2(0));
+
+        FallbackRunSelector selector = new FallbackRunSelector(
+                new StatusRunSelector(StatusRunSelector.BuildStatus.FAILED),
+                new StatusRunSelector(StatusRunSelector.BuildStatus.STABLE)
+        );
+        Run selected = selector.select(jobToSelect, new RunSelectorContext(j.jenkins, run, TaskListener.NULL));
+        assertThat(selected, is((Run) jobToSelect.getLastBuild()));
+
+        SelectionProfileAction action = run.getAction(SelectionProfileAction.class);
+        assertThat(action, notNullValue());
+        assertThat(action.getProfiles(), hasSize(1));
+
+        SelectionProfile profile = action.getProfiles().get(0);
+        assertThat(profile.getSelectedBuild(), is(selected.getFullDisplayName()));
+        assertThat(profile.getRoot().getName(), is(selector.getDisplayName()));
+        assertThat(profile.getRoot().getChildren(), hasSize(2));
+        assertThat(profile.getRoot().getTotalCandidates(), is(1));
+    }
+}
@@ -0,0 +1,158 @@
+package org.jenkinsci.plugins.runselector.parallel;
+
+import hudson.model.Cause;
+import hudson.model.FreeStyleProject;
+import hudson.model.ParametersAction;
+import hudson.model.ParametersDefinitionProperty;
+import hudson.model.PasswordParameterDefinition;
+import hudson.model.PasswordParameterValue;
+import hudson.model.Run;
+import hudson.model.StringParameterDefinition;
+import hudson.model.StringParameterValue;
+import hudson.model.TaskListener;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.filters.NoRunFilter;
+import org.jenkinsci.plugins.runselector.selectors.StatusRunSelector;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import javax.annotation.Nonnull;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link ConsistentRunSelection}.
+ */
+public class ConsistentRunSelectionTest {
+
+    @ClassRule
+    public static final JenkinsRule j = new JenkinsRule();
+
+    private static FreeStyleProject upstream;
+    private static FreeStyleProject jobA;
+    private static FreeStyleProject jobB;
+    private static FreeStyleProject jobC;
+    private static Run<?, ?> selecter;
+
+    /**
+     * jobA: #1 (VERSION=1, upstream#1), #2 (VERSION=2, upstream#2), #3 (VERSION=3, upstream#2)
+     * jobB: #1 (VERSION=1, upstream#1), #2 (VERSION=2)
+     * jobC: #1 (VERSION=2, upstream#1), #2 (VERSION=1, upstream#1)
+     */
+    @BeforeClass
+    public static void setUp() throws Exception {
+        upstream = j.createFreeStyleProject();
+        Run<?, ?> upstream1 = j.assertBuildStatusSuccess(upstream.scheduleBuild2(0));
+        Run<?, ?> upstream2 = j.assertBuildStatusSuccess(upstream.scheduleBuild2(0));
+
+        jobA = createJob();
+        build(jobA, "1", upstream1);
+        build(jobA, "2", upstream2);
+        build(jobA, "3", upstream2);
+        jobB = createJob();
+        build(jobB, "1", upstream1);
+        build(jobB, "2", null);
+        jobC = createJob();
+        build(jobC, "2", upstream1);
+        build(jobC, "1", upstream1);
+
+        selecter = j.assertBuildStatusSuccess(j.createFreeStyleProject().scheduleBuild2(0));
+    }
+
+    @Nonnull
+    private static FreeStyleProject createJob() throws Exception {
+        FreeStyleProject job = j.createFreeStyleProject();
+        job.addProperty(new ParametersDefinitionProperty(new StringParameterDefinition("VERSION", "")));
+        return job;
+    }
+
+    private static void build(@Nonnull FreeStyleProject job, @Nonnull String version, Run<?, ?> upstreamRun)
+            throws Exception
+    {
+        Cause cause = (upstreamRun != null) ? new Cause.UpstreamCause(upstreamRun) : new Cause.UserIdCause();
+        j.assertBuildStatusSuccess(job.scheduleBuild2(
+                0,
+                cause,
+                new ParametersAction(new StringParameterValue("VERSION", version))
+        ));
+    }
+
+    @Test
+    public void testParameter() throws Exception {
+        ConsistentRunSelection selection = newSelection(ConsistentRunSelection.JoinKey.parameter("VERSION"));
+        ConsistentRunSelection.Result result = selection.select();
+        assertThat(result, notNullValue());
+        // the set of VERSION=2 is newer than one of VERSION=1, as jobA#1 is the oldest build.
+        assertThat(result.getValue(), is("2"));
+        assertThat(result.getRuns().keySet(), contains("jobA", "jobB", "jobC"));
+        assertThat(result.getRuns().get("jobA").getNumber(), is(2));
+        assertThat(result.getRuns().get("jobB").getNumber(), is(2));
+        assertThat(result.getRuns().get("jobC").getNumber(), is(1));
+    }
+
+    @Test
+    public void testUpstream() throws Exception {
+        ConsistentRunSelection selection = newSelection(ConsistentRunSelection.JoinKey.fromName("upstream"));
+        ConsistentRunSelection.Result result = selection.select();
+        assertThat(result, notNullValue());
+        assertThat(result.getValue(), is(upstream.getFullName() + "#1"));
+        assertThat(result.getRuns().get("jobA").getNumber(), is(1));
+        assertThat(result.getRuns().get("jobB").getNumber(), is(1));
+        // the newest build triggered by the upstream build.
+        assertThat(result.getRuns().get("jobC").getNumber(), is(2));
+    }
+
+    @Test
+    public void testNotFound() throws Exception {
+        ConsistentRunSelection selection = newSelection(ConsistentRunSelection.JoinKey.parameter("VERSION"));
+        selection.setDepth(1);
+        assertThat(selection.select(), nullValue());
+
+        selection = newSelection(ConsistentRunSelection.JoinKey.parameter("NO_SUCH_PARAMETER"));
+        assertThat(selection.select(), nullValue());
+    }
+
+    @Test
+    public void testSensitiveParameter() throws Exception {
+        FreeStyleProject job = j.createFreeStyleProject();
+        job.addProperty(new ParametersDefinitionProperty(new PasswordParameterDefinition("PIN", "", "")));
+        Run<?, ?> run = j.assertBuildStatusSuccess(job.scheduleBuild2(
+                0,
+                new Cause.UserIdCause(),
+                new ParametersAction(new PasswordParameterValue("PIN", "1234"))
+        ));
+        assertThat(ConsistentRunSelection.JoinKey.parameter("PIN").valuesOf(run), empty());
+    }
+
+    @Test
+    public void testInvalidJoinKey() throws Exception {
+        try {
+            ConsistentRunSelection.JoinKey.fromName("parameter:");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertThat(ConsistentRunSelection.JoinKey.fromName("parameter:VERSION").getName(), is("parameter:VERSION"));
+        assertThat(ConsistentRunSelection.JoinKey.fromName("REVISION"), is(ConsistentRunSelection.JoinKey.REVISION));
+    }
+
+    @Nonnull
+    private static ConsistentRunSelection newSelection(@Nonnull ConsistentRunSelection.JoinKey joinKey) {
+        ConsistentRunSelection selection = new ConsistentRunSelection(
+                new RunSelectorContext(j.jenkins, selecter, TaskListener.NULL),
+                joinKey
+        );
+        selection.add("jobA", jobA, new StatusRunSelector(), new NoRunFilter());
+        selection.add("jobB", jobB, new StatusRunSelector(), new NoRunFilter());
+        selection.add("jobC", jobC, new StatusRunSelector(), new NoRunFilter());
+        return selection;
+    }
+}
@@ -0,0 +1,120 @@
+package org.jenkinsci.plugins.runselector.parallel;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.filters.DisplayNameRunFilter;
+import org.jenkinsci.plugins.runselector.selectors.StatusRunSelector;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockFolder;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link ItemGroupRunSelection}.
+ */
+public class ItemGroupRunSelectionTest {
+
+    @ClassRule
+    public static final JenkinsRule j = new JenkinsRule();
+
+    private static MockFolder folder;
+    private static Run<?, ?> selecter;
+
+    /**
+     * Builds in the order: a#1, b#1, c#1 (in a nested folder), a#2, b#2, a#3
+     */
+    @BeforeClass
+    public static void setUp() throws Exception {
+        folder = j.createFolder("folder");
+        FreeStyleProject a = folder.createProject(FreeStyleProject.class, "a");
+        FreeStyleProject b = folder.createProject(FreeStyleProject.class, "b");
+        FreeStyleProject c = folder.createProject(MockFolder.class, "nested").createProject(FreeStyleProject.class, "c");
+        folder.createProject(FreeStyleProject.class, "empty");
+
+        j.assertBuildStatusSuccess(a.scheduleBuild2(0));
+        Thread.sleep(10);
+        j.assertBuildStatusSuccess(b.scheduleBuild2(0));
+        Thread.sleep(10);
+        j.assertBuildStatusSuccess(c.scheduleBuild2(0));
+        Thread.sleep(10);
+        j.assertBuildStatusSuccess(a.scheduleBuild2(0));
+        Thread.sleep(10);
+        j.assertBuildStatusSuccess(b.scheduleBuild2(0));
+        Thread.sleep(10);
+        j.assertBuildStatusSuccess(a.scheduleBuild2(0));
+
+        selecter = j.assertBuildStatusSuccess(j.createFreeStyleProject().scheduleBuild2(0));
+    }
+
+    @Test
+    public void testNewest() throws Exception {
+        ItemGroupRunSelection selection = newSelection();
+        assertThat(names(selection.select()), contains("folder/a #3"));
+    }
+
+    @Test
+    public void testMergeByTimestamp() throws Exception {
+        ItemGroupRunSelection selection = newSelection();
+        selection.setLimit(0);
+        assertThat(names(selection.select()), contains(
+                "folder/a #3", "folder/b #2", "folder/a #2", "folder/nested/c #1", "folder/b #1", "folder/a #1"
+        ));
+    }
+
+    @Test
+    public void testMergeByNumber() throws Exception {
+        ItemGroupRunSelection selection = newSelection();
+        selection.setOrder(ItemGroupRunSelection.Order.NUMBER);
+        selection.setLimit(4);
+        assertThat(names(selection.select()), contains(
+                "folder/a #3", "folder/a #2", "folder/b #2", "folder/a #1"
+        ));
+    }
+
+    @Test
+    public void testFilter() throws Exception {
+        RunSelectorContext context = new RunSelectorContext(
+                j.jenkins, selecter, TaskListener.NULL, new DisplayNameRunFilter("#1"));
+        ItemGroupRunSelection selection = new ItemGroupRunSelection(context, folder, new StatusRunSelector());
+        selection.setLimit(2);
+        assertThat(names(selection.select()), contains("folder/nested/c #1", "folder/b #1"));
+    }
+
+    @Test
+    public void testNoMatch() throws Exception {
+        RunSelectorContext context = new RunSelectorContext(
+                j.jenkins, selecter, TaskListener.NULL, new DisplayNameRunFilter("#10"));
+        ItemGroupRunSelection selection = new ItemGroupRunSelection(context, folder, new StatusRunSelector());
+        assertThat(selection.select(), is(empty()));
+    }
+
+    @Nonnull
+    private static ItemGroupRunSelection newSelection() throws Exception {
+        return new ItemGroupRunSelection(
+                new RunSelectorContext(j.jenkins, selecter, TaskListener.NULL),
+                folder,
+                new StatusRunSelector()
+        );
+    }
+
+    @Nonnull
+    private static List<String> names(@Nonnull List<Run<?, ?>> runs) {
+        List<String> names = new ArrayList<String>();
+        for (Run<?, ?> run : runs) {
+            names.add(run.getParent().getFullName() + " #" + run.getNumber());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,115 @@
+package org.jenkinsci.plugins.runselector.parallel;
+
+import hudson.AbortException;
+import hudson.model.FreeStyleProject;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.filters.NoRunFilter;
+import org.jenkinsci.plugins.runselector.selectors.BuildNumberRunSelector;
+import org.jenkinsci.plugins.runselector.selectors.StatusRunSelector;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link ParallelRunSelection}.
+ */
+public class ParallelRunSelectionTest {
+
+    @ClassRule
+    public static final JenkinsRule j = new JenkinsRule();
+
+    private static FreeStyleProject job1;
+    private static FreeStyleProject job2;
+    private static Run<?, ?> selecter;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        job1 = j.createFreeStyleProject();
+        j.assertBuildStatusSuccess(job1.scheduleBuild2(0));
+        job2 = j.createFreeStyleProject();
+        j.assertBuildStatusSuccess(job2.scheduleBuild2(0));
+        j.assertBuildStatusSuccess(job2.scheduleBuild2(0));
+        selecter = j.assertBuildStatusSuccess(j.createFreeStyleProject().scheduleBuild2(0));
+    }
+
+    @Test
+    public void testSelect() throws Exception {
+        ParallelRunSelection selection = newSelection();
+        selection.add("job2", job2, new StatusRunSelector(), new NoRunFilter());
+        selection.add("job1", job1, new StatusRunSelector(), new NoRunFilter());
+
+        Map<String, ParallelRunSelection.Result> results = selection.select();
+        assertThat(results.keySet(), contains("job2", "job1"));
+        assertThat(results.get("job1").getRun(), is((Run) job1.getLastBuild()));
+        assertThat(results.get("job2").getRun(), is((Run) job2.getLastBuild()));
+    }
+
+    @Test
+    public void testFailureDoesNotStopOthers() throws Exception {
+        ParallelRunSelection selection = newSelection();
+        selection.add("failing", job1, new FailingRunSelector(), new NoRunFilter());
+        selection.add("missing", job1, new BuildNumberRunSelector("10"), new NoRunFilter());
+        selection.add("job2", job2, new StatusRunSelector(), new NoRunFilter());
+
+        Map<String, ParallelRunSelection.Result> results = selection.select();
+        assertThat(results.get("failing").isSelected(), is(false));
+        assertThat(results.get("failing").getFailure(), instanceOf(IOException.class));
+        assertThat(results.get("missing").isSelected(), is(false));
+        assertThat(results.get("missing").getFailure(), nullValue());
+        assertThat(results.get("job2").getRun(), is((Run) job2.getLastBuild()));
+    }
+
+    @Test
+    public void testFailFast() throws Exception {
+        ParallelRunSelection selection = newSelection();
+        selection.setFailFast(true);
+        selection.add("missing", job1, new BuildNumberRunSelector("10"), new NoRunFilter());
+        selection.add("job2", job2, new StatusRunSelector(), new NoRunFilter());
+
+        try {
+            selection.select();
+            fail();
+        } catch (AbortException e) {
+            // expected
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateKey() throws Exception {
+        ParallelRunSelection selection = newSelection();
+        selection.add("job1", job1, new StatusRunSelector(), new NoRunFilter());
+        selection.add("job1", job2, new StatusRunSelector(), new NoRunFilter());
+    }
+
+    /**
+     * A selector always fails.
+     */
+    private static class FailingRunSelector extends RunSelector {
+        @Override
+        public Run<?, ?> getNextBuild(@Nonnull Job<?, ?> job, @Nonnull RunSelectorContext context)
+                throws IOException {
+            throw new IOException("failed");
+        }
+    }
+
+    @Nonnull
+    private static ParallelRunSelection newSelection() throws Exception {
+        return new ParallelRunSelection(new RunSelectorContext(j.jenkins, selecter, TaskListener.NULL));
+    }
+}
@@ -0,0 +1,158 @@
+package org.jenkinsci.plugins.runselector.permalinks;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Job;
+import hudson.model.PermalinkProjectAction.Permalink;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.util.FormValidation;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.filters.SavedRunFilter;
+import org.jenkinsci.plugins.runselector.selectors.PermalinkRunSelector;
+import org.jenkinsci.plugins.runselector.selectors.StatusRunSelector;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link SelectorPermalinksProperty}.
+ */
+public class SelectorPermalinksPropertyTest {
+
+    @Rule
+    public final JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testPermalink() throws Exception {
+        CountingRunSelector selector = new CountingRunSelector();
+        FreeStyleProject p = createProject(selector);
+
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        assertThat(resolve(p), nullValue());
+
+        p.getBuildByNumber(1).keepLog(true);
+        awaitReevaluation(p);
+        assertThat(resolve(p).getNumber(), is(1));
+
+        // evaluated in background when the build completes, not when resolved.
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        awaitReevaluation(p);
+        selector.count = 0;
+        assertThat(resolve(p).getNumber(), is(1));
+        assertThat(resolve(p).getNumber(), is(1));
+        assertThat(selector.count, is(0));
+        assertThat(new File(p.getRootDir(), "selectorPermalinks").exists(), is(true));
+
+        p.getBuildByNumber(3).keepLog(true);
+        awaitReevaluation(p);
+        assertThat(resolve(p).getNumber(), is(3));
+
+        // older than the cached build.
+        selector.count = 0;
+        p.getBuildByNumber(2).keepLog(true);
+        awaitReevaluation(p);
+        assertThat(resolve(p).getNumber(), is(3));
+        assertThat(selector.count, is(0));
+
+        p.getBuildByNumber(3).delete();
+        awaitReevaluation(p);
+        assertThat(resolve(p).getNumber(), is(2));
+    }
+
+    @Test
+    public void testNotIncremental() throws Exception {
+        CountingRunSelector selector = new CountingRunSelector();
+        selector.incremental = false;
+        FreeStyleProject p = createProject(selector);
+
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0)).keepLog(true);
+        awaitReevaluation(p);
+        assertThat(resolve(p).getNumber(), is(2));
+
+        // the selection may not pick the newest matching build.
+        selector.count = 0;
+        p.getBuildByNumber(1).keepLog(true);
+        awaitReevaluation(p);
+        assertThat(resolve(p).getNumber(), is(2));
+        assertThat(selector.count > 0, is(true));
+    }
+
+    @Test
+    public void testPermalinkRunSelector() throws Exception {
+        FreeStyleProject p = createProject(new CountingRunSelector());
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0)).keepLog(true);
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        Run<?, ?> selecter = j.assertBuildStatusSuccess(j.createFreeStyleProject().scheduleBuild2(0));
+
+        Run<?, ?> selected = new PermalinkRunSelector("lastKeptBuild").select(
+                p,
+                new RunSelectorContext(j.jenkins, selecter, TaskListener.NULL)
+        );
+        assertThat(selected, notNullValue());
+        assertThat(selected.getNumber(), is(1));
+    }
+
+    @Test
+    public void testCheckId() throws Exception {
+        SelectorPermalink.DescriptorImpl d = j.jenkins.getDescriptorByType(SelectorPermalink.DescriptorImpl.class);
+        assertThat(d.doCheckId("lastKeptBuild").kind, is(FormValidation.Kind.OK));
+        assertThat(d.doCheckId("").kind, is(FormValidation.Kind.ERROR));
+        assertThat(d.doCheckId("lastStableBuild").kind, is(FormValidation.Kind.ERROR));
+        assertThat(d.doCheckId("a/b").kind, is(FormValidation.Kind.ERROR));
+    }
+
+    /**
+     * Counts enumerated builds.
+     */
+    private static class CountingRunSelector extends StatusRunSelector {
+        // not to change the configuration.
+        transient int count;
+        transient boolean incremental = true;
+
+        CountingRunSelector() {
+            super(BuildStatus.COMPLETED);
+        }
+
+        @Override
+        public Run<?, ?> getNextBuild(@Nonnull Job<?, ?> job, @Nonnull RunSelectorContext context) {
+            ++count;
+            return super.getNextBuild(job, context);
+        }
+
+        @Override
+        public boolean isIncremental() {
+            return incremental;
+        }
+    }
+
+    @Nonnull
+    private FreeStyleProject createProject(@Nonnull StatusRunSelector selector) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        SelectorPermalink permalink = new SelectorPermalink("lastKeptBuild", selector);
+        permalink.setDisplayName("Last kept build");
+        permalink.setFilter(new SavedRunFilter());
+        p.addProperty(new SelectorPermalinksProperty(Collections.singletonList(permalink)));
+        return p;
+    }
+
+    private static void awaitReevaluation(@Nonnull Job<?, ?> job) throws Exception {
+        job.getProperty(SelectorPermalinksProperty.class).awaitReevaluation();
+    }
+
+    private static Run<?, ?> resolve(@Nonnull Job<?, ?> job) {
+        Permalink permalink = job.getPermalinks().get("lastKeptBuild");
+        assertThat(permalink, notNullValue());
+        return permalink.resolve(job);
+    }
+}
@@ -0,0 +1,85 @@
+package org.jenkinsci.plugins.runselector.selectors;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.filters.TimeRangeRunFilter;
+import org.jenkinsci.plugins.runselector.index.BuildIndexes;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link AsOfTimeRunSelector} and {@link TimeRangeRunFilter}.
+ */
+public class AsOfTimeRunSelectorTest {
+
+    @ClassRule
+    public static final JenkinsRule j = new JenkinsRule();
+
+    private static FreeStyleProject jobToSelect;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        jobToSelect = j.createFreeStyleProject();
+        for (int i = 0; i < 6; ++i) {
+            j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0));
+            Thread.sleep(10);
+        }
+        jobToSelect.getBuildByNumber(3).delete();
+    }
+
+    @Test
+    public void testAsOfTime() throws Exception {
+        Run<?, ?> run = j.assertBuildStatusSuccess(j.createFreeStyleProject().scheduleBuild2(0));
+        RunSelectorContext context = new RunSelectorContext(j.jenkins, run, TaskListener.NULL);
+
+        AsOfTimeRunSelector selector = new AsOfTimeRunSelector(Long.toString(timeOf(4) - 1));
+        assertThat(selector.select(jobToSelect, context).getNumber(), is(2));
+        assertThat(selector.selectNext(jobToSelect, context).getNumber(), is(1));
+        assertThat(selector.selectNext(jobToSelect, context), nullValue());
+
+        selector = new AsOfTimeRunSelector(Long.toString(timeOf(5)));
+        assertThat(selector.select(jobToSelect, context).getNumber(), is(5));
+        selector = new AsOfTimeRunSelector(Long.toString(timeOf(1) - 1));
+        assertThat(selector.select(jobToSelect, context), nullValue());
+        selector = new AsOfTimeRunSelector("0ms");
+        assertThat(selector.select(jobToSelect, context).getNumber(), is(6));
+
+        // with the index.
+        BuildIndexes.get().loadIndex(jobToSelect);
+        selector = new AsOfTimeRunSelector(Long.toString(timeOf(4) - 1));
+        assertThat(selector.select(jobToSelect, context).getNumber(), is(2));
+        assertThat(selector.selectNext(jobToSelect, context).getNumber(), is(1));
+        assertThat(selector.selectNext(jobToSelect, context), nullValue());
+    }
+
+    @Test
+    public void testTimeRangeFilter() throws Exception {
+        Run<?, ?> run = j.assertBuildStatusSuccess(j.createFreeStyleProject().scheduleBuild2(0));
+        TimeRangeRunFilter filter = new TimeRangeRunFilter(Long.toString(timeOf(2)), Long.toString(timeOf(5)));
+        RunSelectorContext context = new RunSelectorContext(j.jenkins, run, TaskListener.NULL, filter);
+
+        StatusRunSelector selector = new StatusRunSelector(StatusRunSelector.BuildStatus.STABLE);
+        assertThat(selector.select(jobToSelect, context).getNumber(), is(4));
+        assertThat(selector.selectNext(jobToSelect, context).getNumber(), is(2));
+        assertThat(selector.selectNext(jobToSelect, context), nullValue());
+
+        filter = new TimeRangeRunFilter("1h", "");
+        context = new RunSelectorContext(j.jenkins, run, TaskListener.NULL, filter);
+        assertThat(selector.select(jobToSelect, context).getNumber(), is(6));
+        filter = new TimeRangeRunFilter("", "1h");
+        context = new RunSelectorContext(j.jenkins, run, TaskListener.NULL, filter);
+        assertThat(selector.select(jobToSelect, context), nullValue());
+    }
+
+    private static long timeOf(int number) {
+        return jobToSelect.getBuildByNumber(number).getTimeInMillis();
+    }
+}
@@ -0,0 +1,141 @@
+package org.jenkinsci.plugins.runselector.selectors;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.ParametersAction;
+import hudson.model.ParametersDefinitionProperty;
+import hudson.model.PasswordParameterDefinition;
+import hudson.model.PasswordParameterValue;
+import hudson.model.Run;
+import hudson.model.StringParameterDefinition;
+import hudson.model.StringParameterValue;
+import hudson.model.TaskListener;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.filters.BuildNumberRangeRunFilter;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link BestRunSelector}.
+ */
+public class BestRunSelectorTest {
+
+    @ClassRule
+    public static final JenkinsRule j = new JenkinsRule();
+
+    private static FreeStyleProject jobToSelect;
+    private static Run<?, ?> selecter;
+
+    /**
+     * Builds #1 (SIZE=5), #2 (SIZE=3), #3 (SIZE=abc), #4 (SIZE=3), #5 (SIZE=8)
+     */
+    @BeforeClass
+    public static void setUp() throws Exception {
+        jobToSelect = j.createFreeStyleProject();
+        jobToSelect.addProperty(new ParametersDefinitionProperty(new StringParameterDefinition("SIZE", "")));
+        for (String size : new String[]{"5", "3", "abc", "3", "8"}) {
+            j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(
+                    0,
+                    null,
+                    new ParametersAction(new StringParameterValue("SIZE", size))
+            ));
+        }
+        selecter = j.assertBuildStatusSuccess(j.createFreeStyleProject().scheduleBuild2(0));
+    }
+
+    @Test
+    public void testLowest() throws Exception {
+        BestRunSelector selector = new BestRunSelector(new StatusRunSelector(), new BestRunSelector.Parameter("SIZE"));
+        // newer first for the same value.
+        assertThat(numbers(selector), contains(4));
+
+        selector.setTop(3);
+        assertThat(numbers(selector), contains(4, 2, 1));
+
+        selector.setTop(10);
+        // non-numeric values are skipped.
+        assertThat(numbers(selector), contains(4, 2, 1, 5));
+    }
+
+    @Test
+    public void testHighest() throws Exception {
+        BestRunSelector selector = new BestRunSelector(new StatusRunSelector(), new BestRunSelector.Parameter("SIZE"));
+        selector.setHighest(true);
+        selector.setTop(2);
+        assertThat(numbers(selector), contains(5, 1));
+    }
+
+    @Test
+    public void testCandidates() throws Exception {
+        BestRunSelector selector = new BestRunSelector(new StatusRunSelector(), new BestRunSelector.Parameter("SIZE"));
+        selector.setCandidates(1);
+        assertThat(numbers(selector), contains(5));
+
+        selector.setCandidates(3);
+        selector.setTop(3);
+        assertThat(numbers(selector), contains(4, 5));
+    }
+
+    @Test
+    public void testFilter() throws Exception {
+        BestRunSelector selector = new BestRunSelector(new StatusRunSelector(), new BestRunSelector.Parameter("SIZE"));
+        selector.setFilter(new BuildNumberRangeRunFilter("1-3"));
+        assertThat(numbers(selector), contains(2));
+    }
+
+    @Test
+    public void testTimestamp() throws Exception {
+        BestRunSelector selector = new BestRunSelector(new StatusRunSelector(), new BestRunSelector.Timestamp());
+        assertThat(numbers(selector), contains(1));
+        selector.setHighest(true);
+        assertThat(numbers(selector), contains(5));
+    }
+
+    @Test
+    public void testDuration() throws Exception {
+        BestRunSelector selector = new BestRunSelector(new StatusRunSelector(), new BestRunSelector.Duration());
+        selector.setTop(10);
+        assertThat(numbers(selector).size(), is(5));
+    }
+
+    @Test
+    public void testNoCandidates() throws Exception {
+        BestRunSelector selector = new BestRunSelector(new BuildNumberRunSelector("10"), new BestRunSelector.Duration());
+        assertThat(numbers(selector), empty());
+    }
+
+    @Test
+    public void testSensitiveParameter() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.addProperty(new ParametersDefinitionProperty(new PasswordParameterDefinition("PIN", "", "")));
+        j.assertBuildStatusSuccess(p.scheduleBuild2(
+                0,
+                null,
+                new ParametersAction(new PasswordParameterValue("PIN", "1234"))
+        ));
+        BestRunSelector selector = new BestRunSelector(new StatusRunSelector(), new BestRunSelector.Parameter("PIN"));
+        assertThat(selector.getKey().keyOf(p.getLastBuild()), nullValue());
+    }
+
+    @Nonnull
+    private static List<Integer> numbers(@Nonnull RunSelector selector) throws Exception {
+        RunSelectorContext context = new RunSelectorContext(j.jenkins, selecter, TaskListener.NULL);
+        List<Integer> numbers = new ArrayList<Integer>();
+        for (Run<?, ?> run = selector.select(jobToSelect, context); run != null; run = selector.selectNext(jobToSelect, context)) {
+            numbers.add(run.getNumber());
+        }
+        return numbers;
+    }
+}
@@ -0,0 +1,122 @@
+package org.jenkinsci.plugins.runselector.selectors;
+
+import hudson.model.Cause;
+import hudson.model.FreeStyleProject;
+import hudson.model.ParametersAction;
+import hudson.model.ParametersDefinitionProperty;
+import hudson.model.Run;
+import hudson.model.StringParameterDefinition;
+import hudson.model.StringParameterValue;
+import hudson.model.TaskListener;
+import org.jenkinsci.plugins.runselector.BuildNumberRange;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.filters.BuildNumberRangeRunFilter;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import javax.annotation.Nonnull;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link BuildNumberRangeRunSelector} and {@link BuildNumberRangeRunFilter}.
+ */
+public class BuildNumberRangeRunSelectorTest {
+
+    @ClassRule
+    public static final JenkinsRule j = new JenkinsRule();
+
+    private static FreeStyleProject jobToSelect;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        jobToSelect = j.createFreeStyleProject();
+        for (int i = 0; i < 6; ++i) {
+            j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0));
+        }
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        assertThat(BuildNumberRange.parse("100", 300).toString(), is("100..100"));
+        assertThat(BuildNumberRange.parse("100-200", 300).toString(), is("100..200"));
+        assertThat(BuildNumberRange.parse("100 .. 200", 300).toString(), is("100..200"));
+        assertThat(BuildNumberRange.parse("100..", 300).toString(), is("100.." + Integer.MAX_VALUE));
+        assertThat(BuildNumberRange.parse("..200", 300).toString(), is("1..200"));
+        assertThat(BuildNumberRange.parse("last-50..last", 300).toString(), is("250..300"));
+        assertThat(BuildNumberRange.parse("<= 200", 300).toString(), is("1..200"));
+        assertThat(BuildNumberRange.parse("<200", 300).toString(), is("1..199"));
+        assertThat(BuildNumberRange.parse("> last-10", 300).toString(), is("291.." + Integer.MAX_VALUE));
+        assertThat(BuildNumberRange.isRelative("last-50..last"), is(true));
+        assertThat(BuildNumberRange.isRelative("100-200"), is(false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseInvalid() throws Exception {
+        BuildNumberRange.parse("100-last", 300);
+    }
+
+    @Test
+    public void testRange() throws Exception {
+        FreeStyleProject selecter = j.createFreeStyleProject();
+        selecter.addProperty(new ParametersDefinitionProperty(new StringParameterDefinition("UPSTREAM_NUMBER", "")));
+        Run<?, ?> run = j.assertBuildStatusSuccess(selecter.scheduleBuild2(
+                0,
+                new Cause.UserCause(),
+                new ParametersAction(new StringParameterValue("UPSTREAM_NUMBER", "2"))
+        ));
+        RunSelectorContext context = new RunSelectorContext(j.jenkins, run, TaskListener.NULL);
+
+        BuildNumberRangeRunSelector selector = new BuildNumberRangeRunSelector("2-4");
+        assertThat(selector.select(jobToSelect, context).getNumber(), is(4));
+        assertThat(selector.selectNext(jobToSelect, context).getNumber(), is(3));
+        assertThat(selector.selectNext(jobToSelect, context).getNumber(), is(2));
+        assertThat(selector.selectNext(jobToSelect, context), nullValue());
+
+        selector = new BuildNumberRangeRunSelector("last-1..last");
+        assertThat(selector.select(jobToSelect, context).getNumber(), is(6));
+        assertThat(selector.selectNext(jobToSelect, context).getNumber(), is(5));
+        assertThat(selector.selectNext(jobToSelect, context), nullValue());
+
+        selector = new BuildNumberRangeRunSelector("<= $UPSTREAM_NUMBER");
+        assertThat(selector.select(jobToSelect, context).getNumber(), is(2));
+        assertThat(selector.selectNext(jobToSelect, context).getNumber(), is(1));
+        assertThat(selector.selectNext(jobToSelect, context), nullValue());
+
+        selector = new BuildNumberRangeRunSelector("100..");
+        assertThat(selector.select(jobToSelect, context), nullValue());
+    }
+
+    @Test
+    public void testFilterStopsEarly() throws Exception {
+        Run<?, ?> run = j.assertBuildStatusSuccess(j.createFreeStyleProject().scheduleBuild2(0));
+        CountingFilter filter = new CountingFilter(">= 4");
+        RunSelectorContext context = new RunSelectorContext(j.jenkins, run, TaskListener.NULL, filter);
+
+        StatusRunSelector selector = new StatusRunSelector(StatusRunSelector.BuildStatus.STABLE);
+        assertThat(selector.select(jobToSelect, context).getNumber(), is(6));
+        assertThat(selector.selectNext(jobToSelect, context).getNumber(), is(5));
+        assertThat(selector.selectNext(jobToSelect, context).getNumber(), is(4));
+        assertThat(selector.selectNext(jobToSelect, context), nullValue());
+        // builds lower than the range are not evaluated.
+        assertThat(filter.evaluated, is(3));
+    }
+
+    private static class CountingFilter extends BuildNumberRangeRunFilter {
+        private int evaluated;
+
+        CountingFilter(String range) {
+            super(range);
+        }
+
+        @Override
+        public boolean isSelectable(@Nonnull Run<?, ?> candidate, @Nonnull RunSelectorContext context) {
+            ++evaluated;
+            return super.isSelectable(candidate, context);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package org.jenkinsci.plugins.runselector.selectors;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Job;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.FailureBuilder;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.UnstableBuilder;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link UnionRunSelector} and {@link IntersectionRunSelector}.
+ */
+public class CombiningRunSelectorTest {
+
+    @ClassRule
+    public static final JenkinsRule j = new JenkinsRule();
+
+    private static FreeStyleProject jobToSelect;
+    private static Run<?, ?> selecter;
+
+    /**
+     * Builds #1 (success), #2 (failure), #3 (unstable), #4 (success), #5 (failure), #6 (success)
+     */
+    @BeforeClass
+    public static void setUp() throws Exception {
+        jobToSelect = j.createFreeStyleProject();
+        j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0));
+        jobToSelect.getBuildersList().add(new FailureBuilder());
+        j.assertBuildStatus(Result.FAILURE, jobToSelect.scheduleBuild2(0).get());
+        jobToSelect.getBuildersList().replace(new UnstableBuilder());
+        j.assertBuildStatus(Result.UNSTABLE, jobToSelect.scheduleBuild2(0).get());
+        jobToSelect.getBuildersList().clear();
+        j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0));
+        jobToSelect.getBuildersList().add(new FailureBuilder());
+        j.assertBuildStatus(Result.FAILURE, jobToSelect.scheduleBuild2(0).get());
+        jobToSelect.getBuildersList().clear();
+        j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0));
+
+        selecter = j.assertBuildStatusSuccess(j.createFreeStyleProject().scheduleBuild2(0));
+    }
+
+    @Test
+    public void testUnion() throws Exception {
+        RunSelector selector = new UnionRunSelector(
+                new StatusRunSelector(StatusRunSelector.BuildStatus.STABLE),
+                new BuildNumberRunSelector("5")
+        );
+        assertThat(numbers(selector), contains(6, 5, 4, 1));
+    }
+
+    @Test
+    public void testUnionSelectsDuplicatesOnce() throws Exception {
+        RunSelector selector = new UnionRunSelector(
+                new StatusRunSelector(StatusRunSelector.BuildStatus.STABLE),
+                new StatusRunSelector(StatusRunSelector.BuildStatus.SUCCESSFUL)
+        );
+        assertThat(numbers(selector), contains(6, 4, 3, 1));
+    }
+
+    @Test
+    public void testUnionAdvancesChildrenLazily() throws Exception {
+        CountingRunSelector any = new CountingRunSelector(StatusRunSelector.BuildStatus.ANY);
+        RunSelector selector = new UnionRunSelector(
+                new StatusRunSelector(StatusRunSelector.BuildStatus.STABLE),
+                any
+        );
+        assertThat(selector.select(jobToSelect, newContext()).getNumber(), is(6));
+        assertThat(any.count, is(1));
+    }
+
+    @Test
+    public void testNestedUnion() throws Exception {
+        RunSelector selector = new UnionRunSelector(
+                new UnionRunSelector(new BuildNumberRunSelector("2"), new BuildNumberRunSelector("5")),
+                new BuildNumberRunSelector("3")
+        );
+        assertThat(numbers(selector), contains(5, 3, 2));
+    }
+
+    @Test
+    public void testIntersection() throws Exception {
+        RunSelector selector = new IntersectionRunSelector(
+                new StatusRunSelector(StatusRunSelector.BuildStatus.SUCCESSFUL),
+                new StatusRunSelector(StatusRunSelector.BuildStatus.STABLE)
+        );
+        assertThat(numbers(selector), contains(6, 4, 1));
+    }
+
+    @Test
+    public void testIntersectionWithSpecificBuild() throws Exception {
+        RunSelector selector = new IntersectionRunSelector(
+                new StatusRunSelector(StatusRunSelector.BuildStatus.ANY),
+                new BuildNumberRunSelector("3")
+        );
+        assertThat(numbers(selector), contains(3));
+    }
+
+    @Test
+    public void testIntersectionWithoutCommonBuilds() throws Exception {
+        RunSelector selector = new IntersectionRunSelector(
+                new StatusRunSelector(StatusRunSelector.BuildStatus.FAILED),
+                new StatusRunSelector(StatusRunSelector.BuildStatus.STABLE)
+        );
+        assertThat(numbers(selector), is(empty()));
+    }
+
+    @Test
+    public void testIntersectionAdvancesChildrenLazily() throws Exception {
+        CountingRunSelector any = new CountingRunSelector(StatusRunSelector.BuildStatus.ANY);
+        RunSelector selector = new IntersectionRunSelector(
+                new BuildNumberRunSelector("4"),
+                any
+        );
+        assertThat(selector.select(jobToSelect, newContext()).getNumber(), is(4));
+        // #6, #5 and #4
+        assertThat(any.count, is(3));
+    }
+
+    /**
+     * Counts enumerated builds.
+     */
+    private static class CountingRunSelector extends StatusRunSelector {
+        int count;
+
+        CountingRunSelector(BuildStatus buildStatus) {
+            super(buildStatus);
+        }
+
+        @Override
+        public Run<?, ?> getNextBuild(@Nonnull Job<?, ?> job, @Nonnull RunSelectorContext context) {
+            ++count;
+            return super.getNextBuild(job, context);
+        }
+    }
+
+    @Nonnull
+    private static RunSelectorContext newContext() throws IOException, InterruptedException {
+        return new RunSelectorContext(j.jenkins, selecter, TaskListener.NULL);
+    }
+
+    @Nonnull
+    private static List<Integer> numbers(@Nonnull RunSelector selector) throws IOException, InterruptedException {
+        List<Integer> numbers = new ArrayList<Integer>();
+        RunSelectorContext context = newContext();
+        for (Run<?, ?> run = selector.select(jobToSelect, context);
+             run != null;
+             run = selector.selectNext(jobToSelect, context)) {
+            numbers.add(run.getNumber());
+        }
+        return numbers;
+    }
+}
@@ -0,0 +1,83 @@
+package org.jenkinsci.plugins.runselector.selectors;
+
+import hudson.Util;
+import hudson.model.FreeStyleProject;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.tasks.ArtifactArchiver;
+import hudson.tasks.Fingerprinter;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.testutils.FileWriteBuilder;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link FingerprintRunSelector}.
+ */
+public class FingerprintRunSelectorTest {
+
+    @ClassRule
+    public static final JenkinsRule j = new JenkinsRule();
+
+    private static FreeStyleProject jobToSelect;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        jobToSelect = j.createFreeStyleProject();
+        jobToSelect.getBuildersList().add(new FileWriteBuilder("artifact.txt", "content-${BUILD_NUMBER}"));
+        jobToSelect.getPublishersList().add(new ArtifactArchiver("artifact.txt"));
+        jobToSelect.getPublishersList().add(new Fingerprinter("", true));
+        for (int i = 0; i < 3; ++i) {
+            j.assertBuildStatusSuccess(jobToSelect.scheduleBuild2(0));
+        }
+    }
+
+    @Test
+    public void testSelectByMd5() throws Exception {
+        Run<?, ?> run = j.assertBuildStatusSuccess(j.createFreeStyleProject().scheduleBuild2(0));
+        RunSelectorContext context = new RunSelectorContext(j.jenkins, run, TaskListener.NULL);
+
+        FingerprintRunSelector selector = new FingerprintRunSelector(Util.getDigestOf("content-2"));
+        assertThat(selector.select(jobToSelect, context).getNumber(), is(2));
+        assertThat(selector.selectNext(jobToSelect, context), nullValue());
+        // cached.
+        assertThat(selector.select(jobToSelect, context).getNumber(), is(2));
+
+        selector = new FingerprintRunSelector(Util.getDigestOf("content-4"));
+        assertThat(selector.select(jobToSelect, context), nullValue());
+    }
+
+    @Test
+    public void testSelectByPath() throws Exception {
+        FreeStyleProject consumer = j.createFreeStyleProject();
+        consumer.getBuildersList().add(new FileWriteBuilder("lib/artifact.txt", "content-3"));
+        Run<?, ?> run = j.assertBuildStatusSuccess(consumer.scheduleBuild2(0));
+        RunSelectorContext context = new RunSelectorContext(j.jenkins, run, TaskListener.NULL);
+
+        FingerprintRunSelector selector = new FingerprintRunSelector("lib/artifact.txt");
+        assertThat(selector.select(jobToSelect, context).getNumber(), is(3));
+
+        selector = new FingerprintRunSelector("lib/missing.txt");
+        assertThat(selector.select(jobToSelect, context), nullValue());
+    }
+
+    @Test
+    public void testSelectFromUser() throws Exception {
+        // records the file produced by jobToSelect.
+        FreeStyleProject user = j.createFreeStyleProject();
+        user.getBuildersList().add(new FileWriteBuilder("artifact.txt", "content-1"));
+        user.getPublishersList().add(new Fingerprinter("artifact.txt", false));
+        Run<?, ?> run = j.assertBuildStatusSuccess(user.scheduleBuild2(0));
+        RunSelectorContext context = new RunSelectorContext(j.jenkins, run, TaskListener.NULL);
+
+        FingerprintRunSelector selector = new FingerprintRunSelector(Util.getDigestOf("content-1"));
+        assertThat(selector.select(user, context), nullValue());
+        assertThat(selector.select(jobToSelect, context).getNumber(), is(1));
+    }
+}
@@ -1,11 +1,24 @@
 package org.jenkinsci.plugins.runselector.selectors;
 
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleBuild;
 import hudson.model.FreeStyleProject;
 import hudson.model.Run;
 import hudson.model.TaskListener;
+import hudson.model.queue.QueueTaskFuture;
+import hudson.tasks.BuildStepDescriptor;
+import hudson.tasks.BuildStepMonitor;
+import hudson.tasks.Notifier;
+import hudson.tasks.Publisher;
+import hudson.util.OneShotEvent;
 import org.apache.commons.lang.RandomStringUtils;
 import org.jenkinsci.plugins.runselector.RunSelector;
 import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.index.BuildIndex;
+import org.jenkinsci.plugins.runselector.index.BuildIndexes;
 import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
 import org.jenkinsci.plugins.workflow.job.WorkflowJob;
 import org.jenkinsci.plugins.workflow.job.WorkflowRun;
@@ -13,6 +26,7 @@ import org.junit.BeforeClass;
 import org.junit.ClassRule;
 import org.junit.Test;
 import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestExtension;
 
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
@@ -99,6 +113,93 @@ public class StatusRunSelectorTest {
         j.assertBuildStatusSuccess(job.scheduleBuild2(0));
     }
 
+    @Test
+    public void testIncremental() throws Exception {
+        assertThat(new StatusRunSelector(StatusRunSelector.BuildStatus.STABLE).isIncremental(), is(true));
+        // subclasses may enumerate builds in other orders, and opt in explicitly.
+        assertThat(new StatusRunSelector(StatusRunSelector.BuildStatus.STABLE) {
+        }.isIncremental(), is(false));
+        assertThat(new StatusRunSelector(StatusRunSelector.BuildStatus.STABLE) {
+            @Override
+            public boolean isIncremental() {
+                return true;
+            }
+        }.isIncremental(), is(true));
+    }
+
+    @Test
+    public void testPostProduction() throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        BuildIndex index = BuildIndexes.get().loadIndex(p);
+        Run<?, ?> selecter = j.assertBuildStatusSuccess(j.createFreeStyleProject().scheduleBuild2(0));
+
+        p.getPublishersList().add(new PostProductionBlocker());
+        PostProductionBlocker.entered = new OneShotEvent();
+        PostProductionBlocker.released = new OneShotEvent();
+        QueueTaskFuture<FreeStyleBuild> future = p.scheduleBuild2(0);
+        PostProductionBlocker.entered.block();
+        try {
+            FreeStyleBuild build = p.getBuildByNumber(2);
+            assertThat(build.isBuilding(), is(false));
+            assertThat(index.isBuildingAt(index.positionOf(2)), is(false));
+            // the same as selections without indexes.
+            for (StatusRunSelector.BuildStatus status : new StatusRunSelector.BuildStatus[]{
+                    StatusRunSelector.BuildStatus.STABLE,
+                    StatusRunSelector.BuildStatus.SUCCESSFUL,
+                    StatusRunSelector.BuildStatus.COMPLETED
+            }) {
+                Run<?, ?> selected = new StatusRunSelector(status).select(
+                        p,
+                        new RunSelectorContext(j.jenkins, selecter, TaskListener.NULL)
+                );
+                assertThat(selected, is((Run) build));
+            }
+        } finally {
+            PostProductionBlocker.released.signal();
+        }
+        j.assertBuildStatusSuccess(future);
+    }
+
+    /**
+     * Blocks builds after they complete, until released.
+     */
+    public static class PostProductionBlocker extends Notifier {
+        private static OneShotEvent entered;
+        private static OneShotEvent released;
+
+        @Override
+        public boolean needsToRunAfterFinalized() {
+            return true;
+        }
+
+        @Override
+        public BuildStepMonitor getRequiredMonitorService() {
+            return BuildStepMonitor.NONE;
+        }
+
+        @Override
+        public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+                throws InterruptedException {
+            entered.signal();
+            released.block();
+            return true;
+        }
+
+        @TestExtension
+        public static class DescriptorImpl extends BuildStepDescriptor<Publisher> {
+            @Override
+            public boolean isApplicable(Class<? extends AbstractProject> jobType) {
+                return true;
+            }
+
+            @Override
+            public String getDisplayName() {
+                return "Post production blocker";
+            }
+        }
+    }
+
     private static void verifySelectedRun(RunSelector selector, Run expectedRun) throws Exception {
         FreeStyleProject selecter = j.createFreeStyleProject();
 
@@ -0,0 +1,103 @@
+package org.jenkinsci.plugins.runselector.steps;
+
+import hudson.model.Result;
+import hudson.model.queue.QueueTaskFuture;
+import org.apache.commons.lang.RandomStringUtils;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import static java.lang.String.format;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for the {@link SelectRunFromJobsStep}.
+ */
+public class SelectRunFromJobsStepTest {
+
+    @ClassRule
+    public static JenkinsRule j = new JenkinsRule();
+
+    @ClassRule
+    public static BuildWatcher watcher = new BuildWatcher();
+
+    @Test
+    public void selectFromMultipleJobs() throws Exception {
+        WorkflowJob stable = createUpstream("currentBuild.result = 'SUCCESS'", Result.SUCCESS);
+        WorkflowJob unstable = createUpstream("currentBuild.result = 'UNSTABLE'", Result.UNSTABLE);
+
+        WorkflowRun run = createWorkflowJobAndRun(format("" +
+                "def runWrappers = selectRunFromJobs targets: [" +
+                "  [job: '%s'], " +
+                "  [job: '%s', selector: [$class: 'StatusRunSelector', buildStatus: 'SUCCESSFUL']]" +
+                "] \n" +
+                "echo 'Stable: ' + runWrappers['%1$s'].number \n" +
+                "echo 'Unstable: ' + runWrappers['%2$s'].number", stable.getFullName(), unstable.getFullName()));
+
+        j.assertBuildStatusSuccess(run);
+        j.assertLogContains("Stable: 1", run);
+        j.assertLogContains("Unstable: 1", run);
+    }
+
+    @Test
+    public void failuresAreReportedPerJob() throws Exception {
+        WorkflowJob stable = createUpstream("currentBuild.result = 'SUCCESS'", Result.SUCCESS);
+        WorkflowJob failed = createUpstream("currentBuild.result = 'FAILURE'", Result.FAILURE);
+
+        WorkflowRun run = createWorkflowJobAndRun(format("" +
+                "def runWrappers = selectRunFromJobs targets: [[job: '%s'], [job: '%s']] \n" +
+                "echo 'Stable: ' + runWrappers['%1$s'].number \n" +
+                "echo 'Failed: ' + runWrappers['%2$s']", stable.getFullName(), failed.getFullName()));
+
+        j.assertBuildStatusSuccess(run);
+        j.assertLogContains("Stable: 1", run);
+        j.assertLogContains("Failed: null", run);
+        j.assertLogContains(format("Unable to find Run for: %s", failed.getFullName()), run);
+    }
+
+    @Test
+    public void failFast() throws Exception {
+        WorkflowJob stable = createUpstream("currentBuild.result = 'SUCCESS'", Result.SUCCESS);
+        WorkflowJob failed = createUpstream("currentBuild.result = 'FAILURE'", Result.FAILURE);
+
+        WorkflowRun run = createWorkflowJobAndRun(format("" +
+                "def runWrappers = selectRunFromJobs targets: [[job: '%s'], [job: '%s']], failFast: true",
+                stable.getFullName(), failed.getFullName()));
+
+        j.assertBuildStatus(Result.FAILURE, run);
+        j.assertLogContains(format("ERROR: Unable to find Run for: %s", failed.getFullName()), run);
+    }
+
+    @Test
+    public void duplicateJob() throws Exception {
+        WorkflowJob stable = createUpstream("currentBuild.result = 'SUCCESS'", Result.SUCCESS);
+
+        WorkflowRun run = createWorkflowJobAndRun(format("" +
+                "def runWrappers = selectRunFromJobs targets: [[job: '%s'], [job: '%1$s']]",
+                stable.getFullName()));
+
+        j.assertBuildStatus(Result.FAILURE, run);
+        j.assertLogContains(format("ERROR: %s is specified more than once", stable.getFullName()), run);
+    }
+
+    private static WorkflowJob createUpstream(String script, Result result) throws Exception {
+        WorkflowJob upstream = j.jenkins.createProject(WorkflowJob.class, RandomStringUtils.randomAlphanumeric(7));
+        upstream.setDefinition(new CpsFlowDefinition(script));
+        j.assertBuildStatus(result, upstream.scheduleBuild2(0).get());
+        return upstream;
+    }
+
+    private static WorkflowRun createWorkflowJobAndRun(String script) throws Exception {
+        WorkflowJob job = j.jenkins.createProject(WorkflowJob.class, RandomStringUtils.randomAlphanumeric(7));
+        job.setDefinition(new CpsFlowDefinition(script));
+        QueueTaskFuture<WorkflowRun> runFuture = job.scheduleBuild2(0);
+        assertThat(runFuture, notNullValue());
+
+        return runFuture.get();
+    }
+}
@@ -0,0 +1,70 @@
+package org.jenkinsci.plugins.runselector.steps;
+
+import hudson.model.Result;
+import hudson.model.queue.QueueTaskFuture;
+import org.apache.commons.lang.RandomStringUtils;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockFolder;
+
+import static java.lang.String.format;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for the {@link SelectRunsFromFolderStep}.
+ */
+public class SelectRunsFromFolderStepTest {
+
+    @ClassRule
+    public static JenkinsRule j = new JenkinsRule();
+
+    @ClassRule
+    public static BuildWatcher watcher = new BuildWatcher();
+
+    @Test
+    public void selectNewestAcrossJobs() throws Exception {
+        MockFolder folder = j.createFolder(RandomStringUtils.randomAlphanumeric(7));
+        WorkflowJob a = folder.createProject(WorkflowJob.class, "a");
+        a.setDefinition(new CpsFlowDefinition("echo 'a'"));
+        WorkflowJob b = folder.createProject(WorkflowJob.class, "b");
+        b.setDefinition(new CpsFlowDefinition("echo 'b'"));
+        j.assertBuildStatusSuccess(a.scheduleBuild2(0));
+        j.assertBuildStatusSuccess(b.scheduleBuild2(0));
+        j.assertBuildStatusSuccess(a.scheduleBuild2(0));
+        j.assertBuildStatusSuccess(b.scheduleBuild2(0));
+
+        WorkflowRun run = createWorkflowJobAndRun(format("" +
+                "def runWrappers = selectRunsFromFolder folder: '%s', limit: 3 \n" +
+                "for (int i = 0; i < runWrappers.size(); i++) { echo 'Selected: ' + runWrappers[i].rawBuild.parent.fullName + ' ' + runWrappers[i].number }",
+                folder.getFullName()));
+
+        j.assertBuildStatusSuccess(run);
+        j.assertLogContains(format("Selected: %s/b 2", folder.getFullName()), run);
+        j.assertLogContains(format("Selected: %s/a 2", folder.getFullName()), run);
+        j.assertLogContains(format("Selected: %s/b 1", folder.getFullName()), run);
+        j.assertLogNotContains(format("Selected: %s/a 1", folder.getFullName()), run);
+    }
+
+    @Test
+    public void missingFolder() throws Exception {
+        WorkflowRun run = createWorkflowJobAndRun("def runWrappers = selectRunsFromFolder 'not-existent' ");
+
+        j.assertBuildStatus(Result.FAILURE, run);
+        j.assertLogContains("ERROR: Unable to find any folder named: not-existent. This may be due to incorrect folder name or permission settings", run);
+    }
+
+    private static WorkflowRun createWorkflowJobAndRun(String script) throws Exception {
+        WorkflowJob job = j.jenkins.createProject(WorkflowJob.class, RandomStringUtils.randomAlphanumeric(7));
+        job.setDefinition(new CpsFlowDefinition(script));
+        QueueTaskFuture<WorkflowRun> runFuture = job.scheduleBuild2(0);
+        assertThat(runFuture, notNullValue());
+
+        return runFuture.get();
+    }
+}
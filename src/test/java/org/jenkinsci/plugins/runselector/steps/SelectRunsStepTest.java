@@ -0,0 +1,106 @@
+package org.jenkinsci.plugins.runselector.steps;
+
+import hudson.model.Result;
+import hudson.model.queue.QueueTaskFuture;
+import org.apache.commons.lang.RandomStringUtils;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import static java.lang.String.format;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for the {@link SelectRunsStep}.
+ */
+public class SelectRunsStepTest {
+
+    @ClassRule
+    public static JenkinsRule j = new JenkinsRule();
+
+    @ClassRule
+    public static BuildWatcher watcher = new BuildWatcher();
+
+    @Test
+    public void selectWithLimit() throws Exception {
+        WorkflowJob upstream = createUpstream();
+
+        WorkflowRun run = createWorkflowJobAndRun(format("" +
+                "def runWrappers = selectRuns job: '%s', " +
+                " selector: [$class: 'StatusRunSelector', buildStatus: 'SUCCESSFUL'], " +
+                " limit: 2 \n" +
+                "def numbers = [] \n" +
+                "for (int i = 0; i < runWrappers.size(); i++) { numbers.add(runWrappers[i].number) } \n" +
+                "echo 'Selected runs: ' + numbers", upstream.getFullName()));
+
+        j.assertBuildStatusSuccess(run);
+        j.assertLogContains("Selected runs: [4, 2]", run);
+    }
+
+    @Test
+    public void selectAll() throws Exception {
+        WorkflowJob upstream = createUpstream();
+
+        WorkflowRun run = createWorkflowJobAndRun(format("" +
+                "def runWrappers = selectRuns job: '%s', " +
+                " selector: [$class: 'StatusRunSelector', buildStatus: 'SUCCESSFUL'] \n" +
+                "def numbers = [] \n" +
+                "for (int i = 0; i < runWrappers.size(); i++) { numbers.add(runWrappers[i].number) } \n" +
+                "echo 'Selected runs: ' + numbers", upstream.getFullName()));
+
+        j.assertBuildStatusSuccess(run);
+        j.assertLogContains("Selected runs: [4, 2, 1]", run);
+    }
+
+    @Test
+    public void noMatchingRuns() throws Exception {
+        WorkflowJob upstream = j.jenkins.createProject(WorkflowJob.class, RandomStringUtils.randomAlphanumeric(7));
+        upstream.setDefinition(new CpsFlowDefinition("currentBuild.result = 'FAILURE'"));
+        j.assertBuildStatus(Result.FAILURE, upstream.scheduleBuild2(0).get());
+
+        WorkflowRun run = createWorkflowJobAndRun(format("" +
+                "def runWrappers = selectRuns '%s' \n" +
+                "echo 'Selected runs: ' + runWrappers.size()", upstream.getFullName()));
+
+        j.assertBuildStatusSuccess(run);
+        j.assertLogContains("Selected runs: 0", run);
+    }
+
+    @Test
+    public void missingProject() throws Exception {
+        WorkflowRun run = createWorkflowJobAndRun("def runWrappers = selectRuns 'not-existent' ");
+
+        j.assertBuildStatus(Result.FAILURE, run);
+        j.assertLogContains("ERROR: Unable to find any job named: not-existent. This may be due to incorrect project name or permission settings", run);
+    }
+
+    /**
+     * @return a job with builds #1 (stable), #2 (unstable), #3 (failure), #4 (stable)
+     */
+    private static WorkflowJob createUpstream() throws Exception {
+        WorkflowJob upstream = j.jenkins.createProject(WorkflowJob.class, RandomStringUtils.randomAlphanumeric(7));
+        upstream.setDefinition(new CpsFlowDefinition("currentBuild.result = 'SUCCESS'"));
+        j.assertBuildStatusSuccess(upstream.scheduleBuild2(0));
+        upstream.setDefinition(new CpsFlowDefinition("currentBuild.result = 'UNSTABLE'"));
+        j.assertBuildStatus(Result.UNSTABLE, upstream.scheduleBuild2(0).get());
+        upstream.setDefinition(new CpsFlowDefinition("currentBuild.result = 'FAILURE'"));
+        j.assertBuildStatus(Result.FAILURE, upstream.scheduleBuild2(0).get());
+        upstream.setDefinition(new CpsFlowDefinition("currentBuild.result = 'SUCCESS'"));
+        j.assertBuildStatusSuccess(upstream.scheduleBuild2(0));
+        return upstream;
+    }
+
+    private static WorkflowRun createWorkflowJobAndRun(String script) throws Exception {
+        WorkflowJob job = j.jenkins.createProject(WorkflowJob.class, RandomStringUtils.randomAlphanumeric(7));
+        job.setDefinition(new CpsFlowDefinition(script));
+        QueueTaskFuture<WorkflowRun> runFuture = job.scheduleBuild2(0);
+        assertThat(runFuture, notNullValue());
+
+        return runFuture.get();
+    }
+}
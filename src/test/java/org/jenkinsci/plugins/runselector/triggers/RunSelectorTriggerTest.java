@@ -0,0 +1,108 @@
+package org.jenkinsci.plugins.runselector.triggers;
+
+import hudson.model.Cause;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.util.FormValidation;
+import org.jenkinsci.plugins.runselector.filters.SavedRunFilter;
+import org.jenkinsci.plugins.runselector.selectors.StatusRunSelector;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.FailureBuilder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import javax.annotation.Nonnull;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link RunSelectorTrigger}.
+ */
+public class RunSelectorTriggerTest {
+
+    @Rule
+    public final JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testStartsOncePerMatchingBuild() throws Exception {
+        FreeStyleProject upstream = j.createFreeStyleProject();
+        FreeStyleProject downstream1 = createDownstream(upstream);
+        FreeStyleProject downstream2 = createDownstream(upstream);
+
+        j.assertBuildStatusSuccess(upstream.scheduleBuild2(0));
+        waitUntilTriggered();
+        assertThat(downstream1.getBuilds().size(), is(1));
+        assertThat(downstream2.getBuilds().size(), is(1));
+        Cause.UpstreamCause cause = downstream1.getLastBuild().getCause(Cause.UpstreamCause.class);
+        assertThat(cause, notNullValue());
+        assertThat(cause.getUpstreamBuild(), is(1));
+
+        // not stable.
+        upstream.getBuildersList().add(new FailureBuilder());
+        j.assertBuildStatus(Result.FAILURE, upstream.scheduleBuild2(0).get());
+        waitUntilTriggered();
+        assertThat(downstream1.getBuilds().size(), is(1));
+        assertThat(downstream2.getBuilds().size(), is(1));
+
+        upstream.getBuildersList().clear();
+        j.assertBuildStatusSuccess(upstream.scheduleBuild2(0));
+        waitUntilTriggered();
+        assertThat(downstream1.getBuilds().size(), is(2));
+        assertThat(downstream1.getLastBuild().getCause(Cause.UpstreamCause.class).getUpstreamBuild(), is(3));
+        assertThat(downstream2.getBuilds().size(), is(2));
+    }
+
+    @Test
+    public void testFilter() throws Exception {
+        FreeStyleProject upstream = j.createFreeStyleProject();
+        FreeStyleProject downstream = j.createFreeStyleProject();
+        RunSelectorTrigger trigger = new RunSelectorTrigger(upstream.getFullName());
+        trigger.setFilter(new SavedRunFilter());
+        downstream.addTrigger(trigger);
+
+        j.assertBuildStatusSuccess(upstream.scheduleBuild2(0));
+        waitUntilTriggered();
+        assertThat(downstream.getLastBuild(), nullValue());
+    }
+
+    @Test
+    public void testStop() throws Exception {
+        FreeStyleProject upstream = j.createFreeStyleProject();
+        FreeStyleProject downstream = createDownstream(upstream);
+        downstream.removeTrigger(j.jenkins.getDescriptorByType(RunSelectorTrigger.DescriptorImpl.class));
+
+        j.assertBuildStatusSuccess(upstream.scheduleBuild2(0));
+        waitUntilTriggered();
+        assertThat(downstream.getLastBuild(), nullValue());
+    }
+
+    @Test
+    public void testCheckUpstreamJob() throws Exception {
+        FreeStyleProject upstream = j.createFreeStyleProject();
+        FreeStyleProject downstream = j.createFreeStyleProject();
+        RunSelectorTrigger.DescriptorImpl d = j.jenkins.getDescriptorByType(RunSelectorTrigger.DescriptorImpl.class);
+        assertThat(d.doCheckUpstreamJob(downstream, upstream.getFullName()).kind, is(FormValidation.Kind.OK));
+        assertThat(d.doCheckUpstreamJob(downstream, "").kind, is(FormValidation.Kind.ERROR));
+        assertThat(d.doCheckUpstreamJob(downstream, "nosuchjob").kind, is(FormValidation.Kind.ERROR));
+    }
+
+    @Nonnull
+    private FreeStyleProject createDownstream(@Nonnull FreeStyleProject upstream) throws Exception {
+        FreeStyleProject downstream = j.createFreeStyleProject();
+        RunSelectorTrigger trigger = new RunSelectorTrigger(upstream.getFullName());
+        trigger.setSelector(new StatusRunSelector(StatusRunSelector.BuildStatus.STABLE));
+        downstream.addTrigger(trigger);
+        return downstream;
+    }
+
+    /**
+     * Waits for triggers evaluated in background, and builds they start.
+     */
+    private void waitUntilTriggered() throws Exception {
+        RunSelectorTriggers.get().awaitPending();
+        j.waitUntilNoActivity();
+    }
+}
@@ -0,0 +1,147 @@
+package org.jenkinsci.plugins.runselector.watermark;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import org.jenkinsci.plugins.runselector.RunFilter;
+import org.jenkinsci.plugins.runselector.RunSelector;
+import org.jenkinsci.plugins.runselector.context.RunSelectorContext;
+import org.jenkinsci.plugins.runselector.filters.DisplayNameRunFilter;
+import org.jenkinsci.plugins.runselector.filters.SavedRunFilter;
+import org.jenkinsci.plugins.runselector.selectors.StatusRunSelector;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link SelectionWatermarks}.
+ */
+public class SelectionWatermarksTest {
+
+    @Rule
+    public final JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void testReusePreviousSelection() throws Exception {
+        FreeStyleProject upstream = j.createFreeStyleProject();
+        for (int i = 0; i < 3; ++i) {
+            j.assertBuildStatusSuccess(upstream.scheduleBuild2(0));
+        }
+        upstream.getBuildByNumber(1).keepLog(true);
+        Run<?, ?> consumer = j.assertBuildStatusSuccess(j.createFreeStyleProject().scheduleBuild2(0));
+
+        RunSelector selector = new StatusRunSelector(StatusRunSelector.BuildStatus.COMPLETED);
+        CountingRunFilter filter = new CountingRunFilter(new SavedRunFilter());
+
+        assertThat(selector.select(upstream, newContext(consumer, filter)).getNumber(), is(1));
+        assertThat(filter.count, is(3));
+        assertThat(SelectionWatermarks.get().size(upstream), is(1));
+
+        // only the new build is examined.
+        j.assertBuildStatusSuccess(upstream.scheduleBuild2(0));
+        filter.count = 0;
+        assertThat(selector.select(upstream, newContext(consumer, filter)).getNumber(), is(1));
+        assertThat(filter.count, is(1));
+
+        // nothing is examined.
+        filter.count = 0;
+        assertThat(selector.select(upstream, newContext(consumer, filter)).getNumber(), is(1));
+        assertThat(filter.count, is(0));
+
+        // keeping a build discards the watermark.
+        upstream.getBuildByNumber(3).keepLog(true);
+        assertThat(SelectionWatermarks.get().size(upstream), is(0));
+        filter.count = 0;
+        assertThat(selector.select(upstream, newContext(consumer, filter)).getNumber(), is(3));
+        assertThat(filter.count, is(2));
+
+        // deleting a build discards the watermark.
+        upstream.getBuildByNumber(3).delete();
+        assertThat(SelectionWatermarks.get().size(upstream), is(0));
+        assertThat(selector.select(upstream, newContext(consumer, filter)).getNumber(), is(1));
+
+        SelectionWatermarks.flush();
+        assertThat(new File(j.jenkins.getRootDir(), SelectionWatermarks.class.getName() + ".xml").exists(), is(true));
+    }
+
+    @Test
+    public void testNoMatch() throws Exception {
+        FreeStyleProject upstream = j.createFreeStyleProject();
+        j.assertBuildStatusSuccess(upstream.scheduleBuild2(0));
+        j.assertBuildStatusSuccess(upstream.scheduleBuild2(0));
+        Run<?, ?> consumer = j.assertBuildStatusSuccess(j.createFreeStyleProject().scheduleBuild2(0));
+
+        RunSelector selector = new StatusRunSelector(StatusRunSelector.BuildStatus.COMPLETED);
+        CountingRunFilter filter = new CountingRunFilter(new SavedRunFilter());
+
+        assertThat(selector.select(upstream, newContext(consumer, filter)), nullValue());
+        assertThat(filter.count, is(2));
+
+        filter.count = 0;
+        assertThat(selector.select(upstream, newContext(consumer, filter)), nullValue());
+        assertThat(filter.count, is(0));
+    }
+
+    @Test
+    public void testDeleteJob() throws Exception {
+        FreeStyleProject upstream = j.createFreeStyleProject();
+        j.assertBuildStatusSuccess(upstream.scheduleBuild2(0));
+        FreeStyleProject consumerJob = j.createFreeStyleProject();
+        Run<?, ?> consumer = j.assertBuildStatusSuccess(consumerJob.scheduleBuild2(0));
+
+        new StatusRunSelector(StatusRunSelector.BuildStatus.COMPLETED).select(upstream, newContext(consumer, new SavedRunFilter()));
+        assertThat(SelectionWatermarks.get().size(upstream), is(1));
+
+        consumerJob.delete();
+        assertThat(SelectionWatermarks.get().size(upstream), is(0));
+    }
+
+    @Test
+    public void testNotIncremental() throws Exception {
+        FreeStyleProject upstream = j.createFreeStyleProject();
+        j.assertBuildStatusSuccess(upstream.scheduleBuild2(0));
+        Run<?, ?> consumer = j.assertBuildStatusSuccess(j.createFreeStyleProject().scheduleBuild2(0));
+
+        // depends on variables of the consumer.
+        RunFilter filter = new DisplayNameRunFilter("${NAME}");
+        assertThat(filter.isIncremental(), is(false));
+        new StatusRunSelector(StatusRunSelector.BuildStatus.COMPLETED).select(upstream, newContext(consumer, filter));
+        assertThat(SelectionWatermarks.get().size(upstream), is(0));
+    }
+
+    /**
+     * Counts evaluations of the wrapped filter.
+     */
+    public static class CountingRunFilter extends RunFilter {
+        private final RunFilter filter;
+        // not to change the configuration.
+        private transient int count;
+
+        public CountingRunFilter(@Nonnull RunFilter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean isSelectable(@Nonnull Run<?, ?> candidate, @Nonnull RunSelectorContext context) {
+            ++count;
+            return filter.evaluate(candidate, context);
+        }
+
+        @Override
+        public boolean isIncremental() {
+            return filter.isIncremental();
+        }
+    }
+
+    @Nonnull
+    private RunSelectorContext newContext(@Nonnull Run<?, ?> consumer, @Nonnull RunFilter filter) {
+        return new RunSelectorContext(j.jenkins, consumer, TaskListener.NULL, filter);
+    }
+}